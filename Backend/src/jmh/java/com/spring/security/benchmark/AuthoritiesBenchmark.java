@@ -0,0 +1,73 @@
+package com.spring.security.benchmark;
+
+import com.spring.security.domain.entity.Permission;
+import com.spring.security.domain.entity.Role;
+import com.spring.security.util.AuthUtil;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Cost of building the granted authorities of a user, done on every login and authenticated
+ * request, by number of roles. Roles share half of their permissions so the de-duplication has work
+ * to do. Standard output is discarded while measuring so console writes do not dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthoritiesBenchmark {
+
+  @Param({"1", "5", "20"})
+  private int roleCount;
+
+  @Param({"10"})
+  private int permissionsPerRole;
+
+  private List<Role> roles;
+  private PrintStream stdout;
+
+  @Setup
+  public void setUp() {
+    roles = new ArrayList<>();
+    for (int r = 0; r < roleCount; r++) {
+      List<Permission> permissions = new ArrayList<>();
+      for (int p = 0; p < permissionsPerRole; p++) {
+        Permission permission = new Permission();
+        permission.setId((long) p);
+        // The first half is common to all roles
+        permission.setName(
+            p < permissionsPerRole / 2 ? "IAM:SHARED:" + p : "IAM:ROLE" + r + ":" + p);
+        permissions.add(permission);
+      }
+      Role role = new Role();
+      role.setId((long) r);
+      role.setName("ROLE" + r);
+      role.setPermissions(permissions);
+      roles.add(role);
+    }
+    stdout = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.setOut(stdout);
+  }
+
+  @Benchmark
+  public List<SimpleGrantedAuthority> getAuthorities() {
+    return AuthUtil.getAuthorities(roles);
+  }
+}
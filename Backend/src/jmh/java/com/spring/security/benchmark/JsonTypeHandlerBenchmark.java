@@ -0,0 +1,100 @@
+package com.spring.security.benchmark;
+
+import com.spring.security.type.handlers.JsonTypeHandler;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.type.JdbcType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of binding a JSON column such as {@code users.additional_attributes} and of reading it back,
+ * by number of attributes. JDBC is replaced by proxies handing the JSON text over, so only the
+ * handler and Jackson are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonTypeHandlerBenchmark {
+
+  @Param({"2", "20"})
+  private int attributeCount;
+
+  private final JsonTypeHandler jsonTypeHandler = new JsonTypeHandler();
+  private Map<String, Object> attributes;
+  private String json;
+  private PreparedStatement preparedStatement;
+  private ResultSet resultSet;
+
+  @Setup
+  public void setUp() throws Exception {
+    attributes = new LinkedHashMap<>();
+    for (int i = 0; i < attributeCount; i++) {
+      attributes.put(
+          "attribute" + i,
+          switch (i % 3) {
+            case 0 -> "value " + i;
+            case 1 -> i;
+            default -> List.of("a", "b", Map.of("nested", true));
+          });
+    }
+
+    String[] bound = new String[1];
+    preparedStatement =
+        proxy(
+            PreparedStatement.class,
+            "setString",
+            args -> {
+              bound[0] = (String) args[1];
+              return null;
+            });
+    jsonTypeHandler.setNonNullParameter(preparedStatement, 1, attributes, JdbcType.OTHER);
+    json = bound[0];
+    resultSet = proxy(ResultSet.class, "getString", args -> json);
+  }
+
+  @Benchmark
+  public PreparedStatement write() throws Exception {
+    jsonTypeHandler.setNonNullParameter(preparedStatement, 1, attributes, JdbcType.OTHER);
+    return preparedStatement;
+  }
+
+  @Benchmark
+  public Map<String, Object> read() throws Exception {
+    return jsonTypeHandler.getNullableResult(resultSet, "additional_attributes");
+  }
+
+  @Benchmark
+  public Map<String, Object> roundTrip() throws Exception {
+    jsonTypeHandler.setNonNullParameter(preparedStatement, 1, attributes, JdbcType.OTHER);
+    return jsonTypeHandler.getNullableResult(resultSet, "additional_attributes");
+  }
+
+  private interface Answer {
+    Object apply(Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, String methodName, Answer answer) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              if (method.getName().equals(methodName)) {
+                return answer.apply(args);
+              }
+              throw new UnsupportedOperationException(method.getName());
+            }));
+  }
+}
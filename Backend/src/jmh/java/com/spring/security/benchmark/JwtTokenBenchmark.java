@@ -0,0 +1,51 @@
+package com.spring.security.benchmark;
+
+import com.spring.security.component.JwtTokenGeneratorImpl;
+import io.jsonwebtoken.Claims;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of issuing a token at login and of verifying it on every authenticated request, with the
+ * claims {@link com.spring.security.service.LoginServiceImpl} puts in a token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenBenchmark {
+
+  private JwtTokenGeneratorImpl jwtTokenGenerator;
+  private Map<String, Object> claims;
+  private String token;
+
+  @Setup
+  public void setUp() throws Exception {
+    jwtTokenGenerator = new JwtTokenGeneratorImpl();
+    // The key is normally injected from jwt.secret.key
+    Field secretKey = JwtTokenGeneratorImpl.class.getDeclaredField("secretKey");
+    secretKey.setAccessible(true);
+    secretKey.set(
+        jwtTokenGenerator,
+        "dGhpcyBpcyBhIHNlY3JldCBrZXkgdGhhdCBpcyByYW5kb20gdGFuZCBsaWZlIFNlY3VyZSBpbiBqd3QgdG9rZW5z");
+    claims = Map.of("isRoot", false, "email", "ada@example.com", "accountId", 42L);
+    token = jwtTokenGenerator.generate(claims);
+  }
+
+  @Benchmark
+  public String generate() throws Exception {
+    return jwtTokenGenerator.generate(claims);
+  }
+
+  @Benchmark
+  public Claims getClaims() throws Exception {
+    return jwtTokenGenerator.getClaims(token);
+  }
+}
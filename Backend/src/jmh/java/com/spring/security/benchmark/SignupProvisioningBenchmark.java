@@ -0,0 +1,156 @@
+package com.spring.security.benchmark;
+
+import com.spring.security.dao.mapper.AccountMapper;
+import com.spring.security.dao.mapper.RoleMapper;
+import com.spring.security.dao.mapper.UserMapper;
+import com.spring.security.domain.entity.Account;
+import com.spring.security.domain.entity.ProvisionedAccount;
+import com.spring.security.domain.entity.Role;
+import com.spring.security.domain.entity.User;
+import com.spring.security.domain.entity.enums.AccountStatus;
+import com.spring.security.domain.entity.enums.AccountType;
+import com.spring.security.domain.entity.enums.UserStatus;
+import com.spring.security.domain.entity.enums.UserType;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Signup throughput against a real PostgreSQL database: the statement chain account creation used
+ * to run (existence checks, account, ROOT role, root user and role link inserted one by one)
+ * against the single provisioning statement. Each signup runs in its own transaction, which is
+ * rolled back so the database does not grow; run with {@code -t} to add concurrent signups.
+ *
+ * <p>The database is taken from the {@code DATASOURCE_URL}, {@code DATASOURCE_USERNAME} and {@code
+ * DATASOURCE_PASSWORD} environment variables like the application, and must have the schema
+ * applied, e.g. by starting the application once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SignupProvisioningBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Database {
+
+    SqlSessionFactory sqlSessionFactory;
+    private PooledDataSource dataSource;
+
+    @Setup
+    public void setUp() {
+      dataSource =
+          new PooledDataSource(
+              "org.postgresql.Driver",
+              env("DATASOURCE_URL", "jdbc:postgresql://localhost:5432/auth"),
+              env("DATASOURCE_USERNAME", "ganesh"),
+              env("DATASOURCE_PASSWORD", "password"));
+      dataSource.setPoolMaximumActiveConnections(64);
+
+      Configuration configuration =
+          new Configuration(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+      configuration.addMapper(AccountMapper.class);
+      configuration.addMapper(RoleMapper.class);
+      configuration.addMapper(UserMapper.class);
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @TearDown
+    public void tearDown() {
+      dataSource.forceCloseAll();
+    }
+
+    private static String env(String name, String defaultValue) {
+      String value = System.getenv(name);
+      return value == null ? defaultValue : value;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Signup {
+
+    SqlSession session;
+    Account account;
+    User user;
+
+    @Setup(Level.Invocation)
+    public void setUp(Database database) {
+      session = database.sqlSessionFactory.openSession(false);
+
+      String suffix = UUID.randomUUID().toString();
+      account = new Account();
+      account.setName("bench-" + suffix);
+      account.setDescription("Benchmark account");
+      account.setType(AccountType.ORGANIZATION);
+      account.setStatus(AccountStatus.CREATED);
+
+      user = new User();
+      user.setFirstName("Ada");
+      user.setLastName("Lovelace");
+      user.setEmail("root-" + suffix + "@example.com");
+      user.setType(UserType.PASSWORD);
+      user.setStatus(UserStatus.CREATED);
+      user.setIsRoot(true);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      session.rollback(true);
+      session.close();
+    }
+  }
+
+  @Benchmark
+  public Long statementChain(Signup signup) {
+    AccountMapper accountMapper = signup.session.getMapper(AccountMapper.class);
+    RoleMapper roleMapper = signup.session.getMapper(RoleMapper.class);
+    UserMapper userMapper = signup.session.getMapper(UserMapper.class);
+
+    if (accountMapper.findByName(signup.account.getName()) != null) {
+      throw new IllegalStateException("Account exists");
+    }
+    accountMapper.create(signup.account);
+    Long accountId = signup.account.getId();
+
+    if (roleMapper.findByNameAndAccountId("ROOT", accountId) != null) {
+      throw new IllegalStateException("Role exists");
+    }
+    Role role = new Role();
+    role.setName("ROOT");
+    role.setDescription("Root role with all permissions");
+    role.setAccountId(accountId);
+    Role rootRole = roleMapper.create(role);
+
+    if (userMapper.findByAccountIdAndEmail(accountId, signup.user.getEmail()) != null) {
+      throw new IllegalStateException("User exists");
+    }
+    signup.user.setAccountId(accountId);
+    userMapper.create(signup.user);
+    userMapper.insertUserRoles(signup.user.getId(), List.of(rootRole.getId()));
+    return signup.user.getId();
+  }
+
+  @Benchmark
+  public Long provisioningStatement(Signup signup) {
+    ProvisionedAccount provisioned =
+        signup
+            .session
+            .getMapper(UserMapper.class)
+            .provisionAccountWithRootUser(signup.account, signup.user);
+    return provisioned.getRootUserId();
+  }
+}
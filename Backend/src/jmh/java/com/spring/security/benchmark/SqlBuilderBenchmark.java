@@ -0,0 +1,84 @@
+package com.spring.security.benchmark;
+
+import com.spring.security.dao.UpdateQueryBuilder;
+import com.spring.security.dao.mapper.UserSqlProvider;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of generating SQL at call time: the dynamic UPDATE of {@link UpdateQueryBuilder} by number
+ * of updated columns, and the user-with-roles-and-permissions SELECT of {@link UserSqlProvider}
+ * that MyBatis regenerates on every lookup. Standard output is discarded while measuring so console
+ * writes do not dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SqlBuilderBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Update {
+
+    @Param({"1", "5", "12"})
+    private int columnCount;
+
+    private final UpdateQueryBuilder updateQueryBuilder = new UpdateQueryBuilder();
+    private Map<String, Object> updates;
+    private Map<String, Object> conditions;
+
+    @Setup
+    public void setUp() {
+      // Mix the value kinds the builder distinguishes: literals, functions, column refs, numbers
+      updates = new LinkedHashMap<>();
+      for (int i = 0; i < columnCount; i++) {
+        updates.put(
+            "column_" + i,
+            switch (i % 4) {
+              case 0 -> "value " + i;
+              case 1 -> "CURRENT_TIMESTAMP";
+              case 2 -> "$col:current_login";
+              default -> i;
+            });
+      }
+      conditions = new LinkedHashMap<>();
+      conditions.put("id", 1001L);
+      conditions.put("account_id", 42L);
+    }
+  }
+
+  private final UserSqlProvider userSqlProvider = new UserSqlProvider();
+  private PrintStream stdout;
+
+  @Setup
+  public void setUp() {
+    stdout = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.setOut(stdout);
+  }
+
+  @Benchmark
+  public String update(Update update) {
+    return update.updateQueryBuilder.update("users", update.updates, update.conditions);
+  }
+
+  @Benchmark
+  public String findByEmailAndAccountId() {
+    return userSqlProvider.findByEmailAndAccountId(42L, "ada@example.com");
+  }
+}
@@ -0,0 +1,56 @@
+package com.spring.security.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of matching the request path against the excluded paths, paid by {@link JwtFilter} on every
+ * request. The last path matches none of them and is checked against all five patterns. Lives in
+ * the filter package to reach the protected {@code shouldNotFilter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtFilterPathMatchBenchmark {
+
+  @Param({
+    "/api/v1/auth/login",
+    "/api/v1/accounts/42/users/set-password",
+    "/api/v1/otp/validate",
+    "/api/v1/accounts/42/users/list"
+  })
+  private String path;
+
+  private JwtFilter jwtFilter;
+  private HttpServletRequest request;
+
+  @Setup
+  public void setUp() {
+    jwtFilter = new JwtFilter(null, null);
+    request =
+        (HttpServletRequest)
+            Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class},
+                (proxy, method, args) -> {
+                  if (method.getName().equals("getServletPath")) {
+                    return path;
+                  }
+                  throw new UnsupportedOperationException(method.getName());
+                });
+  }
+
+  @Benchmark
+  public boolean shouldNotFilter() {
+    return jwtFilter.shouldNotFilter(request);
+  }
+}
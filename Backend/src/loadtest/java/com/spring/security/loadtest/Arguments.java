@@ -0,0 +1,37 @@
+package com.spring.security.loadtest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/** Parses the {@code --name=value} arguments of the load-testing tools. */
+final class Arguments {
+
+  private Arguments() {}
+
+  /**
+   * Parses the arguments into a map from name to value.
+   *
+   * @param args the command-line arguments
+   * @param known the accepted names
+   * @return the values by name
+   * @throws IllegalArgumentException if an argument is malformed or its name is not known
+   */
+  static Map<String, String> parse(String[] args, Set<String> known) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value, got " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    Set<String> unknown = new HashSet<>(values.keySet());
+    unknown.removeAll(known);
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options " + unknown + ", expected " + known);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,72 @@
+package com.spring.security.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Streams rows into a table with {@code COPY ... FROM STDIN} in CSV format, buffering them into
+ * large chunks. Only one copy can be open per connection at a time.
+ */
+final class CopyWriter implements AutoCloseable {
+
+  private static final int FLUSH_THRESHOLD = 1 << 16;
+
+  private final CopyIn copyIn;
+  private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+  private long rows;
+  private boolean finished;
+
+  CopyWriter(CopyManager copyManager, String table, String columns) throws SQLException {
+    this.copyIn =
+        copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN (FORMAT csv)");
+  }
+
+  /** Appends a row; null values are written as SQL NULL. */
+  void row(Object... values) throws SQLException {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      Object value = values[i];
+      if (value instanceof String text) {
+        // Quoted, so empty strings stay distinct from NULL
+        buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+      } else if (value != null) {
+        buffer.append(value);
+      }
+    }
+    buffer.append('\n');
+    rows++;
+    if (buffer.length() >= FLUSH_THRESHOLD) {
+      flush();
+    }
+  }
+
+  /**
+   * Sends the remaining rows and completes the copy.
+   *
+   * @return the number of rows copied
+   */
+  long finish() throws SQLException {
+    flush();
+    copyIn.endCopy();
+    finished = true;
+    return rows;
+  }
+
+  private void flush() throws SQLException {
+    byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    copyIn.writeToCopy(bytes, 0, bytes.length);
+    buffer.setLength(0);
+  }
+
+  /** Cancels the copy unless it was finished, so the connection can be used again. */
+  @Override
+  public void close() throws SQLException {
+    if (!finished && copyIn.isActive()) {
+      copyIn.cancelCopy();
+    }
+  }
+}
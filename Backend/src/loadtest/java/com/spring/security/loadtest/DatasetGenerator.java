@@ -0,0 +1,416 @@
+package com.spring.security.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Bulk-loads a synthetic multi-tenant dataset with {@code COPY}: accounts of Zipf-distributed size,
+ * roles with random permission sets, users with a geometrically skewed number of roles, OTP rows
+ * (half of them expired) and activity history. Accounts are loaded in chunks, one transaction per
+ * chunk, with the IDs of each chunk reserved from the table sequences up front so child rows can
+ * reference their parents without reading anything back.
+ *
+ * <p>Every value derives from the seed, per account and table, so the same options always produce
+ * the same data; on an empty database even the IDs match. The database must have the schema and the
+ * permission catalog applied (start the application once) and should be idle while loading. All
+ * users share the password {@value #PASSWORD}.
+ *
+ * <p>Run with {@code ./gradlew generateDataset -PdatasetArgs="--accounts=10000 --users=1000000
+ * --activity-logs=100000000"}; see {@link DatasetOptions} for the settings.
+ */
+public final class DatasetGenerator {
+
+  static final String PASSWORD = "Synthetic#2024";
+
+  private static final String[] ACTIONS = {"LOGIN", "LOGIN", "LOGIN", "CREATE", "UPDATE", "DELETE"};
+  private static final String[] ENTITY_TYPES = {"USER", "ROLE", "ACCOUNT", "PERMISSION"};
+  private static final String[] USER_AGENTS = {
+    "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/126.0",
+    "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_5) Safari/605.1.15",
+    "Mozilla/5.0 (X11; Linux x86_64) Firefox/127.0",
+    "curl/8.7.1"
+  };
+
+  // Salts separating the random streams of the tables of one account
+  private static final int ACCOUNTS = 1;
+  private static final int ROLES = 2;
+  private static final int USERS = 3;
+  private static final int USER_ROLES = 4;
+  private static final int OTPS = 5;
+  private static final int ACTIVITY = 6;
+
+  private final DatasetOptions options;
+  private final String passwordHash;
+  private final long[] userCounts;
+  private final long[] activityCounts;
+
+  private DatasetGenerator(DatasetOptions options) {
+    this.options = options;
+    // Cost 4 rather than the application's 12: the hash is verified on every synthetic login
+    this.passwordHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+    if (options.users() < options.accounts()) {
+      throw new IllegalArgumentException("Need at least one user per account");
+    }
+    double[] weights = new double[options.accounts()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = 1 / Math.pow(i + 1, options.tenantSkew());
+    }
+    long[] extraUsers = distribute(options.users() - options.accounts(), weights);
+    this.userCounts = new long[options.accounts()];
+    double[] userWeights = new double[options.accounts()];
+    for (int i = 0; i < userCounts.length; i++) {
+      userCounts[i] = 1 + extraUsers[i];
+      userWeights[i] = userCounts[i];
+    }
+    this.activityCounts = distribute(options.activityLogs(), userWeights);
+  }
+
+  public static void main(String[] args) throws Exception {
+    DatasetOptions options = DatasetOptions.parse(args);
+    try (Connection connection =
+        DriverManager.getConnection(options.url(), options.username(), options.password())) {
+      connection.setAutoCommit(false);
+      new DatasetGenerator(options).load(connection);
+    }
+  }
+
+  private void load(Connection connection) throws SQLException {
+    String prefix = "synthetic-" + options.seed() + "-";
+    if (exists(connection, prefix)) {
+      throw new IllegalStateException(
+          "Accounts named " + prefix + "* already exist; use another --seed or drop them first");
+    }
+    List<Long> permissionIds = new ArrayList<>();
+    try (PreparedStatement statement =
+            connection.prepareStatement("SELECT id FROM permissions ORDER BY id");
+        ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        permissionIds.add(resultSet.getLong(1));
+      }
+    }
+    if (permissionIds.isEmpty()) {
+      throw new IllegalStateException("The permission catalog is empty; apply db/data.sql first");
+    }
+
+    CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    long started = System.nanoTime();
+    long rows = 0;
+    for (int from = 0; from < options.accounts(); from += options.chunkSize()) {
+      int to = Math.min(from + options.chunkSize(), options.accounts());
+      rows += loadChunk(connection, copyManager, prefix, from, to, permissionIds);
+      connection.commit();
+      double seconds = (System.nanoTime() - started) / 1e9;
+      System.out.printf(
+          "%d/%d accounts, %d rows, %.0f rows/s%n", to, options.accounts(), rows, rows / seconds);
+    }
+
+    connection.setAutoCommit(true);
+    try (PreparedStatement analyze =
+        connection.prepareStatement(
+            "ANALYZE accounts, roles, role_permissions, users, user_roles, otp_codes, "
+                + "activity_logs, account_stats")) {
+      analyze.execute();
+    }
+  }
+
+  private long loadChunk(
+      Connection connection,
+      CopyManager copyManager,
+      String prefix,
+      int from,
+      int to,
+      List<Long> permissionIds)
+      throws SQLException {
+    int accounts = to - from;
+    long users = 0;
+    long otps = 0;
+    long activity = 0;
+    for (int i = from; i < to; i++) {
+      users += userCounts[i];
+      otps += otpCount(i);
+      activity += activityCounts[i];
+    }
+    long firstAccountId = reserve(connection, "accounts", accounts);
+    long firstRoleId = reserve(connection, "roles", (long) accounts * options.rolesPerAccount());
+    long firstUserId = reserve(connection, "users", users);
+    long firstOtpId = reserve(connection, "otp_codes", otps);
+    long firstActivityId = reserve(connection, "activity_logs", activity);
+
+    // The first ID of each account's users, by account offset within the chunk
+    long[] userIdStarts = new long[accounts];
+    long next = firstUserId;
+    for (int a = 0; a < accounts; a++) {
+      userIdStarts[a] = next;
+      next += userCounts[from + a];
+    }
+
+    long rows = 0;
+    try (CopyWriter out =
+        new CopyWriter(
+            copyManager,
+            "accounts",
+            "id, name, description, type, status, created_at, created_by")) {
+      for (int a = 0; a < accounts; a++) {
+        int index = from + a;
+        SplittableRandom random = random(index, ACCOUNTS);
+        out.row(
+            firstAccountId + a,
+            prefix + index,
+            "Synthetic tenant " + index,
+            random.nextInt(4) == 0 ? "INDIVIDUAL" : "ORGANIZATION",
+            random.nextInt(50) == 0 ? "SUSPENDED" : "ACTIVE",
+            pastInstant(random),
+            "generator");
+      }
+      rows += out.finish();
+    }
+
+    try (CopyWriter out =
+        new CopyWriter(
+            copyManager, "roles", "id, name, description, account_id, created_at, created_by")) {
+      for (int a = 0; a < accounts; a++) {
+        SplittableRandom random = random(from + a, ROLES);
+        for (int r = 0; r < options.rolesPerAccount(); r++) {
+          out.row(
+              roleId(firstRoleId, a, r),
+              r == 0 ? "ADMIN" : "ROLE_" + r,
+              r == 0 ? "Every permission" : "Synthetic role " + r,
+              firstAccountId + a,
+              pastInstant(random),
+              "generator");
+        }
+      }
+      rows += out.finish();
+    }
+
+    try (CopyWriter out =
+        new CopyWriter(copyManager, "role_permissions", "role_id, permission_id")) {
+      List<Long> shuffled = new ArrayList<>(permissionIds);
+      for (int a = 0; a < accounts; a++) {
+        SplittableRandom random = random(from + a, ROLES);
+        for (int r = 0; r < options.rolesPerAccount(); r++) {
+          int size = r == 0 ? permissionIds.size() : 1 + random.nextInt(permissionIds.size());
+          shuffle(shuffled, random);
+          for (int p = 0; p < size; p++) {
+            out.row(roleId(firstRoleId, a, r), shuffled.get(p));
+          }
+        }
+      }
+      rows += out.finish();
+    }
+
+    try (CopyWriter out =
+        new CopyWriter(
+            copyManager,
+            "users",
+            "id, first_name, last_name, email, password, type, status, account_id, "
+                + "failed_login_attempts, created_at, created_by, is_root")) {
+      for (int a = 0; a < accounts; a++) {
+        int index = from + a;
+        SplittableRandom random = random(index, USERS);
+        for (long u = 0; u < userCounts[index]; u++) {
+          int roll = random.nextInt(100);
+          out.row(
+              userIdStarts[a] + u,
+              "User",
+              String.valueOf(u),
+              email(index, u),
+              passwordHash,
+              "PASSWORD",
+              u == 0 || roll < 90 ? "ACTIVE" : roll < 95 ? "INACTIVE" : "CREATED",
+              firstAccountId + a,
+              random.nextInt(20) == 0 ? 1 + random.nextInt(5) : 0,
+              pastInstant(random),
+              "generator",
+              u == 0);
+        }
+      }
+      rows += out.finish();
+    }
+
+    try (CopyWriter out = new CopyWriter(copyManager, "user_roles", "user_id, role_id")) {
+      int assignable = options.rolesPerAccount() - 1;
+      int cap = Math.min(options.maxRolesPerUser(), assignable);
+      int[] chosen = new int[Math.max(cap, 0)];
+      for (int a = 0; a < accounts; a++) {
+        int index = from + a;
+        SplittableRandom random = random(index, USER_ROLES);
+        // The first user of each account is its root and holds the ADMIN role
+        out.row(userIdStarts[a], roleId(firstRoleId, a, 0));
+        for (long u = 1; u < userCounts[index] && cap > 0; u++) {
+          // Half the users have one role, a quarter two, and so on up to the cap
+          int count = 1;
+          while (count < cap && random.nextBoolean()) {
+            count++;
+          }
+          for (int k = 0; k < count; k++) {
+            int role;
+            do {
+              role = 1 + random.nextInt(assignable);
+            } while (contains(chosen, k, role));
+            chosen[k] = role;
+            out.row(userIdStarts[a] + u, roleId(firstRoleId, a, role));
+          }
+        }
+      }
+      rows += out.finish();
+    }
+
+    try (CopyWriter out =
+        new CopyWriter(
+            copyManager, "otp_codes", "id, user_id, email, otp, created_at, expires_at, used")) {
+      long id = firstOtpId;
+      Instant until = options.until();
+      for (int a = 0; a < accounts; a++) {
+        int index = from + a;
+        SplittableRandom random = random(index, OTPS);
+        long count = otpCount(index);
+        for (long o = 0; o < count; o++) {
+          long u = random.nextLong(userCounts[index]);
+          boolean expired = o % 2 == 1;
+          out.row(
+              id++,
+              userIdStarts[a] + u,
+              // Unique per row: otp_codes holds one OTP per email
+              "otp" + o + "." + email(index, u),
+              String.valueOf(100_000 + random.nextInt(900_000)),
+              until.minusSeconds(expired ? 3600 : 60),
+              until.plusSeconds(expired ? -3000 : 540),
+              false);
+        }
+      }
+      rows += out.finish();
+    }
+
+    try (CopyWriter out =
+        new CopyWriter(
+            copyManager,
+            "activity_logs",
+            "id, user_id, user_email, account_id, action, entity_type, entity_id, description, "
+                + "ip_address, user_agent, created_at")) {
+      long id = firstActivityId;
+      for (int a = 0; a < accounts; a++) {
+        int index = from + a;
+        SplittableRandom random = random(index, ACTIVITY);
+        for (long l = 0; l < activityCounts[index]; l++) {
+          long u = random.nextLong(userCounts[index]);
+          String action = ACTIONS[random.nextInt(ACTIONS.length)];
+          out.row(
+              id++,
+              userIdStarts[a] + u,
+              email(index, u),
+              firstAccountId + a,
+              action,
+              action.equals("LOGIN") ? "USER" : ENTITY_TYPES[random.nextInt(ENTITY_TYPES.length)],
+              userIdStarts[a] + random.nextLong(userCounts[index]),
+              "Synthetic " + action.toLowerCase() + " activity",
+              "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256),
+              USER_AGENTS[random.nextInt(USER_AGENTS.length)],
+              pastInstant(random));
+        }
+      }
+      rows += out.finish();
+    }
+    return rows;
+  }
+
+  /**
+   * Reserves a contiguous block of IDs from the sequence of a table by moving the sequence past it,
+   * and returns the first ID of the block.
+   */
+  private static long reserve(Connection connection, String table, long count) throws SQLException {
+    if (count == 0) {
+      return 0;
+    }
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "SELECT setval(pg_get_serial_sequence(?, 'id'), "
+                + "nextval(pg_get_serial_sequence(?, 'id')) + ? - 1)")) {
+      statement.setString(1, table);
+      statement.setString(2, table);
+      statement.setLong(3, count);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getLong(1) - count + 1;
+      }
+    }
+  }
+
+  private static boolean exists(Connection connection, String prefix) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT EXISTS (SELECT 1 FROM accounts WHERE name LIKE ?)")) {
+      statement.setString(1, prefix + "%");
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getBoolean(1);
+      }
+    }
+  }
+
+  /** Splits {@code total} in proportion to the weights, rounding cumulatively to keep the sum. */
+  private static long[] distribute(long total, double[] weights) {
+    double sum = 0;
+    for (double weight : weights) {
+      sum += weight;
+    }
+    long[] shares = new long[weights.length];
+    double cumulative = 0;
+    long assigned = 0;
+    for (int i = 0; i < weights.length; i++) {
+      cumulative += weights[i];
+      long upTo = Math.round(total * (cumulative / sum));
+      shares[i] = upTo - assigned;
+      assigned = upTo;
+    }
+    return shares;
+  }
+
+  private SplittableRandom random(int accountIndex, int table) {
+    return new SplittableRandom(
+        options.seed() * 0x9E3779B97F4A7C15L + accountIndex * 0xC2B2AE3D27D4EB4FL + table);
+  }
+
+  private long otpCount(int accountIndex) {
+    return (long) (userCounts[accountIndex] * options.otpFraction());
+  }
+
+  private Instant pastInstant(SplittableRandom random) {
+    return options
+        .until()
+        .minusSeconds(random.nextLong(Math.max(1, options.history().toSeconds())));
+  }
+
+  private long roleId(long firstRoleId, int accountOffset, int role) {
+    return firstRoleId + (long) accountOffset * options.rolesPerAccount() + role;
+  }
+
+  private String email(int accountIndex, long user) {
+    return "user" + user + "@account" + accountIndex + ".s" + options.seed() + ".example";
+  }
+
+  private static void shuffle(List<Long> list, SplittableRandom random) {
+    for (int i = list.size() - 1; i > 0; i--) {
+      Collections.swap(list, i, random.nextInt(i + 1));
+    }
+  }
+
+  private static boolean contains(int[] values, int length, int value) {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,86 @@
+package com.spring.security.loadtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of the synthetic dataset, parsed from {@code --name=value} arguments. The database
+ * connection defaults to the {@code DATASOURCE_*} environment variables the application uses.
+ *
+ * @param url the JDBC URL of the database to load
+ * @param username the database user
+ * @param password the database password
+ * @param accounts the number of accounts
+ * @param users the total number of users across all accounts
+ * @param tenantSkew the Zipf exponent of account sizes; 0 gives equal sizes
+ * @param rolesPerAccount the number of roles per account, the first one holding every permission
+ * @param maxRolesPerUser the cap of the geometrically distributed number of roles per user
+ * @param otpFraction the fraction of users with an OTP row, half of them expired at {@code until}
+ * @param activityLogs the total number of activity log rows, spread in proportion to users
+ * @param history the period activity and creation times are spread over
+ * @param until the end of that period; defaults to the start of the current UTC day
+ * @param chunkSize the number of accounts loaded per transaction
+ * @param seed the seed all generated values derive from
+ */
+record DatasetOptions(
+    String url,
+    String username,
+    String password,
+    int accounts,
+    long users,
+    double tenantSkew,
+    int rolesPerAccount,
+    int maxRolesPerUser,
+    double otpFraction,
+    long activityLogs,
+    Duration history,
+    Instant until,
+    int chunkSize,
+    long seed) {
+
+  private static final Set<String> KNOWN =
+      Set.of(
+          "url",
+          "username",
+          "password",
+          "accounts",
+          "users",
+          "tenant-skew",
+          "roles-per-account",
+          "max-roles-per-user",
+          "otp-fraction",
+          "activity-logs",
+          "history",
+          "until",
+          "chunk-size",
+          "seed");
+
+  static DatasetOptions parse(String[] args) {
+    Map<String, String> values = Arguments.parse(args, KNOWN);
+    return new DatasetOptions(
+        values.getOrDefault("url", env("DATASOURCE_URL", "jdbc:postgresql://localhost:5432/auth")),
+        values.getOrDefault("username", env("DATASOURCE_USERNAME", "ganesh")),
+        values.getOrDefault("password", env("DATASOURCE_PASSWORD", "password")),
+        Integer.parseInt(values.getOrDefault("accounts", "100")),
+        Long.parseLong(values.getOrDefault("users", "10000")),
+        Double.parseDouble(values.getOrDefault("tenant-skew", "1.0")),
+        Integer.parseInt(values.getOrDefault("roles-per-account", "12")),
+        Integer.parseInt(values.getOrDefault("max-roles-per-user", "8")),
+        Double.parseDouble(values.getOrDefault("otp-fraction", "0.02")),
+        Long.parseLong(values.getOrDefault("activity-logs", "100000")),
+        Duration.parse(values.getOrDefault("history", "P180D")),
+        values.containsKey("until")
+            ? Instant.parse(values.get("until"))
+            : Instant.now().truncatedTo(ChronoUnit.DAYS),
+        Integer.parseInt(values.getOrDefault("chunk-size", "500")),
+        Long.parseLong(values.getOrDefault("seed", "42")));
+  }
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value == null ? defaultValue : value;
+  }
+}
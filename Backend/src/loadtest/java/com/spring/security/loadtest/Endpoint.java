@@ -0,0 +1,29 @@
+package com.spring.security.loadtest;
+
+/** The endpoints the load generator drives, by the names used in {@code --mix}. */
+enum Endpoint {
+  LOGIN("login"),
+  WHOAMI("whoami"),
+  LIST_USERS("listUsers"),
+  UPDATE_ROLES("updateRoles"),
+  OTP_VALIDATE("otpValidate");
+
+  private final String mixName;
+
+  Endpoint(String mixName) {
+    this.mixName = mixName;
+  }
+
+  String mixName() {
+    return mixName;
+  }
+
+  static Endpoint byName(String mixName) {
+    for (Endpoint endpoint : values()) {
+      if (endpoint.mixName.equals(mixName)) {
+        return endpoint;
+      }
+    }
+    throw new IllegalArgumentException("Unknown endpoint " + mixName);
+  }
+}
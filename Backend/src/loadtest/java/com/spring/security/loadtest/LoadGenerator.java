@@ -0,0 +1,143 @@
+package com.spring.security.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Open-model load generator. Requests arrive as a Poisson process at the configured rate whether or
+ * not earlier requests have completed, each on its own virtual thread, so a slow server faces a
+ * growing queue just as it would in production instead of slowing the generator down.
+ *
+ * <p>Latency is measured from the scheduled arrival time rather than from when the request was
+ * actually sent, which keeps generator hiccups from hiding queueing delay (coordinated omission).
+ * Latencies are recorded in microseconds per endpoint; every second the interval histograms are
+ * appended to an HdrHistogram log and added to the run totals.
+ */
+final class LoadGenerator {
+
+  private final HttpClient client;
+  private final Traffic traffic;
+  private final LoadTestOptions options;
+
+  private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+  private final Map<Endpoint, Histogram> totals = new EnumMap<>(Endpoint.class);
+  private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+  private final Map<Endpoint, LongAdder> dropped = new EnumMap<>(Endpoint.class);
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  LoadGenerator(HttpClient client, Traffic traffic, LoadTestOptions options) {
+    this.client = client;
+    this.traffic = traffic;
+    this.options = options;
+    for (Endpoint endpoint : Endpoint.values()) {
+      recorders.put(endpoint, new Recorder(3));
+      totals.put(endpoint, new Histogram(3));
+      errors.put(endpoint, new LongAdder());
+      dropped.put(endpoint, new LongAdder());
+    }
+  }
+
+  /**
+   * Runs the warmup and the measured period and returns the measured results.
+   *
+   * @param logWriter the log the interval histograms are appended to
+   * @return the latency totals and error counts of the measured period
+   */
+  LoadResult run(HistogramLogWriter logWriter) {
+    Random random = new Random(options.seed());
+    long start = System.nanoTime();
+    long measureFrom = start + options.warmup().toNanos();
+    long end = measureFrom + options.duration().toNanos();
+
+    ScheduledExecutorService intervals =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable ->
+                Thread.ofPlatform().daemon().name("loadtest-intervals").unstarted(runnable));
+    intervals.scheduleAtFixedRate(() -> collect(logWriter), 1, 1, TimeUnit.SECONDS);
+
+    // close() waits for the outstanding requests, which are bounded by the request timeout
+    try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+      long next = start;
+      while (next < end) {
+        long wait = next - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        Endpoint endpoint = traffic.pick(random);
+        HttpRequest request = traffic.request(endpoint, random);
+        long scheduledAt = next;
+        boolean measured = scheduledAt >= measureFrom;
+
+        if (inFlight.incrementAndGet() > options.maxInFlight()) {
+          // The server has fallen too far behind; count the arrival instead of piling on
+          inFlight.decrementAndGet();
+          if (measured) {
+            dropped.get(endpoint).increment();
+          }
+        } else {
+          requests.execute(() -> send(endpoint, request, scheduledAt, measured));
+        }
+        next += (long) (-Math.log(1 - random.nextDouble()) / options.rate() * 1e9);
+      }
+    }
+
+    intervals.shutdownNow();
+    collect(logWriter);
+    return new LoadResult(totals, count(errors), count(dropped), options.duration());
+  }
+
+  private void send(Endpoint endpoint, HttpRequest request, long scheduledAt, boolean measured) {
+    try {
+      HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+      long latencyMicros = (System.nanoTime() - scheduledAt) / 1_000;
+      if (!measured) {
+        return;
+      }
+      if (response.statusCode() / 100 == 2) {
+        recorders.get(endpoint).recordValue(latencyMicros);
+      } else {
+        errors.get(endpoint).increment();
+      }
+    } catch (IOException e) {
+      if (measured) {
+        errors.get(endpoint).increment();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  private synchronized void collect(HistogramLogWriter logWriter) {
+    for (Endpoint endpoint : Endpoint.values()) {
+      Histogram interval = recorders.get(endpoint).getIntervalHistogram();
+      if (interval.getTotalCount() > 0) {
+        interval.setTag(endpoint.mixName());
+        logWriter.outputIntervalHistogram(interval);
+        totals.get(endpoint).add(interval);
+      }
+    }
+  }
+
+  private static Map<Endpoint, Long> count(Map<Endpoint, LongAdder> counters) {
+    Map<Endpoint, Long> counts = new EnumMap<>(Endpoint.class);
+    counters.forEach((endpoint, counter) -> counts.put(endpoint, counter.sum()));
+    return counts;
+  }
+}
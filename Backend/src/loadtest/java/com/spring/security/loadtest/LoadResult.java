@@ -0,0 +1,78 @@
+package com.spring.security.loadtest;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Results of the measured period of a run.
+ *
+ * @param latencies the latencies of successful requests per endpoint, in microseconds
+ * @param errors the number of failed or non-2xx requests per endpoint
+ * @param dropped the number of arrivals not sent because too many requests were outstanding
+ * @param duration the length of the measured period
+ */
+record LoadResult(
+    Map<Endpoint, Histogram> latencies,
+    Map<Endpoint, Long> errors,
+    Map<Endpoint, Long> dropped,
+    Duration duration) {
+
+  /** Prints throughput and latency percentiles, in milliseconds, per endpoint. */
+  void print(PrintStream out) {
+    double seconds = duration.toMillis() / 1000.0;
+    out.printf(
+        "%-12s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n",
+        "endpoint",
+        "ok",
+        "req/s",
+        "errors",
+        "dropped",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "p99.9 ms",
+        "max ms");
+    for (Map.Entry<Endpoint, Histogram> entry : latencies.entrySet()) {
+      Endpoint endpoint = entry.getKey();
+      Histogram histogram = entry.getValue();
+      long ok = histogram.getTotalCount();
+      if (ok == 0 && errors.get(endpoint) == 0 && dropped.get(endpoint) == 0) {
+        continue;
+      }
+      out.printf(
+          "%-12s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+          endpoint.mixName(),
+          ok,
+          ok / seconds,
+          errors.get(endpoint),
+          dropped.get(endpoint),
+          millis(histogram.getValueAtPercentile(50)),
+          millis(histogram.getValueAtPercentile(90)),
+          millis(histogram.getValueAtPercentile(99)),
+          millis(histogram.getValueAtPercentile(99.9)),
+          millis(histogram.getMaxValue()));
+    }
+  }
+
+  /** Writes the full percentile distribution of every endpoint to {@code <endpoint>.hgrm}. */
+  void writeDistributions(Path directory) throws FileNotFoundException {
+    for (Map.Entry<Endpoint, Histogram> entry : latencies.entrySet()) {
+      if (entry.getValue().getTotalCount() == 0) {
+        continue;
+      }
+      Path file = directory.resolve(entry.getKey().mixName() + ".hgrm");
+      try (PrintStream out = new PrintStream(file.toFile())) {
+        // Scaled to milliseconds, the unit HdrHistogram's plotter expects
+        entry.getValue().outputPercentileDistribution(out, 1000.0);
+      }
+    }
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
@@ -0,0 +1,87 @@
+package com.spring.security.loadtest;
+
+import com.spring.security.SpringSecurityApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Boots the application on a random port against a throwaway embedded PostgreSQL, seeds synthetic
+ * tenants and drives open-model traffic at it. Throughput and latency percentiles per endpoint are
+ * printed at the end; the interval histograms ({@code latency.hlog}) and per-endpoint percentile
+ * distributions ({@code <endpoint>.hgrm}) are written to the output directory.
+ *
+ * <p>Run with {@code ./gradlew loadTest -PloadTestArgs="--rate=200 --duration=PT2M"}; see {@link
+ * LoadTestOptions} for the settings. {@code spring.*} system properties given to Gradle are passed
+ * on and override the application's, e.g. {@code -Dspring.threads.virtual.enabled=true}.
+ */
+public final class LoadTest {
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    Files.createDirectories(options.out());
+
+    try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        ConfigurableApplicationContext context = start(postgres)) {
+      int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+      URI baseUri = URI.create("http://localhost:" + port);
+
+      System.out.printf(
+          "Seeding %d tenants of %d users%n", options.tenants(), options.usersPerTenant());
+      String passwordHash = context.getBean(PasswordEncoder.class).encode(TenantSeeder.PASSWORD);
+      List<Tenant> tenants =
+          new TenantSeeder(context.getBean(DataSource.class), passwordHash, options.seed())
+              .seed(options);
+
+      HttpClient client =
+          HttpClient.newBuilder()
+              .executor(Executors.newVirtualThreadPerTaskExecutor())
+              .connectTimeout(Duration.ofSeconds(5))
+              .build();
+      Traffic traffic = Traffic.prepare(client, baseUri, tenants, options.mix());
+
+      System.out.printf(
+          "Running %.0f req/s: %s warmup, %s measured%n",
+          options.rate(), options.warmup(), options.duration());
+      LoadResult result;
+      try (PrintStream log = new PrintStream(options.out().resolve("latency.hlog").toFile())) {
+        HistogramLogWriter logWriter = new HistogramLogWriter(log);
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(System.currentTimeMillis());
+        logWriter.outputLegend();
+        result = new LoadGenerator(client, traffic, options).run(logWriter);
+      }
+
+      result.print(System.out);
+      result.writeDistributions(options.out());
+      System.out.println("Histograms written to " + options.out().toAbsolutePath());
+    }
+  }
+
+  private static ConfigurableApplicationContext start(EmbeddedPostgres postgres) {
+    // Passed as command-line arguments so they win over application.properties
+    return new SpringApplicationBuilder(SpringSecurityApplication.class)
+        .profiles("loadtest")
+        .run(
+            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+            "--spring.datasource.username=postgres",
+            "--spring.datasource.password=postgres",
+            "--server.port=0",
+            // OTPs are seeded into the database rather than issued through the API
+            "--otp.store.write-through=true",
+            "--account.reaper.enabled=false",
+            "--logging.level.root=WARN");
+  }
+}
@@ -0,0 +1,18 @@
+package com.spring.security.loadtest;
+
+import com.spring.security.service.EmailService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/** Email provider of the load test: accepts every message without sending anything. */
+@Service
+@Profile("loadtest")
+@Qualifier("emailProvider")
+public class LoadTestEmailService implements EmailService {
+
+  @Override
+  public void sendHtmlEmail(String to, String subject, String htmlContent) {
+    // Nothing leaves the machine during a load test
+  }
+}
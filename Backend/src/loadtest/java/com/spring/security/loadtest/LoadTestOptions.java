@@ -0,0 +1,79 @@
+package com.spring.security.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a load test run, parsed from {@code --name=value} arguments. Every setting has a
+ * default sized for a laptop.
+ *
+ * @param rate the mean number of requests started per second
+ * @param warmup the time traffic runs before latencies are recorded
+ * @param duration the time latencies are recorded for
+ * @param tenants the number of synthetic tenants to seed
+ * @param usersPerTenant the number of active users per tenant
+ * @param rolesPerTenant the number of assignable roles per tenant besides ADMIN and VIEWER
+ * @param otpsPerTenant the number of pending users with an OTP to validate, per tenant
+ * @param mix the relative weight of each endpoint in the traffic
+ * @param maxInFlight the number of outstanding requests above which new arrivals are dropped
+ * @param seed the seed of all random choices, so runs can be repeated
+ * @param out the directory the histogram files are written to
+ */
+record LoadTestOptions(
+    double rate,
+    Duration warmup,
+    Duration duration,
+    int tenants,
+    int usersPerTenant,
+    int rolesPerTenant,
+    int otpsPerTenant,
+    Map<Endpoint, Integer> mix,
+    int maxInFlight,
+    long seed,
+    Path out) {
+
+  static final String DEFAULT_MIX = "login:10,whoami:35,listUsers:25,updateRoles:15,otpValidate:15";
+
+  private static final Set<String> KNOWN =
+      Set.of(
+          "rate",
+          "warmup",
+          "duration",
+          "tenants",
+          "users-per-tenant",
+          "roles-per-tenant",
+          "otps-per-tenant",
+          "mix",
+          "max-in-flight",
+          "seed",
+          "out");
+
+  static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = Arguments.parse(args, KNOWN);
+    return new LoadTestOptions(
+        Double.parseDouble(values.getOrDefault("rate", "100")),
+        Duration.parse(values.getOrDefault("warmup", "PT15S")),
+        Duration.parse(values.getOrDefault("duration", "PT60S")),
+        Integer.parseInt(values.getOrDefault("tenants", "20")),
+        Integer.parseInt(values.getOrDefault("users-per-tenant", "50")),
+        Integer.parseInt(values.getOrDefault("roles-per-tenant", "8")),
+        Integer.parseInt(values.getOrDefault("otps-per-tenant", "500")),
+        parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+        Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+        Long.parseLong(values.getOrDefault("seed", "42")),
+        Path.of(values.getOrDefault("out", "build/loadtest")));
+  }
+
+  /** Parses {@code login:10,whoami:35,...}; endpoints left out get no traffic. */
+  private static Map<Endpoint, Integer> parseMix(String mix) {
+    Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+    for (String entry : mix.split(",")) {
+      String[] parts = entry.trim().split(":");
+      weights.put(Endpoint.byName(parts[0]), Integer.parseInt(parts[1]));
+    }
+    return weights;
+  }
+}
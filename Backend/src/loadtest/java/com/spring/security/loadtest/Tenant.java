@@ -0,0 +1,33 @@
+package com.spring.security.loadtest;
+
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * A seeded tenant as seen by the load generator.
+ *
+ * @param accountId the account ID
+ * @param adminEmail the email of the user holding every permission
+ * @param userIds the IDs of the active users, the admin first
+ * @param userEmails the emails of the active users, in the order of {@code userIds}
+ * @param viewerRoleId the ID of the role every non-admin user holds
+ * @param assignableRoleIds the IDs of the roles role updates pick from
+ * @param pendingOtps the OTPs still to validate; each is consumed by one request
+ */
+record Tenant(
+    long accountId,
+    String adminEmail,
+    List<Long> userIds,
+    List<String> userEmails,
+    long viewerRoleId,
+    List<Long> assignableRoleIds,
+    Queue<PendingOtp> pendingOtps) {
+
+  /**
+   * An OTP issued to a user who has not completed setup.
+   *
+   * @param email the email the OTP was issued to
+   * @param otp the OTP
+   */
+  record PendingOtp(String email, int otp) {}
+}
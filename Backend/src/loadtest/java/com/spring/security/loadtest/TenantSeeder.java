@@ -0,0 +1,182 @@
+package com.spring.security.loadtest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.sql.DataSource;
+
+/**
+ * Seeds the synthetic tenants the load test runs against. Each tenant gets an ADMIN role with every
+ * permission, a VIEWER role, a number of assignable roles with random permission subsets, active
+ * users (the first one an admin) and pending users with an unused OTP. Everyone shares {@link
+ * #PASSWORD}, hashed once.
+ */
+final class TenantSeeder {
+
+  static final String PASSWORD = "LoadTest#2024";
+
+  private final DataSource dataSource;
+  private final String passwordHash;
+  private final Random random;
+
+  TenantSeeder(DataSource dataSource, String passwordHash, long seed) {
+    this.dataSource = dataSource;
+    this.passwordHash = passwordHash;
+    this.random = new Random(seed);
+  }
+
+  List<Tenant> seed(LoadTestOptions options) throws SQLException {
+    List<Tenant> tenants = new ArrayList<>();
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      List<Long> permissionIds = queryIds(connection, "SELECT id FROM permissions ORDER BY id");
+      for (int t = 0; t < options.tenants(); t++) {
+        tenants.add(seedTenant(connection, t, options, permissionIds));
+        connection.commit();
+      }
+    }
+    return tenants;
+  }
+
+  private Tenant seedTenant(
+      Connection connection, int index, LoadTestOptions options, List<Long> permissionIds)
+      throws SQLException {
+    String domain = "tenant" + index + ".loadtest";
+    long accountId =
+        insertReturningId(
+            connection,
+            "INSERT INTO accounts (name, description, type, status, created_by) "
+                + "VALUES (?, 'Load test tenant', 'ORGANIZATION', 'ACTIVE', 'loadtest') RETURNING id",
+            "loadtest-" + index);
+
+    long adminRoleId = insertRole(connection, accountId, "ADMIN", permissionIds);
+    long viewerRoleId =
+        insertRole(
+            connection,
+            accountId,
+            "VIEWER",
+            permissionIds.subList(0, Math.min(5, permissionIds.size())));
+    List<Long> assignableRoleIds = new ArrayList<>();
+    for (int r = 0; r < options.rolesPerTenant(); r++) {
+      List<Long> subset = new ArrayList<>();
+      for (Long permissionId : permissionIds) {
+        if (random.nextInt(3) == 0) {
+          subset.add(permissionId);
+        }
+      }
+      assignableRoleIds.add(insertRole(connection, accountId, "ROLE_" + r, subset));
+    }
+
+    List<Long> userIds = new ArrayList<>();
+    List<String> userEmails = new ArrayList<>();
+    for (int u = 0; u < options.usersPerTenant(); u++) {
+      String email = "user" + u + "@" + domain;
+      long userId = insertUser(connection, accountId, email, "ACTIVE");
+      linkRole(connection, userId, u == 0 ? adminRoleId : viewerRoleId);
+      userIds.add(userId);
+      userEmails.add(email);
+    }
+
+    ConcurrentLinkedQueue<Tenant.PendingOtp> pendingOtps = new ConcurrentLinkedQueue<>();
+    try (PreparedStatement otp =
+        connection.prepareStatement(
+            "INSERT INTO otp_codes (user_id, email, otp, expires_at) "
+                + "VALUES (?, ?, ?, now() + interval '1 day')")) {
+      for (int p = 0; p < options.otpsPerTenant(); p++) {
+        String email = "pending" + p + "@" + domain;
+        long userId = insertUser(connection, accountId, email, "CREATED");
+        // The validate request carries the OTP as a number, so no leading zeros
+        int code = 100_000 + random.nextInt(900_000);
+        otp.setLong(1, userId);
+        otp.setString(2, email);
+        otp.setString(3, String.valueOf(code));
+        otp.addBatch();
+        pendingOtps.add(new Tenant.PendingOtp(email, code));
+      }
+      otp.executeBatch();
+    }
+
+    return new Tenant(
+        accountId,
+        userEmails.get(0),
+        List.copyOf(userIds),
+        List.copyOf(userEmails),
+        viewerRoleId,
+        List.copyOf(assignableRoleIds),
+        pendingOtps);
+  }
+
+  private long insertRole(
+      Connection connection, long accountId, String name, List<Long> permissionIds)
+      throws SQLException {
+    long roleId =
+        insertReturningId(
+            connection,
+            "INSERT INTO roles (name, description, account_id, created_by) "
+                + "VALUES (?, 'Load test role', ?, 'loadtest') RETURNING id",
+            name,
+            accountId);
+    try (PreparedStatement link =
+        connection.prepareStatement(
+            "INSERT INTO role_permissions (role_id, permission_id) VALUES (?, ?)")) {
+      for (Long permissionId : permissionIds) {
+        link.setLong(1, roleId);
+        link.setLong(2, permissionId);
+        link.addBatch();
+      }
+      link.executeBatch();
+    }
+    return roleId;
+  }
+
+  private long insertUser(Connection connection, long accountId, String email, String status)
+      throws SQLException {
+    return insertReturningId(
+        connection,
+        "INSERT INTO users (first_name, last_name, email, password, type, status, account_id, "
+            + "is_root, created_by) VALUES ('Load', 'User', ?, ?, 'PASSWORD', ?, ?, false, "
+            + "'loadtest') RETURNING id",
+        email,
+        passwordHash,
+        status,
+        accountId);
+  }
+
+  private void linkRole(Connection connection, long userId, long roleId) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)")) {
+      statement.setLong(1, userId);
+      statement.setLong(2, roleId);
+      statement.executeUpdate();
+    }
+  }
+
+  private static long insertReturningId(Connection connection, String sql, Object... parameters)
+      throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < parameters.length; i++) {
+        statement.setObject(i + 1, parameters[i]);
+      }
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getLong(1);
+      }
+    }
+  }
+
+  private static List<Long> queryIds(Connection connection, String sql) throws SQLException {
+    List<Long> ids = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(sql);
+        ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        ids.add(resultSet.getLong(1));
+      }
+    }
+    return ids;
+  }
+}
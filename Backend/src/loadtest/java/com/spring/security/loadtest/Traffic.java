@@ -0,0 +1,175 @@
+package com.spring.security.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The traffic mix: picks the endpoint of each arrival by weight and builds its request against a
+ * random tenant. Authenticated endpoints use the token of the tenant's admin, obtained once before
+ * the run; logins themselves use random users of the tenant.
+ *
+ * <p>Each pending OTP is validated once. Once a tenant has none left, OTP validations carry an
+ * unknown code and exercise the NOT_FOUND path instead.
+ */
+final class Traffic {
+
+  static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final URI baseUri;
+  private final List<Tenant> tenants;
+  private final Map<Long, String> adminTokens;
+  private final Endpoint[] endpoints;
+  private final int[] cumulativeWeights;
+
+  private Traffic(
+      URI baseUri,
+      List<Tenant> tenants,
+      Map<Long, String> adminTokens,
+      Map<Endpoint, Integer> mix) {
+    this.baseUri = baseUri;
+    this.tenants = tenants;
+    this.adminTokens = adminTokens;
+    List<Endpoint> weighted = new ArrayList<>();
+    List<Integer> cumulative = new ArrayList<>();
+    int total = 0;
+    for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+      if (entry.getValue() > 0) {
+        total += entry.getValue();
+        weighted.add(entry.getKey());
+        cumulative.add(total);
+      }
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("The traffic mix has no endpoint with a weight");
+    }
+    this.endpoints = weighted.toArray(Endpoint[]::new);
+    this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Logs in the admin of every tenant and returns the traffic mix using their tokens.
+   *
+   * @param client the client to log in with
+   * @param baseUri the base URI of the application
+   * @param tenants the seeded tenants
+   * @param mix the relative weight of each endpoint
+   * @return the traffic mix
+   */
+  static Traffic prepare(
+      HttpClient client, URI baseUri, List<Tenant> tenants, Map<Endpoint, Integer> mix)
+      throws IOException, InterruptedException {
+    Traffic traffic = new Traffic(baseUri, tenants, new HashMap<>(), mix);
+    for (Tenant tenant : tenants) {
+      HttpResponse<Void> response =
+          client.send(
+              traffic.login(tenant.accountId(), tenant.adminEmail()),
+              HttpResponse.BodyHandlers.discarding());
+      String token = response.headers().firstValue("Authorization").orElse(null);
+      if (response.statusCode() / 100 != 2 || token == null) {
+        throw new IllegalStateException(
+            "Admin login of account " + tenant.accountId() + " failed: " + response.statusCode());
+      }
+      traffic.adminTokens.put(tenant.accountId(), token);
+    }
+    return traffic;
+  }
+
+  Endpoint pick(Random random) {
+    int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (roll < cumulativeWeights[i]) {
+        return endpoints[i];
+      }
+    }
+    throw new IllegalStateException("Unreachable");
+  }
+
+  HttpRequest request(Endpoint endpoint, Random random) {
+    Tenant tenant = tenants.get(random.nextInt(tenants.size()));
+    long accountId = tenant.accountId();
+    return switch (endpoint) {
+      case LOGIN -> login(
+          accountId, tenant.userEmails().get(random.nextInt(tenant.userEmails().size())));
+      case WHOAMI -> authenticated(accountId, "/api/v1/auth/whoami").GET().build();
+      case LIST_USERS -> authenticated(accountId, "/api/v1/accounts/" + accountId + "/users/list")
+          .GET()
+          .build();
+      case UPDATE_ROLES -> updateRoles(tenant, random);
+      case OTP_VALIDATE -> validateOtp(tenant);
+    };
+  }
+
+  private HttpRequest login(long accountId, String email) {
+    return post(
+            "/api/v1/auth/login",
+            Map.of("accountId", accountId, "email", email, "password", TenantSeeder.PASSWORD))
+        .build();
+  }
+
+  /** Replaces the roles of a random non-admin user with VIEWER plus up to three other roles. */
+  private HttpRequest updateRoles(Tenant tenant, Random random) {
+    List<Long> userIds = tenant.userIds();
+    long userId = userIds.size() > 1 ? userIds.get(1 + random.nextInt(userIds.size() - 1)) : 0;
+    List<Long> roleIds = new ArrayList<>(List.of(tenant.viewerRoleId()));
+    List<Long> assignable = tenant.assignableRoleIds();
+    for (int i = random.nextInt(4); i > 0 && !assignable.isEmpty(); i--) {
+      Long roleId = assignable.get(random.nextInt(assignable.size()));
+      if (!roleIds.contains(roleId)) {
+        roleIds.add(roleId);
+      }
+    }
+    return authenticated(
+            tenant.accountId(), "/api/v1/accounts/" + tenant.accountId() + "/users/" + userId)
+        .header("Content-Type", "application/json")
+        .method(
+            "PATCH",
+            HttpRequest.BodyPublishers.ofString(
+                json(Map.of("firstName", "Load", "lastName", "User", "roleIds", roleIds))))
+        .build();
+  }
+
+  private HttpRequest validateOtp(Tenant tenant) {
+    Tenant.PendingOtp pending = tenant.pendingOtps().poll();
+    if (pending == null) {
+      pending = new Tenant.PendingOtp("exhausted@tenant.loadtest", 0);
+    }
+    return post(
+            "/api/v1/otp/validate",
+            Map.of("accountId", tenant.accountId(), "email", pending.email(), "otp", pending.otp()))
+        .build();
+  }
+
+  private HttpRequest.Builder authenticated(long accountId, String path) {
+    return HttpRequest.newBuilder(baseUri.resolve(path))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Authorization", adminTokens.get(accountId));
+  }
+
+  private HttpRequest.Builder post(String path, Map<String, Object> body) {
+    return HttpRequest.newBuilder(baseUri.resolve(path))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(json(body)));
+  }
+
+  private static String json(Map<String, Object> body) {
+    try {
+      return objectMapper.writeValueAsString(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
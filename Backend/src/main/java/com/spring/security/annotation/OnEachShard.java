@@ -0,0 +1,15 @@
+package com.spring.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation for background jobs that work through tables of every tenant. With sharding configured
+ * the method is run once per shard, and numeric results, such as the number of rows processed, are
+ * summed. A shard that fails does not keep the others from being processed.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnEachShard {}
@@ -0,0 +1,28 @@
+package com.spring.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marking the parameter that decides which shard a call runs on. The shard is looked up
+ * in the shard directory before the call; without sharding configured the annotation has no effect.
+ *
+ * <p>For {@link Type#ACCOUNT_ID} the parameter is the account ID, or an object with a {@code
+ * getAccountId()} method such as a request DTO or an entity.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+  /** What the parameter identifies the tenant by. */
+  enum Type {
+    ACCOUNT_ID,
+    ROOT_EMAIL,
+    ACCOUNT_NAME
+  }
+
+  /** What the parameter identifies the tenant by */
+  Type value() default Type.ACCOUNT_ID;
+}
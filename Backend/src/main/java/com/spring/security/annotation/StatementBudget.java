@@ -0,0 +1,19 @@
+package com.spring.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to set the number of SQL statements a controller method is expected to run per
+ * request. Requests that run more are logged, which surfaces N+1 query patterns. Methods without
+ * the annotation use {@code sql.budget.default}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+
+  /** The maximum number of SQL statements expected per request */
+  int value();
+}
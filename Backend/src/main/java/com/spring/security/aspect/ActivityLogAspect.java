@@ -4,6 +4,7 @@ import com.spring.security.annotation.LogActivity;
 import com.spring.security.domain.entity.ActivityLog;
 import com.spring.security.exceptions.ServiceLayerException;
 import com.spring.security.service.ActivityLogService;
+import com.spring.security.service.ActivityLogStreamService;
 import com.spring.security.util.SecurityContextUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
@@ -13,6 +14,8 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -23,9 +26,12 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 public class ActivityLogAspect {
 
   private final ActivityLogService activityLogService;
+  private final ActivityLogStreamService activityLogStreamService;
 
-  public ActivityLogAspect(ActivityLogService activityLogService) {
+  public ActivityLogAspect(
+      ActivityLogService activityLogService, ActivityLogStreamService activityLogStreamService) {
     this.activityLogService = activityLogService;
+    this.activityLogStreamService = activityLogStreamService;
   }
 
   @Around("@annotation(logActivity)")
@@ -95,6 +101,22 @@ public class ActivityLogAspect {
     activityLog.setCreatedAt(Instant.now());
 
     activityLogService.create(activityLog);
+    publish(activityLog);
+  }
+
+  /** Streams the entry once it is committed, so subscribers never see one that rolls back. */
+  private void publish(ActivityLog activityLog) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      activityLogStreamService.publish(activityLog);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            activityLogStreamService.publish(activityLog);
+          }
+        });
   }
 
   private Long determineEntityId(
@@ -0,0 +1,176 @@
+package com.spring.security.aspect;
+
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.annotation.ShardKey;
+import com.spring.security.component.ShardDirectory;
+import com.spring.security.config.ShardRoutingDataSource;
+import com.spring.security.util.ShardContext;
+import com.spring.security.util.ShardContext.Route;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Aspect routing calls to the shard of their tenant. Calls with a {@link ShardKey} parameter run on
+ * the shard the directory maps the key to; within a request that route sticks for the rest of the
+ * request, elsewhere the previous route is restored after the call. Methods annotated with {@link
+ * OnEachShard} run once per shard.
+ *
+ * <p>The aspect runs outside the transaction advice, so a method's own transaction is opened after
+ * its route is set. A transaction already open on one shard cannot continue on another, and such a
+ * call fails rather than silently reading or writing the wrong shard.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+@Slf4j
+public class ShardRoutingAspect {
+
+  private record KeyParameter(int index, ShardKey.Type type) {}
+
+  private final Map<Method, KeyParameter> keyParameters = new ConcurrentHashMap<>();
+
+  private final ShardDirectory shardDirectory;
+  private final ShardRoutingDataSource shards;
+
+  /**
+   * Constructor for ShardRoutingAspect.
+   *
+   * @param shardDirectory the directory mapping tenants to shards
+   * @param dataSource the application data source, routing to the shards
+   */
+  public ShardRoutingAspect(ShardDirectory shardDirectory, DataSource dataSource)
+      throws SQLException {
+    this.shardDirectory = shardDirectory;
+    this.shards = dataSource.unwrap(ShardRoutingDataSource.class);
+  }
+
+  @Around(
+      "execution(* com.spring.security..*(.., @com.spring.security.annotation.ShardKey (*), ..))")
+  public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+    Route route = resolve(joinPoint);
+    if (route == null) {
+      return joinPoint.proceed();
+    }
+    Route previous = ShardContext.current();
+    if (previous != null
+        && previous.shardId() != route.shardId()
+        && TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException(
+          "A transaction on shard "
+              + previous.shardId()
+              + " cannot continue on shard "
+              + route.shardId()
+              + " in "
+              + joinPoint.getSignature().toShortString());
+    }
+    ShardContext.set(route);
+    try {
+      return joinPoint.proceed();
+    } finally {
+      if (!ShardContext.inRequest()) {
+        ShardContext.set(previous);
+      }
+    }
+  }
+
+  @Around("@annotation(com.spring.security.annotation.OnEachShard)")
+  public Object onEachShard(ProceedingJoinPoint joinPoint) throws Throwable {
+    Route previous = ShardContext.current();
+    Object result = null;
+    long total = 0;
+    Throwable failure = null;
+    try {
+      for (int shardId : shards.getShardIds()) {
+        ShardContext.set(new Route(shardId, false));
+        try {
+          result = joinPoint.proceed();
+          if (result instanceof Number count) {
+            total += count.longValue();
+          }
+        } catch (Throwable e) {
+          log.error(
+              "{} failed on shard {}: {}",
+              joinPoint.getSignature().toShortString(),
+              shardId,
+              e.getMessage());
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    } finally {
+      ShardContext.set(previous);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+    if (returnType == int.class || returnType == Integer.class) {
+      return (int) total;
+    }
+    if (returnType == long.class || returnType == Long.class) {
+      return total;
+    }
+    return result;
+  }
+
+  private Route resolve(ProceedingJoinPoint joinPoint) throws Exception {
+    KeyParameter key =
+        keyParameters.computeIfAbsent(
+            AopUtils.getMostSpecificMethod(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(),
+                joinPoint.getTarget().getClass()),
+            ShardRoutingAspect::findKeyParameter);
+    Object value = joinPoint.getArgs()[key.index()];
+    if (value == null) {
+      return null;
+    }
+    return switch (key.type()) {
+      case ACCOUNT_ID -> {
+        Long accountId = accountId(value);
+        yield accountId == null ? null : shardDirectory.route(accountId);
+      }
+      case ROOT_EMAIL -> shardDirectory.routeByRootEmail((String) value);
+      case ACCOUNT_NAME -> shardDirectory.routeByAccountName((String) value);
+    };
+  }
+
+  private static KeyParameter findKeyParameter(Method method) {
+    Annotation[][] annotations = method.getParameterAnnotations();
+    for (int i = 0; i < annotations.length; i++) {
+      for (Annotation annotation : annotations[i]) {
+        if (annotation instanceof ShardKey shardKey) {
+          return new KeyParameter(i, shardKey.value());
+        }
+      }
+    }
+    throw new IllegalStateException("No @ShardKey parameter on " + method);
+  }
+
+  /** Reads the account ID from an ID or from an object with a getAccountId() method. */
+  private static Long accountId(Object value) throws ReflectiveOperationException {
+    if (value instanceof Number id) {
+      return id.longValue();
+    }
+    Object accountId = value.getClass().getMethod("getAccountId").invoke(value);
+    return accountId == null ? null : ((Number) accountId).longValue();
+  }
+}
@@ -0,0 +1,41 @@
+package com.spring.security.component;
+
+import com.spring.security.domain.entity.Account;
+import com.spring.security.exceptions.DaoLayerException;
+
+/** Read-through cache of account rows, looked up by ID or name. */
+public interface AccountCache {
+
+  /**
+   * Returns the account with the given ID, loading it on a miss.
+   *
+   * @param id the account ID
+   * @return the account, or null if there is no such account
+   */
+  Account get(Long id) throws DaoLayerException;
+
+  /**
+   * Returns the account with the given name, loading it on a miss.
+   *
+   * @param name the account name
+   * @return the account, or null if there is no such account
+   */
+  Account getByName(String name) throws DaoLayerException;
+
+  /**
+   * Checks whether users of the account may authenticate, i.e. the account exists and is neither
+   * deleted nor suspended. Served from the cache, so it needs no query once the account is cached.
+   *
+   * @param id the account ID
+   * @return true if the account is usable
+   */
+  boolean isUsable(Long id) throws DaoLayerException;
+
+  /**
+   * Drops the account from the cache. Inside a transaction it is dropped again after commit, so a
+   * concurrent reader cannot re-cache the row as it was before the change.
+   *
+   * @param id the account ID
+   */
+  void invalidate(Long id);
+}
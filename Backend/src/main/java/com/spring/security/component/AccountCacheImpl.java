@@ -0,0 +1,159 @@
+package com.spring.security.component;
+
+import com.spring.security.component.CacheInvalidationBus.Entity;
+import com.spring.security.dao.AccountDao;
+import com.spring.security.domain.entity.Account;
+import com.spring.security.domain.entity.enums.AccountStatus;
+import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AccountCacheImpl keeps accounts in a concurrent map keyed by ID, with a second map from name to
+ * ID. Changes made by other nodes arrive through the {@link CacheInvalidationBus}; entries also
+ * expire after a TTL as a backstop for invalidations that are lost, and once the cache is full
+ * arbitrary entries are evicted to make room.
+ *
+ * <p>A load that overlaps an invalidation is not cached: every invalidation bumps a generation
+ * counter, and a loaded row is only stored if the counter is unchanged since the load started.
+ */
+@Component
+@Slf4j
+public class AccountCacheImpl implements AccountCache, CacheInvalidationListener {
+
+  private record Entry(Account account, long expiresAtNanos) {}
+
+  private final ConcurrentHashMap<Long, Entry> byId = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Long> idByName = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AccountDao accountDao;
+  private final int maxSize;
+  private final long ttlNanos;
+
+  /**
+   * Constructor for AccountCacheImpl.
+   *
+   * @param accountDao the DAO loading accounts on a miss
+   * @param maxSize the maximum number of cached accounts
+   * @param ttl how long an account stays cached
+   */
+  public AccountCacheImpl(
+      AccountDao accountDao,
+      @Value("${account.cache.max-size:10000}") int maxSize,
+      @Value("${account.cache.ttl:PT10M}") Duration ttl) {
+    this.accountDao = accountDao;
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  @Override
+  public Account get(Long id) throws DaoLayerException {
+    Entry entry = byId.get(id);
+    if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+      return entry.account();
+    }
+    long loadGeneration = generation.get();
+    Account account = accountDao.findById(id);
+    cache(account, loadGeneration);
+    return account;
+  }
+
+  @Override
+  public Account getByName(String name) throws DaoLayerException {
+    Long id = idByName.get(name);
+    if (id != null) {
+      Entry entry = byId.get(id);
+      if (entry != null
+          && entry.expiresAtNanos() - System.nanoTime() > 0
+          && name.equals(entry.account().getName())) {
+        return entry.account();
+      }
+    }
+    long loadGeneration = generation.get();
+    Account account = accountDao.findByName(name);
+    cache(account, loadGeneration);
+    return account;
+  }
+
+  @Override
+  public boolean isUsable(Long id) throws DaoLayerException {
+    Account account = get(id);
+    return account != null
+        && account.getStatus() != AccountStatus.DELETED
+        && account.getStatus() != AccountStatus.SUSPENDED;
+  }
+
+  @Override
+  public void invalidate(Long id) {
+    remove(id);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              remove(id);
+            }
+          });
+    }
+  }
+
+  @Override
+  public void invalidate(Entity entity, Set<Long> keys) {
+    if (entity == Entity.ACCOUNT) {
+      keys.forEach(this::remove);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    byId.clear();
+    idByName.clear();
+  }
+
+  private void remove(Long id) {
+    generation.incrementAndGet();
+    Entry removed = byId.remove(id);
+    if (removed != null) {
+      idByName.remove(removed.account().getName(), id);
+    }
+  }
+
+  private void cache(Account account, long loadGeneration) {
+    if (account == null || account.getId() == null) {
+      return;
+    }
+    if (byId.size() >= maxSize) {
+      evict();
+    }
+    byId.put(account.getId(), new Entry(account, System.nanoTime() + ttlNanos));
+    idByName.put(account.getName(), account.getId());
+    // An invalidation raced with the load; the row may predate it
+    if (generation.get() != loadGeneration) {
+      byId.remove(account.getId());
+    }
+  }
+
+  /** Evicts expired entries, or an arbitrary tenth of the cache if none have expired. */
+  private void evict() {
+    long now = System.nanoTime();
+    int toEvict = Math.max(1, maxSize / 10);
+    for (Iterator<Entry> it = byId.values().iterator(); it.hasNext(); ) {
+      Entry entry = it.next();
+      if (entry.expiresAtNanos() - now <= 0 || toEvict > 0) {
+        it.remove();
+        idByName.remove(entry.account().getName(), entry.account().getId());
+        toEvict--;
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.spring.security.component;
+
+/**
+ * Announces changes to cached entities to every node, so each can evict its copies. Listeners
+ * receive the announcements through {@link CacheInvalidationListener}.
+ */
+public interface CacheInvalidationBus {
+
+  /** The kinds of entity that can be invalidated, each with the code it is sent as. */
+  enum Entity {
+    ACCOUNT('A'),
+    USER('U'),
+    ROLE('R');
+
+    private final char code;
+
+    Entity(char code) {
+      this.code = code;
+    }
+
+    /** Returns the single-character code identifying the entity in messages. */
+    public char getCode() {
+      return code;
+    }
+
+    /**
+     * Returns the entity with the given code.
+     *
+     * @param code the code
+     * @return the entity, or null if the code is unknown
+     */
+    public static Entity fromCode(char code) {
+      for (Entity entity : values()) {
+        if (entity.code == code) {
+          return entity;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Announces that an entity has changed. Inside a transaction the announcement is sent once the
+   * transaction commits, together with every other key invalidated by it, and is dropped on
+   * rollback.
+   *
+   * @param entity the kind of entity
+   * @param key the entity ID
+   */
+  void publish(Entity entity, Long key);
+}
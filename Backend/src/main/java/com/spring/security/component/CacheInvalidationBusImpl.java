@@ -0,0 +1,387 @@
+package com.spring.security.component;
+
+import com.spring.security.util.ShardContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * CacheInvalidationBusImpl sends invalidations with {@code pg_notify} on the home database's
+ * primary, and listens for them on a dedicated connection to the same database, so every node sees
+ * every invalidation without any infrastructure beyond PostgreSQL.
+ *
+ * <p>Messages are compact: an entity code and the IDs it applies to, e.g. {@code A:12,40}. Keys
+ * published within one transaction are collected and, if the transaction runs on the home database,
+ * notified on its own connection just before it commits; PostgreSQL delivers them on commit and
+ * drops them on rollback, and the commit needs no second connection. Keys published outside a
+ * transaction, or by a transaction on another shard, go to a sender thread with a dedicated
+ * connection of its own, which merges whatever has queued up into one round of notifications. The
+ * notifications the listener receives together are likewise merged per entity and key before the
+ * listeners are called.
+ *
+ * <p>PostgreSQL does not keep notifications for a listener that is not connected, so whenever the
+ * listener (re)connects every cache is flushed instead.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBusImpl implements CacheInvalidationBus {
+
+  /** PostgreSQL rejects payloads of 8000 bytes or more. */
+  private static final int MAX_PAYLOAD_LENGTH = 7900;
+
+  private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSourceProperties properties;
+  private final ObjectProvider<CacheInvalidationListener> listeners;
+  private final boolean enabled;
+  private final String channel;
+  private final long pollMillis;
+  private final long reconnectDelayMillis;
+  private final BlockingQueue<Map<Entity, Set<Long>>> outbound;
+
+  private volatile boolean running = true;
+  private Thread listener;
+  private Thread sender;
+
+  /**
+   * Constructor for CacheInvalidationBusImpl.
+   *
+   * @param dataSource the application data source, notified on inside transactions on the home
+   *     database
+   * @param properties the primary's connection settings, used for the listener and sender
+   *     connections
+   * @param listeners the caches to invalidate
+   * @param enabled whether to send and listen at all
+   * @param channel the notification channel
+   * @param pollInterval how long the listener waits for notifications before checking its
+   *     connection
+   * @param reconnectDelay how long the listener waits before reconnecting
+   * @param senderBacklog the number of invalidations queued for the sender beyond which further
+   *     ones are dropped
+   */
+  public CacheInvalidationBusImpl(
+      DataSource dataSource,
+      DataSourceProperties properties,
+      ObjectProvider<CacheInvalidationListener> listeners,
+      @Value("${cache.invalidation.enabled:true}") boolean enabled,
+      @Value("${cache.invalidation.channel:cache_invalidation}") String channel,
+      @Value("${cache.invalidation.poll-interval:PT10S}") Duration pollInterval,
+      @Value("${cache.invalidation.reconnect-delay:PT5S}") Duration reconnectDelay,
+      @Value("${cache.invalidation.sender-backlog:10000}") int senderBacklog) {
+    if (!CHANNEL.matcher(channel).matches()) {
+      throw new IllegalArgumentException("Invalid cache invalidation channel: " + channel);
+    }
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.properties = properties;
+    this.listeners = listeners;
+    this.enabled = enabled;
+    this.channel = channel;
+    this.pollMillis = pollInterval.toMillis();
+    this.reconnectDelayMillis = reconnectDelay.toMillis();
+    this.outbound = new LinkedBlockingQueue<>(senderBacklog);
+  }
+
+  @PostConstruct
+  void start() {
+    if (enabled) {
+      listener =
+          Thread.ofPlatform().name("CacheInvalidationListener").daemon().start(this::runListener);
+      sender = Thread.ofPlatform().name("CacheInvalidationSender").daemon().start(this::runSender);
+    }
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    if (listener != null) {
+      listener.interrupt();
+      sender.interrupt();
+      listener.join(pollMillis + TimeUnit.SECONDS.toMillis(5));
+      sender.join(TimeUnit.SECONDS.toMillis(5));
+    }
+  }
+
+  @Override
+  public void publish(Entity entity, Long key) {
+    if (!enabled || key == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      enqueue(Map.of(entity, Set.of(key)));
+      return;
+    }
+    PendingInvalidations pending = null;
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof PendingInvalidations p && p.bus() == this) {
+        pending = p;
+      }
+    }
+    if (pending == null) {
+      pending = new PendingInvalidations();
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    pending.keys.computeIfAbsent(entity, e -> new LinkedHashSet<>()).add(key);
+  }
+
+  /**
+   * Keys published by one transaction. On the home database they are notified within the
+   * transaction; elsewhere, or in a read-only transaction, which cannot notify, they are queued for
+   * the sender once the transaction has committed.
+   */
+  private final class PendingInvalidations implements TransactionSynchronization {
+
+    private final Map<Entity, Set<Long>> keys = new EnumMap<>(Entity.class);
+    private boolean notified;
+
+    private CacheInvalidationBusImpl bus() {
+      return CacheInvalidationBusImpl.this;
+    }
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      if (!readOnly && ShardContext.shardId() == ShardContext.HOME) {
+        for (String payload : encode(keys)) {
+          jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+        }
+        notified = true;
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      if (!notified) {
+        enqueue(keys);
+      }
+    }
+  }
+
+  private void enqueue(Map<Entity, Set<Long>> keys) {
+    if (!outbound.offer(keys)) {
+      log.warn("Cache invalidation backlog is full, dropped {}", keys);
+    }
+  }
+
+  private void runSender() {
+    Connection connection = null;
+    while (running) {
+      Map<Entity, Set<Long>> keys = new EnumMap<>(Entity.class);
+      try {
+        merge(outbound.take(), keys);
+      } catch (InterruptedException e) {
+        break;
+      }
+      List<Map<Entity, Set<Long>>> queued = new ArrayList<>();
+      outbound.drainTo(queued);
+      queued.forEach(q -> merge(q, keys));
+      List<String> payloads = encode(keys);
+      // One retry on a fresh connection, in case the server dropped the idle one
+      for (int attempt = 0; attempt < 2; attempt++) {
+        try {
+          if (connection == null || connection.isClosed()) {
+            connection = connect("cache-invalidation-sender");
+          }
+          try (PreparedStatement statement =
+              connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            for (String payload : payloads) {
+              statement.setString(1, channel);
+              statement.setString(2, payload);
+              statement.execute();
+            }
+          }
+          break;
+        } catch (SQLException e) {
+          closeQuietly(connection);
+          connection = null;
+          if (attempt > 0) {
+            log.warn(
+                "Could not publish cache invalidations {}; other nodes keep them until they"
+                    + " expire: {}",
+                payloads,
+                e.getMessage());
+          }
+        }
+      }
+    }
+    closeQuietly(connection);
+  }
+
+  private static void merge(Map<Entity, Set<Long>> from, Map<Entity, Set<Long>> into) {
+    from.forEach(
+        (entity, ids) -> into.computeIfAbsent(entity, e -> new LinkedHashSet<>()).addAll(ids));
+  }
+
+  private static void closeQuietly(Connection connection) {
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        log.debug("Could not close the cache invalidation connection: {}", e.getMessage());
+      }
+    }
+  }
+
+  private void runListener() {
+    boolean reconnecting = false;
+    while (running) {
+      try (Connection connection = connect("cache-invalidation-listener")) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        // Anything published while this node was not listening is lost
+        invalidateAll();
+        if (reconnecting) {
+          log.info("Cache invalidation listener reconnected, caches flushed");
+        }
+        reconnecting = true;
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications((int) pollMillis);
+          if (notifications != null && notifications.length > 0) {
+            dispatch(notifications);
+          } else if (!connection.isValid(5)) {
+            throw new SQLException("The listener connection is no longer valid");
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          log.warn(
+              "Cache invalidation listener disconnected, retrying in {} ms: {}",
+              reconnectDelayMillis,
+              e.getMessage());
+          try {
+            Thread.sleep(reconnectDelayMillis);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  private Connection connect(String applicationName) throws SQLException {
+    Properties info = new Properties();
+    if (properties.determineUsername() != null) {
+      info.setProperty("user", properties.determineUsername());
+    }
+    if (properties.determinePassword() != null) {
+      info.setProperty("password", properties.determinePassword());
+    }
+    info.setProperty("ApplicationName", applicationName);
+    return DriverManager.getConnection(properties.determineUrl(), info);
+  }
+
+  private void dispatch(PGNotification[] notifications) {
+    Map<Entity, Set<Long>> keys = new EnumMap<>(Entity.class);
+    for (PGNotification notification : notifications) {
+      if (!decode(notification.getParameter(), keys)) {
+        log.warn("Malformed cache invalidation '{}', flushing", notification.getParameter());
+        invalidateAll();
+        return;
+      }
+    }
+    for (CacheInvalidationListener cache : listeners) {
+      for (Map.Entry<Entity, Set<Long>> entry : keys.entrySet()) {
+        try {
+          cache.invalidate(entry.getKey(), entry.getValue());
+        } catch (RuntimeException e) {
+          log.error("Cache invalidation of {} {} failed", entry.getKey(), entry.getValue(), e);
+        }
+      }
+    }
+  }
+
+  private void invalidateAll() {
+    for (CacheInvalidationListener cache : listeners) {
+      try {
+        cache.invalidateAll();
+      } catch (RuntimeException e) {
+        log.error("Cache flush failed", e);
+      }
+    }
+  }
+
+  /**
+   * Encodes keys as messages of the form {@code A:1,2,3}, one or more per entity, each within the
+   * payload limit.
+   *
+   * @param keys the keys by entity
+   * @return the messages
+   */
+  static List<String> encode(Map<Entity, ? extends Collection<Long>> keys) {
+    List<String> payloads = new ArrayList<>();
+    for (Map.Entry<Entity, ? extends Collection<Long>> entry : keys.entrySet()) {
+      StringBuilder payload = new StringBuilder();
+      for (Long key : entry.getValue()) {
+        String id = key.toString();
+        if (payload.length() + id.length() + 1 > MAX_PAYLOAD_LENGTH) {
+          payloads.add(payload.toString());
+          payload.setLength(0);
+        }
+        payload.append(payload.isEmpty() ? entry.getKey().getCode() + ":" : ",").append(id);
+      }
+      if (!payload.isEmpty()) {
+        payloads.add(payload.toString());
+      }
+    }
+    return payloads;
+  }
+
+  /**
+   * Decodes a message into the keys it invalidates. Messages for unknown entities are skipped, so
+   * nodes running a newer version can add entities.
+   *
+   * @param payload the message
+   * @param keys the keys by entity, added to
+   * @return false if the message is malformed
+   */
+  static boolean decode(String payload, Map<Entity, Set<Long>> keys) {
+    if (payload == null || payload.length() < 3 || payload.charAt(1) != ':') {
+      return false;
+    }
+    Entity entity = Entity.fromCode(payload.charAt(0));
+    if (entity == null) {
+      return true;
+    }
+    Set<Long> ids = new LinkedHashSet<>();
+    try {
+      for (String id : payload.substring(2).split(",")) {
+        ids.add(Long.parseLong(id));
+      }
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    keys.computeIfAbsent(entity, e -> new LinkedHashSet<>()).addAll(ids);
+    return true;
+  }
+}
@@ -0,0 +1,22 @@
+package com.spring.security.component;
+
+import com.spring.security.component.CacheInvalidationBus.Entity;
+import java.util.Set;
+
+/**
+ * Implemented by caches that must drop entries changed on any node. Calls arrive on the bus's
+ * listener thread, including for changes made by this node.
+ */
+public interface CacheInvalidationListener {
+
+  /**
+   * Drops the cached copies of the given entities.
+   *
+   * @param entity the kind of entity
+   * @param keys the entity IDs
+   */
+  void invalidate(Entity entity, Set<Long> keys);
+
+  /** Drops every cached entry, after invalidations may have been missed. */
+  void invalidateAll();
+}
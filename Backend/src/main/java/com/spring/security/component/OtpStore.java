@@ -0,0 +1,29 @@
+package com.spring.security.component;
+
+import com.spring.security.controller.dto.response.OtpValidationStatus;
+import java.time.Duration;
+
+/** In-process store for issued one-time passwords. */
+public interface OtpStore {
+
+  /**
+   * Stores an OTP for the given email, replacing any OTP issued earlier.
+   *
+   * @param email the email the OTP was issued to
+   * @param otp the OTP
+   * @param ttl how long the OTP stays valid
+   */
+  void put(String email, String otp, Duration ttl);
+
+  /**
+   * Atomically checks and consumes the OTP for the given email. A matching OTP is removed, so it
+   * can be consumed only once; a mismatch counts as a failed attempt and the OTP is discarded once
+   * the attempt limit is reached.
+   *
+   * @param email the email the OTP was issued to
+   * @param otp the OTP to check
+   * @return VALID if consumed, INVALID on mismatch, EXPIRED if past its TTL, NOT_FOUND if no OTP is
+   *     held for the email
+   */
+  OtpValidationStatus consume(String email, String otp);
+}
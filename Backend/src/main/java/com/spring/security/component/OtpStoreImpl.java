@@ -0,0 +1,126 @@
+package com.spring.security.component;
+
+import com.spring.security.controller.dto.response.OtpValidationStatus;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * OtpStoreImpl keeps OTPs in a concurrent map and expires them with a hashed timing wheel. Every
+ * stored OTP is placed in the wheel bucket of its expiry tick; advancing the wheel only visits the
+ * buckets that became due, so expiry costs nothing per lookup and does not scan the whole map.
+ * Expiry through the wheel is lazy by up to one tick, so {@link #consume} also checks the deadline
+ * itself.
+ */
+@Component
+@Slf4j
+public class OtpStoreImpl implements OtpStore {
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final List<Queue<Slot>> wheel;
+  private final long tickNanos;
+  private final long startNanos = System.nanoTime();
+  private final int maxAttempts;
+
+  private long processedTick;
+
+  /**
+   * Constructor for OtpStoreImpl.
+   *
+   * @param tick the resolution of the timing wheel
+   * @param wheelSize the number of buckets in the timing wheel
+   * @param maxAttempts the number of wrong guesses after which an OTP is discarded
+   */
+  public OtpStoreImpl(
+      @Value("${otp.store.tick:PT1S}") Duration tick,
+      @Value("${otp.store.wheel-size:512}") int wheelSize,
+      @Value("${otp.store.max-attempts:5}") int maxAttempts) {
+    this.tickNanos = tick.toNanos();
+    this.maxAttempts = maxAttempts;
+    this.wheel = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      wheel.add(new ConcurrentLinkedQueue<>());
+    }
+  }
+
+  @Override
+  public void put(String email, String otp, Duration ttl) {
+    long deadline = System.nanoTime() + ttl.toNanos();
+    Entry entry = new Entry(otp, deadline);
+    entries.put(email, entry);
+    long tick = Math.ceilDiv(deadline - startNanos, tickNanos);
+    wheel.get((int) (tick % wheel.size())).add(new Slot(email, entry, tick));
+  }
+
+  @Override
+  public OtpValidationStatus consume(String email, String otp) {
+    OtpValidationStatus[] status = {OtpValidationStatus.NOT_FOUND};
+    // The remapping function runs under the map's bin lock, so check-and-remove is atomic and
+    // the attempt counter needs no further synchronisation.
+    entries.computeIfPresent(
+        email,
+        (key, entry) -> {
+          if (System.nanoTime() - entry.deadline >= 0) {
+            status[0] = OtpValidationStatus.EXPIRED;
+            return null;
+          }
+          if (!MessageDigest.isEqual(
+              entry.otp.getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8))) {
+            status[0] = OtpValidationStatus.INVALID;
+            return ++entry.attempts >= maxAttempts ? null : entry;
+          }
+          status[0] = OtpValidationStatus.VALID;
+          return null;
+        });
+    return status[0];
+  }
+
+  /** Advances the timing wheel up to the current tick, evicting every OTP that became due. */
+  @Scheduled(fixedRateString = "${otp.store.tick:PT1S}")
+  public synchronized void advance() {
+    long currentTick = (System.nanoTime() - startNanos) / tickNanos;
+    // A full turn visits every bucket, so there is no point in looping further after a stall.
+    long from = Math.max(processedTick + 1, currentTick - wheel.size() + 1);
+    int evicted = 0;
+    for (long tick = from; tick <= currentTick; tick++) {
+      Iterator<Slot> slots = wheel.get((int) (tick % wheel.size())).iterator();
+      while (slots.hasNext()) {
+        Slot slot = slots.next();
+        if (slot.tick <= currentTick) {
+          slots.remove();
+          // Only evicts if the OTP was not replaced or consumed in the meantime.
+          if (entries.remove(slot.email, slot.entry)) {
+            evicted++;
+          }
+        }
+      }
+    }
+    processedTick = currentTick;
+    if (evicted > 0) {
+      log.debug("Evicted {} expired OTPs", evicted);
+    }
+  }
+
+  private static final class Entry {
+    private final String otp;
+    private final long deadline;
+    private int attempts;
+
+    private Entry(String otp, long deadline) {
+      this.otp = otp;
+      this.deadline = deadline;
+    }
+  }
+
+  private record Slot(String email, Entry entry, long tick) {}
+}
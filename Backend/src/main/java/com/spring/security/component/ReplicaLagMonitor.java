@@ -0,0 +1,8 @@
+package com.spring.security.component;
+
+/** Tracks the replication lag of the read replicas, deciding which may serve reads. */
+public interface ReplicaLagMonitor {
+
+  /** Checks the lag of every replica and updates which replicas serve reads. */
+  void refresh();
+}
@@ -0,0 +1,66 @@
+package com.spring.security.component;
+
+import com.spring.security.config.ReplicaRoutingDataSource;
+import com.spring.security.config.ReplicaRoutingDataSource.Replica;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ReplicaLagMonitorImpl checks the replicas of the {@link ReplicaRoutingDataSource} on a fixed
+ * delay and publishes their lag and availability as gauges. It exists only when read replicas are
+ * configured.
+ */
+@Component
+@ConditionalOnExpression("!'${db.replicas.urls:}'.isBlank()")
+public class ReplicaLagMonitorImpl implements ReplicaLagMonitor {
+
+  private final ReplicaRoutingDataSource routingDataSource;
+  private final Duration maxLag;
+
+  /**
+   * Constructor for ReplicaLagMonitorImpl.
+   *
+   * @param dataSource the application data source, routing to the replicas
+   * @param meterRegistry the registry for the replica gauges
+   * @param maxLag the largest replication lag a replica may have to serve reads
+   */
+  public ReplicaLagMonitorImpl(
+      DataSource dataSource,
+      MeterRegistry meterRegistry,
+      @Value("${db.replicas.max-lag:PT5S}") Duration maxLag)
+      throws SQLException {
+    this.routingDataSource = dataSource.unwrap(ReplicaRoutingDataSource.class);
+    this.maxLag = maxLag;
+    for (Replica replica : routingDataSource.getReplicas()) {
+      Gauge.builder("db.replica.lag", replica, Replica::getLagSeconds)
+          .description("Replication lag of the replica at its last check")
+          .baseUnit("seconds")
+          .tag("replica", replica.getName())
+          .register(meterRegistry);
+      Gauge.builder("db.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+          .description("Whether the replica is serving reads")
+          .tag("replica", replica.getName())
+          .register(meterRegistry);
+    }
+  }
+
+  /** Checks the replicas once at startup, so reads can use them from the first request. */
+  @PostConstruct
+  void initialCheck() {
+    refresh();
+  }
+
+  @Override
+  @Scheduled(fixedDelayString = "${db.replicas.lag-check-interval:PT1S}")
+  public void refresh() {
+    routingDataSource.refreshLag(maxLag);
+  }
+}
@@ -0,0 +1,29 @@
+package com.spring.security.component;
+
+import java.time.Duration;
+
+/** Per-key cooldown for resending emails. */
+public interface ResendThrottle {
+
+  /**
+   * Starts a cooldown for the key unless one is already running.
+   *
+   * @param key the key to throttle, e.g. a recipient
+   * @return {@link Duration#ZERO} if the caller may send now, otherwise the remaining cooldown
+   */
+  Duration tryAcquire(String key);
+
+  /**
+   * Ends the cooldown for the key early, e.g. because the send it guarded failed.
+   *
+   * @param key the throttled key
+   */
+  void release(String key);
+
+  /**
+   * Returns the length of a full cooldown.
+   *
+   * @return the cooldown
+   */
+  Duration getCooldown();
+}
@@ -0,0 +1,62 @@
+package com.spring.security.component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ResendThrottleImpl keeps the cooldown deadline of every key in a concurrent map and claims a
+ * cooldown with a compare-and-set on the key's entry, so concurrent resends for the same recipient
+ * never block each other and exactly one of them wins. Expired entries are swept periodically.
+ */
+@Component
+public class ResendThrottleImpl implements ResendThrottle {
+
+  private final ConcurrentHashMap<String, Long> deadlines = new ConcurrentHashMap<>();
+
+  @Getter private final Duration cooldown;
+
+  /**
+   * Constructor for ResendThrottleImpl.
+   *
+   * @param cooldown how long a key stays throttled after a send
+   */
+  public ResendThrottleImpl(@Value("${otp.resend.cooldown:PT60S}") Duration cooldown) {
+    this.cooldown = cooldown;
+  }
+
+  @Override
+  public Duration tryAcquire(String key) {
+    while (true) {
+      long now = System.nanoTime();
+      Long deadline = deadlines.get(key);
+      if (deadline != null && deadline - now > 0) {
+        return Duration.ofNanos(deadline - now);
+      }
+      long next = now + cooldown.toNanos();
+      boolean acquired =
+          deadline == null
+              ? deadlines.putIfAbsent(key, next) == null
+              : deadlines.replace(key, deadline, next);
+      if (acquired) {
+        return Duration.ZERO;
+      }
+      // Lost the race to a concurrent caller; re-read its deadline
+    }
+  }
+
+  @Override
+  public void release(String key) {
+    deadlines.remove(key);
+  }
+
+  /** Removes keys whose cooldown has passed. */
+  @Scheduled(fixedDelayString = "${otp.resend.sweep-interval:PT1M}")
+  public void sweep() {
+    long now = System.nanoTime();
+    deadlines.values().removeIf(deadline -> deadline - now <= 0);
+  }
+}
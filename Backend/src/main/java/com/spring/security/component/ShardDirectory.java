@@ -0,0 +1,71 @@
+package com.spring.security.component;
+
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.util.ShardContext.Route;
+
+/**
+ * Cached view of the shard directory, mapping accounts to the shards holding their rows. Accounts
+ * that are not registered live on the home database.
+ */
+public interface ShardDirectory {
+
+  /**
+   * Returns the route to an account's shard.
+   *
+   * @param accountId the account ID
+   * @return the route
+   */
+  Route route(Long accountId) throws DaoLayerException;
+
+  /**
+   * Returns the route to the shard of the account with the given name.
+   *
+   * @param name the account name
+   * @return the route
+   */
+  Route routeByAccountName(String name) throws DaoLayerException;
+
+  /**
+   * Returns the route to the shard of the account whose root user has the given email.
+   *
+   * @param email the root user's email
+   * @return the route
+   */
+  Route routeByRootEmail(String email) throws DaoLayerException;
+
+  /**
+   * Chooses the shard for a new account: the one holding the fewest accounts.
+   *
+   * @return the shard ID
+   */
+  int placeNewAccount() throws DaoLayerException;
+
+  /**
+   * Registers a new account. Inside a transaction the account is removed from the directory again
+   * if the transaction rolls back.
+   *
+   * @param accountId the account ID
+   * @param name the account name
+   * @param rootEmail the root user's email
+   * @param shardId the shard holding the account
+   * @return false if the account name is taken on any shard, or the root email belongs to another
+   *     account
+   */
+  boolean register(Long accountId, String name, String rootEmail, int shardId)
+      throws DaoLayerException;
+
+  /**
+   * Removes an account and its root user from the directory, freeing its name and root email for
+   * accounts on any shard.
+   *
+   * @param accountId the account ID
+   */
+  void unregister(Long accountId) throws DaoLayerException;
+
+  /**
+   * Drops an account from the cache, so its next lookup reads the directory.
+   *
+   * @param accountId the account ID
+   */
+  void evict(Long accountId);
+}
@@ -0,0 +1,216 @@
+package com.spring.security.component;
+
+import com.spring.security.component.CacheInvalidationBus.Entity;
+import com.spring.security.config.ShardRoutingDataSource;
+import com.spring.security.dao.ShardDirectoryDao;
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.util.ShardContext.Route;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * ShardDirectoryImpl caches directory entries by account ID, account name and root email. Entries
+ * are evicted on every node when an account's entry changes, through the {@link
+ * CacheInvalidationBus}, and expire after {@code db.shards.directory-ttl} in case an invalidation
+ * is lost. The TTL thus bounds how long another node keeps routing to a tenant's old shard, or
+ * keeps writing to a tenant that has started to move. Unknown accounts are not cached, so an
+ * account registered by another node is found on its first lookup.
+ *
+ * <p>New accounts go to the shard with the fewest accounts. The counts are read from the directory
+ * once per TTL and kept up to date locally in between.
+ */
+@Component
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+@Slf4j
+public class ShardDirectoryImpl implements ShardDirectory, CacheInvalidationListener {
+
+  private record Entry(AccountDirectoryEntry entry, long expiresAtNanos) {}
+
+  private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+  private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+  private final Map<String, Entry> byRootEmail = new ConcurrentHashMap<>();
+  private final Map<Integer, AtomicLong> accountsByShard = new ConcurrentHashMap<>();
+  private volatile long loadExpiresAtNanos;
+
+  private final ShardDirectoryDao shardDirectoryDao;
+  private final ShardRoutingDataSource shards;
+  private final int maxSize;
+  private final long ttlNanos;
+
+  /**
+   * Constructor for ShardDirectoryImpl.
+   *
+   * @param shardDirectoryDao the DAO reading the directory on a miss
+   * @param dataSource the application data source, routing to the shards
+   * @param maxSize the maximum number of cached entries per lookup
+   * @param ttl how long an entry stays cached
+   */
+  public ShardDirectoryImpl(
+      ShardDirectoryDao shardDirectoryDao,
+      DataSource dataSource,
+      @Value("${db.shards.directory-cache-size:100000}") int maxSize,
+      @Value("${db.shards.directory-ttl:PT5S}") Duration ttl)
+      throws SQLException {
+    this.shardDirectoryDao = shardDirectoryDao;
+    this.shards = dataSource.unwrap(ShardRoutingDataSource.class);
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  @Override
+  public Route route(Long accountId) throws DaoLayerException {
+    Entry entry = fresh(byId.get(accountId));
+    if (entry == null) {
+      entry = cache(byId, accountId, shardDirectoryDao.findByAccountId(accountId));
+    }
+    return toRoute(entry);
+  }
+
+  @Override
+  public Route routeByAccountName(String name) throws DaoLayerException {
+    Entry entry = fresh(byName.get(name));
+    if (entry == null) {
+      entry = cache(byName, name, shardDirectoryDao.findByName(name));
+    }
+    return toRoute(entry);
+  }
+
+  @Override
+  public Route routeByRootEmail(String email) throws DaoLayerException {
+    Entry entry = fresh(byRootEmail.get(email));
+    if (entry == null) {
+      entry = cache(byRootEmail, email, shardDirectoryDao.findByRootEmail(email));
+    }
+    return toRoute(entry);
+  }
+
+  @Override
+  public int placeNewAccount() throws DaoLayerException {
+    if (loadExpiresAtNanos - System.nanoTime() <= 0) {
+      for (int shardId : shards.getShardIds()) {
+        accountsByShard
+            .computeIfAbsent(shardId, id -> new AtomicLong())
+            .set(shardDirectoryDao.countByShard(shardId));
+      }
+      loadExpiresAtNanos = System.nanoTime() + ttlNanos;
+    }
+    int placed = -1;
+    long fewest = Long.MAX_VALUE;
+    for (Map.Entry<Integer, AtomicLong> shard : accountsByShard.entrySet()) {
+      if (shard.getValue().get() < fewest) {
+        placed = shard.getKey();
+        fewest = shard.getValue().get();
+      }
+    }
+    accountsByShard.get(placed).incrementAndGet();
+    return placed;
+  }
+
+  @Override
+  public boolean register(Long accountId, String name, String rootEmail, int shardId)
+      throws DaoLayerException {
+    AccountDirectoryEntry entry = new AccountDirectoryEntry();
+    entry.setAccountId(accountId);
+    entry.setName(name);
+    entry.setShardId(shardId);
+    entry.setMoving(false);
+    if (!shardDirectoryDao.register(entry, rootEmail)) {
+      return false;
+    }
+    // The directory commits on its own; undo the registration if the account's rows roll back
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status == STATUS_ROLLED_BACK) {
+                unregisterRolledBack(accountId);
+              }
+            }
+          });
+    }
+    return true;
+  }
+
+  @Override
+  public void unregister(Long accountId) throws DaoLayerException {
+    shardDirectoryDao.unregister(accountId);
+    evict(accountId);
+  }
+
+  @Override
+  public void evict(Long accountId) {
+    byId.remove(accountId);
+    byName.values().removeIf(e -> e.entry().getAccountId().equals(accountId));
+    byRootEmail.values().removeIf(e -> e.entry().getAccountId().equals(accountId));
+  }
+
+  @Override
+  public void invalidate(Entity entity, Set<Long> keys) {
+    if (entity == Entity.ACCOUNT) {
+      keys.forEach(this::evict);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    byId.clear();
+    byName.clear();
+    byRootEmail.clear();
+  }
+
+  private void unregisterRolledBack(Long accountId) {
+    try {
+      unregister(accountId);
+    } catch (DaoLayerException e) {
+      log.error(
+          "Account {} was rolled back but is still in the shard directory: {}",
+          accountId,
+          e.getMessage());
+    }
+  }
+
+  private Entry fresh(Entry entry) {
+    return entry != null && entry.expiresAtNanos() - System.nanoTime() > 0 ? entry : null;
+  }
+
+  private <K> Entry cache(Map<K, Entry> cache, K key, AccountDirectoryEntry entry) {
+    if (entry == null) {
+      return null;
+    }
+    if (cache.size() >= maxSize) {
+      long now = System.nanoTime();
+      cache.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+      if (cache.size() >= maxSize) {
+        cache.clear();
+      }
+    }
+    Entry cached = new Entry(entry, System.nanoTime() + ttlNanos);
+    cache.put(key, cached);
+    return cached;
+  }
+
+  private Route toRoute(Entry entry) throws DaoLayerException {
+    if (entry == null) {
+      return Route.HOME;
+    }
+    int shardId = entry.entry().getShardId();
+    if (!shards.getShardIds().contains(shardId)) {
+      throw new DaoLayerException(
+          "Account " + entry.entry().getAccountId() + " is on unknown shard " + shardId);
+    }
+    return new Route(shardId, Boolean.TRUE.equals(entry.entry().getMoving()));
+  }
+}
@@ -0,0 +1,39 @@
+package com.spring.security.component;
+
+import com.spring.security.exceptions.ServiceLayerException;
+import com.spring.security.service.TenantMoveService;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for operators to move a tenant to another shard, e.g. {@code POST
+ * /actuator/tenantmoves/42} with {@code {"targetShardId": 2}}. Like every actuator endpoint it is
+ * only reachable once exposed through {@code management.endpoints.*.exposure.include}.
+ */
+@Component
+@Endpoint(id = "tenantmoves")
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+public class TenantMoveEndpoint {
+
+  private final TenantMoveService tenantMoveService;
+
+  /**
+   * Constructor for TenantMoveEndpoint.
+   *
+   * @param tenantMoveService the service moving tenants
+   */
+  public TenantMoveEndpoint(TenantMoveService tenantMoveService) {
+    this.tenantMoveService = tenantMoveService;
+  }
+
+  @WriteOperation
+  public Map<String, Object> move(@Selector Long accountId, int targetShardId)
+      throws ServiceLayerException {
+    long rows = tenantMoveService.move(accountId, targetShardId);
+    return Map.of("accountId", accountId, "shardId", targetShardId, "rowsMoved", rows);
+  }
+}
@@ -1,7 +1,18 @@
 package com.spring.security.config;
 
+import java.time.Duration;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.client.RestTemplate;
 
@@ -19,8 +30,45 @@ public class AppConfig {
     return new BCryptPasswordEncoder(12);
   }
 
+  /**
+   * restTemplate bean is used for outbound HTTP calls such as the email provider API. It is backed
+   * by a pooled keep-alive client, so repeated calls to the same host reuse connections instead of
+   * paying a TCP and TLS handshake each time.
+   *
+   * @param maxConnections the maximum number of pooled connections
+   * @param maxConnectionsPerRoute the maximum number of pooled connections per host
+   * @param connectTimeout the timeout for establishing a connection
+   * @param readTimeout the timeout for waiting on response data
+   * @return a RestTemplate backed by a pooled Apache HttpClient
+   */
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(
+      @Value("${http.client.max-connections:50}") int maxConnections,
+      @Value("${http.client.max-connections-per-route:20}") int maxConnectionsPerRoute,
+      @Value("${http.client.connect-timeout:PT5S}") Duration connectTimeout,
+      @Value("${http.client.read-timeout:PT30S}") Duration readTimeout) {
+    PoolingHttpClientConnectionManager connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(
+                ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                    .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                    .build())
+            .build();
+
+    CloseableHttpClient httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                    .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+
+    return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
   }
 }
@@ -1,17 +1,38 @@
 package com.spring.security.config;
 
 import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+/**
+ * AsyncConfig defines the application's executors. With {@code spring.threads.virtual.enabled}
+ * every task runs on its own virtual thread instead of a bounded platform thread pool; Spring Boot
+ * switches Tomcat request handling and its own executors over with the same property.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+  private final boolean virtualThreads;
+
+  /**
+   * Constructor for AsyncConfig.
+   *
+   * @param virtualThreads whether tasks run on virtual threads
+   */
+  public AsyncConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
   @Bean(name = "mailTaskExecutor")
   public Executor mailTaskExecutor() {
+    if (virtualThreads) {
+      return virtualThreadExecutor("MailSender-");
+    }
     ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
     executor.setCorePoolSize(5); // Minimum number of threads
     executor.setMaxPoolSize(10); // Max threads in pool
@@ -20,4 +41,24 @@ public class AsyncConfig {
     executor.initialize();
     return executor;
   }
+
+  @Bean(name = "activityStreamExecutor")
+  public Executor activityStreamExecutor() {
+    if (virtualThreads) {
+      return virtualThreadExecutor("ActivityStream-");
+    }
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(2);
+    executor.setMaxPoolSize(4);
+    executor.setQueueCapacity(1000); // One pending drain task per subscriber at most
+    executor.setThreadNamePrefix("ActivityStream-");
+    executor.initialize();
+    return executor;
+  }
+
+  private static Executor virtualThreadExecutor(String threadNamePrefix) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+    executor.setVirtualThreads(true);
+    return executor;
+  }
 }
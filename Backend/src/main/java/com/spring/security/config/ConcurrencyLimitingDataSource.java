@@ -0,0 +1,135 @@
+package com.spring.security.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that limits the number of connections handed out at once with a fair semaphore.
+ *
+ * <p>With virtual threads, request concurrency is no longer bounded by the thread pool, so far more
+ * threads than the connection pool can serve may ask for a connection at the same time. The
+ * semaphore is sized to the pool: callers wait on it instead of inside the pool, and once too many
+ * are waiting, further callers fail immediately rather than queueing until they time out.
+ *
+ * <p>Closing it closes the data source it limits.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+  private final Semaphore permits;
+  private final long acquireTimeoutNanos;
+  private final int maxWaiting;
+
+  /**
+   * Constructor for ConcurrencyLimitingDataSource.
+   *
+   * @param targetDataSource the data source to limit
+   * @param maxConcurrent the maximum number of connections in use at once
+   * @param acquireTimeout how long a caller waits for a connection
+   * @param maxWaiting the number of waiting callers beyond which further callers fail fast
+   */
+  public ConcurrencyLimitingDataSource(
+      DataSource targetDataSource, int maxConcurrent, Duration acquireTimeout, int maxWaiting) {
+    super(targetDataSource);
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    this.maxWaiting = maxWaiting;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return limited(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return limited(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of callers waiting for a connection.
+   *
+   * @return the number of waiting callers
+   */
+  public int getWaiting() {
+    return permits.getQueueLength();
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (getTargetDataSource() instanceof AutoCloseable target) {
+      target.close();
+    }
+  }
+
+  private void acquire() throws SQLException {
+    if (permits.getQueueLength() >= maxWaiting) {
+      throw new SQLTransientConnectionException(
+          "Too many callers waiting for a database connection");
+    }
+    try {
+      if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new SQLTransientConnectionException(
+            "Timed out waiting for a database connection after "
+                + Duration.ofNanos(acquireTimeoutNanos));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+    }
+  }
+
+  /** Wraps the connection so that closing it returns the permit, once. */
+  private Connection limited(Connection connection) {
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                default:
+                  break;
+              }
+              if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                try {
+                  connection.close();
+                } finally {
+                  if (released.compareAndSet(false, true)) {
+                    permits.release();
+                  }
+                }
+                return null;
+              }
+              try {
+                return method.invoke(connection, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+}
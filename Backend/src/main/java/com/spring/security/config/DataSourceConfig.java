@@ -0,0 +1,162 @@
+package com.spring.security.config;
+
+import com.spring.security.util.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * DataSourceConfig adjusts the data source for virtual-thread request handling, routes reads to
+ * read replicas when {@code db.replicas.urls} is set, and routes tenants to shards when {@code
+ * db.shards.urls} is set.
+ */
+@Configuration
+public class DataSourceConfig {
+
+  /**
+   * dataSourceConcurrencyLimiter wraps the data source in a {@link ConcurrencyLimitingDataSource}
+   * sized to the Hikari pool. It is on by default whenever virtual threads are enabled, since
+   * request threads are then no longer a natural limit on concurrent connection requests.
+   *
+   * @param environment the environment providing the limiter settings
+   * @return a post processor wrapping DataSource beans
+   */
+  @Bean
+  static BeanPostProcessor dataSourceConcurrencyLimiter(Environment environment) {
+    UnaryOperator<DataSource> limiter = concurrencyLimiter(environment);
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // The routing data sources limit each of their pools instead
+        if (!(bean instanceof DataSource dataSource)
+            || bean instanceof ConcurrencyLimitingDataSource
+            || bean instanceof LazyConnectionDataSourceProxy) {
+          return bean;
+        }
+        return limiter.apply(dataSource);
+      }
+    };
+  }
+
+  /**
+   * dataSource replaces the auto-configured pool with one pool for the primary, one per read
+   * replica and one per shard. Reads go to the replicas behind a {@link ReplicaRoutingDataSource},
+   * and with shards configured the primary and its replicas become the home database of a {@link
+   * ShardRoutingDataSource}. Every pool takes the {@code spring.datasource.hikari} settings, and
+   * replicas and shards use the primary's credentials.
+   *
+   * @param properties the primary's connection settings
+   * @param environment the environment providing the replica and shard URLs and pool settings
+   * @return the routing data source, connecting lazily; closing it closes every pool
+   */
+  @Bean
+  @ConditionalOnExpression("!'${db.replicas.urls:}'.isBlank() or !'${db.shards.urls:}'.isBlank()")
+  public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+    UnaryOperator<DataSource> limiter = concurrencyLimiter(environment);
+    DataSource home =
+        limiter.apply(pool(properties, environment, properties.determineUrl(), "primary", false));
+    String[] replicaUrls = urls(environment, "db.replicas.urls");
+    if (replicaUrls.length > 0) {
+      Map<String, DataSource> replicas = new LinkedHashMap<>();
+      for (int i = 0; i < replicaUrls.length; i++) {
+        String name = "replica-" + (i + 1);
+        replicas.put(
+            name, limiter.apply(pool(properties, environment, replicaUrls[i], name, true)));
+      }
+      home = ReplicaRoutingDataSource.create(home, replicas);
+    }
+    String[] shardUrls = urls(environment, "db.shards.urls");
+    if (shardUrls.length > 0) {
+      Map<Integer, DataSource> shards = new LinkedHashMap<>();
+      shards.put(ShardContext.HOME, home);
+      for (int i = 0; i < shardUrls.length; i++) {
+        String name = "shard-" + (i + 1);
+        shards.put(i + 1, limiter.apply(pool(properties, environment, shardUrls[i], name, false)));
+      }
+      home = ShardRoutingDataSource.create(shards);
+    }
+    LazyConnectionDataSourceProxy dataSource = new ClosingLazyConnectionDataSourceProxy(home);
+    // Known up front, so the proxy need not borrow a connection to find out
+    dataSource.setDefaultAutoCommit(
+        environment.getProperty("spring.datasource.hikari.auto-commit", Boolean.class, true));
+    dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    return dataSource;
+  }
+
+  /**
+   * LazyConnectionDataSourceProxy that closes its target, so that the pools, which are not beans of
+   * their own, are shut down with the context.
+   */
+  static class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy
+      implements AutoCloseable {
+
+    ClosingLazyConnectionDataSourceProxy(DataSource targetDataSource) {
+      super(targetDataSource);
+    }
+
+    @Override
+    public void close() throws Exception {
+      if (getTargetDataSource() instanceof AutoCloseable target) {
+        target.close();
+      }
+    }
+  }
+
+  private static String[] urls(Environment environment, String key) {
+    String urls = environment.getProperty(key, "");
+    return Arrays.stream(urls.split(","))
+        .map(String::trim)
+        .filter(u -> !u.isEmpty())
+        .toArray(String[]::new);
+  }
+
+  private static HikariDataSource pool(
+      DataSourceProperties properties,
+      Environment environment,
+      String url,
+      String name,
+      boolean readOnly) {
+    HikariDataSource pool =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+    pool.setPoolName(name);
+    pool.setReadOnly(readOnly);
+    return pool;
+  }
+
+  private static UnaryOperator<DataSource> concurrencyLimiter(Environment environment) {
+    boolean virtualThreads =
+        environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+    boolean enabled = environment.getProperty("db.limiter.enabled", Boolean.class, virtualThreads);
+    Duration acquireTimeout =
+        environment.getProperty(
+            "db.limiter.acquire-timeout", Duration.class, Duration.ofSeconds(5));
+    int maxWaiting = environment.getProperty("db.limiter.max-waiting", Integer.class, 10_000);
+
+    return dataSource -> {
+      if (!enabled) {
+        return dataSource;
+      }
+      int maxConcurrent =
+          dataSource instanceof HikariDataSource hikari
+              ? hikari.getMaximumPoolSize()
+              : environment.getProperty("db.limiter.max-concurrent", Integer.class, 10);
+      return new ConcurrencyLimitingDataSource(
+          dataSource, maxConcurrent, acquireTimeout, maxWaiting);
+    };
+  }
+}
@@ -0,0 +1,322 @@
+package com.spring.security.config;
+
+import com.spring.security.util.ReplicaRoutingContext;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that sends reads in read-only transactions to a read replica and everything else to
+ * the primary.
+ *
+ * <p>A replica serves reads only while it is within the allowed replication lag, as measured by
+ * {@link #refreshLag(Duration)}; until its first check, or when none qualifies, reads fall back to
+ * the primary. For read-your-writes, a request may carry the primary's WAL position after its last
+ * write; only replicas that have replayed up to that position serve it. That position is read on
+ * the writing request's own primary connection as it is closed, after its transaction has ended, so
+ * handing it out needs no further connection. Once a request has used the primary, its later reads
+ * stay on the primary too.
+ *
+ * <p>The read-only flag of a transaction is only set after the transaction manager has obtained its
+ * connection, so this data source must sit behind a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}. Closing it closes the primary
+ * and the replicas.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+  static final String PRIMARY = "primary";
+
+  /** A replica and the result of its last lag check. */
+  public static final class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean available;
+    private volatile long replayLsn;
+    private volatile double lagSeconds = Double.NaN;
+
+    private Replica(String name, DataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isAvailable() {
+      return available;
+    }
+
+    /**
+     * Returns the replication lag seen at the last check, or NaN if the replica was unreachable.
+     */
+    public double getLagSeconds() {
+      return lagSeconds;
+    }
+  }
+
+  private final DataSource primary;
+  private final List<Replica> replicas;
+  private final AtomicInteger next = new AtomicInteger();
+
+  private ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+    this.primary = primary;
+    this.replicas =
+        replicas.entrySet().stream().map(e -> new Replica(e.getKey(), e.getValue())).toList();
+  }
+
+  /**
+   * Creates a ReplicaRoutingDataSource, ready for use.
+   *
+   * @param primary the primary data source
+   * @param replicas the replica data sources by name
+   * @return the routing data source
+   */
+  public static ReplicaRoutingDataSource create(
+      DataSource primary, Map<String, DataSource> replicas) {
+    ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replicas);
+    Map<Object, Object> targets = new LinkedHashMap<>();
+    targets.put(PRIMARY, primary);
+    targets.putAll(replicas);
+    routingDataSource.setTargetDataSources(targets);
+    routingDataSource.setDefaultTargetDataSource(primary);
+    routingDataSource.setLenientFallback(false);
+    routingDataSource.afterPropertiesSet();
+    return routingDataSource;
+  }
+
+  /**
+   * Returns the replicas and the result of their last lag check.
+   *
+   * @return the replicas
+   */
+  public List<Replica> getReplicas() {
+    return replicas;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      ReplicaRoutingContext.markPrimaryUsed();
+      return PRIMARY;
+    }
+    if (ReplicaRoutingContext.primaryUsed()) {
+      return PRIMARY;
+    }
+    long minLsn = ReplicaRoutingContext.minLsn();
+    int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get((start + i) % replicas.size());
+      if (replica.available && replica.replayLsn >= minLsn) {
+        return replica.name;
+      }
+    }
+    return PRIMARY;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    DataSource target = determineTargetDataSource();
+    return recordingWriteLsn(target, target.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    DataSource target = determineTargetDataSource();
+    return recordingWriteLsn(target, target.getConnection(username, password));
+  }
+
+  /**
+   * Wraps a primary connection of a request that may write so that closing it first records the
+   * primary's WAL position in the {@link ReplicaRoutingContext}. The transaction manager restores
+   * auto-commit before closing, so by then the request's writes are committed and the position
+   * covers them; a connection still inside a transaction records nothing.
+   */
+  private Connection recordingWriteLsn(DataSource target, Connection connection) {
+    if (target != primary || !ReplicaRoutingContext.tracksWrites()) {
+      return connection;
+    }
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                default:
+                  break;
+              }
+              if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                try {
+                  recordWriteLsn(connection);
+                } finally {
+                  connection.close();
+                }
+                return null;
+              }
+              try {
+                return method.invoke(connection, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+
+  private static void recordWriteLsn(Connection connection) {
+    try {
+      if (!connection.isClosed() && connection.getAutoCommit()) {
+        ReplicaRoutingContext.recordWriteLsn(currentLsn(connection));
+      }
+    } catch (SQLException e) {
+      log.warn("Could not read the primary's WAL position after a write: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * The insert position rather than the write position, which may not yet cover a transaction
+   * committed with synchronous_commit off.
+   */
+  private static long currentLsn(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT pg_current_wal_insert_lsn()::text")) {
+      resultSet.next();
+      return parseLsn(resultSet.getString(1));
+    }
+  }
+
+  /**
+   * Returns the current WAL position of the primary, read on a connection of its own.
+   *
+   * @return the WAL position
+   * @throws SQLException if the primary cannot be queried
+   */
+  public long currentPrimaryLsn() throws SQLException {
+    try (Connection connection = primary.getConnection()) {
+      return currentLsn(connection);
+    }
+  }
+
+  /**
+   * Checks every replica's replication lag and marks the replicas within {@code maxLag} available.
+   * A replica that has replayed everything the primary had written when the check started has no
+   * lag, however long ago its last replayed transaction was.
+   *
+   * <p>A server that is not in recovery has no replay position: it serves reads that carry no token
+   * but never satisfies one.
+   *
+   * @param maxLag the largest replication lag a replica may have to serve reads
+   */
+  public void refreshLag(Duration maxLag) {
+    long primaryLsn;
+    try {
+      primaryLsn = currentPrimaryLsn();
+    } catch (SQLException e) {
+      log.warn("Could not read the primary's WAL position: {}", e.getMessage());
+      primaryLsn = Long.MAX_VALUE;
+    }
+    for (Replica replica : replicas) {
+      try (Connection connection = replica.dataSource.getConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet =
+              statement.executeQuery(
+                  "SELECT pg_last_wal_replay_lsn()::text, "
+                      + "EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())")) {
+        resultSet.next();
+        String replayed = resultSet.getString(1);
+        double sinceReplay = resultSet.getDouble(2);
+        boolean replayedAnything = !resultSet.wasNull();
+        long replayLsn = replayed == null ? 0 : parseLsn(replayed);
+        double lag;
+        if (replayed == null || replayLsn >= primaryLsn) {
+          lag = 0;
+        } else {
+          lag = replayedAnything ? Math.max(sinceReplay, 0) : Double.POSITIVE_INFINITY;
+        }
+        replica.replayLsn = replayLsn;
+        replica.lagSeconds = lag;
+        setAvailable(replica, lag <= maxLag.toMillis() / 1000.0);
+      } catch (SQLException | RuntimeException e) {
+        replica.lagSeconds = Double.NaN;
+        if (replica.available) {
+          log.warn("Replica {} is unreachable: {}", replica.name, e.getMessage());
+        }
+        replica.available = false;
+      }
+    }
+  }
+
+  private void setAvailable(Replica replica, boolean available) {
+    if (replica.available != available) {
+      if (available) {
+        log.info("Replica {} is serving reads, lag {}s", replica.name, replica.lagSeconds);
+      } else {
+        log.warn(
+            "Replica {} lags {}s, reads fall back to the primary",
+            replica.name,
+            replica.lagSeconds);
+      }
+    }
+    replica.available = available;
+  }
+
+  /**
+   * Parses a PostgreSQL WAL position such as {@code 16/B374D848} into a comparable number.
+   *
+   * @param lsn the WAL position
+   * @return the position as a number
+   * @throws IllegalArgumentException if the text is not a WAL position
+   */
+  public static long parseLsn(String lsn) {
+    int slash = lsn.indexOf('/');
+    if (slash < 1 || slash == lsn.length() - 1) {
+      throw new IllegalArgumentException("Not a WAL position: " + lsn);
+    }
+    return (Long.parseLong(lsn.substring(0, slash), 16) << 32)
+        | Long.parseLong(lsn.substring(slash + 1), 16);
+  }
+
+  /**
+   * Formats a WAL position parsed by {@link #parseLsn(String)} back to its text form.
+   *
+   * @param lsn the position as a number
+   * @return the WAL position
+   */
+  public static String formatLsn(long lsn) {
+    return Long.toHexString(lsn >>> 32).toUpperCase()
+        + "/"
+        + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+  }
+
+  /** Closes the replicas and the primary. */
+  @Override
+  public void close() {
+    getResolvedDataSources()
+        .forEach(
+            (name, dataSource) -> {
+              if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                  closeable.close();
+                } catch (Exception e) {
+                  log.warn("Failed to close data source {}", name, e);
+                }
+              }
+            });
+  }
+}
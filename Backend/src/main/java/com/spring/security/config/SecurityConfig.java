@@ -5,11 +5,15 @@ import com.spring.security.config.authproviders.AccountUserAuthProvider;
 import com.spring.security.config.authproviders.RootUserAuthProvider;
 import com.spring.security.exceptions.AuthEntryPoint;
 import com.spring.security.filter.JwtFilter;
+import com.spring.security.filter.ReadYourWritesFilter;
+import jakarta.servlet.DispatcherType;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.Customizer;
@@ -35,6 +39,12 @@ public class SecurityConfig {
 
   @Autowired private AuthEntryPoint customAuthenticationEntryPoint;
 
+  @Value("${server.port:8080}")
+  private int serverPort;
+
+  @Value("${management.server.port:-1}")
+  private int managementPort;
+
   /**
    * AuthenticationManager bean is used to authenticate the user credentials. It uses the custom
    * authentication providers defined in the application.
@@ -45,6 +55,27 @@ public class SecurityConfig {
     return new ProviderManager(accountUserAuthProvider, rootUserAuthProvider);
   }
 
+  /**
+   * managementSecurityFilterChain opens the actuator endpoints on the management port, which is
+   * bound to a private address and never exposed with the API. It applies only when the management
+   * port is separate from the API port.
+   *
+   * @param http HttpSecurity object to configure security settings
+   * @return SecurityFilterChain object for requests to the management port
+   * @throws Exception if an error occurs during configuration
+   */
+  @Bean
+  @Order(1)
+  public SecurityFilterChain managementSecurityFilterChain(HttpSecurity http) throws Exception {
+    boolean separatePort = managementPort > 0 && managementPort != serverPort;
+    return http.securityMatcher(request -> separatePort && request.getLocalPort() == managementPort)
+        .csrf(AbstractHttpConfigurer::disable)
+        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .sessionManagement(
+            session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .build();
+  }
+
   /**
    * SecurityFilterChain bean is used to configure the security settings for the application. It
    * defines the authorization rules and session management policies.
@@ -66,13 +97,20 @@ public class SecurityConfig {
         .exceptionHandling(ex -> ex.authenticationEntryPoint(customAuthenticationEntryPoint))
         .authorizeHttpRequests(
             auth ->
-                auth.requestMatchers(
+                auth
+                    // Async dispatches (e.g. SSE streams) were already authorized on the way in
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                    .permitAll()
+                    .requestMatchers(
                         "/api/v1/auth/**",
                         "/api/v1/accounts/*/users/set-password",
                         "/api/v1/accounts/*/users/forgot-password",
                         "/api/v1/accounts/create",
                         "/api/v1/otp/**")
                     .permitAll()
+                    // Only served on the management port
+                    .requestMatchers("/actuator/**")
+                    .denyAll()
                     .anyRequest()
                     .authenticated())
         .sessionManagement(
@@ -91,7 +129,8 @@ public class SecurityConfig {
     configuration.setAllowedMethods(List.of("*")); // allows all methods
     configuration.setAllowedHeaders(List.of("*")); // allows all headers
     configuration.setAllowCredentials(true);
-    configuration.setExposedHeaders(List.of("Authorization")); // allow cookies/auth headers
+    configuration.setExposedHeaders(
+        List.of("Authorization", ReadYourWritesFilter.HEADER)); // allow cookies/auth headers
 
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", configuration); // apply to all paths
@@ -0,0 +1,120 @@
+package com.spring.security.config;
+
+import com.spring.security.util.ShardContext;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that sends each connection request to the shard in the thread's {@link ShardContext},
+ * or to the home database when none is set.
+ *
+ * <p>While a tenant is being moved to another shard its data must not change, so connections for
+ * anything but a read-only transaction are refused with a transient error the caller may retry once
+ * the move is done. The read-only flag is only set after the transaction manager has obtained its
+ * connection, so this data source must sit behind a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}. Closing it closes every
+ * shard.
+ */
+@Slf4j
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+  private final Map<Integer, DataSource> shards;
+
+  private ShardRoutingDataSource(Map<Integer, DataSource> shards) {
+    this.shards = Collections.unmodifiableSortedMap(new TreeMap<>(shards));
+  }
+
+  /**
+   * Creates a ShardRoutingDataSource, ready for use.
+   *
+   * @param shards the data sources by shard ID, including the home database
+   * @return the routing data source
+   * @throws IllegalArgumentException if the shards do not include the home database
+   */
+  public static ShardRoutingDataSource create(Map<Integer, DataSource> shards) {
+    if (!shards.containsKey(ShardContext.HOME)) {
+      throw new IllegalArgumentException("The shards must include the home database");
+    }
+    ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shards);
+    routingDataSource.setTargetDataSources(new LinkedHashMap<>(shards));
+    routingDataSource.setDefaultTargetDataSource(shards.get(ShardContext.HOME));
+    routingDataSource.setLenientFallback(false);
+    routingDataSource.afterPropertiesSet();
+    return routingDataSource;
+  }
+
+  /**
+   * Returns the IDs of all shards in ascending order, starting with the home database.
+   *
+   * @return the shard IDs
+   */
+  public Set<Integer> getShardIds() {
+    return shards.keySet();
+  }
+
+  /**
+   * Returns the data source of a shard, bypassing the routing.
+   *
+   * @param shardId the shard ID
+   * @return the shard's data source
+   * @throws IllegalArgumentException if there is no such shard
+   */
+  public DataSource getShard(int shardId) {
+    DataSource shard = shards.get(shardId);
+    if (shard == null) {
+      throw new IllegalArgumentException("No shard with ID " + shardId);
+    }
+    return shard;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.shardId();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    checkWritable();
+    return super.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    checkWritable();
+    return super.getConnection(username, password);
+  }
+
+  private void checkWritable() throws SQLTransientConnectionException {
+    if (ShardContext.moving()
+        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      throw new SQLTransientConnectionException(
+          "The account is being moved to another shard; only reads are served until it is done");
+    }
+  }
+
+  /** Closes every shard, including the home database. */
+  @Override
+  public void close() {
+    getResolvedDataSources()
+        .forEach(
+            (name, dataSource) -> {
+              if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                  closeable.close();
+                } catch (Exception e) {
+                  log.warn("Failed to close data source of shard {}", name, e);
+                }
+              }
+            });
+  }
+}
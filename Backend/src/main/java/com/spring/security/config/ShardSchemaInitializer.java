@@ -0,0 +1,130 @@
+package com.spring.security.config;
+
+import com.spring.security.util.ShardContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+/**
+ * ShardSchemaInitializer prepares the shards at startup, after the home database has been
+ * initialized from {@code spring.sql.init.*}. Every other shard gets the same schema and data, the
+ * home database gets the shard directory, and the ID sequences of tenant tables are interleaved:
+ * each shard steps by {@code db.shards.id-stride} from an offset of its shard ID, so rows keep
+ * their IDs when a tenant moves between shards. Sequences are aligned once, above the highest ID
+ * any shard has issued, and left alone on later starts.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+@Slf4j
+public class ShardSchemaInitializer implements InitializingBean {
+
+  /** The sequences of the tables moved with a tenant. */
+  private static final List<String> TENANT_SEQUENCES =
+      List.of("accounts_id_seq", "users_id_seq", "roles_id_seq", "activity_logs_id_seq");
+
+  private final ShardRoutingDataSource shards;
+  private final Resource[] schemaScripts;
+  private final Resource directoryScript;
+  private final boolean initializeSchema;
+  private final int idStride;
+
+  /**
+   * Constructor for ShardSchemaInitializer.
+   *
+   * @param dataSource the application data source, routing to the shards
+   * @param schema the schema script
+   * @param data the data script
+   * @param directory the shard directory script
+   * @param initMode the SQL initialization mode; with {@code never} only the sequences are aligned
+   * @param idStride the step of every shard's ID sequences, larger than the highest shard ID
+   */
+  public ShardSchemaInitializer(
+      DataSource dataSource,
+      @Value("${spring.sql.init.schema-locations:classpath:db/schema.sql}") Resource schema,
+      @Value("${spring.sql.init.data-locations:classpath:db/data.sql}") Resource data,
+      @Value("classpath:db/directory.sql") Resource directory,
+      @Value("${spring.sql.init.mode:embedded}") String initMode,
+      @Value("${db.shards.id-stride:64}") int idStride)
+      throws SQLException {
+    this.shards = dataSource.unwrap(ShardRoutingDataSource.class);
+    this.schemaScripts = new Resource[] {schema, data};
+    this.directoryScript = directory;
+    this.initializeSchema = !"never".equalsIgnoreCase(initMode);
+    this.idStride = idStride;
+    int highestShardId = shards.getShardIds().stream().max(Integer::compare).orElseThrow();
+    if (highestShardId >= idStride) {
+      throw new IllegalStateException(
+          "db.shards.id-stride must be larger than the highest shard ID " + highestShardId);
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() throws SQLException {
+    if (initializeSchema) {
+      for (int shardId : shards.getShardIds()) {
+        if (shardId != ShardContext.HOME) {
+          new ResourceDatabasePopulator(schemaScripts).execute(shards.getShard(shardId));
+        }
+      }
+      new ResourceDatabasePopulator(directoryScript).execute(shards.getShard(ShardContext.HOME));
+    }
+    for (String sequence : TENANT_SEQUENCES) {
+      interleave(sequence);
+    }
+    log.info("Shards {} initialized", shards.getShardIds());
+  }
+
+  private void interleave(String sequence) throws SQLException {
+    long highest = 0;
+    for (int shardId : shards.getShardIds()) {
+      highest = Math.max(highest, lastValue(shards.getShard(shardId), sequence));
+    }
+    for (int shardId : shards.getShardIds()) {
+      try (Connection connection = shards.getShard(shardId).getConnection()) {
+        if (increment(connection, sequence) == idStride) {
+          continue;
+        }
+        long next = highest + 1 + Math.floorMod(shardId - (highest + 1), idStride);
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + idStride);
+          statement.execute("SELECT setval('" + sequence + "', " + next + ", false)");
+        }
+        log.info("Sequence {} on shard {} continues at {}", sequence, shardId, next);
+      }
+    }
+  }
+
+  /** Reads the sequence itself, which shows the value set by setval even before it is used. */
+  private static long lastValue(DataSource shard, String sequence) throws SQLException {
+    try (Connection connection = shard.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT last_value FROM " + sequence)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private static long increment(Connection connection, String sequence) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "SELECT increment_by FROM pg_sequences WHERE sequencename = ?")) {
+      statement.setString(1, sequence);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? resultSet.getLong(1) : 0;
+      }
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.spring.security.config.authproviders;
 
+import com.spring.security.component.AccountCache;
 import com.spring.security.config.tokens.AccountUserAuthToken;
 import com.spring.security.dao.UserDao;
 import com.spring.security.domain.entity.CustomUserDetails;
@@ -12,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -31,15 +33,20 @@ public class AccountUserAuthProvider implements AuthenticationProvider {
 
   private final PasswordEncoder passwordEncoder;
 
+  private final AccountCache accountCache;
+
   /**
    * Constructor for AccountAuthProvider.
    *
    * @param userDao the UserDao to be used for database operations
    * @param passwordEncoder the PasswordEncoder to encode and verify passwords
+   * @param accountCache the cache used to check the account status
    */
-  public AccountUserAuthProvider(UserDao userDao, PasswordEncoder passwordEncoder) {
+  public AccountUserAuthProvider(
+      UserDao userDao, PasswordEncoder passwordEncoder, AccountCache accountCache) {
     this.userDao = userDao;
     this.passwordEncoder = passwordEncoder;
+    this.accountCache = accountCache;
   }
 
   /**
@@ -59,6 +66,9 @@ public class AccountUserAuthProvider implements AuthenticationProvider {
           Optional.ofNullable(token.getCredentials()).map(Object::toString).orElse(null);
       Long accountId = token.getAccountId();
       log.info("Authenticating user: {} for account: {}", email, accountId);
+      if (!accountCache.isUsable(accountId)) {
+        throw new DisabledException("Account is disabled");
+      }
       User user = fetchUserByAccountAndEmail(accountId, email);
       validatePassword(password, user.getPassword());
       UserDetails userDetails = buildUserDetails(user);
@@ -66,7 +76,7 @@ public class AccountUserAuthProvider implements AuthenticationProvider {
       return new AccountUserAuthToken(
           userDetails, user.getPassword(), accountId, userDetails.getAuthorities());
 
-    } catch (UsernameNotFoundException | BadCredentialsException e) {
+    } catch (UsernameNotFoundException | BadCredentialsException | DisabledException e) {
       log.warn("Authentication failed: {}", e.getMessage());
       throw e;
     } catch (Exception e) {
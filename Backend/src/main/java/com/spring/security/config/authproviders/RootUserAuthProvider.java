@@ -2,6 +2,7 @@ package com.spring.security.config.authproviders;
 
 import static com.spring.security.util.AuthUtil.getAuthorities;
 
+import com.spring.security.component.AccountCache;
 import com.spring.security.config.tokens.RootUserAuthToken;
 import com.spring.security.dao.UserDao;
 import com.spring.security.domain.entity.CustomUserDetails;
@@ -12,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -32,15 +34,20 @@ public class RootUserAuthProvider implements AuthenticationProvider {
 
   private final PasswordEncoder passwordEncoder;
 
+  private final AccountCache accountCache;
+
   /**
    * Constructor to initialize the RootUserAuthProvider with UserDao and PasswordEncoder.
    *
    * @param userDao the UserDao instance for user data access.
    * @param passwordEncoder the PasswordEncoder instance for password encoding.
+   * @param accountCache the cache used to check the account status.
    */
-  public RootUserAuthProvider(UserDao userDao, PasswordEncoder passwordEncoder) {
+  public RootUserAuthProvider(
+      UserDao userDao, PasswordEncoder passwordEncoder, AccountCache accountCache) {
     this.userDao = userDao;
     this.passwordEncoder = passwordEncoder;
+    this.accountCache = accountCache;
   }
 
   /**
@@ -63,6 +70,7 @@ public class RootUserAuthProvider implements AuthenticationProvider {
 
     User user = loadUserByEmail(email);
     validatePassword(user, password);
+    validateAccountStatus(user.getAccountId());
 
     UserDetails userDetails =
         new CustomUserDetails(
@@ -117,6 +125,25 @@ public class RootUserAuthProvider implements AuthenticationProvider {
     }
   }
 
+  /**
+   * Rejects users of deleted or suspended accounts. The status comes from the account cache, so
+   * this normally needs no query.
+   *
+   * @param accountId the ID of the user's account
+   * @throws DisabledException if the account is deleted, suspended or missing
+   * @throws InternalAuthenticationServiceException if there is an error retrieving the account
+   */
+  private void validateAccountStatus(Long accountId) {
+    try {
+      if (!accountCache.isUsable(accountId)) {
+        throw new DisabledException("Account is disabled");
+      }
+    } catch (DaoLayerException e) {
+      log.error("Error retrieving account {}: {}", accountId, e.getMessage());
+      throw new InternalAuthenticationServiceException("Internal error retrieving account", e);
+    }
+  }
+
   /**
    * Checks if the user is a root user.
    *
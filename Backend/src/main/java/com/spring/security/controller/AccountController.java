@@ -8,18 +8,24 @@ import com.spring.security.domain.entity.AccountStats;
 import com.spring.security.domain.mapper.AccountMapper;
 import com.spring.security.exceptions.ServiceLayerException;
 import com.spring.security.service.AccountService;
+import com.spring.security.service.ActivityLogStreamService;
 import com.spring.security.service.OrchestratorServiceImpl;
+import com.spring.security.util.SecurityContextUtil;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /** Account controller responsible for account based actions */
 @RestController
@@ -30,15 +36,21 @@ public class AccountController {
 
   private final OrchestratorServiceImpl orchestratorServiceImpl;
 
+  private final ActivityLogStreamService activityLogStreamService;
+
   /**
    * Constructor for AccountController.
    *
    * @param accountService the service to handle account-related operations
+   * @param activityLogStreamService the service streaming live account activity
    */
   AccountController(
-      AccountService accountService, OrchestratorServiceImpl orchestratorServiceImpl) {
+      AccountService accountService,
+      OrchestratorServiceImpl orchestratorServiceImpl,
+      ActivityLogStreamService activityLogStreamService) {
     this.accountService = accountService;
     this.orchestratorServiceImpl = orchestratorServiceImpl;
+    this.activityLogStreamService = activityLogStreamService;
   }
 
   /**
@@ -96,4 +108,25 @@ public class AccountController {
     return new ResponseEntity<>(
         AccountMapper.ACCOUNT_MAPPER.convertAccountStatsToAccountStatsDto(stats), HttpStatus.OK);
   }
+
+  /**
+   * Streams live activity of an account as Server-Sent Events. Events are served from memory only;
+   * a reconnecting client may pass the Last-Event-ID header to replay what it missed, as long as it
+   * is still in the in-memory ring. Only users of the account itself may watch it.
+   *
+   * @param id the ID of the account to watch
+   * @param lastEventId the ID of the last event the client received, if any
+   * @return the SseEmitter backing the stream
+   * @throws AccessDeniedException if the caller belongs to another account
+   */
+  @GetMapping(value = "/{id}/activity-logs/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("hasRole('ROOT') or hasAuthority('IAM:ACCOUNT:READ')")
+  public SseEmitter streamActivityLogs(
+      @PathVariable Long id,
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    if (!id.equals(SecurityContextUtil.getCurrentAccountId())) {
+      throw new AccessDeniedException("Cannot watch the activity of another account");
+    }
+    return activityLogStreamService.subscribe(id, lastEventId);
+  }
 }
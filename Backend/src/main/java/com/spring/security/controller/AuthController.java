@@ -1,5 +1,6 @@
 package com.spring.security.controller;
 
+import com.spring.security.annotation.StatementBudget;
 import com.spring.security.controller.dto.request.LoginRequestDto;
 import com.spring.security.controller.dto.request.RootLoginRequestDto;
 import com.spring.security.controller.dto.response.UserResponseDto;
@@ -51,6 +52,7 @@ public class AuthController {
    *     (401) if login fails
    */
   @PostMapping("/login")
+  @StatementBudget(8)
   public ResponseEntity<Void> login(
       @RequestBody LoginRequestDto requestDto, HttpServletResponse response)
       throws AuthenticationException {
@@ -2,11 +2,13 @@ package com.spring.security.controller;
 
 import com.spring.security.controller.dto.request.OtpResendRequestDto;
 import com.spring.security.controller.dto.request.OtpValidateRequestDto;
+import com.spring.security.controller.dto.response.OtpResendResponseDto;
 import com.spring.security.controller.dto.response.OtpValidateResponseDto;
 import com.spring.security.exceptions.ServiceLayerException;
 import com.spring.security.service.OrchestratorServiceImpl;
 import com.spring.security.service.OtpService;
 import com.spring.security.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -57,19 +59,24 @@ public class OtpController {
   }
 
   /**
-   * Resends an OTP to the user's email.
+   * Resends an OTP to the user's email. Repeated requests within the resend cooldown reuse the
+   * pending email; the remaining cooldown is returned in the body and the Retry-After header.
    *
    * @param requestDto the request data transfer object containing the user's email
-   * @return a ResponseEntity indicating that the OTP has been resent
+   * @return a ResponseEntity indicating whether the OTP has been resent
    */
   @PostMapping("/resend")
-  public ResponseEntity<Void> resendOtp(@RequestBody OtpResendRequestDto requestDto)
+  public ResponseEntity<OtpResendResponseDto> resendOtp(@RequestBody OtpResendRequestDto requestDto)
       throws ServiceLayerException {
-    if (requestDto.isRoot()) {
-      userService.resendOtpForAccountCreation(requestDto.getAccountId(), requestDto.getEmail());
-    } else {
-      userService.resendOtpForUserCreation(requestDto.getAccountId(), requestDto.getEmail());
-    }
-    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    OtpResendResponseDto response =
+        requestDto.isRoot()
+            ? userService.resendOtpForAccountCreation(
+                requestDto.getAccountId(), requestDto.getEmail())
+            : userService.resendOtpForUserCreation(
+                requestDto.getAccountId(), requestDto.getEmail());
+
+    return ResponseEntity.ok()
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(response.getRetryAfterSeconds()))
+        .body(response);
   }
 }
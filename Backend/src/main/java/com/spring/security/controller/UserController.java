@@ -1,5 +1,6 @@
 package com.spring.security.controller;
 
+import com.spring.security.annotation.StatementBudget;
 import com.spring.security.controller.dto.request.ForgotPasswordRequestDto;
 import com.spring.security.controller.dto.request.GetUserByEmailRequestDto;
 import com.spring.security.controller.dto.request.SetUserPasswordRequestDto;
@@ -136,6 +137,7 @@ public class UserController {
    * @return a ResponseEntity indicating the result of the operation
    */
   @PatchMapping("/{userId}")
+  @StatementBudget(10)
   @PreAuthorize("hasRole('ROOT') or hasAuthority('IAM:USER:UPDATE')")
   public ResponseEntity<Void> updateUser(
       @PathVariable Long accountId,
@@ -0,0 +1,23 @@
+package com.spring.security.controller.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Response for an OTP resend request. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtpResendResponseDto {
+
+  /**
+   * Whether a new OTP was sent. False if a send for the same recipient is still within its
+   * cooldown; that earlier email and its OTP remain valid.
+   */
+  private boolean resent;
+
+  /** Seconds until another resend will send a new OTP. */
+  private long retryAfterSeconds;
+}
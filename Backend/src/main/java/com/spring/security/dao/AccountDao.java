@@ -46,7 +46,24 @@ public interface AccountDao {
    * Retrieves account statistics for the specified account.
    *
    * @param accountId the ID of the account to get statistics for
-   * @return AccountStats containing various metrics for the account
+   * @return AccountStats containing various metrics for the account, or null if there is no such
+   *     account
    */
   AccountStats getAccountStats(Long accountId) throws DaoLayerException;
+
+  /**
+   * Returns the highest account ID.
+   *
+   * @return the highest account ID, or 0 if there are no accounts
+   */
+  long findMaxId() throws DaoLayerException;
+
+  /**
+   * Recounts the users of the accounts in an ID range and corrects their statistics.
+   *
+   * @param fromId the first account ID of the range
+   * @param toId the last account ID of the range
+   * @return the number of accounts whose statistics had drifted
+   */
+  int reconcileStats(long fromId, long toId) throws DaoLayerException;
 }
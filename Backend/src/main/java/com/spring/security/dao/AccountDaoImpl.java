@@ -1,5 +1,6 @@
 package com.spring.security.dao;
 
+import com.spring.security.annotation.ShardKey;
 import com.spring.security.dao.mapper.AccountMapper;
 import com.spring.security.domain.entity.Account;
 import com.spring.security.domain.entity.AccountStats;
@@ -8,6 +9,7 @@ import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 @Slf4j
@@ -52,7 +54,7 @@ public class AccountDaoImpl implements AccountDao {
    * @return the account with the specified ID, or null if not found
    */
   @Override
-  public Account findById(Long id) throws DaoLayerException {
+  public Account findById(@ShardKey Long id) throws DaoLayerException {
     try {
       return accountMapper.findById(id);
     } catch (Exception e) {
@@ -68,7 +70,8 @@ public class AccountDaoImpl implements AccountDao {
    * @return the account with the specified name, or null if not found
    */
   @Override
-  public Account findByName(String accountName) throws DaoLayerException {
+  public Account findByName(@ShardKey(ShardKey.Type.ACCOUNT_NAME) String accountName)
+      throws DaoLayerException {
     try {
       return accountMapper.findByName(accountName);
     } catch (Exception e) {
@@ -107,7 +110,8 @@ public class AccountDaoImpl implements AccountDao {
    * @return AccountStats containing various metrics for the account
    */
   @Override
-  public AccountStats getAccountStats(Long accountId) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public AccountStats getAccountStats(@ShardKey Long accountId) throws DaoLayerException {
     try {
       return accountMapper.getAccountStats(accountId);
     } catch (Exception e) {
@@ -116,4 +120,41 @@ public class AccountDaoImpl implements AccountDao {
       throw new DaoLayerException("Failed to retrieve account statistics", e);
     }
   }
+
+  /**
+   * Returns the highest account ID.
+   *
+   * @return the highest account ID, or 0 if there are no accounts
+   */
+  @Override
+  public long findMaxId() throws DaoLayerException {
+    try {
+      return accountMapper.findMaxId();
+    } catch (Exception e) {
+      log.error("Error finding max account ID: {}", e.getMessage());
+      throw new DaoLayerException("Failed to find max account ID", e);
+    }
+  }
+
+  /**
+   * Recounts the users of the accounts in an ID range and corrects their statistics. The stats rows
+   * are locked before counting, so a user change committing during the recount is applied on top of
+   * the corrected counters rather than lost.
+   *
+   * @param fromId the first account ID of the range
+   * @param toId the last account ID of the range
+   * @return the number of accounts whose statistics had drifted
+   */
+  @Override
+  @Transactional(rollbackFor = DaoLayerException.class)
+  public int reconcileStats(long fromId, long toId) throws DaoLayerException {
+    try {
+      accountMapper.lockStats(fromId, toId);
+      return accountMapper.reconcileStats(fromId, toId);
+    } catch (Exception e) {
+      log.error(
+          "Error reconciling statistics for accounts {} to {}: {}", fromId, toId, e.getMessage());
+      throw new DaoLayerException("Failed to reconcile account statistics", e);
+    }
+  }
 }
@@ -0,0 +1,60 @@
+package com.spring.security.dao;
+
+import com.spring.security.domain.entity.AccountReaperJob;
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+
+/** DAO interface for purging the data of deleted accounts. */
+public interface AccountReaperDao {
+
+  /**
+   * Creates purge jobs for accounts that have been deleted for longer than the grace period.
+   *
+   * @param gracePeriod how long a deleted account is kept before it is purged
+   * @return the number of jobs created
+   */
+  int enqueueDeleted(Duration gracePeriod) throws DaoLayerException;
+
+  /**
+   * Leases one unfinished purge job that no other node holds.
+   *
+   * @param node the ID of the leasing node
+   * @param lease how long the lease holds unless renewed
+   * @return the leased job, or null if there is none
+   */
+  AccountReaperJob lease(String node, Duration lease) throws DaoLayerException;
+
+  /**
+   * Records the progress of a job and renews its lease.
+   *
+   * @param accountId the ID of the account being purged
+   * @param node the ID of the node holding the lease
+   * @param phase the phase to resume from
+   * @param rowsDeleted the number of rows deleted since the last checkpoint
+   * @param lease how long the renewed lease holds
+   * @return false if the lease was lost or the account is no longer deleted
+   */
+  boolean checkpoint(
+      long accountId, String node, AccountReaperPhase phase, long rowsDeleted, Duration lease)
+      throws DaoLayerException;
+
+  /**
+   * Gives up the lease on a job.
+   *
+   * @param accountId the ID of the account being purged
+   * @param node the ID of the node holding the lease
+   */
+  void release(long accountId, String node) throws DaoLayerException;
+
+  /**
+   * Deletes one batch of the account's rows belonging to a phase. Deletes nothing once the account
+   * is no longer deleted, and for the phases whose data is kept outside the database.
+   *
+   * @param phase the phase whose table to delete from
+   * @param accountId the ID of the account being purged
+   * @param limit the maximum number of rows to delete
+   * @return the number of rows deleted
+   */
+  int deleteBatch(AccountReaperPhase phase, long accountId, int limit) throws DaoLayerException;
+}
@@ -0,0 +1,88 @@
+package com.spring.security.dao;
+
+import com.spring.security.dao.mapper.AccountReaperMapper;
+import com.spring.security.domain.entity.AccountReaperJob;
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class AccountReaperDaoImpl implements AccountReaperDao {
+
+  private final AccountReaperMapper accountReaperMapper;
+
+  /**
+   * Constructor for AccountReaperDaoImpl.
+   *
+   * @param accountReaperMapper the AccountReaperMapper to be used for database operations
+   */
+  public AccountReaperDaoImpl(AccountReaperMapper accountReaperMapper) {
+    this.accountReaperMapper = accountReaperMapper;
+  }
+
+  @Override
+  public int enqueueDeleted(Duration gracePeriod) throws DaoLayerException {
+    try {
+      return accountReaperMapper.enqueueDeleted(gracePeriod.toSeconds());
+    } catch (Exception e) {
+      log.error("Error queueing deleted accounts for purge: {}", e.getMessage());
+      throw new DaoLayerException("Failed to queue deleted accounts for purge", e);
+    }
+  }
+
+  @Override
+  public AccountReaperJob lease(String node, Duration lease) throws DaoLayerException {
+    try {
+      return accountReaperMapper.lease(node, lease.toSeconds());
+    } catch (Exception e) {
+      log.error("Error leasing account purge job: {}", e.getMessage());
+      throw new DaoLayerException("Failed to lease account purge job", e);
+    }
+  }
+
+  @Override
+  public boolean checkpoint(
+      long accountId, String node, AccountReaperPhase phase, long rowsDeleted, Duration lease)
+      throws DaoLayerException {
+    try {
+      return accountReaperMapper.checkpoint(accountId, node, phase, rowsDeleted, lease.toSeconds())
+          > 0;
+    } catch (Exception e) {
+      log.error("Error checkpointing purge of account {}: {}", accountId, e.getMessage());
+      throw new DaoLayerException("Failed to checkpoint account purge", e);
+    }
+  }
+
+  @Override
+  public void release(long accountId, String node) throws DaoLayerException {
+    try {
+      accountReaperMapper.release(accountId, node);
+    } catch (Exception e) {
+      log.error("Error releasing purge of account {}: {}", accountId, e.getMessage());
+      throw new DaoLayerException("Failed to release account purge", e);
+    }
+  }
+
+  @Override
+  public int deleteBatch(AccountReaperPhase phase, long accountId, int limit)
+      throws DaoLayerException {
+    try {
+      return switch (phase) {
+        case USER_ROLES -> accountReaperMapper.deleteUserRoles(accountId, limit);
+        case ROLE_PERMISSIONS -> accountReaperMapper.deleteRolePermissions(accountId, limit);
+        case OTP_CODES -> accountReaperMapper.deleteOtpCodes(accountId, limit);
+        case ACTIVITY_LOGS -> accountReaperMapper.deleteActivityLogs(accountId, limit);
+        case USERS -> accountReaperMapper.deleteUsers(accountId, limit);
+        case ROLES -> accountReaperMapper.deleteRoles(accountId, limit);
+        case ACCOUNT -> accountReaperMapper.deleteAccount(accountId);
+        case ARCHIVED_LOGS, DIRECTORY, DONE -> 0;
+      };
+    } catch (Exception e) {
+      log.error("Error purging {} of account {}: {}", phase, accountId, e.getMessage());
+      throw new DaoLayerException("Failed to purge account data", e);
+    }
+  }
+}
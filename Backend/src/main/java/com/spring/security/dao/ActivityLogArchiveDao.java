@@ -0,0 +1,53 @@
+package com.spring.security.dao;
+
+import com.spring.security.domain.entity.ActivityLog;
+import com.spring.security.exceptions.DaoLayerException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DAO interface for the cold tier of activity logs. Archived entries live in compressed,
+ * time-ordered segment files, each with a sparse per-account index so that account reads only open
+ * the segments that actually contain that account. With more than one node the files must be on
+ * storage shared by all of them.
+ */
+public interface ActivityLogArchiveDao {
+  /**
+   * Writes the given activity logs as a single new segment. The segment and its index are fully
+   * flushed to disk before this method returns, so the caller may delete the hot rows afterwards.
+   *
+   * @param logs the activity logs to archive, in any order
+   * @return the name of the written segment
+   */
+  String writeSegment(List<ActivityLog> logs) throws DaoLayerException;
+
+  /**
+   * Retrieves all archived activity logs for a given account, newest first.
+   *
+   * @param accountId the account ID, or null for entries logged without an account
+   * @return list of archived ActivityLog entries
+   */
+  List<ActivityLog> findByAccountId(Long accountId) throws DaoLayerException;
+
+  /**
+   * Retrieves a page of archived activity logs for a given account, opening only the segments whose
+   * range for the account can contribute to it.
+   *
+   * @param accountId the account ID, or null for entries logged without an account
+   * @param before only entries created before this instant are returned; null for no bound
+   * @param limit the maximum number of entries to return
+   * @return list of archived ActivityLog entries, newest first
+   */
+  List<ActivityLog> findByAccountId(Long accountId, Instant before, int limit)
+      throws DaoLayerException;
+
+  /**
+   * Removes archived activity logs of a given account, such as a purged one. Stops once at least
+   * {@code limit} entries are removed, so a large account is removed over several calls.
+   *
+   * @param accountId the account ID
+   * @param limit the number of entries after which to stop
+   * @return the number of entries removed; less than {@code limit} once none are left
+   */
+  int deleteByAccountId(Long accountId, int limit) throws DaoLayerException;
+}
@@ -0,0 +1,426 @@
+package com.spring.security.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.security.domain.entity.ActivityLog;
+import com.spring.security.exceptions.DaoLayerException;
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * File based implementation of {@link ActivityLogArchiveDao}.
+ *
+ * <p>Each segment is a gzip compressed JSON-lines file named after the creation time of its oldest
+ * entry, so a directory listing is already in time order. Next to every segment sits a small index
+ * file recording, per account, how many entries the segment holds and the time range they span.
+ * Entries logged without an account are indexed under account 0. The index files are loaded at
+ * startup into an in-memory map of account to segments and their ranges, so reads skip the segments
+ * whose range cannot contribute.
+ *
+ * <p>The archiver may run on any node, so with more than one node the directory must be shared
+ * storage. Reads rescan the directory for index files written by other nodes at most once per
+ * rescan interval.
+ */
+@Component
+@Slf4j
+public class ActivityLogArchiveDaoImpl implements ActivityLogArchiveDao {
+
+  private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+  private static final String INDEX_SUFFIX = ".idx.json";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String LOCK_FILE = "purge.lock";
+
+  /** Index key of entries logged without an account. Account IDs start at 1. */
+  private static final long NO_ACCOUNT = 0L;
+
+  private static final Comparator<ActivityLog> NEWEST_FIRST =
+      Comparator.comparing(ActivityLog::getCreatedAt).thenComparing(ActivityLog::getId).reversed();
+
+  private final ObjectMapper objectMapper;
+  private final Path archiveDir;
+  private final long rescanIntervalNanos;
+  private volatile long nextRescan;
+
+  /** Names of the segments whose index has been loaded. */
+  private final Set<String> loadedSegments = ConcurrentHashMap.newKeySet();
+
+  /** Segment names per account, newest segment first, with the account's range in each. */
+  private final Map<Long, NavigableMap<String, AccountRange>> accountSegments =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for ActivityLogArchiveDaoImpl.
+   *
+   * @param objectMapper the ObjectMapper used to (de)serialize archived entries
+   * @param archiveDir the directory holding segment and index files
+   * @param rescanInterval how often reads look for segments written by other nodes
+   */
+  public ActivityLogArchiveDaoImpl(
+      ObjectMapper objectMapper,
+      @Value("${activity-log.archive.dir:./data/activity-log-archive}") String archiveDir,
+      @Value("${activity-log.archive.rescan-interval:PT1M}") Duration rescanInterval) {
+    this.objectMapper = objectMapper;
+    this.archiveDir = Paths.get(archiveDir);
+    this.rescanIntervalNanos = rescanInterval.toNanos();
+  }
+
+  /** Loads the sparse per-account index from the index files already on disk. */
+  @PostConstruct
+  void loadIndex() throws IOException {
+    loadNewIndexes();
+    log.info(
+        "Loaded activity log archive index for {} accounts from {}",
+        accountSegments.size(),
+        archiveDir.toAbsolutePath());
+  }
+
+  /** Loads the index files that are not loaded yet, such as those written by other nodes. */
+  private synchronized void loadNewIndexes() throws IOException {
+    nextRescan = System.nanoTime() + rescanIntervalNanos;
+    if (!Files.isDirectory(archiveDir)) {
+      return;
+    }
+    try (DirectoryStream<Path> indexFiles =
+        Files.newDirectoryStream(archiveDir, "*" + INDEX_SUFFIX)) {
+      for (Path indexFile : indexFiles) {
+        String segment = indexFile.getFileName().toString().replace(INDEX_SUFFIX, SEGMENT_SUFFIX);
+        if (loadedSegments.contains(segment)) {
+          continue;
+        }
+        SegmentIndex index = objectMapper.readValue(indexFile.toFile(), SegmentIndex.class);
+        if (Files.exists(archiveDir.resolve(index.getSegment()))) {
+          register(index);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the given activity logs as a single new segment.
+   *
+   * @param logs the activity logs to archive
+   * @return the name of the written segment
+   */
+  @Override
+  public String writeSegment(List<ActivityLog> logs) throws DaoLayerException {
+    List<ActivityLog> ordered = new ArrayList<>(logs);
+    ordered.sort(Comparator.comparing(ActivityLog::getCreatedAt).thenComparing(ActivityLog::getId));
+
+    ActivityLog first = ordered.get(0);
+    String segment =
+        String.format(
+            "segment-%015d-%d%s",
+            first.getCreatedAt().toEpochMilli(), first.getId(), SEGMENT_SUFFIX);
+
+    SegmentIndex index;
+    try {
+      Files.createDirectories(archiveDir);
+      index = write(segment, ordered);
+    } catch (IOException e) {
+      log.error("Error writing activity log segment {}: {}", segment, e.getMessage());
+      throw new DaoLayerException("Failed to write activity log segment", e);
+    }
+
+    register(index);
+    return segment;
+  }
+
+  /**
+   * Retrieves all archived activity logs for a given account.
+   *
+   * @param accountId the account ID, or null for entries logged without an account
+   * @return list of archived ActivityLog entries, newest first
+   */
+  @Override
+  public List<ActivityLog> findByAccountId(Long accountId) throws DaoLayerException {
+    return findByAccountId(accountId, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Retrieves a page of archived activity logs for a given account. Segments are skipped without
+   * being opened when the account's range in them holds nothing before the cursor, or nothing newer
+   * than the page collected so far.
+   *
+   * @param accountId the account ID, or null for entries logged without an account
+   * @param before only entries created before this instant are returned; null for no bound
+   * @param limit the maximum number of entries to return
+   * @return list of archived ActivityLog entries, newest first
+   */
+  @Override
+  public List<ActivityLog> findByAccountId(Long accountId, Instant before, int limit)
+      throws DaoLayerException {
+    rescanIfDue();
+    NavigableMap<String, AccountRange> segments = accountSegments.get(key(accountId));
+    List<ActivityLog> page = new ArrayList<>();
+    if (segments == null) {
+      return page;
+    }
+    for (Map.Entry<String, AccountRange> segment : segments.entrySet()) {
+      AccountRange range = segment.getValue();
+      if (before != null && !range.getFrom().isBefore(before)) {
+        continue;
+      }
+      if (page.size() >= limit && range.getTo().isBefore(page.get(limit - 1).getCreatedAt())) {
+        continue;
+      }
+      try {
+        for (ActivityLog entry : read(segment.getKey())) {
+          if (Objects.equals(accountId, entry.getAccountId())
+              && (before == null || entry.getCreatedAt().isBefore(before))) {
+            page.add(entry);
+          }
+        }
+      } catch (NoSuchFileException e) {
+        // Emptied by a purge on another node since its index was loaded
+        continue;
+      } catch (IOException e) {
+        log.error("Error reading activity log segment {}: {}", segment.getKey(), e.getMessage());
+        throw new DaoLayerException("Failed to read activity log segment", e);
+      }
+      if (page.size() >= limit) {
+        page.sort(NEWEST_FIRST);
+        page.subList(limit, page.size()).clear();
+      }
+    }
+    page.sort(NEWEST_FIRST);
+    return page;
+  }
+
+  /**
+   * Removes an account's entries by rewriting the segments holding them, until at least {@code
+   * limit} entries are removed. A segment left empty is deleted.
+   *
+   * <p>Rewrites are serialized through a lock file in the archive directory, so that two nodes
+   * purging accounts that share a segment do not undo each other's rewrite.
+   *
+   * @param accountId the account ID
+   * @param limit the number of entries after which to stop
+   * @return the number of entries removed
+   */
+  @Override
+  public synchronized int deleteByAccountId(Long accountId, int limit) throws DaoLayerException {
+    rescanIfDue();
+    NavigableMap<String, AccountRange> segments = accountSegments.get(key(accountId));
+    if (segments == null) {
+      return 0;
+    }
+    int deleted = 0;
+    String segment = null;
+    try (FileChannel lockFile =
+            FileChannel.open(
+                archiveDir.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock = lockFile.lock()) {
+      while (deleted < limit && !segments.isEmpty()) {
+        segment = segments.lastKey();
+        deleted += rewriteWithout(segment, accountId);
+        segments.remove(segment);
+      }
+    } catch (IOException e) {
+      log.error("Error purging account {} from segment {}: {}", accountId, segment, e.getMessage());
+      throw new DaoLayerException("Failed to purge activity log segment", e);
+    }
+    if (segments.isEmpty()) {
+      accountSegments.remove(key(accountId), segments);
+    }
+    return deleted;
+  }
+
+  /**
+   * Rewrites a segment without the entries of an account. The segment keeps its name, which then
+   * still sorts no later than its oldest entry. A crash between the renames leaves the old index,
+   * which may still list the account; reads filter on the account, so that only costs a read.
+   */
+  private int rewriteWithout(String segment, Long accountId) throws IOException {
+    List<ActivityLog> kept = new ArrayList<>();
+    int removed = 0;
+    try {
+      for (ActivityLog entry : read(segment)) {
+        if (Objects.equals(accountId, entry.getAccountId())) {
+          removed++;
+        } else {
+          kept.add(entry);
+        }
+      }
+    } catch (NoSuchFileException e) {
+      return 0;
+    }
+    if (removed == 0) {
+      return 0;
+    }
+    if (kept.isEmpty()) {
+      // Segment first: an index without its segment is ignored on load.
+      Files.delete(archiveDir.resolve(segment));
+      Files.deleteIfExists(archiveDir.resolve(segment.replace(SEGMENT_SUFFIX, INDEX_SUFFIX)));
+      syncDirectory();
+    } else {
+      write(segment, kept);
+    }
+    return removed;
+  }
+
+  /** Writes a segment and its index next to their final names, then renames both in place. */
+  private SegmentIndex write(String segment, List<ActivityLog> entries) throws IOException {
+    SegmentIndex index = new SegmentIndex();
+    index.setSegment(segment);
+
+    Path segmentTmp = archiveDir.resolve(segment + TMP_SUFFIX);
+    try (FileChannel channel =
+            FileChannel.open(
+                segmentTmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        OutputStream out = Channels.newOutputStream(channel)) {
+      GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+      BufferedWriter writer =
+          new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+      for (ActivityLog entry : entries) {
+        writer.write(objectMapper.writeValueAsString(entry));
+        writer.newLine();
+        index.add(entry);
+      }
+      writer.flush();
+      gzip.finish();
+      channel.force(true);
+    }
+
+    Path indexTmp = archiveDir.resolve(segment + INDEX_SUFFIX + TMP_SUFFIX);
+    try (FileChannel channel =
+        FileChannel.open(
+            indexTmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(objectMapper.writeValueAsBytes(index)));
+      channel.force(true);
+    }
+
+    // Segment first: an index without its segment is ignored on load.
+    Files.move(segmentTmp, archiveDir.resolve(segment), StandardCopyOption.ATOMIC_MOVE);
+    Files.move(
+        indexTmp,
+        archiveDir.resolve(segment.replace(SEGMENT_SUFFIX, INDEX_SUFFIX)),
+        StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+    return index;
+  }
+
+  /**
+   * Flushes the archive directory, so that renames and deletes in it survive a crash. Otherwise the
+   * caller could delete the hot rows while the renamed segment is not yet durable.
+   */
+  private void syncDirectory() throws IOException {
+    try (FileChannel directory = FileChannel.open(archiveDir, StandardOpenOption.READ)) {
+      directory.force(true);
+    }
+  }
+
+  private List<ActivityLog> read(String segment) throws IOException {
+    List<ActivityLog> entries = new ArrayList<>();
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archiveDir.resolve(segment))),
+                StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        entries.add(objectMapper.readValue(line, ActivityLog.class));
+      }
+    }
+    return entries;
+  }
+
+  private void rescanIfDue() throws DaoLayerException {
+    if (System.nanoTime() - nextRescan >= 0) {
+      try {
+        loadNewIndexes();
+      } catch (IOException e) {
+        log.error("Error rescanning activity log archive {}: {}", archiveDir, e.getMessage());
+        throw new DaoLayerException("Failed to rescan activity log archive", e);
+      }
+    }
+  }
+
+  private void register(SegmentIndex index) {
+    loadedSegments.add(index.getSegment());
+    for (Map.Entry<Long, AccountRange> account : index.getAccounts().entrySet()) {
+      accountSegments
+          .computeIfAbsent(
+              account.getKey(), k -> new ConcurrentSkipListMap<>(Comparator.reverseOrder()))
+          .put(index.getSegment(), account.getValue());
+    }
+  }
+
+  private static long key(Long accountId) {
+    return accountId == null ? NO_ACCOUNT : accountId;
+  }
+
+  /** On-disk index of a single segment. */
+  @Getter
+  @Setter
+  static class SegmentIndex {
+    private String segment;
+    private Instant from;
+    private Instant to;
+    private Map<Long, AccountRange> accounts = new HashMap<>();
+
+    void add(ActivityLog entry) {
+      Instant createdAt = entry.getCreatedAt();
+      from = from == null || createdAt.isBefore(from) ? createdAt : from;
+      to = to == null || createdAt.isAfter(to) ? createdAt : to;
+      accounts.computeIfAbsent(key(entry.getAccountId()), k -> new AccountRange()).add(createdAt);
+    }
+  }
+
+  /** Number of entries and time range of one account inside a segment. */
+  @Getter
+  @Setter
+  static class AccountRange {
+    private long count;
+    private Instant from;
+    private Instant to;
+
+    void add(Instant createdAt) {
+      count++;
+      from = from == null || createdAt.isBefore(from) ? createdAt : from;
+      to = to == null || createdAt.isAfter(to) ? createdAt : to;
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.spring.security.dao;
 
 import com.spring.security.domain.entity.ActivityLog;
 import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 /** DAO interface for ActivityLog entity. */
@@ -37,4 +39,48 @@ public interface ActivityLogDao {
    * @return list of ActivityLog entries
    */
   List<ActivityLog> findByAccountId(Long accountId) throws DaoLayerException;
+
+  /**
+   * Retrieves a page of activity logs for a given account.
+   *
+   * @param accountId the account ID
+   * @param before only entries created before this instant are returned; null for no bound
+   * @param limit maximum number of entries to return
+   * @return list of ActivityLog entries, newest first
+   */
+  List<ActivityLog> findByAccountId(Long accountId, Instant before, int limit)
+      throws DaoLayerException;
+
+  /**
+   * Retrieves the oldest activity logs created before the given cutoff.
+   *
+   * @param cutoff only entries created strictly before this instant are returned
+   * @param limit maximum number of entries to return
+   * @return list of ActivityLog entries, oldest first
+   */
+  List<ActivityLog> findOlderThan(Instant cutoff, int limit) throws DaoLayerException;
+
+  /**
+   * Deletes the activity logs with the given IDs.
+   *
+   * @param ids the log IDs to delete
+   * @return number of deleted entries
+   */
+  int deleteByIds(List<Long> ids) throws DaoLayerException;
+
+  /**
+   * Takes the archiver lease, or renews it if this node already holds it.
+   *
+   * @param node the ID of this node
+   * @param lease how long the lease holds unless renewed
+   * @return false if another node holds the lease
+   */
+  boolean leaseArchiver(String node, Duration lease) throws DaoLayerException;
+
+  /**
+   * Gives up the archiver lease.
+   *
+   * @param node the ID of the node holding the lease
+   */
+  void releaseArchiver(String node) throws DaoLayerException;
 }
@@ -1,8 +1,11 @@
 package com.spring.security.dao;
 
+import com.spring.security.annotation.ShardKey;
 import com.spring.security.dao.mapper.ActivityLogMapper;
 import com.spring.security.domain.entity.ActivityLog;
 import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,23 +23,77 @@ public class ActivityLogDaoImpl implements ActivityLogDao {
 
   @Override
   @Transactional(rollbackFor = DaoLayerException.class)
-  public ActivityLog create(ActivityLog log) throws DaoLayerException {
+  public ActivityLog create(@ShardKey ActivityLog log) throws DaoLayerException {
     activityLogMapper.insert(log);
     return log;
   }
 
   @Override
+  @Transactional(readOnly = true)
   public ActivityLog findById(Long id) throws DaoLayerException {
     return activityLogMapper.findById(id);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<ActivityLog> findByUserId(Long userId) throws DaoLayerException {
     return activityLogMapper.findByUserId(userId);
   }
 
   @Override
-  public List<ActivityLog> findByAccountId(Long accountId) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public List<ActivityLog> findByAccountId(@ShardKey Long accountId) throws DaoLayerException {
     return activityLogMapper.findByAccountId(accountId);
   }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ActivityLog> findByAccountId(@ShardKey Long accountId, Instant before, int limit)
+      throws DaoLayerException {
+    return activityLogMapper.findPageByAccountId(accountId, before, limit);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ActivityLog> findOlderThan(Instant cutoff, int limit) throws DaoLayerException {
+    try {
+      return activityLogMapper.findOlderThan(cutoff, limit);
+    } catch (Exception e) {
+      log.error("Error retrieving activity logs older than {}: {}", cutoff, e.getMessage());
+      throw new DaoLayerException("Failed to retrieve activity logs for archival", e);
+    }
+  }
+
+  @Override
+  @Transactional(rollbackFor = DaoLayerException.class)
+  public int deleteByIds(List<Long> ids) throws DaoLayerException {
+    try {
+      return activityLogMapper.deleteByIds(ids);
+    } catch (Exception e) {
+      log.error("Error deleting {} activity logs: {}", ids.size(), e.getMessage());
+      throw new DaoLayerException("Failed to delete activity logs", e);
+    }
+  }
+
+  @Override
+  @Transactional(rollbackFor = DaoLayerException.class)
+  public boolean leaseArchiver(String node, Duration lease) throws DaoLayerException {
+    try {
+      return activityLogMapper.leaseArchiver(node, lease.toSeconds()) > 0;
+    } catch (Exception e) {
+      log.error("Error leasing the activity log archiver: {}", e.getMessage());
+      throw new DaoLayerException("Failed to lease the activity log archiver", e);
+    }
+  }
+
+  @Override
+  @Transactional(rollbackFor = DaoLayerException.class)
+  public void releaseArchiver(String node) throws DaoLayerException {
+    try {
+      activityLogMapper.releaseArchiver(node);
+    } catch (Exception e) {
+      log.error("Error releasing the activity log archiver: {}", e.getMessage());
+      throw new DaoLayerException("Failed to release the activity log archiver", e);
+    }
+  }
 }
@@ -0,0 +1,51 @@
+package com.spring.security.dao;
+
+import com.spring.security.domain.entity.EmailOutbox;
+import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+import java.util.List;
+
+/** DAO interface for the transactional email outbox. */
+public interface EmailOutboxDao {
+  /**
+   * Adds an email to the outbox. Joins the caller's transaction, so the email is only queued if
+   * that transaction commits.
+   *
+   * @param emailOutbox the outbox entry to create
+   * @return the created entry with generated ID
+   */
+  EmailOutbox create(EmailOutbox emailOutbox) throws DaoLayerException;
+
+  /**
+   * Claims up to {@code limit} due entries for delivery.
+   *
+   * @param limit maximum number of entries to claim
+   * @param lease how long the claim holds before another dispatcher may take the entries over
+   * @return list of claimed entries
+   */
+  List<EmailOutbox> claim(int limit, Duration lease) throws DaoLayerException;
+
+  /**
+   * Removes delivered entries from the outbox.
+   *
+   * @param ids the IDs of the delivered entries
+   */
+  void deleteByIds(List<Long> ids) throws DaoLayerException;
+
+  /**
+   * Records a failed or deferred delivery attempt, setting the entry's status, attempt count, next
+   * attempt time and error.
+   *
+   * @param emailOutbox the entry to update; a dead-lettered entry also loses its template variables
+   */
+  void reschedule(EmailOutbox emailOutbox) throws DaoLayerException;
+
+  /**
+   * Deletes a bounded batch of dead-lettered entries past their retention.
+   *
+   * @param retention how long dead-lettered entries are kept for review
+   * @param limit the maximum number of entries to delete
+   * @return the number of deleted entries
+   */
+  int deleteDead(Duration retention, int limit) throws DaoLayerException;
+}
@@ -0,0 +1,79 @@
+package com.spring.security.dao;
+
+import com.spring.security.dao.mapper.EmailOutboxMapper;
+import com.spring.security.domain.entity.EmailOutbox;
+import com.spring.security.exceptions.DaoLayerException;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class EmailOutboxDaoImpl implements EmailOutboxDao {
+
+  private final EmailOutboxMapper emailOutboxMapper;
+
+  /**
+   * Constructor for EmailOutboxDaoImpl.
+   *
+   * @param emailOutboxMapper the EmailOutboxMapper to be used for database operations
+   */
+  public EmailOutboxDaoImpl(EmailOutboxMapper emailOutboxMapper) {
+    this.emailOutboxMapper = emailOutboxMapper;
+  }
+
+  @Override
+  public EmailOutbox create(EmailOutbox emailOutbox) throws DaoLayerException {
+    try {
+      int rowCount = emailOutboxMapper.insert(emailOutbox);
+      if (rowCount < 1) {
+        throw new DaoLayerException("Failed to queue email");
+      }
+      return emailOutbox;
+    } catch (Exception e) {
+      log.error("Error queueing email for {}: {}", emailOutbox.getRecipient(), e.getMessage());
+      throw new DaoLayerException("Failed to queue email", e);
+    }
+  }
+
+  @Override
+  public List<EmailOutbox> claim(int limit, Duration lease) throws DaoLayerException {
+    try {
+      return emailOutboxMapper.claim(limit, lease.toSeconds());
+    } catch (Exception e) {
+      log.error("Error claiming outbox emails: {}", e.getMessage());
+      throw new DaoLayerException("Failed to claim outbox emails", e);
+    }
+  }
+
+  @Override
+  public void deleteByIds(List<Long> ids) throws DaoLayerException {
+    try {
+      emailOutboxMapper.deleteByIds(ids);
+    } catch (Exception e) {
+      log.error("Error deleting {} delivered outbox emails: {}", ids.size(), e.getMessage());
+      throw new DaoLayerException("Failed to delete delivered outbox emails", e);
+    }
+  }
+
+  @Override
+  public void reschedule(EmailOutbox emailOutbox) throws DaoLayerException {
+    try {
+      emailOutboxMapper.reschedule(emailOutbox);
+    } catch (Exception e) {
+      log.error("Error rescheduling outbox email {}: {}", emailOutbox.getId(), e.getMessage());
+      throw new DaoLayerException("Failed to reschedule outbox email", e);
+    }
+  }
+
+  @Override
+  public int deleteDead(Duration retention, int limit) throws DaoLayerException {
+    try {
+      return emailOutboxMapper.deleteDead(retention.toSeconds(), limit);
+    } catch (Exception e) {
+      log.error("Error purging dead outbox emails: {}", e.getMessage());
+      throw new DaoLayerException("Failed to purge dead outbox emails", e);
+    }
+  }
+}
@@ -2,21 +2,34 @@ package com.spring.security.dao;
 
 import com.spring.security.domain.entity.OtpCode;
 import com.spring.security.exceptions.DaoLayerException;
-import java.util.Map;
 
 /**
  * Data Access Object (DAO) interface for handling operations related to OTP (One-Time Password)
- * codes. This interface defines methods for creating, finding, and deleting OTP codes associated
- * with an email.
+ * codes. This interface defines methods for storing, consuming, finding, and deleting OTP codes
+ * associated with an email.
  */
 public interface OtpDao {
 
   /**
-   * Creates a new OTP code for the specified email.
+   * Stores the OTP code for its email, replacing any earlier code for that email in the same
+   * statement.
    *
-   * @param otpCode The OTP code to be created, containing the email and the code.
+   * @param otpCode The OTP code to be stored, containing the email and the code.
    */
-  void create(OtpCode otpCode) throws DaoLayerException;
+  void upsert(OtpCode otpCode) throws DaoLayerException;
+
+  /**
+   * Atomically marks the OTP code as used if it matches, is unused and has not expired. If a usable
+   * code does not match, the failed attempt is counted instead, and the code is marked as used once
+   * {@code maxAttempts} attempts have failed.
+   *
+   * @param email The email the OTP code was issued to.
+   * @param otp The OTP code to consume.
+   * @param maxAttempts The number of failed attempts after which the code is used up.
+   * @return The OTP code as updated, which was consumed if its code matches, or null if no usable
+   *     code exists.
+   */
+  OtpCode consume(String email, String otp, int maxAttempts) throws DaoLayerException;
 
   /**
    * Finds the OTP code associated with the specified email.
@@ -27,18 +40,17 @@ public interface OtpDao {
   OtpCode findByEmail(String email) throws DaoLayerException;
 
   /**
-   * Updates the OTP code associated with the specified email based on the provided updates and
-   * conditions.
+   * Deletes the OTP code associated with the specified email.
    *
-   * @param updates A map containing the fields to be updated and their new values.
-   * @param conditions A map containing the conditions that must be met for the update to occur.
+   * @param email The email for which to delete the OTP code.
    */
-  void update(Map<String, Object> updates, Map<String, Object> conditions) throws DaoLayerException;
+  void deleteByEmail(String email) throws DaoLayerException;
 
   /**
-   * Deletes the OTP code associated with the specified email.
+   * Deletes at most {@code limit} expired OTP codes.
    *
-   * @param email The email for which to delete the OTP code.
+   * @param limit The maximum number of codes to delete.
+   * @return The number of deleted codes.
    */
-  void deleteByEmail(String email) throws DaoLayerException;
+  int deleteExpired(int limit) throws DaoLayerException;
 }
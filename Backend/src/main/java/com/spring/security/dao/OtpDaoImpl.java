@@ -3,7 +3,6 @@ package com.spring.security.dao;
 import com.spring.security.dao.mapper.OtpMapper;
 import com.spring.security.domain.entity.OtpCode;
 import com.spring.security.exceptions.DaoLayerException;
-import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -23,63 +22,52 @@ public class OtpDaoImpl implements OtpDao {
   }
 
   /**
-   * Creates a new OTP in the database.
+   * Stores the OTP for its email, replacing any earlier OTP.
    *
-   * @param otpCode the OTP code to be created
+   * @param otpCode the OTP code to be stored
    */
   @Override
-  public void create(OtpCode otpCode) throws DaoLayerException {
+  public void upsert(OtpCode otpCode) throws DaoLayerException {
     try {
-      int rowCount = otpMapper.create(otpCode);
-
-      if (rowCount < 1) {
-        log.warn("Failed to create OTP for email: {}", otpCode.getEmail());
-        throw new DaoLayerException("Failed to create OTP");
-      }
-
+      otpMapper.upsert(otpCode);
     } catch (Exception e) {
-      log.error("Error creating OTP for email: {}", otpCode.getEmail(), e);
-      throw new DaoLayerException("Failed to create OTP", e);
+      log.error("Error storing OTP for email: {}", otpCode.getEmail(), e);
+      throw new DaoLayerException("Failed to store OTP", e);
     }
   }
 
   /**
-   * Retrieves the latest OTP for a given email.
+   * Marks the OTP as used if it matches, is unused and has not expired, or counts a failed attempt.
    *
-   * @param email the email to retrieve the OTP for
-   * @return the latest OTP code, or null if not found
+   * @param email the email the OTP was issued to
+   * @param otp the OTP to consume
+   * @param maxAttempts the number of failed attempts after which the OTP is used up
+   * @return the OTP code as updated, or null if no usable OTP exists
    */
   @Override
-  public OtpCode findByEmail(String email) throws DaoLayerException {
-
+  public OtpCode consume(String email, String otp, int maxAttempts) throws DaoLayerException {
     try {
-      return otpMapper.find(email);
+      return otpMapper.consume(email, otp, maxAttempts);
     } catch (Exception e) {
-      log.error("Error retrieving OTP for email: {}", email, e);
-      throw new DaoLayerException("Failed to retrieve OTP", e);
+      log.error("Error consuming OTP for email: {}", email, e);
+      throw new DaoLayerException("Failed to consume OTP", e);
     }
   }
 
   /**
-   * Updates the OTP code associated with the specified email based on the provided updates and
-   * conditions.
+   * Retrieves the latest OTP for a given email.
    *
-   * @param updates A map containing the fields to be updated and their new values.
-   * @param conditions A map containing the conditions that must be met for the update to occur.
+   * @param email the email to retrieve the OTP for
+   * @return the latest OTP code, or null if not found
    */
   @Override
-  public void update(Map<String, Object> updates, Map<String, Object> conditions)
-      throws DaoLayerException {
+  public OtpCode findByEmail(String email) throws DaoLayerException {
 
     try {
-      int rowCount = otpMapper.update("otp_codes", updates, conditions);
-      if (rowCount < 1) {
-        log.warn("No OTP was updated with conditions: {}", conditions);
-        throw new DaoLayerException("Failed to update OTP");
-      }
+      return otpMapper.find(email);
     } catch (Exception e) {
-      log.error("Error updating OTP for email: {}", conditions.get("email"), e);
-      throw new DaoLayerException("Failed to update OTP", e);
+      log.error("Error retrieving OTP for email: {}", email, e);
+      throw new DaoLayerException("Failed to retrieve OTP", e);
     }
   }
 
@@ -100,4 +88,20 @@ public class OtpDaoImpl implements OtpDao {
       throw new DaoLayerException("Failed to delete OTP", e);
     }
   }
+
+  /**
+   * Deletes a bounded batch of expired OTPs.
+   *
+   * @param limit the maximum number of OTPs to delete
+   * @return the number of deleted OTPs
+   */
+  @Override
+  public int deleteExpired(int limit) throws DaoLayerException {
+    try {
+      return otpMapper.deleteExpired(limit);
+    } catch (Exception e) {
+      log.error("Error purging expired OTPs", e);
+      throw new DaoLayerException("Failed to purge expired OTPs", e);
+    }
+  }
 }
@@ -6,6 +6,7 @@ import com.spring.security.exceptions.DaoLayerException;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Implementation of the PermissionDao interface for managing permissions. This class interacts with
@@ -32,6 +33,7 @@ public class PermissionDaoImpl implements PermissionDao {
    * @return an empty list as this is a placeholder implementation
    */
   @Override
+  @Transactional(readOnly = true)
   public List<Permission> list() throws DaoLayerException {
     try {
       return permissionMapper.list();
@@ -1,5 +1,6 @@
 package com.spring.security.dao;
 
+import com.spring.security.annotation.ShardKey;
 import com.spring.security.dao.mapper.RoleMapper;
 import com.spring.security.domain.entity.Permission;
 import com.spring.security.domain.entity.Role;
@@ -36,7 +37,7 @@ public class RoleDaoImpl implements RoleDao {
    */
   @Override
   @Transactional
-  public Role create(Role role) throws DaoLayerException {
+  public Role create(@ShardKey Role role) throws DaoLayerException {
 
     try {
       Role createdRole = roleMapper.create(role);
@@ -89,7 +90,8 @@ public class RoleDaoImpl implements RoleDao {
    * @param id the unique identifier of the role
    */
   @Override
-  public Role findById(Long id, Long accountId) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public Role findById(Long id, @ShardKey Long accountId) throws DaoLayerException {
 
     try {
       return roleMapper.findByAccountIdAndId(id, accountId);
@@ -106,7 +108,8 @@ public class RoleDaoImpl implements RoleDao {
    * @return a list of roles associated with the given account ID
    */
   @Override
-  public List<Role> list(Long accountId) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public List<Role> list(@ShardKey Long accountId) throws DaoLayerException {
 
     try {
       return roleMapper.listByAccountId(accountId);
@@ -125,7 +128,7 @@ public class RoleDaoImpl implements RoleDao {
    * @throws DaoLayerException if an error occurs during the operation
    */
   @Override
-  public Role findByName(String name, Long accountId) throws DaoLayerException {
+  public Role findByName(String name, @ShardKey Long accountId) throws DaoLayerException {
     try {
       return roleMapper.findByNameAndAccountId(name, accountId);
     } catch (Exception e) {
@@ -149,7 +152,11 @@ public class RoleDaoImpl implements RoleDao {
   @Override
   @Transactional
   public Role update(
-      Long roleId, Long accountId, String name, String description, List<Permission> permissions)
+      Long roleId,
+      @ShardKey Long accountId,
+      String name,
+      String description,
+      List<Permission> permissions)
       throws DaoLayerException {
     try {
       // Update role basic information
@@ -208,7 +215,7 @@ public class RoleDaoImpl implements RoleDao {
    */
   @Override
   @Transactional(rollbackFor = DaoLayerException.class)
-  public void delete(Long roleId, Long accountId) throws DaoLayerException {
+  public void delete(Long roleId, @ShardKey Long accountId) throws DaoLayerException {
     try {
       // First delete all role-permission associations
       roleMapper.deleteRolePermissions(roleId);
@@ -0,0 +1,76 @@
+package com.spring.security.dao;
+
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import com.spring.security.exceptions.DaoLayerException;
+
+/**
+ * DAO interface for the shard directory. Every call runs on the home database in a transaction of
+ * its own, whichever shard the calling thread is routed to.
+ */
+public interface ShardDirectoryDao {
+
+  /**
+   * Finds an account's directory entry.
+   *
+   * @param accountId the account ID
+   * @return the entry, or null if the account is not registered
+   */
+  AccountDirectoryEntry findByAccountId(long accountId) throws DaoLayerException;
+
+  /**
+   * Finds the directory entry of the account with the given name.
+   *
+   * @param name the account name
+   * @return the entry, or null if there is no such account
+   */
+  AccountDirectoryEntry findByName(String name) throws DaoLayerException;
+
+  /**
+   * Finds the directory entry of the account whose root user has the given email.
+   *
+   * @param email the root user's email
+   * @return the entry, or null if there is no such root user
+   */
+  AccountDirectoryEntry findByRootEmail(String email) throws DaoLayerException;
+
+  /**
+   * Counts the accounts on a shard.
+   *
+   * @param shardId the shard ID
+   * @return the number of accounts
+   */
+  long countByShard(int shardId) throws DaoLayerException;
+
+  /**
+   * Registers an account and its root user.
+   *
+   * @param entry the account's entry
+   * @param rootEmail the root user's email
+   * @return false if the account name is taken on any shard, or the root email belongs to another
+   *     account; nothing is registered then
+   */
+  boolean register(AccountDirectoryEntry entry, String rootEmail) throws DaoLayerException;
+
+  /**
+   * Removes an account and its root user from the directory.
+   *
+   * @param accountId the account ID
+   */
+  void unregister(long accountId) throws DaoLayerException;
+
+  /**
+   * Marks an account as being moved, or as no longer being moved.
+   *
+   * @param accountId the account ID
+   * @param moving whether the account is being moved
+   */
+  void setMoving(long accountId, boolean moving) throws DaoLayerException;
+
+  /**
+   * Points an account at the shard it was moved to and ends its move.
+   *
+   * @param accountId the account ID
+   * @param shardId the shard now holding the account's rows
+   */
+  void setShard(long accountId, int shardId) throws DaoLayerException;
+}
@@ -0,0 +1,152 @@
+package com.spring.security.dao;
+
+import com.spring.security.dao.mapper.ShardDirectoryMapper;
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.util.ShardContext;
+import com.spring.security.util.ShardContext.Route;
+import java.util.concurrent.Callable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * ShardDirectoryDaoImpl routes each call to the home database for the duration of the call. Calls
+ * suspend the caller's transaction, which may be on another shard, and run in one of their own: the
+ * connection is only taken at the first statement, after the route has been switched. Lookups are
+ * not read-only, so they are served by the home primary rather than a lagging replica.
+ */
+@Component
+@Slf4j
+public class ShardDirectoryDaoImpl implements ShardDirectoryDao {
+
+  private final ShardDirectoryMapper shardDirectoryMapper;
+
+  /**
+   * Constructor for ShardDirectoryDaoImpl.
+   *
+   * @param shardDirectoryMapper the ShardDirectoryMapper to be used for database operations
+   */
+  public ShardDirectoryDaoImpl(ShardDirectoryMapper shardDirectoryMapper) {
+    this.shardDirectoryMapper = shardDirectoryMapper;
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public AccountDirectoryEntry findByAccountId(long accountId) throws DaoLayerException {
+    try {
+      return onHome(() -> shardDirectoryMapper.findByAccountId(accountId));
+    } catch (Exception e) {
+      log.error("Error looking up the shard of account {}: {}", accountId, e.getMessage());
+      throw new DaoLayerException("Failed to look up the shard of the account", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public AccountDirectoryEntry findByName(String name) throws DaoLayerException {
+    try {
+      return onHome(() -> shardDirectoryMapper.findByName(name));
+    } catch (Exception e) {
+      log.error("Error looking up the shard of account {}: {}", name, e.getMessage());
+      throw new DaoLayerException("Failed to look up the shard of the account", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public AccountDirectoryEntry findByRootEmail(String email) throws DaoLayerException {
+    try {
+      return onHome(() -> shardDirectoryMapper.findByRootEmail(email));
+    } catch (Exception e) {
+      log.error("Error looking up the shard of root user {}: {}", email, e.getMessage());
+      throw new DaoLayerException("Failed to look up the shard of the root user", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public long countByShard(int shardId) throws DaoLayerException {
+    try {
+      return onHome(() -> shardDirectoryMapper.countByShard(shardId));
+    } catch (Exception e) {
+      log.error("Error counting the accounts on shard {}: {}", shardId, e.getMessage());
+      throw new DaoLayerException("Failed to count the accounts on the shard", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = DaoLayerException.class)
+  public boolean register(AccountDirectoryEntry entry, String rootEmail) throws DaoLayerException {
+    try {
+      return onHome(
+          () -> {
+            if (shardDirectoryMapper.insert(entry) == 0) {
+              return false;
+            }
+            if (shardDirectoryMapper.insertRootUser(rootEmail, entry.getAccountId()) == 0) {
+              // The root email belongs to another account; its logins must keep routing there
+              TransactionInterceptor.currentTransactionStatus().setRollbackOnly();
+              return false;
+            }
+            return true;
+          });
+    } catch (Exception e) {
+      log.error("Error registering account {}: {}", entry.getName(), e.getMessage());
+      throw new DaoLayerException("Failed to register the account in the shard directory", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = DaoLayerException.class)
+  public void unregister(long accountId) throws DaoLayerException {
+    try {
+      onHome(() -> shardDirectoryMapper.delete(accountId));
+    } catch (Exception e) {
+      log.error("Error unregistering account {}: {}", accountId, e.getMessage());
+      throw new DaoLayerException("Failed to remove the account from the shard directory", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = DaoLayerException.class)
+  public void setMoving(long accountId, boolean moving) throws DaoLayerException {
+    try {
+      if (onHome(() -> shardDirectoryMapper.updateMoving(accountId, moving)) == 0) {
+        throw new DaoLayerException("Account " + accountId + " is not in the shard directory");
+      }
+    } catch (DaoLayerException e) {
+      throw e;
+    } catch (Exception e) {
+      log.error("Error marking account {} as moving: {}", accountId, e.getMessage());
+      throw new DaoLayerException("Failed to mark the account as moving", e);
+    }
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = DaoLayerException.class)
+  public void setShard(long accountId, int shardId) throws DaoLayerException {
+    try {
+      if (onHome(() -> shardDirectoryMapper.updateShard(accountId, shardId)) == 0) {
+        throw new DaoLayerException("Account " + accountId + " is not in the shard directory");
+      }
+    } catch (DaoLayerException e) {
+      throw e;
+    } catch (Exception e) {
+      log.error("Error moving account {} to shard {}: {}", accountId, shardId, e.getMessage());
+      throw new DaoLayerException("Failed to point the account at its new shard", e);
+    }
+  }
+
+  private static <T> T onHome(Callable<T> call) throws Exception {
+    Route previous = ShardContext.current();
+    ShardContext.set(Route.HOME);
+    try {
+      return call.call();
+    } finally {
+      ShardContext.set(previous);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.spring.security.dao;
+
+import com.spring.security.exceptions.DaoLayerException;
+
+/** DAO interface for copying a tenant's rows between shards. */
+public interface TenantMoveDao {
+
+  /**
+   * Copies an account and everything it owns from one shard to another in a single transaction on
+   * the target, replacing any partial copy left by an earlier attempt. The source is read from one
+   * snapshot.
+   *
+   * @param accountId the account ID
+   * @param sourceShardId the shard holding the account
+   * @param targetShardId the shard to copy the account to
+   * @return the number of rows copied
+   */
+  long copy(long accountId, int sourceShardId, int targetShardId) throws DaoLayerException;
+
+  /**
+   * Deletes an account and everything it owns from a shard.
+   *
+   * @param accountId the account ID
+   * @param shardId the shard to delete the account from
+   */
+  void delete(long accountId, int shardId) throws DaoLayerException;
+}
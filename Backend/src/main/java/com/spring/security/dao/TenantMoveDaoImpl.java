@@ -0,0 +1,186 @@
+package com.spring.security.dao;
+
+import com.spring.security.config.ShardRoutingDataSource;
+import com.spring.security.exceptions.DaoLayerException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * TenantMoveDaoImpl copies rows over plain JDBC connections to the two shards, since the mappers
+ * only ever see the shard of the current route. Rows keep their IDs, which the interleaved ID
+ * sequences keep unique across shards. Account statistics are not copied: the triggers on the
+ * target rebuild them as the account and its users are inserted.
+ */
+@Component
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+@Slf4j
+public class TenantMoveDaoImpl implements TenantMoveDao {
+
+  private record TableCopy(String table, String select) {}
+
+  /** The account's tables in dependency order, with the query selecting its rows on the source. */
+  private static final List<TableCopy> TABLES =
+      List.of(
+          new TableCopy("accounts", "SELECT * FROM accounts WHERE id = ?"),
+          new TableCopy("roles", "SELECT * FROM roles WHERE account_id = ?"),
+          new TableCopy("users", "SELECT * FROM users WHERE account_id = ?"),
+          new TableCopy(
+              "user_roles",
+              "SELECT ur.* FROM user_roles ur JOIN users u ON u.id = ur.user_id WHERE u.account_id = ?"),
+          new TableCopy("activity_logs", "SELECT * FROM activity_logs WHERE account_id = ?"),
+          new TableCopy(
+              "account_reaper_jobs", "SELECT * FROM account_reaper_jobs WHERE account_id = ?"));
+
+  // Permission IDs are assigned per shard, so role grants are matched by permission name
+  private static final String SELECT_ROLE_PERMISSIONS =
+      "SELECT rp.role_id, p.name FROM role_permissions rp "
+          + "JOIN roles r ON r.id = rp.role_id JOIN permissions p ON p.id = rp.permission_id "
+          + "WHERE r.account_id = ?";
+  private static final String INSERT_ROLE_PERMISSION =
+      "INSERT INTO role_permissions (role_id, permission_id) SELECT ?, id FROM permissions WHERE name = ?";
+
+  private static final int BATCH_SIZE = 500;
+
+  private final ShardRoutingDataSource shards;
+
+  /**
+   * Constructor for TenantMoveDaoImpl.
+   *
+   * @param dataSource the application data source, routing to the shards
+   */
+  public TenantMoveDaoImpl(DataSource dataSource) throws SQLException {
+    this.shards = dataSource.unwrap(ShardRoutingDataSource.class);
+  }
+
+  @Override
+  public long copy(long accountId, int sourceShardId, int targetShardId) throws DaoLayerException {
+    try (Connection source = shards.getShard(sourceShardId).getConnection();
+        Connection target = shards.getShard(targetShardId).getConnection()) {
+      source.setAutoCommit(false);
+      source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      source.setReadOnly(true);
+      target.setAutoCommit(false);
+      try {
+        deleteAccount(target, accountId);
+        long copied = 0;
+        for (TableCopy table : TABLES) {
+          copied += copyRows(source, target, table.select(), table.table(), null, accountId);
+        }
+        copied +=
+            copyRows(
+                source,
+                target,
+                SELECT_ROLE_PERMISSIONS,
+                "role_permissions",
+                INSERT_ROLE_PERMISSION,
+                accountId);
+        target.commit();
+        return copied;
+      } catch (SQLException | RuntimeException e) {
+        target.rollback();
+        throw e;
+      } finally {
+        source.rollback();
+        source.setReadOnly(false);
+        source.setAutoCommit(true);
+        target.setAutoCommit(true);
+      }
+    } catch (Exception e) {
+      log.error(
+          "Error copying account {} from shard {} to shard {}: {}",
+          accountId,
+          sourceShardId,
+          targetShardId,
+          e.getMessage());
+      throw new DaoLayerException("Failed to copy the account to its new shard", e);
+    }
+  }
+
+  @Override
+  public void delete(long accountId, int shardId) throws DaoLayerException {
+    try (Connection connection = shards.getShard(shardId).getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        deleteAccount(connection, accountId);
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (Exception e) {
+      log.error("Error deleting account {} from shard {}: {}", accountId, shardId, e.getMessage());
+      throw new DaoLayerException("Failed to delete the account from its old shard", e);
+    }
+  }
+
+  /** Deletes the account; its roles, users and their dependents go with it by cascade. */
+  private static void deleteAccount(Connection connection, long accountId) throws SQLException {
+    for (String sql :
+        List.of(
+            "DELETE FROM account_reaper_jobs WHERE account_id = ?",
+            "DELETE FROM accounts WHERE id = ?")) {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.setLong(1, accountId);
+        statement.executeUpdate();
+      }
+    }
+  }
+
+  /**
+   * Copies the rows selected on the source to a table on the target, with the given insert
+   * statement or, if there is none, into the table's columns of the same name.
+   */
+  private static long copyRows(
+      Connection source,
+      Connection target,
+      String select,
+      String table,
+      String insert,
+      long accountId)
+      throws SQLException {
+    long copied = 0;
+    try (PreparedStatement query = source.prepareStatement(select)) {
+      query.setLong(1, accountId);
+      query.setFetchSize(BATCH_SIZE);
+      try (ResultSet rows = query.executeQuery()) {
+        ResultSetMetaData columns = rows.getMetaData();
+        String sql = insert != null ? insert : insertSql(table, columns);
+        try (PreparedStatement statement = target.prepareStatement(sql)) {
+          while (rows.next()) {
+            for (int i = 1; i <= columns.getColumnCount(); i++) {
+              statement.setObject(i, rows.getObject(i));
+            }
+            statement.addBatch();
+            if (++copied % BATCH_SIZE == 0) {
+              statement.executeBatch();
+            }
+          }
+          if (copied % BATCH_SIZE != 0) {
+            statement.executeBatch();
+          }
+        }
+      }
+    }
+    return copied;
+  }
+
+  private static String insertSql(String table, ResultSetMetaData columns) throws SQLException {
+    StringBuilder names = new StringBuilder();
+    StringBuilder values = new StringBuilder();
+    for (int i = 1; i <= columns.getColumnCount(); i++) {
+      names.append(i > 1 ? ", " : "").append(columns.getColumnName(i));
+      values.append(i > 1 ? ", " : "").append('?');
+    }
+    return "INSERT INTO " + table + " (" + names + ") VALUES (" + values + ")";
+  }
+}
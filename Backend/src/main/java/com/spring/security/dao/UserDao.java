@@ -1,5 +1,6 @@
 package com.spring.security.dao;
 
+import com.spring.security.domain.entity.Account;
 import com.spring.security.domain.entity.User;
 import com.spring.security.exceptions.DaoLayerException;
 import java.util.List;
@@ -14,6 +15,17 @@ public interface UserDao {
    */
   User create(User user) throws DaoLayerException;
 
+  /**
+   * Creates an account together with its ROOT role, its root user and the role assignment in a
+   * single statement. On success the generated IDs are set on the account and the user, and the
+   * user's roles are set to the ROOT role.
+   *
+   * @param account the account to be created
+   * @param user the root user to be created
+   * @return true if the account was created, false if an account with the same name exists
+   */
+  boolean createWithAccount(Account account, User user) throws DaoLayerException;
+
   /**
    * Retrieves a user by their ID.
    *
@@ -1,14 +1,21 @@
 package com.spring.security.dao;
 
+import com.spring.security.annotation.ShardKey;
+import com.spring.security.component.ShardDirectory;
 import com.spring.security.dao.mapper.UserMapper;
+import com.spring.security.domain.entity.Account;
+import com.spring.security.domain.entity.ProvisionedAccount;
 import com.spring.security.domain.entity.Role;
 import com.spring.security.domain.entity.User;
 import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.util.ShardContext;
+import com.spring.security.util.ShardContext.Route;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,13 +25,17 @@ public class UserDaoImpl implements UserDao {
 
   private final UserMapper userMapper;
 
+  private final ObjectProvider<ShardDirectory> shardDirectory;
+
   /**
    * Constructor for UserDaoImpl.
    *
    * @param userMapper the UserMapper to be used for database operations
+   * @param shardDirectory the shard directory, available when tenants are sharded
    */
-  public UserDaoImpl(UserMapper userMapper) {
+  public UserDaoImpl(UserMapper userMapper, ObjectProvider<ShardDirectory> shardDirectory) {
     this.userMapper = userMapper;
+    this.shardDirectory = shardDirectory;
   }
 
   /**
@@ -34,12 +45,69 @@ public class UserDaoImpl implements UserDao {
    */
   @Override
   @Transactional(rollbackFor = DaoLayerException.class)
-  public User create(User user) throws DaoLayerException {
+  public User create(@ShardKey User user) throws DaoLayerException {
     createUserInDb(user);
     assignRoles(user);
     return user;
   }
 
+  /**
+   * Creates an account together with its ROOT role, its root user and the role assignment in a
+   * single statement. With sharding the account is created on the least loaded shard and registered
+   * in the shard directory, where its name must be unique across all shards; the caller must roll
+   * back if the name turns out to be taken.
+   *
+   * @param account the account to be created
+   * @param user the root user to be created
+   * @return true if the account was created, false if an account with the same name exists
+   */
+  @Override
+  public boolean createWithAccount(Account account, User user) throws DaoLayerException {
+    ShardDirectory directory = shardDirectory.getIfAvailable();
+    Route previous = ShardContext.current();
+    int shardId = ShardContext.HOME;
+    if (directory != null) {
+      shardId = directory.placeNewAccount();
+      ShardContext.set(new Route(shardId, false));
+    }
+    ProvisionedAccount provisioned;
+    try {
+      provisioned = userMapper.provisionAccountWithRootUser(account, user);
+      if (provisioned != null
+          && directory != null
+          && !directory.register(
+              provisioned.getAccountId(), account.getName(), user.getEmail(), shardId)) {
+        log.warn(
+            "Account name '{}' or its root email is taken on another shard", account.getName());
+        return false;
+      }
+    } catch (DaoLayerException e) {
+      throw e;
+    } catch (Exception e) {
+      log.error("Error provisioning account {}: {}", account.getName(), e.getMessage());
+      throw new DaoLayerException("Failed to create account with root user", e);
+    } finally {
+      if (!ShardContext.inRequest()) {
+        ShardContext.set(previous);
+      }
+    }
+    if (provisioned == null) {
+      return false;
+    }
+
+    account.setId(provisioned.getAccountId());
+    user.setId(provisioned.getRootUserId());
+    user.setAccountId(provisioned.getAccountId());
+    user.setIsRoot(true);
+
+    Role rootRole = new Role();
+    rootRole.setId(provisioned.getRootRoleId());
+    rootRole.setName("ROOT");
+    rootRole.setAccountId(provisioned.getAccountId());
+    user.setRoles(List.of(rootRole));
+    return true;
+  }
+
   /**
    * Creates a new user in the database.
    *
@@ -99,7 +167,8 @@ public class UserDaoImpl implements UserDao {
    * @return the user with the specified ID, or null if not found
    */
   @Override
-  public User findById(Long accountId, Long id) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public User findById(@ShardKey Long accountId, Long id) throws DaoLayerException {
 
     try {
       return userMapper.findByAccountIdAndUserId(accountId, id);
@@ -117,7 +186,9 @@ public class UserDaoImpl implements UserDao {
    * @return the user with the specified email, or null if not found
    */
   @Override
-  public User findByAccountIdAndEmail(Long accountId, String email) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public User findByAccountIdAndEmail(@ShardKey Long accountId, String email)
+      throws DaoLayerException {
 
     try {
       return userMapper.findByAccountIdAndEmail(accountId, email);
@@ -138,7 +209,9 @@ public class UserDaoImpl implements UserDao {
    * @return the user with the specified email, or null if not found
    */
   @Override
-  public User findByEmail(String email) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public User findByEmail(@ShardKey(ShardKey.Type.ROOT_EMAIL) String email)
+      throws DaoLayerException {
 
     try {
       return userMapper.findByEmail(email);
@@ -180,7 +253,8 @@ public class UserDaoImpl implements UserDao {
    * @return a list of users associated with the given account ID
    */
   @Override
-  public List<User> listByAccountId(Long accountId) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public List<User> listByAccountId(@ShardKey Long accountId) throws DaoLayerException {
     try {
       return userMapper.listByAccountId(accountId);
     } catch (Exception e) {
@@ -197,7 +271,7 @@ public class UserDaoImpl implements UserDao {
    */
   @Override
   @Transactional(rollbackFor = DaoLayerException.class)
-  public void deleteUserRoles(Long userId, Long accountId) throws DaoLayerException {
+  public void deleteUserRoles(Long userId, @ShardKey Long accountId) throws DaoLayerException {
     try {
       int deletedRows = userMapper.deleteUserRoles(userId, accountId);
       log.debug(
@@ -221,7 +295,7 @@ public class UserDaoImpl implements UserDao {
    */
   @Override
   @Transactional(rollbackFor = DaoLayerException.class)
-  public void assignUserRoles(Long userId, List<Long> roleIds, Long accountId)
+  public void assignUserRoles(Long userId, List<Long> roleIds, @ShardKey Long accountId)
       throws DaoLayerException {
     if (roleIds == null || roleIds.isEmpty()) {
       log.debug("No roles to assign for user {} in account {}", userId, accountId);
@@ -251,7 +325,8 @@ public class UserDaoImpl implements UserDao {
    * @return the root user with the specified account ID, or null if not found
    */
   @Override
-  public User findRootUserByAccountId(Long accountId) throws DaoLayerException {
+  @Transactional(readOnly = true)
+  public User findRootUserByAccountId(@ShardKey Long accountId) throws DaoLayerException {
     try {
       return userMapper.findRootUserByAccountId(accountId);
     } catch (Exception e) {
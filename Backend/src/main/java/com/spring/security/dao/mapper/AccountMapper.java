@@ -6,14 +6,17 @@ import com.spring.security.domain.entity.AccountStats;
 import com.spring.security.domain.entity.enums.AccountStatus;
 import com.spring.security.domain.entity.enums.AccountType;
 import com.spring.security.type.handlers.JsonTypeHandler;
+import java.util.List;
 import java.util.Map;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
 import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.UpdateProvider;
 
 /** */
@@ -56,13 +59,9 @@ public interface AccountMapper {
   int update(String tableName, Map<String, Object> updates, Map<String, Object> conditions);
 
   @Select(
-      "SELECT "
-          + "    COUNT(*) AS totalUsers, "
-          + "    SUM(CASE WHEN status = 'ACTIVE' THEN 1 ELSE 0 END) AS activeUsers, "
-          + "    SUM(CASE WHEN status = 'INACTIVE' THEN 1 ELSE 0 END) AS inactiveUsers, "
-          + "    SUM(CASE WHEN failed_login_attempts > 0 THEN 1 ELSE 0 END) AS failedLoginAttempts, "
-          + "    SUM(CASE WHEN status = 'CREATED' THEN 1 ELSE 0 END) AS pendingInvitations "
-          + "   FROM users WHERE account_id = #{accountId}")
+      "SELECT total_users AS totalUsers, active_users AS activeUsers, inactive_users AS inactiveUsers, "
+          + "failed_login_users AS failedLoginAttempts, pending_invitations AS pendingInvitations "
+          + "FROM account_stats WHERE account_id = #{accountId}")
   @Results(
       id = "accountStatsMap",
       value = {
@@ -79,4 +78,34 @@ public interface AccountMapper {
             javaType = Long.class)
       })
   AccountStats getAccountStats(Long accountId);
+
+  @Select("SELECT COALESCE(MAX(id), 0) FROM accounts")
+  long findMaxId();
+
+  /**
+   * Locks the stats rows of an account ID range, so that counts taken afterwards in the same
+   * transaction cannot miss a concurrent user change.
+   */
+  @Select(
+      "SELECT account_id FROM account_stats WHERE account_id BETWEEN #{fromId} AND #{toId} "
+          + "ORDER BY account_id FOR UPDATE")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  List<Long> lockStats(@Param("fromId") long fromId, @Param("toId") long toId);
+
+  /** Recounts the users of an account ID range and corrects the stats rows that drifted. */
+  @Update(
+      "UPDATE account_stats s SET total_users = c.total_users, active_users = c.active_users, "
+          + "inactive_users = c.inactive_users, failed_login_users = c.failed_login_users, "
+          + "pending_invitations = c.pending_invitations, updated_at = now() "
+          + "FROM (SELECT a.id AS account_id, COUNT(u.id) AS total_users, "
+          + "COUNT(*) FILTER (WHERE u.status = 'ACTIVE') AS active_users, "
+          + "COUNT(*) FILTER (WHERE u.status = 'INACTIVE') AS inactive_users, "
+          + "COUNT(*) FILTER (WHERE u.failed_login_attempts > 0) AS failed_login_users, "
+          + "COUNT(*) FILTER (WHERE u.status = 'CREATED') AS pending_invitations "
+          + "FROM accounts a LEFT JOIN users u ON u.account_id = a.id "
+          + "WHERE a.id BETWEEN #{fromId} AND #{toId} GROUP BY a.id) c "
+          + "WHERE s.account_id = c.account_id "
+          + "AND (s.total_users, s.active_users, s.inactive_users, s.failed_login_users, s.pending_invitations) "
+          + "IS DISTINCT FROM (c.total_users, c.active_users, c.inactive_users, c.failed_login_users, c.pending_invitations)")
+  int reconcileStats(@Param("fromId") long fromId, @Param("toId") long toId);
 }
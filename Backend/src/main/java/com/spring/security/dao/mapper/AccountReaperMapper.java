@@ -0,0 +1,140 @@
+package com.spring.security.dao.mapper;
+
+import com.spring.security.domain.entity.AccountReaperJob;
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import java.time.Instant;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * Mapper interface for purging deleted accounts. Every delete removes at most {@code limit} rows,
+ * so each batch holds its locks only briefly.
+ */
+@Mapper
+public interface AccountReaperMapper {
+
+  /**
+   * Condition every batch delete is guarded with. The share lock makes a concurrent restore wait
+   * for the batch to commit, and a batch started after a restore committed deletes nothing.
+   */
+  String STILL_DELETED =
+      "EXISTS (SELECT 1 FROM accounts WHERE id = #{accountId} AND status = 'DELETED' FOR SHARE)";
+
+  /** Creates jobs for accounts deleted longer ago than the grace period. */
+  @Insert(
+      "INSERT INTO account_reaper_jobs (account_id) "
+          + "SELECT id FROM accounts WHERE status = 'DELETED' "
+          + "AND COALESCE(updated_at, created_at) < now() - make_interval(secs => #{graceSeconds}) "
+          + "ON CONFLICT (account_id) DO NOTHING")
+  int enqueueDeleted(@Param("graceSeconds") long graceSeconds);
+
+  /**
+   * Leases one unfinished job whose account is still deleted, skipping jobs leased by live nodes.
+   */
+  @Select(
+      "UPDATE account_reaper_jobs SET leased_by = #{node}, lease_until = now() + make_interval(secs => #{leaseSeconds}), updated_at = now() "
+          + "WHERE account_id = (SELECT j.account_id FROM account_reaper_jobs j "
+          + "LEFT JOIN accounts a ON a.id = j.account_id "
+          + "WHERE j.phase <> 'DONE' AND (j.lease_until IS NULL OR j.lease_until < now()) "
+          + "AND (a.id IS NULL OR a.status = 'DELETED') "
+          + "ORDER BY j.account_id LIMIT 1 FOR UPDATE OF j SKIP LOCKED) "
+          + "RETURNING *")
+  @Results(
+      id = "accountReaperJobMap",
+      value = {
+        @Result(property = "accountId", column = "account_id", javaType = Long.class),
+        @Result(property = "phase", column = "phase", javaType = AccountReaperPhase.class),
+        @Result(property = "rowsDeleted", column = "rows_deleted", javaType = Long.class),
+        @Result(property = "leasedBy", column = "leased_by", javaType = String.class),
+        @Result(property = "leaseUntil", column = "lease_until", javaType = Instant.class),
+        @Result(property = "createdAt", column = "created_at", javaType = Instant.class),
+        @Result(property = "updatedAt", column = "updated_at", javaType = Instant.class),
+        @Result(property = "completedAt", column = "completed_at", javaType = Instant.class)
+      })
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  AccountReaperJob lease(@Param("node") String node, @Param("leaseSeconds") long leaseSeconds);
+
+  /**
+   * Records progress and renews the lease. Returns 0 if the lease was lost to another node, or if
+   * the account is no longer deleted.
+   */
+  @Update(
+      "UPDATE account_reaper_jobs j SET phase = #{phase}, rows_deleted = rows_deleted + #{rows}, "
+          + "lease_until = now() + make_interval(secs => #{leaseSeconds}), updated_at = now(), "
+          + "completed_at = CASE WHEN #{phase} = 'DONE' THEN now() END "
+          + "WHERE j.account_id = #{accountId} AND j.leased_by = #{node} "
+          + "AND NOT EXISTS (SELECT 1 FROM accounts a WHERE a.id = j.account_id AND a.status <> 'DELETED')")
+  int checkpoint(
+      @Param("accountId") long accountId,
+      @Param("node") String node,
+      @Param("phase") AccountReaperPhase phase,
+      @Param("rows") long rows,
+      @Param("leaseSeconds") long leaseSeconds);
+
+  /** Gives up the lease so another run can pick the job up straight away. */
+  @Update(
+      "UPDATE account_reaper_jobs SET leased_by = NULL, lease_until = NULL "
+          + "WHERE account_id = #{accountId} AND leased_by = #{node}")
+  int release(@Param("accountId") long accountId, @Param("node") String node);
+
+  @Delete(
+      "DELETE FROM user_roles WHERE (user_id, role_id) IN ("
+          + "SELECT ur.user_id, ur.role_id FROM user_roles ur JOIN users u ON u.id = ur.user_id "
+          + "WHERE u.account_id = #{accountId} AND "
+          + STILL_DELETED
+          + " LIMIT #{limit})")
+  int deleteUserRoles(@Param("accountId") long accountId, @Param("limit") int limit);
+
+  @Delete(
+      "DELETE FROM role_permissions WHERE (role_id, permission_id) IN ("
+          + "SELECT rp.role_id, rp.permission_id FROM role_permissions rp JOIN roles r ON r.id = rp.role_id "
+          + "WHERE r.account_id = #{accountId} AND "
+          + STILL_DELETED
+          + " LIMIT #{limit})")
+  int deleteRolePermissions(@Param("accountId") long accountId, @Param("limit") int limit);
+
+  /**
+   * Deletes OTPs tied to the account's users. OTPs known only by email may belong to a user of
+   * another account with the same email; they expire and are purged like any other. The user IDs
+   * are collected first, so the OTPs are found through their user index; as a join the planner
+   * hashes the whole table instead.
+   */
+  @Delete(
+      "DELETE FROM otp_codes WHERE id = ANY(ARRAY("
+          + "SELECT id FROM otp_codes WHERE user_id = ANY(ARRAY("
+          + "SELECT id FROM users WHERE account_id = #{accountId})) AND "
+          + STILL_DELETED
+          + " LIMIT #{limit}))")
+  int deleteOtpCodes(@Param("accountId") long accountId, @Param("limit") int limit);
+
+  @Delete(
+      "DELETE FROM activity_logs WHERE id IN ("
+          + "SELECT id FROM activity_logs WHERE account_id = #{accountId} AND "
+          + STILL_DELETED
+          + " LIMIT #{limit})")
+  int deleteActivityLogs(@Param("accountId") long accountId, @Param("limit") int limit);
+
+  @Delete(
+      "DELETE FROM users WHERE id IN ("
+          + "SELECT id FROM users WHERE account_id = #{accountId} AND "
+          + STILL_DELETED
+          + " LIMIT #{limit})")
+  int deleteUsers(@Param("accountId") long accountId, @Param("limit") int limit);
+
+  @Delete(
+      "DELETE FROM roles WHERE id IN ("
+          + "SELECT id FROM roles WHERE account_id = #{accountId} AND "
+          + STILL_DELETED
+          + " LIMIT #{limit})")
+  int deleteRoles(@Param("accountId") long accountId, @Param("limit") int limit);
+
+  @Delete("DELETE FROM accounts WHERE id = #{accountId} AND status = 'DELETED'")
+  int deleteAccount(@Param("accountId") long accountId);
+}
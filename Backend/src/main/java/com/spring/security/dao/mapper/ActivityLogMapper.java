@@ -1,6 +1,7 @@
 package com.spring.security.dao.mapper;
 
 import com.spring.security.domain.entity.ActivityLog;
+import java.time.Instant;
 import java.util.List;
 import org.apache.ibatis.annotations.*;
 
@@ -24,7 +25,7 @@ public interface ActivityLogMapper {
         @Result(property = "description", column = "description", javaType = String.class),
         @Result(property = "ipAddress", column = "ip_address", javaType = String.class),
         @Result(property = "userAgent", column = "user_agent", javaType = String.class),
-        @Result(property = "createdAt", column = "created_at", javaType = java.time.Instant.class)
+        @Result(property = "createdAt", column = "created_at", javaType = Instant.class)
       })
   @Select(
       "SELECT id, user_id, account_id, action, entity_type, entity_id, description, ip_address, user_agent, created_at FROM activity_logs WHERE id = #{id}")
@@ -39,4 +40,48 @@ public interface ActivityLogMapper {
   @Select(
       "SELECT id, user_id, account_id, action, entity_type, entity_id, description, ip_address, user_agent, created_at FROM activity_logs WHERE account_id = #{accountId} ORDER BY created_at DESC")
   List<ActivityLog> findByAccountId(@Param("accountId") Long accountId);
+
+  @ResultMap("activityLogResultMap")
+  @Select({
+    "<script>",
+    "SELECT id, user_id, account_id, action, entity_type, entity_id, description, ip_address, user_agent, created_at FROM activity_logs WHERE account_id = #{accountId}",
+    "<if test='before != null'>AND created_at &lt; #{before}</if>",
+    "ORDER BY created_at DESC LIMIT #{limit}",
+    "</script>"
+  })
+  List<ActivityLog> findPageByAccountId(
+      @Param("accountId") Long accountId,
+      @Param("before") Instant before,
+      @Param("limit") int limit);
+
+  @ResultMap("activityLogResultMap")
+  @Select(
+      "SELECT id, user_id, account_id, action, entity_type, entity_id, description, ip_address, user_agent, created_at FROM activity_logs WHERE created_at < #{cutoff} ORDER BY created_at, id LIMIT #{limit}")
+  List<ActivityLog> findOlderThan(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+  @Delete({
+    "<script>",
+    "DELETE FROM activity_logs WHERE id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  int deleteByIds(@Param("ids") List<Long> ids);
+
+  /**
+   * Takes or renews the archiver lease. Returns 0 if another node holds a lease that has not
+   * expired.
+   */
+  @Insert(
+      "INSERT INTO activity_log_archive_lease (id, leased_by, lease_until) "
+          + "VALUES (1, #{node}, now() + make_interval(secs => #{leaseSeconds})) "
+          + "ON CONFLICT (id) DO UPDATE SET leased_by = EXCLUDED.leased_by, lease_until = EXCLUDED.lease_until "
+          + "WHERE activity_log_archive_lease.leased_by = #{node} "
+          + "OR activity_log_archive_lease.lease_until < now()")
+  int leaseArchiver(@Param("node") String node, @Param("leaseSeconds") long leaseSeconds);
+
+  /** Gives up the archiver lease so that any node may take it on its next run. */
+  @Delete("DELETE FROM activity_log_archive_lease WHERE leased_by = #{node}")
+  int releaseArchiver(@Param("node") String node);
 }
@@ -0,0 +1,80 @@
+package com.spring.security.dao.mapper;
+
+import com.spring.security.domain.entity.EmailOutbox;
+import com.spring.security.type.handlers.JsonTypeHandler;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/** Mapper interface for email outbox database operations. */
+@Mapper
+public interface EmailOutboxMapper {
+
+  @Insert(
+      "INSERT INTO email_outbox (recipient, subject, template, variables) VALUES (#{recipient}, #{subject}, #{template}, "
+          + "CAST(#{variables, typeHandler=com.spring.security.type.handlers.JsonTypeHandler} AS jsonb))")
+  @Options(useGeneratedKeys = true, keyProperty = "id")
+  int insert(EmailOutbox emailOutbox);
+
+  /**
+   * Claims due entries, including entries whose previous claim lapsed. Rows claimed by a concurrent
+   * dispatcher are skipped rather than waited on.
+   */
+  @Select(
+      "UPDATE email_outbox SET status = 'SENDING', attempts = attempts + 1, locked_until = now() + make_interval(secs => #{leaseSeconds}) "
+          + "WHERE id IN (SELECT id FROM email_outbox "
+          + "WHERE (status = 'PENDING' AND next_attempt_at <= now()) OR (status = 'SENDING' AND locked_until < now()) "
+          + "ORDER BY next_attempt_at LIMIT #{limit} FOR UPDATE SKIP LOCKED) "
+          + "RETURNING *")
+  @Results(
+      id = "emailOutboxMap",
+      value = {
+        @Result(property = "id", column = "id", javaType = Long.class),
+        @Result(
+            property = "variables",
+            column = "variables",
+            javaType = Map.class,
+            typeHandler = JsonTypeHandler.class),
+        @Result(property = "nextAttemptAt", column = "next_attempt_at", javaType = Instant.class),
+        @Result(property = "lockedUntil", column = "locked_until", javaType = Instant.class),
+        @Result(property = "lastError", column = "last_error", javaType = String.class),
+        @Result(property = "createdAt", column = "created_at", javaType = Instant.class)
+      })
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  List<EmailOutbox> claim(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+  @Delete({
+    "<script>",
+    "DELETE FROM email_outbox WHERE id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  int deleteByIds(@Param("ids") List<Long> ids);
+
+  /**
+   * Records a failed or deferred attempt. Dead-lettered entries drop their template variables,
+   * which may hold one-time codes and links that must not outlive the email.
+   */
+  @Update(
+      "UPDATE email_outbox SET status = #{status}, attempts = #{attempts}, next_attempt_at = #{nextAttemptAt}, locked_until = NULL, last_error = #{lastError}, "
+          + "variables = CASE WHEN #{status} = 'DEAD' THEN '{}'::jsonb ELSE variables END WHERE id = #{id}")
+  int reschedule(EmailOutbox emailOutbox);
+
+  /** Deletes up to {@code limit} dead-lettered entries created longer ago than the retention. */
+  @Delete(
+      "DELETE FROM email_outbox WHERE id IN (SELECT id FROM email_outbox "
+          + "WHERE status = 'DEAD' AND created_at < now() - make_interval(secs => #{retentionSeconds}) "
+          + "LIMIT #{limit})")
+  int deleteDead(@Param("retentionSeconds") long retentionSeconds, @Param("limit") int limit);
+}
@@ -1,24 +1,20 @@
 package com.spring.security.dao.mapper;
 
-import com.spring.security.dao.UpdateQueryBuilder;
 import com.spring.security.domain.entity.OtpCode;
 import java.time.Instant;
-import java.util.Map;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
-import org.apache.ibatis.annotations.UpdateProvider;
 
 @Mapper
 public interface OtpMapper {
 
-  @Insert(
-      "INSERT INTO otp_codes (otp, email, created_at, expires_at) VALUES (#{otp}, #{email}, #{createdAt}, #{expiresAt})")
-  int create(OtpCode otpCode);
-
   @Select("SELECT * FROM otp_codes WHERE email = #{email} ORDER BY created_at DESC LIMIT 1")
   @Results(
       id = "otpResultMap",
@@ -26,13 +22,35 @@ public interface OtpMapper {
         @Result(property = "otp", column = "otp", javaType = String.class),
         @Result(property = "email", column = "email", javaType = String.class),
         @Result(property = "createdAt", column = "created_at", javaType = Instant.class),
-        @Result(property = "expiresAt", column = "expires_at", javaType = Instant.class)
+        @Result(property = "expiresAt", column = "expires_at", javaType = Instant.class),
+        @Result(property = "used", column = "used", javaType = Boolean.class),
+        @Result(property = "attempts", column = "attempts", javaType = Integer.class)
       })
   OtpCode find(String email);
 
+  @Insert(
+      "INSERT INTO otp_codes (otp, email, created_at, expires_at, used) VALUES (#{otp}, #{email}, #{createdAt}, #{expiresAt}, false) "
+          + "ON CONFLICT (email) DO UPDATE SET otp = EXCLUDED.otp, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at, used = false, attempts = 0")
+  int upsert(OtpCode otpCode);
+
+  // A match uses the code up; a mismatch counts an attempt, and the last allowed one uses it up too
+  @Select(
+      "UPDATE otp_codes SET attempts = attempts + CASE WHEN otp = #{otp} THEN 0 ELSE 1 END, "
+          + "used = (otp = #{otp} OR attempts + 1 >= #{maxAttempts}) "
+          + "WHERE email = #{email} AND used IS NOT TRUE AND expires_at > now() RETURNING *")
+  @ResultMap("otpResultMap")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  OtpCode consume(
+      @Param("email") String email,
+      @Param("otp") String otp,
+      @Param("maxAttempts") int maxAttempts);
+
   @Delete("DELETE FROM otp_codes WHERE email = #{email}")
   int delete(String email);
 
-  @UpdateProvider(type = UpdateQueryBuilder.class, method = "update")
-  int update(String tableName, Map<String, Object> updates, Map<String, Object> conditions);
+  // The batch is collected into an array so the delete probes the primary key; an IN subquery is
+  // planned as a semi join that scans the whole table
+  @Delete(
+      "DELETE FROM otp_codes WHERE id = ANY(ARRAY(SELECT id FROM otp_codes WHERE expires_at < now() LIMIT #{limit}))")
+  int deleteExpired(@Param("limit") int limit);
 }
@@ -0,0 +1,67 @@
+package com.spring.security.dao.mapper;
+
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import java.time.Instant;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/** Mapper interface for the shard directory, which lives on the home database. */
+@Mapper
+public interface ShardDirectoryMapper {
+
+  @Select("SELECT * FROM account_directory WHERE account_id = #{accountId}")
+  @Results(
+      id = "accountDirectoryEntryMap",
+      value = {
+        @Result(property = "accountId", column = "account_id", javaType = Long.class),
+        @Result(property = "name", column = "name", javaType = String.class),
+        @Result(property = "shardId", column = "shard_id", javaType = Integer.class),
+        @Result(property = "moving", column = "moving", javaType = Boolean.class),
+        @Result(property = "updatedAt", column = "updated_at", javaType = Instant.class)
+      })
+  AccountDirectoryEntry findByAccountId(@Param("accountId") long accountId);
+
+  @Select("SELECT * FROM account_directory WHERE name = #{name}")
+  @ResultMap("accountDirectoryEntryMap")
+  AccountDirectoryEntry findByName(@Param("name") String name);
+
+  @Select(
+      "SELECT d.* FROM root_user_directory r "
+          + "JOIN account_directory d ON d.account_id = r.account_id WHERE r.email = #{email}")
+  @ResultMap("accountDirectoryEntryMap")
+  AccountDirectoryEntry findByRootEmail(@Param("email") String email);
+
+  @Select("SELECT count(*) FROM account_directory WHERE shard_id = #{shardId}")
+  long countByShard(@Param("shardId") int shardId);
+
+  /** Registers an account. Returns 0 if the name is taken by an account on any shard. */
+  @Insert(
+      "INSERT INTO account_directory (account_id, name, shard_id) VALUES (#{accountId}, #{name}, #{shardId}) "
+          + "ON CONFLICT DO NOTHING")
+  int insert(AccountDirectoryEntry entry);
+
+  @Insert(
+      "INSERT INTO root_user_directory (email, account_id) VALUES (#{email}, #{accountId}) "
+          + "ON CONFLICT (email) DO NOTHING")
+  int insertRootUser(@Param("email") String email, @Param("accountId") long accountId);
+
+  @Delete("DELETE FROM account_directory WHERE account_id = #{accountId}")
+  int delete(@Param("accountId") long accountId);
+
+  @Update(
+      "UPDATE account_directory SET moving = #{moving}, updated_at = now() WHERE account_id = #{accountId}")
+  int updateMoving(@Param("accountId") long accountId, @Param("moving") boolean moving);
+
+  /** Points an account at its new shard and ends its move. */
+  @Update(
+      "UPDATE account_directory SET shard_id = #{shardId}, moving = FALSE, updated_at = now() "
+          + "WHERE account_id = #{accountId}")
+  int updateShard(@Param("accountId") long accountId, @Param("shardId") int shardId);
+}
@@ -1,7 +1,9 @@
 package com.spring.security.dao.mapper;
 
 import com.spring.security.dao.UpdateQueryBuilder;
+import com.spring.security.domain.entity.Account;
 import com.spring.security.domain.entity.Permission;
+import com.spring.security.domain.entity.ProvisionedAccount;
 import com.spring.security.domain.entity.Role;
 import com.spring.security.domain.entity.User;
 import com.spring.security.domain.entity.enums.UserStatus;
@@ -13,6 +15,7 @@ import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Many;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
 import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Results;
@@ -166,4 +169,45 @@ public interface UserMapper {
         @Result(property = "failedLoginAttempts", column = "failed_login_attempts")
       })
   User findRootUserByAccountId(Long accountId);
+
+  /**
+   * Creates an account with its ROOT role, its root user and the link between them in one
+   * statement. Returns no row if the account name is taken.
+   */
+  @Select(
+      """
+      WITH new_account AS (
+        INSERT INTO accounts (name, status, description, type, additional_attributes, created_by)
+        VALUES (#{account.name}, #{account.status}, #{account.description}, #{account.type},
+        #{account.additionalAttributes, typeHandler=com.spring.security.type.handlers.JsonTypeHandler},
+        #{account.createdBy})
+        ON CONFLICT (name) DO NOTHING
+        RETURNING id
+      ), new_role AS (
+        INSERT INTO roles (name, description, account_id)
+        SELECT 'ROOT', 'Root role with all permissions', id FROM new_account
+        RETURNING id, account_id
+      ), new_user AS (
+        INSERT INTO users (first_name, last_name, middle_name, email, type, status, account_id, additional_attributes, is_root)
+        SELECT #{user.firstName}, #{user.lastName}, #{user.middleName}, #{user.email}, #{user.type}, #{user.status}, id,
+        #{user.additionalAttributes, typeHandler=com.spring.security.type.handlers.JsonTypeHandler}, TRUE
+        FROM new_account
+        RETURNING id, account_id
+      ), new_user_role AS (
+        INSERT INTO user_roles (user_id, role_id)
+        SELECT u.id, r.id FROM new_user u JOIN new_role r ON r.account_id = u.account_id
+      )
+      SELECT a.id AS account_id, u.id AS root_user_id, r.id AS root_role_id
+      FROM new_account a
+      JOIN new_user u ON u.account_id = a.id
+      JOIN new_role r ON r.account_id = a.id
+      """)
+  @Results({
+    @Result(property = "accountId", column = "account_id", javaType = Long.class),
+    @Result(property = "rootUserId", column = "root_user_id", javaType = Long.class),
+    @Result(property = "rootRoleId", column = "root_role_id", javaType = Long.class)
+  })
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  ProvisionedAccount provisionAccountWithRootUser(
+      @Param("account") Account account, @Param("user") User user);
 }
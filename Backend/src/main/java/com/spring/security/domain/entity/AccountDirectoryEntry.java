@@ -0,0 +1,26 @@
+package com.spring.security.domain.entity;
+
+import java.time.Instant;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Represents an account's entry in the shard directory. */
+@Getter
+@Setter
+public class AccountDirectoryEntry {
+
+  /** The ID of the account. */
+  private Long accountId;
+
+  /** The name of the account, unique across all shards. */
+  private String name;
+
+  /** The ID of the shard holding the account's rows. */
+  private Integer shardId;
+
+  /** Whether the account is being moved to another shard. */
+  private Boolean moving;
+
+  /** The time the entry last changed. */
+  private Instant updatedAt;
+}
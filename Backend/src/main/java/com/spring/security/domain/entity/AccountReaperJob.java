@@ -0,0 +1,36 @@
+package com.spring.security.domain.entity;
+
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Represents the purge of a deleted account's data and its checkpointed progress. */
+@Getter
+@Setter
+public class AccountReaperJob {
+
+  /** The ID of the deleted account. */
+  private Long accountId;
+
+  /** The phase the purge is in. */
+  private AccountReaperPhase phase;
+
+  /** The number of rows deleted so far. */
+  private Long rowsDeleted;
+
+  /** The node holding the lease on the job. */
+  private String leasedBy;
+
+  /** The time the lease lapses and another node may take the job over. */
+  private Instant leaseUntil;
+
+  /** The time the job was created. */
+  private Instant createdAt;
+
+  /** The time the job was last checkpointed. */
+  private Instant updatedAt;
+
+  /** The time the purge completed. */
+  private Instant completedAt;
+}
@@ -12,6 +12,9 @@ public class ActivityLog {
   /** The unique identifier of the activity log. */
   private Long id;
 
+  /** The ID of the user who performed the action. */
+  private Long userId;
+
   /** The user email */
   private String userEmail;
 
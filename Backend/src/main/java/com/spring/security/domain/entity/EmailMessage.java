@@ -0,0 +1,19 @@
+package com.spring.security.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Represents a rendered HTML email ready to be handed to an email provider. */
+@Getter
+@AllArgsConstructor
+public class EmailMessage {
+
+  /** The recipient's email address. */
+  private final String to;
+
+  /** The subject of the email. */
+  private final String subject;
+
+  /** The HTML content of the email. */
+  private final String htmlContent;
+}
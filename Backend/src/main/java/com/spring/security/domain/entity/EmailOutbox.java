@@ -0,0 +1,47 @@
+package com.spring.security.domain.entity;
+
+import com.spring.security.domain.entity.enums.EmailOutboxStatus;
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import java.time.Instant;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Represents an email waiting in the transactional outbox. */
+@Getter
+@Setter
+public class EmailOutbox {
+
+  /** The unique identifier of the outbox entry. */
+  private Long id;
+
+  /** The recipient's email address. */
+  private String recipient;
+
+  /** The subject of the email. */
+  private String subject;
+
+  /** The template the email is rendered from. */
+  private EmailTemplate template;
+
+  /** The variables the template is rendered with. */
+  private Map<String, Object> variables;
+
+  /** The delivery status. */
+  private EmailOutboxStatus status;
+
+  /** The number of delivery attempts so far, including the one in progress. */
+  private Integer attempts;
+
+  /** The earliest time of the next delivery attempt. */
+  private Instant nextAttemptAt;
+
+  /** The time a dispatcher's claim on the entry lapses. */
+  private Instant lockedUntil;
+
+  /** The error of the last failed delivery attempt. */
+  private String lastError;
+
+  /** The timestamp when the entry was created. */
+  private Instant createdAt;
+}
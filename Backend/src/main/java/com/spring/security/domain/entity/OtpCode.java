@@ -14,6 +14,8 @@ public class OtpCode {
 
   private Boolean used;
 
+  private Integer attempts;
+
   private String email;
 
   private Instant createdAt;
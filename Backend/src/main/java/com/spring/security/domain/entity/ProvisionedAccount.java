@@ -0,0 +1,16 @@
+package com.spring.security.domain.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** IDs of the rows created when provisioning an account together with its root user. */
+@Getter
+@Setter
+public class ProvisionedAccount {
+
+  private Long accountId;
+
+  private Long rootUserId;
+
+  private Long rootRoleId;
+}
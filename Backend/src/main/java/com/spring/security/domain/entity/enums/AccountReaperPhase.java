@@ -0,0 +1,64 @@
+package com.spring.security.domain.entity.enums;
+
+/**
+ * Enum representing the progress of purging a deleted account's data. Phases run in declaration
+ * order, children before parents, so no phase relies on a large cascading delete. The data kept
+ * outside the account's database goes last, once the account row is gone and the account can no
+ * longer be restored.
+ *
+ * <p>This enum defines the following phases:
+ *
+ * <ul>
+ *   <li>USER_ROLES - Removing role assignments of the account's users.
+ *   <li>ROLE_PERMISSIONS - Removing permissions of the account's roles.
+ *   <li>OTP_CODES - Removing OTPs issued to the account's users.
+ *   <li>ACTIVITY_LOGS - Removing the account's activity logs.
+ *   <li>USERS - Removing the account's users.
+ *   <li>ROLES - Removing the account's roles.
+ *   <li>ACCOUNT - Removing the account row itself.
+ *   <li>ARCHIVED_LOGS - Removing the account's entries from the activity log archive.
+ *   <li>DIRECTORY - Removing the account from the shard directory.
+ *   <li>DONE - All data of the account has been removed.
+ * </ul>
+ */
+public enum AccountReaperPhase {
+
+  /** Removing role assignments of the account's users. */
+  USER_ROLES,
+
+  /** Removing permissions of the account's roles. */
+  ROLE_PERMISSIONS,
+
+  /** Removing OTPs issued to the account's users. */
+  OTP_CODES,
+
+  /** Removing the account's activity logs. */
+  ACTIVITY_LOGS,
+
+  /** Removing the account's users. */
+  USERS,
+
+  /** Removing the account's roles. */
+  ROLES,
+
+  /** Removing the account row itself. */
+  ACCOUNT,
+
+  /** Removing the account's entries from the activity log archive. */
+  ARCHIVED_LOGS,
+
+  /** Removing the account from the shard directory. */
+  DIRECTORY,
+
+  /** All data of the account has been removed. */
+  DONE;
+
+  /**
+   * Returns the phase that follows this one.
+   *
+   * @return the next phase, or DONE if this is the last
+   */
+  public AccountReaperPhase next() {
+    return this == DONE ? DONE : values()[ordinal() + 1];
+  }
+}
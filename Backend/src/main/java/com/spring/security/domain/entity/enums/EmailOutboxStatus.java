@@ -0,0 +1,24 @@
+package com.spring.security.domain.entity.enums;
+
+/**
+ * Enum representing the delivery status of an email outbox entry.
+ *
+ * <p>This enum defines the following statuses:
+ *
+ * <ul>
+ *   <li>PENDING - Waiting for its next delivery attempt.
+ *   <li>SENDING - Claimed by a dispatcher; the claim lapses if the dispatcher dies.
+ *   <li>DEAD - Delivery failed too many times and will not be retried.
+ * </ul>
+ */
+public enum EmailOutboxStatus {
+
+  /** Waiting for its next delivery attempt. */
+  PENDING,
+
+  /** Claimed by a dispatcher. */
+  SENDING,
+
+  /** Delivery failed too many times and will not be retried. */
+  DEAD,
+}
@@ -0,0 +1,32 @@
+package com.spring.security.domain.entity.enums;
+
+import java.util.List;
+import lombok.Getter;
+
+/** Enum representing the Thymeleaf email templates the application sends. */
+@Getter
+public enum EmailTemplate {
+
+  /** Account created, with an OTP to set up the root user's password. */
+  ACCOUNT_CREATED_SUCCESS("emails/account-created-success", "userName", "email", "otp"),
+
+  /** User created, with a link to set up the password. */
+  ACCOUNT_SETUP_OTP("emails/account-setup-otp", "userName", "email", "passwordSetupLink"),
+
+  /** A new OTP for account creation. */
+  RESEND_OTP("emails/resend-otp", "userName", "email", "otp"),
+
+  /** A new verification link for user creation. */
+  RESEND_OTP_LINK("emails/resend-otp-link", "userName", "email", "verificationLink");
+
+  /** The template path relative to the templates directory. */
+  private final String path;
+
+  /** The names of the variables the template reads. */
+  private final List<String> variables;
+
+  EmailTemplate(String path, String... variables) {
+    this.path = path;
+    this.variables = List.of(variables);
+  }
+}
@@ -0,0 +1,20 @@
+package com.spring.security.exceptions;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Exception thrown when an email was not handed to the provider because the provider is considered
+ * unavailable, e.g. while its circuit breaker is open. The email was not attempted and should be
+ * retried after {@link #getRetryAfter()}.
+ */
+@Getter
+public class EmailDeferredException extends EmailServiceException {
+
+  private final Duration retryAfter;
+
+  public EmailDeferredException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+}
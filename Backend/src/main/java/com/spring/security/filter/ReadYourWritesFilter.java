@@ -0,0 +1,83 @@
+package com.spring.security.filter;
+
+import com.spring.security.config.ReplicaRoutingDataSource;
+import com.spring.security.util.ReplicaRoutingContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * This filter gives clients read-your-writes consistency across read replicas. A request that
+ * changed data gets the primary's WAL position after its writes in the {@value #HEADER} response
+ * header, as recorded on the request's own primary connections by the {@link
+ * ReplicaRoutingDataSource}; a client that sends it back in the same header is only served by
+ * replicas that have replayed at least that far, and by the primary otherwise. Requests without the
+ * header may read from any replica within the allowed lag.
+ */
+@Component
+@ConditionalOnExpression("!'${db.replicas.urls:}'.isBlank()")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-Read-Token";
+
+  private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    boolean mayWrite = !SAFE_METHODS.contains(request.getMethod());
+    ReplicaRoutingContext.start(minLsn(request.getHeader(HEADER)), mayWrite);
+    HttpServletResponse target = mayWrite ? new TokenHeaderResponse(response) : response;
+    try {
+      filterChain.doFilter(request, target);
+    } finally {
+      if (mayWrite && !response.isCommitted()) {
+        setToken(response);
+      }
+      ReplicaRoutingContext.stop();
+    }
+  }
+
+  /** A malformed token is ignored rather than failing the request. */
+  private static long minLsn(String token) {
+    if (token == null || token.isBlank()) {
+      return 0;
+    }
+    try {
+      return ReplicaRoutingDataSource.parseLsn(token.trim());
+    } catch (IllegalArgumentException e) {
+      return 0;
+    }
+  }
+
+  private static void setToken(HttpServletResponse response) {
+    long writeLsn = ReplicaRoutingContext.writeLsn();
+    if (writeLsn != 0 && !response.containsHeader(HEADER)) {
+      response.setHeader(HEADER, ReplicaRoutingDataSource.formatLsn(writeLsn));
+    }
+  }
+
+  /** Sets the token header just before the response is committed, while it can still be set. */
+  private final class TokenHeaderResponse extends OnCommittedResponseWrapper {
+
+    TokenHeaderResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    protected void onResponseCommitted() {
+      setToken((HttpServletResponse) getResponse());
+    }
+  }
+}
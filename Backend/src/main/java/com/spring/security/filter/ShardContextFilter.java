@@ -0,0 +1,36 @@
+package com.spring.security.filter;
+
+import com.spring.security.util.ShardContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * This filter scopes shard routing to a request: the first shard a request is routed to, usually
+ * while authenticating it, is kept for the rest of the request and cleared when it ends. It runs
+ * before the security filters, so authentication is routed within the request too.
+ */
+@Component
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ShardContextFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    ShardContext.startRequest();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ShardContext.endRequest();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.spring.security.filter;
+
+import com.spring.security.annotation.StatementBudget;
+import com.spring.security.util.StatementCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * This filter counts the SQL statements run while handling a request and logs requests that exceed
+ * the budget of their endpoint. With {@code sql.budget.expose-header} enabled (the dev profile) the
+ * count is also returned in the {@value #HEADER} response header, which integration tests use to
+ * assert query counts.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-SQL-Statements";
+
+  private final int defaultBudget;
+
+  private final boolean exposeHeader;
+
+  /**
+   * Constructor for StatementBudgetFilter.
+   *
+   * @param defaultBudget the budget of endpoints without a {@link StatementBudget} annotation
+   * @param exposeHeader whether to return the statement count in a response header
+   */
+  public StatementBudgetFilter(
+      @Value("${sql.budget.default:20}") int defaultBudget,
+      @Value("${sql.budget.expose-header:false}") boolean exposeHeader) {
+    this.defaultBudget = defaultBudget;
+    this.exposeHeader = exposeHeader;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    StatementCounter.start();
+    HttpServletResponse target = exposeHeader ? new CountHeaderResponse(response) : response;
+    try {
+      filterChain.doFilter(request, target);
+    } finally {
+      int count = StatementCounter.stop();
+      if (exposeHeader && !response.isCommitted()) {
+        response.setHeader(HEADER, String.valueOf(count));
+      }
+      int budget = budget(request);
+      if (count > budget) {
+        log.warn(
+            "{} {} ran {} SQL statements, over its budget of {}",
+            request.getMethod(),
+            request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) != null
+                ? request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)
+                : request.getRequestURI(),
+            count,
+            budget);
+      }
+    }
+  }
+
+  private int budget(HttpServletRequest request) {
+    if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE)
+        instanceof HandlerMethod handlerMethod) {
+      StatementBudget budget = handlerMethod.getMethodAnnotation(StatementBudget.class);
+      if (budget != null) {
+        return budget.value();
+      }
+    }
+    return defaultBudget;
+  }
+
+  /** Sets the count header just before the response is committed, while it can still be set. */
+  private static final class CountHeaderResponse extends OnCommittedResponseWrapper {
+
+    CountHeaderResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    protected void onResponseCommitted() {
+      setHeader(HEADER, String.valueOf(StatementCounter.current()));
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.spring.security.interceptor;
+
+import com.spring.security.util.StatementCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * MyBatis plugin recording, per mapped statement, the execution time, the rows returned or affected
+ * and the number of failures. Meters are tagged with the statement id shortened to {@code
+ * Mapper.method}, e.g. {@code UserMapper.findByAccountIdAndEmail}.
+ *
+ * <p>It intercepts the statement handler rather than the executor, so it sees every JDBC statement:
+ * nested {@code @Many}/{@code @One} selects are run by the executor directly, past any executor
+ * plugin, and results served from MyBatis caches never reach the database. Nested selects run while
+ * the parent's rows are mapped; their time is recorded against them and left out of the parent's.
+ *
+ * <p>Every execution is also counted towards the current request's statement budget.
+ *
+ * <p>Statements slower than {@code mybatis.slow-statement.threshold} are logged with the shape of
+ * their parameters (names, types and collection sizes), never with the values themselves.
+ */
+@Component
+@Slf4j
+@Intercepts({
+  @Signature(
+      type = StatementHandler.class,
+      method = "query",
+      args = {Statement.class, ResultHandler.class}),
+  @Signature(
+      type = StatementHandler.class,
+      method = "queryCursor",
+      args = {Statement.class}),
+  @Signature(
+      type = StatementHandler.class,
+      method = "update",
+      args = {Statement.class}),
+  @Signature(
+      type = StatementHandler.class,
+      method = "batch",
+      args = {Statement.class})
+})
+public class StatementMetricsInterceptor implements Interceptor {
+
+  private static final Pattern GENERIC_PARAM = Pattern.compile("param\\d+");
+
+  /**
+   * Time spent in statements nested in the one running on this thread, e.g. {@code @Many} loads.
+   */
+  private static final ThreadLocal<long[]> NESTED_NANOS =
+      ThreadLocal.withInitial(() -> new long[1]);
+
+  private final MeterRegistry meterRegistry;
+  private final long slowThresholdNanos;
+  private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for StatementMetricsInterceptor.
+   *
+   * @param meterRegistry the registry for statement metrics
+   * @param slowThreshold the execution time above which a statement is logged
+   */
+  public StatementMetricsInterceptor(
+      MeterRegistry meterRegistry,
+      @Value("${mybatis.slow-statement.threshold:PT0.5S}") Duration slowThreshold) {
+    this.meterRegistry = meterRegistry;
+    this.slowThresholdNanos = slowThreshold.toNanos();
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    StatementHandler handler = (StatementHandler) invocation.getTarget();
+    MappedStatement statement = mappedStatement(handler);
+    Object parameter = handler.getParameterHandler().getParameterObject();
+    StatementMeters statementMeters =
+        meters.computeIfAbsent(statement.getId(), id -> register(statement));
+    StatementCounter.increment();
+
+    long[] nested = NESTED_NANOS.get();
+    long outerNested = nested[0];
+    nested[0] = 0;
+    long start = System.nanoTime();
+    Object result;
+    long elapsed;
+    try {
+      result = invocation.proceed();
+    } catch (Throwable t) {
+      elapsed = finish(nested, outerNested, start);
+      statementMeters.errors().increment();
+      statementMeters.failed().record(elapsed, TimeUnit.NANOSECONDS);
+      throw t;
+    }
+    elapsed = finish(nested, outerNested, start);
+    int rows = rows(invocation, result);
+    statementMeters.succeeded().record(elapsed, TimeUnit.NANOSECONDS);
+    statementMeters.rows().record(rows);
+
+    if (elapsed > slowThresholdNanos) {
+      log.warn(
+          "Slow statement {}: {} ms, {} rows, parameters {}",
+          shortId(statement.getId()),
+          TimeUnit.NANOSECONDS.toMillis(elapsed),
+          rows,
+          shape(parameter));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the time the statement took without the statements nested in it, and adds its whole
+   * time to the nested time of the statement it is nested in, if any.
+   */
+  private static long finish(long[] nested, long outerNested, long start) {
+    long total = System.nanoTime() - start;
+    long own = total - nested[0];
+    nested[0] = outerNested + total;
+    return own;
+  }
+
+  /**
+   * Returns the mapped statement of a handler. The handler MyBatis plugs is a
+   * RoutingStatementHandler, or another plugin's proxy around one; the statement is held by the
+   * handler it delegates to.
+   */
+  private static MappedStatement mappedStatement(StatementHandler handler) {
+    Object target = handler;
+    while (Proxy.isProxyClass(target.getClass())) {
+      target = SystemMetaObject.forObject(Proxy.getInvocationHandler(target)).getValue("target");
+    }
+    return (MappedStatement)
+        SystemMetaObject.forObject(target).getValue("delegate.mappedStatement");
+  }
+
+  private StatementMeters register(MappedStatement statement) {
+    String id = shortId(statement.getId());
+    String type = statement.getSqlCommandType().name();
+    return new StatementMeters(
+        timer(id, type, "success"),
+        timer(id, type, "error"),
+        DistributionSummary.builder("mybatis.statement.rows")
+            .description("Rows returned or affected per mapped statement execution")
+            .tag("statement", id)
+            .tag("type", type)
+            .register(meterRegistry),
+        Counter.builder("mybatis.statement.errors")
+            .description("Failed mapped statement executions")
+            .tag("statement", id)
+            .tag("type", type)
+            .register(meterRegistry));
+  }
+
+  private Timer timer(String id, String type, String outcome) {
+    return Timer.builder("mybatis.statement")
+        .description("Execution time of mapped statements")
+        .tag("statement", id)
+        .tag("type", type)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /** Shortens {@code com.spring.security.dao.mapper.UserMapper.findById} to the last two parts. */
+  static String shortId(String id) {
+    int method = id.lastIndexOf('.');
+    int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+    return id.substring(type + 1);
+  }
+
+  /**
+   * Counts the rows a query returned or an update affected. A batched statement has not run yet and
+   * a cursor has not been read yet, so neither has rows to count.
+   */
+  private static int rows(Invocation invocation, Object result) {
+    String method = invocation.getMethod().getName();
+    if (method.equals("batch") || method.equals("queryCursor")) {
+      return 0;
+    }
+    if (result instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (result instanceof Integer count) {
+      return count;
+    }
+    return result == null ? 0 : 1;
+  }
+
+  /**
+   * Describes a statement parameter without its values, e.g. {@code {accountId=Long, email=String}}
+   * or {@code List[25]}.
+   */
+  static String shape(Object parameter) {
+    if (parameter instanceof MapperMethod.ParamMap<?> params) {
+      StringJoiner joiner = new StringJoiner(", ", "{", "}");
+      params.forEach(
+          (name, value) -> {
+            // Every named parameter is also bound as param1, param2, ...; skip the duplicates
+            if (!GENERIC_PARAM.matcher(name).matches()) {
+              joiner.add(name + "=" + describe(value));
+            }
+          });
+      return joiner.toString();
+    }
+    return describe(parameter);
+  }
+
+  private static String describe(Object value) {
+    if (value == null) {
+      return "null";
+    }
+    if (value instanceof Collection<?> collection) {
+      return value.getClass().getSimpleName() + "[" + collection.size() + "]";
+    }
+    if (value instanceof Map<?, ?> map) {
+      return value.getClass().getSimpleName() + "[" + map.size() + "]";
+    }
+    if (value.getClass().isArray()) {
+      return value.getClass().getComponentType().getSimpleName()
+          + "["
+          + Array.getLength(value)
+          + "]";
+    }
+    return value.getClass().getSimpleName();
+  }
+
+  private record StatementMeters(
+      Timer succeeded, Timer failed, DistributionSummary rows, Counter errors) {}
+}
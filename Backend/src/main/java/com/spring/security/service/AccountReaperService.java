@@ -0,0 +1,16 @@
+package com.spring.security.service;
+
+import com.spring.security.exceptions.ServiceLayerException;
+
+/** Service interface for purging the data of deleted accounts. */
+public interface AccountReaperService {
+
+  /**
+   * Purges the data of accounts deleted longer ago than the grace period, in small batches and
+   * within a bounded run time. Unfinished purges resume from their last checkpoint on the next run,
+   * on this or another node.
+   *
+   * @return the number of rows deleted
+   */
+  long reap() throws ServiceLayerException;
+}
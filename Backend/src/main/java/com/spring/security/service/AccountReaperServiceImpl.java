@@ -0,0 +1,181 @@
+package com.spring.security.service;
+
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.component.ShardDirectory;
+import com.spring.security.dao.AccountReaperDao;
+import com.spring.security.dao.ActivityLogArchiveDao;
+import com.spring.security.domain.entity.AccountReaperJob;
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.exceptions.ServiceLayerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Purges deleted accounts table by table, children first, in batches of a bounded number of rows.
+ * Each batch is its own short transaction followed by a pause, so a large tenant never holds many
+ * locks at once and live traffic keeps getting its share of the database. After every batch the job
+ * checkpoints its phase and renews its lease; a purge interrupted by a restart or a lost lease is
+ * resumed from the checkpoint by whichever node leases the job next.
+ *
+ * <p>The account's archived activity logs and its shard directory entry are removed last, after the
+ * account row. Until then a restored account keeps all of its data: every batch delete first checks
+ * that the account is still deleted.
+ */
+@Service
+@Slf4j
+public class AccountReaperServiceImpl implements AccountReaperService {
+
+  /** Phases that finish in a single step rather than in batches. */
+  private static final Set<AccountReaperPhase> SINGLE_STEP =
+      EnumSet.of(AccountReaperPhase.ACCOUNT, AccountReaperPhase.DIRECTORY);
+
+  private final AccountReaperDao accountReaperDao;
+  private final ActivityLogArchiveDao activityLogArchiveDao;
+  private final ObjectProvider<ShardDirectory> shardDirectory;
+  private final boolean enabled;
+  private final Duration gracePeriod;
+  private final int batchSize;
+  private final Duration pause;
+  private final Duration maxRunTime;
+  private final Duration lease;
+  private final String node = ManagementFactory.getRuntimeMXBean().getName();
+
+  private final Map<AccountReaperPhase, Counter> deletedRows =
+      new EnumMap<>(AccountReaperPhase.class);
+
+  /**
+   * Constructor for AccountReaperServiceImpl.
+   *
+   * @param accountReaperDao the DAO for purge jobs and batch deletes
+   * @param activityLogArchiveDao the DAO for the archived activity logs
+   * @param shardDirectory the shard directory, available only when tenants are sharded
+   * @param meterRegistry the registry for purge metrics
+   * @param enabled whether the scheduled purge runs
+   * @param gracePeriod how long a deleted account is kept before it is purged
+   * @param batchSize the maximum number of rows deleted per batch
+   * @param pause the pause after every non-empty batch
+   * @param maxRunTime the time after which a run stops and leaves the rest for the next run
+   * @param lease how long a job stays leased to this node without a checkpoint
+   */
+  public AccountReaperServiceImpl(
+      AccountReaperDao accountReaperDao,
+      ActivityLogArchiveDao activityLogArchiveDao,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      MeterRegistry meterRegistry,
+      @Value("${account.reaper.enabled:true}") boolean enabled,
+      @Value("${account.reaper.grace-period:PT24H}") Duration gracePeriod,
+      @Value("${account.reaper.batch-size:500}") int batchSize,
+      @Value("${account.reaper.pause:PT0.1S}") Duration pause,
+      @Value("${account.reaper.max-run-time:PT30S}") Duration maxRunTime,
+      @Value("${account.reaper.lease:PT2M}") Duration lease) {
+    this.accountReaperDao = accountReaperDao;
+    this.activityLogArchiveDao = activityLogArchiveDao;
+    this.shardDirectory = shardDirectory;
+    this.enabled = enabled;
+    this.gracePeriod = gracePeriod;
+    this.batchSize = batchSize;
+    this.pause = pause;
+    this.maxRunTime = maxRunTime;
+    this.lease = lease;
+    for (AccountReaperPhase phase : AccountReaperPhase.values()) {
+      deletedRows.put(
+          phase,
+          Counter.builder("account.reaper.rows")
+              .description("Rows deleted while purging deleted accounts")
+              .tag("phase", phase.name())
+              .register(meterRegistry));
+    }
+  }
+
+  @Override
+  @OnEachShard
+  @Scheduled(
+      initialDelayString = "${account.reaper.initial-delay:PT2M}",
+      fixedDelayString = "${account.reaper.interval:PT1M}")
+  public long reap() throws ServiceLayerException {
+    if (!enabled) {
+      return 0;
+    }
+    long deadline = System.nanoTime() + maxRunTime.toNanos();
+    long deleted = 0;
+    try {
+      int queued = accountReaperDao.enqueueDeleted(gracePeriod);
+      if (queued > 0) {
+        log.info("Queued {} deleted accounts for purge", queued);
+      }
+      while (deadline - System.nanoTime() > 0) {
+        AccountReaperJob job = accountReaperDao.lease(node, lease);
+        if (job == null) {
+          break;
+        }
+        deleted += purge(job, deadline);
+      }
+    } catch (DaoLayerException e) {
+      log.error("Failed to purge deleted accounts: {}", e.getMessage());
+      throw new ServiceLayerException("Failed to purge deleted accounts", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return deleted;
+  }
+
+  private long purge(AccountReaperJob job, long deadline)
+      throws DaoLayerException, InterruptedException {
+    long accountId = job.getAccountId();
+    AccountReaperPhase phase = job.getPhase();
+    long deleted = 0;
+
+    while (phase != AccountReaperPhase.DONE && deadline - System.nanoTime() > 0) {
+      int rows = deleteBatch(phase, accountId);
+      AccountReaperPhase next =
+          SINGLE_STEP.contains(phase) || rows < batchSize ? phase.next() : phase;
+      if (!accountReaperDao.checkpoint(accountId, node, next, rows, lease)) {
+        log.warn("Stopped purging account {}: lease lost or account restored", accountId);
+        return deleted + rows;
+      }
+      deletedRows.get(phase).increment(rows);
+      deleted += rows;
+      phase = next;
+      if (rows > 0) {
+        Thread.sleep(pause);
+      }
+    }
+
+    if (phase == AccountReaperPhase.DONE) {
+      log.info("Purged account {}: {} rows", accountId, job.getRowsDeleted() + deleted);
+    } else {
+      // Out of time for this run; let the next run on any node continue from the checkpoint
+      accountReaperDao.release(accountId, node);
+    }
+    return deleted;
+  }
+
+  private int deleteBatch(AccountReaperPhase phase, long accountId) throws DaoLayerException {
+    return switch (phase) {
+      case ARCHIVED_LOGS -> activityLogArchiveDao.deleteByAccountId(accountId, batchSize);
+      case DIRECTORY -> unregister(accountId);
+      default -> accountReaperDao.deleteBatch(phase, accountId, batchSize);
+    };
+  }
+
+  private int unregister(long accountId) throws DaoLayerException {
+    ShardDirectory directory = shardDirectory.getIfAvailable();
+    if (directory == null) {
+      return 0;
+    }
+    directory.unregister(accountId);
+    return 1;
+  }
+}
@@ -52,4 +52,12 @@ public interface AccountService {
    * @param id the unique identifier of the account to be deleted
    */
   void delete(Long id) throws ServiceLayerException;
+
+  /**
+   * Recounts the users of every account and corrects statistics that drifted from the incremental
+   * counters.
+   *
+   * @return the number of accounts whose statistics were corrected
+   */
+  int reconcileStats() throws ServiceLayerException;
 }
@@ -1,6 +1,10 @@
 package com.spring.security.service;
 
 import com.spring.security.annotation.LogActivity;
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.component.AccountCache;
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.component.CacheInvalidationBus.Entity;
 import com.spring.security.controller.dto.request.AccountCreateRequestDto;
 import com.spring.security.dao.AccountDao;
 import com.spring.security.domain.entity.Account;
@@ -11,8 +15,12 @@ import com.spring.security.exceptions.DaoLayerException;
 import com.spring.security.exceptions.ResourceAlreadyExistException;
 import com.spring.security.exceptions.ResourceNotFoundException;
 import com.spring.security.exceptions.ServiceLayerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -20,14 +28,35 @@ import org.springframework.stereotype.Service;
 public class AccountServiceImpl implements AccountService {
 
   private final AccountDao accountDao;
+  private final AccountCache accountCache;
+  private final CacheInvalidationBus cacheInvalidationBus;
+  private final int statsReconcileBatchSize;
+  private final Counter driftedStats;
 
   /**
    * Constructs an AccountServiceImpl with the necessary dependencies.
    *
    * @param accountDao the data access object for account operations
+   * @param accountCache the read-through cache of accounts
+   * @param cacheInvalidationBus the bus announcing account changes to the other nodes
+   * @param meterRegistry the registry for statistics reconciliation metrics
+   * @param statsReconcileBatchSize the number of account IDs recounted per transaction
    */
-  public AccountServiceImpl(AccountDao accountDao, UserService userService) {
+  public AccountServiceImpl(
+      AccountDao accountDao,
+      AccountCache accountCache,
+      CacheInvalidationBus cacheInvalidationBus,
+      UserService userService,
+      MeterRegistry meterRegistry,
+      @Value("${account.stats.reconcile.batch-size:500}") int statsReconcileBatchSize) {
     this.accountDao = accountDao;
+    this.accountCache = accountCache;
+    this.cacheInvalidationBus = cacheInvalidationBus;
+    this.statsReconcileBatchSize = statsReconcileBatchSize;
+    this.driftedStats =
+        Counter.builder("account.stats.drift")
+            .description("Account statistics corrected by reconciliation")
+            .register(meterRegistry);
   }
 
   /**
@@ -65,7 +94,7 @@ public class AccountServiceImpl implements AccountService {
   @Override
   public void findByAccountName(String accountName) throws ServiceLayerException {
     try {
-      Account account = accountDao.findByName(accountName);
+      Account account = accountCache.getByName(accountName);
 
       if (account == null) {
         log.warn("Account with name '{}' not found", accountName);
@@ -95,7 +124,8 @@ public class AccountServiceImpl implements AccountService {
   }
 
   /**
-   * Retrieves an account by its ID.
+   * Retrieves an account by its ID. Accounts are served from the account cache and only loaded on a
+   * miss.
    *
    * @param id the unique identifier of the account
    * @return the account associated with the given ID
@@ -103,7 +133,7 @@ public class AccountServiceImpl implements AccountService {
   @Override
   public Account findById(Long id) throws ServiceLayerException {
     try {
-      Account account = accountDao.findById(id);
+      Account account = accountCache.get(id);
       if (account == null) {
         log.warn("Account with ID '{}' not found", id);
         throw new ResourceNotFoundException("Account not found");
@@ -128,6 +158,8 @@ public class AccountServiceImpl implements AccountService {
       Map<String, Object> updateMap = Map.of("status", status.toString());
       Map<String, Object> conditionMap = Map.of("id", accountId);
       accountDao.update(updateMap, conditionMap);
+      accountCache.invalidate(accountId);
+      cacheInvalidationBus.publish(Entity.ACCOUNT, accountId);
     } catch (DaoLayerException e) {
       log.error("Error updating account status: {}", e.getMessage());
       throw new ServiceLayerException("Failed to update account status", e);
@@ -146,26 +178,21 @@ public class AccountServiceImpl implements AccountService {
   }
 
   /**
-   * Gathers and processes statistics for the account with the given ID.
+   * Gathers and processes statistics for the account with the given ID. The statistics are
+   * maintained incrementally as users change, so this is a single-row read; an account without a
+   * stats row does not exist.
    *
    * @param id the unique identifier of the account
    * @return AccountStats containing various metrics for the account
    */
   @Override
-  @LogActivity(
-      action = "READ",
-      entityType = "ACCOUNT",
-      description = "Account statistics retrieved")
   public AccountStats getAccountStats(Long id) throws ServiceLayerException {
     try {
-
-      // First verify that the account exists
-      Account account = findById(id);
-
-      // Get the statistics from the DAO layer
       AccountStats stats = accountDao.getAccountStats(id);
-
-      log.info("Successfully retrieved statistics for account ID: {}", id);
+      if (stats == null) {
+        log.warn("Account with ID '{}' not found", id);
+        throw new ResourceNotFoundException("Account not found");
+      }
       return stats;
 
     } catch (DaoLayerException e) {
@@ -173,4 +200,33 @@ public class AccountServiceImpl implements AccountService {
       throw new ServiceLayerException("Failed to retrieve account statistics", e);
     }
   }
+
+  /**
+   * Recounts the users of every account in ID ranges of the configured batch size and corrects
+   * statistics that drifted from the incremental counters.
+   *
+   * @return the number of accounts whose statistics were corrected
+   */
+  @Override
+  @OnEachShard
+  @Scheduled(
+      initialDelayString = "${account.stats.reconcile.initial-delay:PT10M}",
+      fixedDelayString = "${account.stats.reconcile.interval:PT6H}")
+  public int reconcileStats() throws ServiceLayerException {
+    int corrected = 0;
+    try {
+      long maxId = accountDao.findMaxId();
+      for (long fromId = 1; fromId <= maxId; fromId += statsReconcileBatchSize) {
+        corrected += accountDao.reconcileStats(fromId, fromId + statsReconcileBatchSize - 1);
+      }
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to reconcile account statistics", e);
+    } finally {
+      driftedStats.increment(corrected);
+    }
+    if (corrected > 0) {
+      log.warn("Corrected drifted statistics of {} accounts", corrected);
+    }
+    return corrected;
+  }
 }
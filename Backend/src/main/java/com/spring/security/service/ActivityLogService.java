@@ -2,6 +2,7 @@ package com.spring.security.service;
 
 import com.spring.security.domain.entity.ActivityLog;
 import com.spring.security.exceptions.ServiceLayerException;
+import java.time.Instant;
 import java.util.List;
 
 /** Service interface for ActivityLog operations. */
@@ -23,7 +24,9 @@ public interface ActivityLogService {
   ActivityLog findById(Long id) throws ServiceLayerException;
 
   /**
-   * Retrieves all activity logs for a given user.
+   * Retrieves the activity logs for a given user that are still in the database, that is those
+   * younger than the archive retention. The archive is indexed by account only, so a user's
+   * archived entries are read through {@link #findByAccountId(Long)} of the user's account.
    *
    * @param userId the user ID
    * @return list of ActivityLog entries
@@ -31,10 +34,32 @@ public interface ActivityLogService {
   List<ActivityLog> findByUserId(Long userId) throws ServiceLayerException;
 
   /**
-   * Retrieves all activity logs for a given account.
+   * Retrieves all activity logs for a given account, merging hot entries from the database with
+   * entries already moved to the cold archive.
    *
    * @param accountId the account ID
-   * @return list of ActivityLog entries
+   * @return list of ActivityLog entries, newest first
    */
   List<ActivityLog> findByAccountId(Long accountId) throws ServiceLayerException;
+
+  /**
+   * Retrieves a page of activity logs for a given account, newest first. The archive is only read
+   * when the database holds fewer than {@code limit} entries before the cursor.
+   *
+   * @param accountId the account ID
+   * @param before only entries created before this instant are returned, typically the creation
+   *     time of the last entry of the previous page; null for the first page
+   * @param limit the maximum number of entries to return
+   * @return list of ActivityLog entries, newest first
+   */
+  List<ActivityLog> findByAccountId(Long accountId, Instant before, int limit)
+      throws ServiceLayerException;
+
+  /**
+   * Moves activity logs older than the configured retention from the database into the cold
+   * archive. Only the node holding the archiver lease archives; on other nodes this does nothing.
+   *
+   * @return number of archived entries
+   */
+  int archiveExpired() throws ServiceLayerException;
 }
@@ -1,20 +1,64 @@
 package com.spring.security.service;
 
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.dao.ActivityLogArchiveDao;
 import com.spring.security.dao.ActivityLogDao;
 import com.spring.security.domain.entity.ActivityLog;
 import com.spring.security.exceptions.DaoLayerException;
 import com.spring.security.exceptions.ServiceLayerException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Slf4j
 public class ActivityLogServiceImpl implements ActivityLogService {
 
   private final ActivityLogDao activityLogDao;
+  private final ActivityLogArchiveDao activityLogArchiveDao;
+  private final boolean archiveEnabled;
+  private final Duration retention;
+  private final int archiveBatchSize;
+  private final int archiveMaxBatches;
+  private final Duration archiveLease;
+  private final String node = ManagementFactory.getRuntimeMXBean().getName();
 
-  public ActivityLogServiceImpl(ActivityLogDao activityLogDao) {
+  /**
+   * Constructor for ActivityLogServiceImpl.
+   *
+   * @param activityLogDao the DAO for hot activity logs
+   * @param activityLogArchiveDao the DAO for archived activity logs
+   * @param archiveEnabled whether the background archiver runs
+   * @param retention how long entries stay in the database before being archived
+   * @param archiveBatchSize number of entries written per segment
+   * @param archiveMaxBatches maximum number of segments written per archiver run
+   * @param archiveLease how long the archiver stays leased to this node without a renewal
+   */
+  public ActivityLogServiceImpl(
+      ActivityLogDao activityLogDao,
+      ActivityLogArchiveDao activityLogArchiveDao,
+      @Value("${activity-log.archive.enabled:false}") boolean archiveEnabled,
+      @Value("${activity-log.archive.retention:P90D}") Duration retention,
+      @Value("${activity-log.archive.batch-size:5000}") int archiveBatchSize,
+      @Value("${activity-log.archive.max-batches:20}") int archiveMaxBatches,
+      @Value("${activity-log.archive.lease:PT5M}") Duration archiveLease) {
     this.activityLogDao = activityLogDao;
+    this.activityLogArchiveDao = activityLogArchiveDao;
+    this.archiveEnabled = archiveEnabled;
+    this.retention = retention;
+    this.archiveBatchSize = archiveBatchSize;
+    this.archiveMaxBatches = archiveMaxBatches;
+    this.archiveLease = archiveLease;
   }
 
   @Override
@@ -38,6 +82,7 @@ public class ActivityLogServiceImpl implements ActivityLogService {
 
   @Override
   public List<ActivityLog> findByUserId(Long userId) throws ServiceLayerException {
+    // Hot entries only: the archive has no per-user index
     try {
       return activityLogDao.findByUserId(userId);
     } catch (DaoLayerException e) {
@@ -48,9 +93,98 @@ public class ActivityLogServiceImpl implements ActivityLogService {
   @Override
   public List<ActivityLog> findByAccountId(Long accountId) throws ServiceLayerException {
     try {
-      return activityLogDao.findByAccountId(accountId);
+      return merge(
+          activityLogDao.findByAccountId(accountId),
+          activityLogArchiveDao.findByAccountId(accountId),
+          Integer.MAX_VALUE);
     } catch (DaoLayerException e) {
       throw new ServiceLayerException("Failed to find activity logs by accountId", e);
     }
   }
+
+  @Override
+  public List<ActivityLog> findByAccountId(Long accountId, Instant before, int limit)
+      throws ServiceLayerException {
+    try {
+      List<ActivityLog> hot = activityLogDao.findByAccountId(accountId, before, limit);
+      // The archiver moves the oldest rows first, so a full page of hot rows is newer than any
+      // archived entry
+      if (hot.size() >= limit) {
+        return hot;
+      }
+      return merge(hot, activityLogArchiveDao.findByAccountId(accountId, before, limit), limit);
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to find activity logs by accountId", e);
+    }
+  }
+
+  /** Merges hot and archived entries, newest first, keeping at most {@code limit}. */
+  private static List<ActivityLog> merge(
+      List<ActivityLog> hot, List<ActivityLog> archived, int limit) {
+    if (archived.isEmpty()) {
+      return hot;
+    }
+
+    // An entry can be in both tiers if the archiver stopped between writing and deleting.
+    Set<Long> seen = new HashSet<>();
+    List<ActivityLog> merged = new ArrayList<>(hot.size() + archived.size());
+    for (ActivityLog entry : hot) {
+      seen.add(entry.getId());
+      merged.add(entry);
+    }
+    for (ActivityLog entry : archived) {
+      if (seen.add(entry.getId())) {
+        merged.add(entry);
+      }
+    }
+    merged.sort(
+        Comparator.comparing(
+                ActivityLog::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .reversed());
+    return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+  }
+
+  @Override
+  @OnEachShard
+  @Scheduled(
+      initialDelayString = "${activity-log.archive.initial-delay:PT5M}",
+      fixedDelayString = "${activity-log.archive.interval:PT1H}")
+  public int archiveExpired() throws ServiceLayerException {
+    if (!archiveEnabled) {
+      return 0;
+    }
+    Instant cutoff = Instant.now().minus(retention);
+    int archived = 0;
+    try {
+      // Two nodes archiving the same rows would write every entry twice
+      if (!activityLogDao.leaseArchiver(node, archiveLease)) {
+        log.debug("Activity log archiver is leased by another node");
+        return 0;
+      }
+      for (int batch = 0; batch < archiveMaxBatches; batch++) {
+        if (batch > 0 && !activityLogDao.leaseArchiver(node, archiveLease)) {
+          log.warn("Stopped archiving activity logs: lease lost to another node");
+          break;
+        }
+        List<ActivityLog> logs = activityLogDao.findOlderThan(cutoff, archiveBatchSize);
+        if (logs.isEmpty()) {
+          break;
+        }
+        String segment = activityLogArchiveDao.writeSegment(logs);
+        activityLogDao.deleteByIds(logs.stream().map(ActivityLog::getId).toList());
+        archived += logs.size();
+        log.debug("Archived {} activity logs into {}", logs.size(), segment);
+        if (logs.size() < archiveBatchSize) {
+          break;
+        }
+      }
+      activityLogDao.releaseArchiver(node);
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to archive activity logs", e);
+    }
+    if (archived > 0) {
+      log.info("Archived {} activity logs created before {}", archived, cutoff);
+    }
+    return archived;
+  }
 }
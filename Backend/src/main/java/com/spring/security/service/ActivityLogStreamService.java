@@ -0,0 +1,28 @@
+package com.spring.security.service;
+
+import com.spring.security.domain.entity.ActivityLog;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service interface for the live activity tail. Recent activity is kept in a bounded in-memory
+ * ring, so watching activity never touches the database.
+ */
+public interface ActivityLogStreamService {
+  /**
+   * Publishes an activity log to the ring and to every live subscriber of its account. Never
+   * blocks; subscribers that cannot keep up are disconnected.
+   *
+   * @param log the activity log to publish
+   */
+  void publish(ActivityLog log);
+
+  /**
+   * Opens a Server-Sent Events stream of activity for the given account.
+   *
+   * @param accountId the account to watch
+   * @param lastEventId the last event ID the client has seen, replayed from the ring if still
+   *     present; null to only receive new activity
+   * @return the SseEmitter backing the stream
+   */
+  SseEmitter subscribe(Long accountId, Long lastEventId);
+}
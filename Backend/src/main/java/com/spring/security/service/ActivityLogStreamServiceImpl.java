@@ -0,0 +1,190 @@
+package com.spring.security.service;
+
+import com.spring.security.domain.entity.ActivityLog;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Service
+@Slf4j
+public class ActivityLogStreamServiceImpl implements ActivityLogStreamService {
+
+  private static final String EVENT_NAME = "activity";
+
+  private final Executor activityStreamExecutor;
+  private final int subscriberBacklog;
+  private final long timeoutMillis;
+
+  /** Ring of the most recent activity; slot {@code seq % length} holds event {@code seq}. */
+  private final Event[] ring;
+
+  /**
+   * Guards the ring; a lock rather than synchronized so publishing virtual threads are not pinned.
+   */
+  private final ReentrantLock ringLock = new ReentrantLock();
+
+  private long lastSequence;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Constructor for ActivityLogStreamServiceImpl.
+   *
+   * @param activityStreamExecutor the executor delivering events to subscribers
+   * @param ringSize number of recent events kept for replay
+   * @param subscriberBacklog number of undelivered events after which a subscriber is dropped
+   * @param timeout how long a stream stays open before the client has to reconnect
+   */
+  public ActivityLogStreamServiceImpl(
+      @Qualifier("activityStreamExecutor") Executor activityStreamExecutor,
+      @Value("${activity-log.stream.ring-size:1024}") int ringSize,
+      @Value("${activity-log.stream.subscriber-backlog:256}") int subscriberBacklog,
+      @Value("${activity-log.stream.timeout:PT30M}") Duration timeout) {
+    this.activityStreamExecutor = activityStreamExecutor;
+    this.ring = new Event[ringSize];
+    this.subscriberBacklog = subscriberBacklog;
+    this.timeoutMillis = timeout.toMillis();
+  }
+
+  @Override
+  public void publish(ActivityLog log) {
+    if (log.getAccountId() == null) {
+      return;
+    }
+    // Fan-out happens under the ring lock so that a subscriber replaying from the ring can never
+    // see a live event before the replayed ones. Offers never block, so the lock is short.
+    ringLock.lock();
+    try {
+      Event event = new Event(++lastSequence, log);
+      ring[(int) (event.sequence % ring.length)] = event;
+      for (Subscriber subscriber : subscribers) {
+        if (subscriber.accountId.equals(log.getAccountId())) {
+          subscriber.offer(event);
+        }
+      }
+    } finally {
+      ringLock.unlock();
+    }
+  }
+
+  @Override
+  public SseEmitter subscribe(Long accountId, Long lastEventId) {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    Subscriber subscriber = new Subscriber(accountId, emitter);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    emitter.onError(e -> subscribers.remove(subscriber));
+
+    ringLock.lock();
+    try {
+      if (lastEventId != null) {
+        for (Event event : replayAfter(lastEventId)) {
+          if (accountId.equals(event.log.getAccountId())) {
+            subscriber.offer(event);
+          }
+        }
+      }
+      if (!subscriber.closed.get()) {
+        subscribers.add(subscriber);
+      }
+    } finally {
+      ringLock.unlock();
+    }
+    return emitter;
+  }
+
+  /** Returns ring events newer than the given sequence, oldest first. Caller holds the lock. */
+  private List<Event> replayAfter(long sequence) {
+    long from = Math.max(sequence + 1, lastSequence - ring.length + 1);
+    List<Event> events = new ArrayList<>();
+    for (long seq = Math.max(from, 1); seq <= lastSequence; seq++) {
+      events.add(ring[(int) (seq % ring.length)]);
+    }
+    return events;
+  }
+
+  private record Event(long sequence, ActivityLog log) {}
+
+  /** A connected client with its own bounded backlog and at most one drain task in flight. */
+  private final class Subscriber {
+    private final Long accountId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<Event> backlog;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Subscriber(Long accountId, SseEmitter emitter) {
+      this.accountId = accountId;
+      this.emitter = emitter;
+      this.backlog = new ArrayBlockingQueue<>(subscriberBacklog);
+    }
+
+    private void offer(Event event) {
+      if (closed.get()) {
+        return;
+      }
+      if (!backlog.offer(event)) {
+        log.warn(
+            "Dropping slow activity stream subscriber for account {} after {} pending events",
+            accountId,
+            subscriberBacklog);
+        close();
+        return;
+      }
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) {
+        try {
+          activityStreamExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          draining.set(false);
+          close();
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        do {
+          Event event;
+          while (!closed.get() && (event = backlog.poll()) != null) {
+            emitter.send(
+                SseEmitter.event()
+                    .id(Long.toString(event.sequence))
+                    .name(EVENT_NAME)
+                    .data(event.log));
+          }
+          draining.set(false);
+          // Re-check: an event may have been offered after the last poll but before the reset.
+        } while (!closed.get() && !backlog.isEmpty() && draining.compareAndSet(false, true));
+      } catch (IOException | IllegalStateException e) {
+        draining.set(false);
+        close();
+      }
+    }
+
+    private void close() {
+      if (closed.compareAndSet(false, true)) {
+        subscribers.remove(this);
+        backlog.clear();
+        emitter.complete();
+      }
+    }
+  }
+}
@@ -1,17 +1,20 @@
 package com.spring.security.service;
 
+import com.spring.security.domain.entity.EmailMessage;
 import com.spring.security.exceptions.EmailServiceException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -19,29 +22,50 @@ import org.springframework.web.client.RestTemplate;
  * Service class for sending emails using the Brevo API. Brevo (formerly Sendinblue) is an email
  * marketing service provider. This service uses RestTemplate to make HTTP requests to the Brevo
  * API. You can configure the API key and sender email in your application properties.
+ *
+ * <p>Batches are sent as a single request per chunk using Brevo's {@code messageVersions}, where
+ * every version carries its own recipient, subject and content.
  */
 @Service
 @Profile("prod")
-@Primary
+@Qualifier("emailProvider")
+@Slf4j
 public class BrevoEmailServiceImpl implements EmailService {
 
   private final RestTemplate restTemplate;
 
-  // API key for authenticating with the Brevo API, injected from application properties.
-  @Value("${brevo-api-key}")
-  private String apiKey;
+  // API key for authenticating with the Brevo API.
+  private final String apiKey;
 
-  // Sender email address, injected from application properties.
-  @Value("${brevo-sender-email}")
-  private String senderEmail;
+  // Sender email address.
+  private final String senderEmail;
+
+  // Brevo API endpoint for sending transactional emails.
+  private final String apiUrl;
+
+  // Maximum number of message versions per request.
+  private final int batchSize;
 
   /**
    * Constructor to initialize the BrevoEmailService with a RestTemplate bean.
    *
    * @param restTemplate RestTemplate bean for making HTTP requests.
+   * @param apiKey API key for authenticating with the Brevo API.
+   * @param senderEmail sender email address.
+   * @param apiUrl Brevo API endpoint for sending transactional emails.
+   * @param batchSize maximum number of emails sent per request.
    */
-  public BrevoEmailServiceImpl(RestTemplate restTemplate) {
+  public BrevoEmailServiceImpl(
+      RestTemplate restTemplate,
+      @Value("${brevo.api-key}") String apiKey,
+      @Value("${brevo.sender-email}") String senderEmail,
+      @Value("${brevo.api-url:https://api.brevo.com/v3/smtp/email}") String apiUrl,
+      @Value("${brevo.batch-size:100}") int batchSize) {
     this.restTemplate = restTemplate;
+    this.apiKey = apiKey;
+    this.senderEmail = senderEmail;
+    this.apiUrl = apiUrl;
+    this.batchSize = batchSize;
   }
 
   /**
@@ -52,16 +76,10 @@ public class BrevoEmailServiceImpl implements EmailService {
    * @param htmlContent the HTML content of the email
    */
   @Override
-  @Async("mailTaskExecutor")
   public void sendHtmlEmail(String toEmail, String subject, String htmlContent)
       throws EmailServiceException {
 
     try {
-      // Set up HTTP headers with content type and authorization.
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_JSON);
-      headers.set("API-key", apiKey);
-
       // Create the request body with sender, recipient, subject, and content.
       Map<String, Object> body = new HashMap<>();
       body.put("sender", Map.of("email", senderEmail));
@@ -69,19 +87,65 @@ public class BrevoEmailServiceImpl implements EmailService {
       body.put("subject", subject);
       body.put("htmlContent", htmlContent);
 
-      // Wrap the body and headers into an HttpEntity.
-      HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
-      // Define the Brevo API endpoint for sending emails.
-      String apiUrl = "https://api.brevo.com/v3/smtp/email";
-
-      // Send the POST request and capture the response.
-      ResponseEntity<String> response = restTemplate.postForEntity(apiUrl, request, String.class);
-
-      // Print the response body to the console.
-      System.out.println("Response: " + response.getBody());
+      post(body);
     } catch (Exception e) {
       throw new EmailServiceException("Failed to send email", e);
     }
   }
+
+  /**
+   * Sends the emails in chunks of {@code brevo.batch-size}, one request per chunk. A failed request
+   * fails every email of its chunk.
+   *
+   * @param messages the emails to send
+   * @return the messages that could not be sent, with the reason
+   */
+  @Override
+  public Map<EmailMessage, EmailServiceException> sendHtmlEmails(List<EmailMessage> messages) {
+    Map<EmailMessage, EmailServiceException> failures = new IdentityHashMap<>();
+    for (int from = 0; from < messages.size(); from += batchSize) {
+      List<EmailMessage> chunk =
+          messages.subList(from, Math.min(from + batchSize, messages.size()));
+      try {
+        post(buildBatchBody(chunk));
+      } catch (Exception e) {
+        log.error("Failed to send batch of {} emails via Brevo: {}", chunk.size(), e.getMessage());
+        EmailServiceException failure = new EmailServiceException("Failed to send email", e);
+        for (EmailMessage message : chunk) {
+          failures.put(message, failure);
+        }
+      }
+    }
+    return failures;
+  }
+
+  private Map<String, Object> buildBatchBody(List<EmailMessage> chunk) {
+    List<Map<String, Object>> versions = new ArrayList<>(chunk.size());
+    for (EmailMessage message : chunk) {
+      versions.add(
+          Map.of(
+              "to", List.of(Map.of("email", message.getTo())),
+              "subject", message.getSubject(),
+              "htmlContent", message.getHtmlContent()));
+    }
+
+    // Top-level subject and content are required; every version overrides them.
+    Map<String, Object> body = new HashMap<>();
+    body.put("sender", Map.of("email", senderEmail));
+    body.put("subject", chunk.get(0).getSubject());
+    body.put("htmlContent", chunk.get(0).getHtmlContent());
+    body.put("messageVersions", versions);
+    return body;
+  }
+
+  private void post(Map<String, Object> body) {
+    // Set up HTTP headers with content type and authorization.
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("API-key", apiKey);
+
+    ResponseEntity<String> response =
+        restTemplate.postForEntity(apiUrl, new HttpEntity<>(body, headers), String.class);
+    log.debug("Brevo response: {}", response.getBody());
+  }
 }
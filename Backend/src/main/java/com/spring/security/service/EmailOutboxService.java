@@ -0,0 +1,41 @@
+package com.spring.security.service;
+
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import com.spring.security.exceptions.ServiceLayerException;
+import java.util.Map;
+
+/**
+ * Service interface for the transactional email outbox. Emails are queued in the database as part
+ * of the caller's transaction and delivered by a background dispatcher, so they survive restarts
+ * and bursts never exceed an in-memory queue.
+ */
+public interface EmailOutboxService {
+
+  /**
+   * Queues an email for delivery. The email is rendered only when it is sent.
+   *
+   * @param recipient the recipient's email address
+   * @param subject the subject of the email
+   * @param template the template to render
+   * @param variables the template variables
+   * @throws ServiceLayerException if the email could not be queued
+   */
+  void enqueue(
+      String recipient, String subject, EmailTemplate template, Map<String, Object> variables)
+      throws ServiceLayerException;
+
+  /**
+   * Claims a batch of due emails, renders and sends them. Failed emails are retried with
+   * exponential backoff and dead-lettered once they run out of attempts.
+   *
+   * @return the number of emails sent
+   */
+  int dispatch() throws ServiceLayerException;
+
+  /**
+   * Deletes dead-lettered emails once they are past their retention, in bounded batches.
+   *
+   * @return the number of deleted emails
+   */
+  int purgeDead() throws ServiceLayerException;
+}
@@ -0,0 +1,225 @@
+package com.spring.security.service;
+
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.dao.EmailOutboxDao;
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.domain.entity.EmailOutbox;
+import com.spring.security.domain.entity.enums.EmailOutboxStatus;
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.exceptions.EmailDeferredException;
+import com.spring.security.exceptions.EmailServiceException;
+import com.spring.security.exceptions.ServiceLayerException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+  private final EmailOutboxDao emailOutboxDao;
+  private final EmailService emailService;
+  private final EmailTemplateService emailTemplateService;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration lease;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration deadRetention;
+  private final int purgeBatchSize;
+
+  /**
+   * Constructor for EmailOutboxServiceImpl.
+   *
+   * @param emailOutboxDao the DAO for outbox entries
+   * @param emailService the email service delivering rendered emails
+   * @param emailTemplateService the service rendering email templates
+   * @param batchSize the maximum number of emails claimed per dispatch
+   * @param maxAttempts the number of attempts after which an email is dead-lettered
+   * @param lease how long a claimed batch is reserved for this dispatcher
+   * @param initialBackoff the delay before the first retry, doubled on every further retry
+   * @param maxBackoff the upper bound of the retry delay
+   * @param deadRetention how long dead-lettered emails are kept for review
+   * @param purgeBatchSize the maximum number of dead-lettered emails deleted per statement
+   */
+  public EmailOutboxServiceImpl(
+      EmailOutboxDao emailOutboxDao,
+      EmailService emailService,
+      EmailTemplateService emailTemplateService,
+      @Value("${email.outbox.batch-size:50}") int batchSize,
+      @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+      @Value("${email.outbox.lease:PT2M}") Duration lease,
+      @Value("${email.outbox.initial-backoff:PT30S}") Duration initialBackoff,
+      @Value("${email.outbox.max-backoff:PT1H}") Duration maxBackoff,
+      @Value("${email.outbox.dead-retention:P14D}") Duration deadRetention,
+      @Value("${email.outbox.purge.batch-size:1000}") int purgeBatchSize) {
+    this.emailOutboxDao = emailOutboxDao;
+    this.emailService = emailService;
+    this.emailTemplateService = emailTemplateService;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.lease = lease;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.deadRetention = deadRetention;
+    this.purgeBatchSize = purgeBatchSize;
+  }
+
+  @Override
+  public void enqueue(
+      String recipient, String subject, EmailTemplate template, Map<String, Object> variables)
+      throws ServiceLayerException {
+    try {
+      EmailOutbox emailOutbox = new EmailOutbox();
+      emailOutbox.setRecipient(recipient);
+      emailOutbox.setSubject(subject);
+      emailOutbox.setTemplate(template);
+      emailOutbox.setVariables(variables);
+      emailOutboxDao.create(emailOutbox);
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to queue email", e);
+    }
+  }
+
+  @Override
+  @OnEachShard
+  @Scheduled(fixedDelayString = "${email.outbox.poll-interval:PT2S}")
+  public int dispatch() throws ServiceLayerException {
+    try {
+      List<EmailOutbox> batch = emailOutboxDao.claim(batchSize, lease);
+      if (batch.isEmpty()) {
+        return 0;
+      }
+
+      List<EmailMessage> messages = new ArrayList<>(batch.size());
+      Map<EmailMessage, EmailOutbox> outboxByMessage = new IdentityHashMap<>();
+      Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+      for (EmailOutbox email : batch) {
+        try {
+          EmailMessage message =
+              new EmailMessage(
+                  email.getRecipient(),
+                  email.getSubject(),
+                  emailTemplateService.render(email.getTemplate(), email.getVariables()));
+          messages.add(message);
+          outboxByMessage.put(message, email);
+        } catch (Exception e) {
+          failures.put(email, e);
+        }
+      }
+
+      Map<EmailMessage, EmailServiceException> sendFailures = emailService.sendHtmlEmails(messages);
+      List<Long> sent = new ArrayList<>(messages.size());
+      for (EmailMessage message : messages) {
+        EmailServiceException failure = sendFailures.get(message);
+        if (failure == null) {
+          sent.add(outboxByMessage.get(message).getId());
+        } else {
+          failures.put(outboxByMessage.get(message), failure);
+        }
+      }
+
+      // Each update stands alone: one that fails must not leave delivered emails to be resent
+      // once their claim lapses, nor keep the other failures from being recorded.
+      if (!sent.isEmpty()) {
+        try {
+          emailOutboxDao.deleteByIds(sent);
+        } catch (DaoLayerException e) {
+          log.error("Failed to remove {} delivered outbox emails: {}", sent.size(), e.getMessage());
+        }
+      }
+      failures.forEach(this::recordOutcome);
+      log.info("Dispatched {} of {} outbox emails", sent.size(), batch.size());
+      return sent.size();
+    } catch (DaoLayerException e) {
+      log.error("Failed to dispatch outbox emails: {}", e.getMessage());
+      throw new ServiceLayerException("Failed to dispatch outbox emails", e);
+    }
+  }
+
+  @Override
+  @OnEachShard
+  @Scheduled(
+      initialDelayString = "${email.outbox.purge.initial-delay:PT5M}",
+      fixedDelayString = "${email.outbox.purge.interval:PT1H}")
+  public int purgeDead() throws ServiceLayerException {
+    int purged = 0;
+    try {
+      int deleted;
+      do {
+        deleted = emailOutboxDao.deleteDead(deadRetention, purgeBatchSize);
+        purged += deleted;
+      } while (deleted == purgeBatchSize);
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to purge dead outbox emails", e);
+    }
+    if (purged > 0) {
+      log.info("Purged {} dead outbox emails older than {}", purged, deadRetention);
+    }
+    return purged;
+  }
+
+  private void recordOutcome(EmailOutbox email, Exception failure) {
+    try {
+      if (failure instanceof EmailDeferredException deferred) {
+        defer(email, deferred);
+      } else {
+        recordFailure(email, failure);
+      }
+    } catch (DaoLayerException e) {
+      // The claim lapses and the email is retried
+      log.error(
+          "Failed to record the outcome of outbox email {}: {}", email.getId(), e.getMessage());
+    }
+  }
+
+  private void defer(EmailOutbox email, EmailDeferredException deferred) throws DaoLayerException {
+    // The provider was never called, so the claim does not count as an attempt
+    email.setAttempts(email.getAttempts() - 1);
+    email.setStatus(EmailOutboxStatus.PENDING);
+    email.setNextAttemptAt(Instant.now().plus(deferred.getRetryAfter()));
+    email.setLastError(deferred.getMessage());
+    emailOutboxDao.reschedule(email);
+  }
+
+  private void recordFailure(EmailOutbox email, Throwable failure) throws DaoLayerException {
+    String error = failure.getMessage();
+    if (failure.getCause() != null) {
+      error = error + ": " + failure.getCause().getMessage();
+    }
+    email.setLastError(error);
+
+    if (email.getAttempts() >= maxAttempts) {
+      log.error(
+          "Giving up on email {} to {} after {} attempts: {}",
+          email.getId(),
+          email.getRecipient(),
+          email.getAttempts(),
+          error);
+      email.setStatus(EmailOutboxStatus.DEAD);
+    } else {
+      Duration backoff = initialBackoff.multipliedBy(1L << Math.min(email.getAttempts() - 1, 20));
+      if (backoff.compareTo(maxBackoff) > 0) {
+        backoff = maxBackoff;
+      }
+      log.warn(
+          "Email {} to {} failed on attempt {}, retrying in {}: {}",
+          email.getId(),
+          email.getRecipient(),
+          email.getAttempts(),
+          backoff,
+          error);
+      email.setStatus(EmailOutboxStatus.PENDING);
+      email.setNextAttemptAt(Instant.now().plus(backoff));
+    }
+    emailOutboxDao.reschedule(email);
+  }
+}
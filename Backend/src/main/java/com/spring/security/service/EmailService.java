@@ -1,6 +1,10 @@
 package com.spring.security.service;
 
+import com.spring.security.domain.entity.EmailMessage;
 import com.spring.security.exceptions.EmailServiceException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for sending emails.
@@ -18,4 +22,24 @@ public interface EmailService {
    * @param htmlContent the HTML content of the email
    */
   void sendHtmlEmail(String to, String subject, String htmlContent) throws EmailServiceException;
+
+  /**
+   * Sends several HTML emails. Implementations may group them into fewer provider calls; the
+   * default sends them one by one.
+   *
+   * @param messages the emails to send
+   * @return the messages that could not be sent, keyed by identity, with the reason; empty if all
+   *     were sent
+   */
+  default Map<EmailMessage, EmailServiceException> sendHtmlEmails(List<EmailMessage> messages) {
+    Map<EmailMessage, EmailServiceException> failures = new IdentityHashMap<>();
+    for (EmailMessage message : messages) {
+      try {
+        sendHtmlEmail(message.getTo(), message.getSubject(), message.getHtmlContent());
+      } catch (EmailServiceException e) {
+        failures.put(message, e);
+      }
+    }
+    return failures;
+  }
 }
@@ -1,11 +1,23 @@
 package com.spring.security.service;
 
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import java.util.Map;
+
 /**
  * Service interface for generating email templates. Follows Single Responsibility Principle by
  * handling only email template generation.
  */
 public interface EmailTemplateService {
 
+  /**
+   * Renders the given template with the given variables.
+   *
+   * @param template the template to render
+   * @param variables the template variables
+   * @return the HTML email content
+   */
+  String render(EmailTemplate template, Map<String, Object> variables);
+
   /**
    * Generates an account creation email template with OTP.
    *
@@ -1,18 +1,49 @@
 package com.spring.security.service;
 
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
 
 /**
  * Implementation of EmailTemplateService that generates HTML email templates using Thymeleaf.
  * Follows Single Responsibility Principle by focusing only on template generation.
+ *
+ * <p>Email templates only substitute a handful of values into large static HTML. Each template is
+ * therefore rendered once through Thymeleaf with placeholder values and split into its static
+ * fragments; later renders just concatenate those fragments with the escaped values. Conditionals
+ * depend on which variables are set, so fragments are kept per template and set of present
+ * variables. A template whose fragments do not reproduce Thymeleaf's output exactly is always
+ * rendered through Thymeleaf instead.
  */
 @Service
+@Slf4j
 public class EmailTemplateServiceImpl implements EmailTemplateService {
 
+  private static final String PLACEHOLDER_PREFIX = "zqxVAR";
+  private static final String PLACEHOLDER_SUFFIX = "xqz";
+  private static final Pattern PLACEHOLDER =
+      Pattern.compile(PLACEHOLDER_PREFIX + "(\\d+)" + PLACEHOLDER_SUFFIX);
+
+  /** Probe value covering every character Thymeleaf escapes in text and attributes. */
+  private static final String ESCAPE_PROBE = "a<b>&\"c'd";
+
   private final TemplateEngine templateEngine;
 
+  private final Map<FragmentKey, Fragments> fragments = new ConcurrentHashMap<>();
+
   /**
    * Constructor that injects Thymeleaf TemplateEngine.
    *
@@ -22,45 +53,161 @@ public class EmailTemplateServiceImpl implements EmailTemplateService {
     this.templateEngine = templateEngine;
   }
 
+  /**
+   * Parses every email template and precomputes its fragments for the common case of all variables
+   * being set, so the first emails after startup do not pay for parsing.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void precompile() {
+    for (EmailTemplate template : EmailTemplate.values()) {
+      Fragments compiled = fragmentsFor(template, allPresentMask(template));
+      log.info(
+          "Precompiled email template {} ({})",
+          template.getPath(),
+          compiled.isStatic() ? compiled.parts.size() + " fragments" : "rendered by Thymeleaf");
+    }
+  }
+
   @Override
-  public String generateAccountCreationTemplate(String accountName, String email, String otp) {
-    Context context = new Context();
-    context.setVariable("userName", accountName);
-    context.setVariable("email", email);
-    context.setVariable("otp", otp);
+  public String render(EmailTemplate template, Map<String, Object> variables) {
+    Fragments compiled = fragmentsFor(template, presentMask(template, variables));
+    if (!compiled.isStatic()) {
+      return process(template, variables);
+    }
+    return compiled.render(template, variables);
+  }
 
-    return templateEngine.process("emails/account-created-success", context);
+  @Override
+  public String generateAccountCreationTemplate(String accountName, String email, String otp) {
+    return render(
+        EmailTemplate.ACCOUNT_CREATED_SUCCESS,
+        Map.of("userName", accountName, "email", email, "otp", otp));
   }
 
   @Override
   public String generateUserCreationTemplate(
       String userName, String email, String verificationLink) {
-    Context context = new Context();
-    context.setVariable("userName", userName);
-    context.setVariable("email", email);
-    context.setVariable("passwordSetupLink", verificationLink);
-
-    return templateEngine.process("emails/account-setup-otp", context);
+    return render(
+        EmailTemplate.ACCOUNT_SETUP_OTP,
+        Map.of("userName", userName, "email", email, "passwordSetupLink", verificationLink));
   }
 
   @Override
   public String generateAccountCreationResendOtp(String userName, String email, String otp) {
-    Context context = new Context();
-    context.setVariable("userName", userName);
-    context.setVariable("email", email);
-    context.setVariable("otp", otp);
-
-    return templateEngine.process("emails/resend-otp", context);
+    return render(
+        EmailTemplate.RESEND_OTP, Map.of("userName", userName, "email", email, "otp", otp));
   }
 
   @Override
   public String generateUserCreationResendOtp(
       String userName, String email, String verificationLink) {
+    return render(
+        EmailTemplate.RESEND_OTP_LINK,
+        Map.of("userName", userName, "email", email, "verificationLink", verificationLink));
+  }
+
+  private String process(EmailTemplate template, Map<String, Object> variables) {
     Context context = new Context();
-    context.setVariable("userName", userName);
-    context.setVariable("email", email);
-    context.setVariable("verificationLink", verificationLink);
+    context.setVariables(variables);
+
+    return templateEngine.process(template.getPath(), context);
+  }
+
+  private Fragments fragmentsFor(EmailTemplate template, int presentMask) {
+    return fragments.computeIfAbsent(
+        new FragmentKey(template, presentMask), key -> compile(template, presentMask));
+  }
+
+  /**
+   * Renders the template with numbered placeholders in place of the present variables and splits
+   * the output at them. The result is only used if it reproduces Thymeleaf's output for a second
+   * set of values, including characters that need escaping.
+   */
+  private Fragments compile(EmailTemplate template, int presentMask) {
+    List<String> names = template.getVariables();
+    Map<String, Object> placeholders = new HashMap<>();
+    Map<String, Object> probes = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      if ((presentMask & (1 << i)) != 0) {
+        placeholders.put(names.get(i), PLACEHOLDER_PREFIX + i + PLACEHOLDER_SUFFIX);
+        probes.put(names.get(i), ESCAPE_PROBE + i);
+      }
+    }
+
+    String output = process(template, placeholders);
+    List<String> parts = new ArrayList<>();
+    List<Integer> slots = new ArrayList<>();
+    Matcher matcher = PLACEHOLDER.matcher(output);
+    int last = 0;
+    while (matcher.find()) {
+      parts.add(output.substring(last, matcher.start()));
+      slots.add(Integer.parseInt(matcher.group(1)));
+      last = matcher.end();
+    }
+    parts.add(output.substring(last));
+
+    Fragments compiled = new Fragments(parts, slots);
+    if (!compiled.render(template, probes).equals(process(template, probes))) {
+      log.warn("Email template {} cannot be precompiled", template.getPath());
+      return Fragments.DYNAMIC;
+    }
+    return compiled;
+  }
+
+  private static int allPresentMask(EmailTemplate template) {
+    return (1 << template.getVariables().size()) - 1;
+  }
+
+  /** Bit i is set if variable i is set, using Thymeleaf's notion of a false value. */
+  private static int presentMask(EmailTemplate template, Map<String, Object> variables) {
+    List<String> names = template.getVariables();
+    int mask = 0;
+    for (int i = 0; i < names.size(); i++) {
+      Object value = variables.get(names.get(i));
+      if (value != null && !isFalsy(value)) {
+        mask |= 1 << i;
+      }
+    }
+    return mask;
+  }
+
+  private static boolean isFalsy(Object value) {
+    if (value instanceof Boolean bool) {
+      return !bool;
+    }
+    if (value instanceof Number number) {
+      return number.doubleValue() == 0;
+    }
+    String text = value.toString();
+    return text.equalsIgnoreCase("false")
+        || text.equalsIgnoreCase("off")
+        || text.equalsIgnoreCase("no");
+  }
+
+  private record FragmentKey(EmailTemplate template, int presentMask) {}
+
+  /** Static fragments of a rendered template, with the index of the variable between each pair. */
+  private record Fragments(List<String> parts, List<Integer> slots, int staticLength) {
+
+    static final Fragments DYNAMIC = new Fragments(null, null, 0);
+
+    Fragments(List<String> parts, List<Integer> slots) {
+      this(parts, slots, parts.stream().mapToInt(String::length).sum());
+    }
+
+    boolean isStatic() {
+      return parts != null;
+    }
 
-    return templateEngine.process("emails/resend-otp-link", context);
+    String render(EmailTemplate template, Map<String, Object> variables) {
+      StringBuilder html = new StringBuilder(staticLength + 256);
+      html.append(parts.get(0));
+      for (int i = 0; i < slots.size(); i++) {
+        Object value = variables.get(template.getVariables().get(slots.get(i)));
+        html.append(HtmlEscape.escapeHtml4Xml(Objects.toString(value, "")));
+        html.append(parts.get(i + 1));
+      }
+      return html.toString();
+    }
   }
 }
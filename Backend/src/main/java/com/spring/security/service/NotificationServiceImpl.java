@@ -1,31 +1,29 @@
 package com.spring.security.service;
 
+import com.spring.security.domain.entity.enums.EmailTemplate;
 import com.spring.security.exceptions.ServiceLayerException;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 /**
  * Service implementation for handling notification operations with simplified, straightforward
- * methods.
+ * methods. Notifications are queued in the email outbox as part of the caller's transaction and
+ * delivered in the background.
  */
 @Service
 @Slf4j
 public class NotificationServiceImpl implements NotificationService {
 
-  private final EmailService emailService;
-
-  private final EmailTemplateService emailTemplateService;
+  private final EmailOutboxService emailOutboxService;
 
   /**
    * Constructs a NotificationServiceImpl with the necessary dependencies.
    *
-   * @param emailService the email service to send notifications
-   * @param emailTemplateService the service for generating email templates
+   * @param emailOutboxService the outbox queueing notifications for delivery
    */
-  public NotificationServiceImpl(
-      EmailService emailService, EmailTemplateService emailTemplateService) {
-    this.emailService = emailService;
-    this.emailTemplateService = emailTemplateService;
+  public NotificationServiceImpl(EmailOutboxService emailOutboxService) {
+    this.emailOutboxService = emailOutboxService;
   }
 
   /**
@@ -35,16 +33,16 @@ public class NotificationServiceImpl implements NotificationService {
   public void sendAccountCreationSuccessfulWithOtp(String userName, String email, String otp)
       throws ServiceLayerException {
     try {
-      String htmlContent =
-          emailTemplateService.generateAccountCreationTemplate(userName, email, otp);
       String subject = "Account Created Successfully - Set Up Your Password";
-      log.info("Sending account creation email with OTP to: {}", email);
-
-      emailService.sendHtmlEmail(email, subject, htmlContent);
-      log.info("Account creation email successfully sent to: {}", email);
+      emailOutboxService.enqueue(
+          email,
+          subject,
+          EmailTemplate.ACCOUNT_CREATED_SUCCESS,
+          Map.of("userName", userName, "email", email, "otp", otp));
+      log.info("Account creation email queued for: {}", email);
 
     } catch (Exception e) {
-      log.error("Failed to send account creation email to {}: {}", email, e.getMessage());
+      log.error("Failed to queue account creation email to {}: {}", email, e.getMessage());
       throw new ServiceLayerException("Failed to send account creation notification", e);
     }
   }
@@ -54,15 +52,15 @@ public class NotificationServiceImpl implements NotificationService {
   public void sendUserCreationWithLink(String userName, String email, String verificationLink)
       throws ServiceLayerException {
     try {
-      log.info("Sending user creation email with verification link to: {}", email);
-      String htmlContent =
-          emailTemplateService.generateUserCreationTemplate(userName, email, verificationLink);
       String subject = "User Created - Set Up Your Password";
-
-      emailService.sendHtmlEmail(email, subject, htmlContent);
-      log.info("User creation email successfully sent to: {}", email);
+      emailOutboxService.enqueue(
+          email,
+          subject,
+          EmailTemplate.ACCOUNT_SETUP_OTP,
+          Map.of("userName", userName, "email", email, "passwordSetupLink", verificationLink));
+      log.info("User creation email queued for: {}", email);
     } catch (Exception e) {
-      log.error("Failed to send user creation email to {}: {}", email, e.getMessage());
+      log.error("Failed to queue user creation email to {}: {}", email, e.getMessage());
       throw new ServiceLayerException("Failed to send user creation notification", e);
     }
   }
@@ -72,13 +70,13 @@ public class NotificationServiceImpl implements NotificationService {
   public void resendOtpForAccountCreation(String userName, String email, String otp)
       throws ServiceLayerException {
     try {
-      log.info("Resending OTP for account creation to user: {}", email);
-      String htmlContent =
-          emailTemplateService.generateAccountCreationResendOtp(userName, email, otp);
       String subject = "Your New Verification Code";
-
-      emailService.sendHtmlEmail(email, subject, htmlContent);
-      log.info("OTP successfully resent for account creation to user: {}", email);
+      emailOutboxService.enqueue(
+          email,
+          subject,
+          EmailTemplate.RESEND_OTP,
+          Map.of("userName", userName, "email", email, "otp", otp));
+      log.info("OTP resend for account creation queued for user: {}", email);
     } catch (Exception e) {
       log.error("Failed to resend OTP for account creation to {}: {}", email, e.getMessage());
       throw new ServiceLayerException("Failed to resend OTP for account creation", e);
@@ -93,13 +91,13 @@ public class NotificationServiceImpl implements NotificationService {
   public void resendOtpForUserCreation(String userName, String email, String verificationLink)
       throws ServiceLayerException {
     try {
-      log.info("Resending verification link for user creation to: {}", email);
-      String htmlContent =
-          emailTemplateService.generateUserCreationResendOtp(userName, email, verificationLink);
       String subject = "Your New Verification Link";
-
-      emailService.sendHtmlEmail(email, subject, htmlContent);
-      log.info("Verification link successfully resent for user creation to: {}", email);
+      emailOutboxService.enqueue(
+          email,
+          subject,
+          EmailTemplate.RESEND_OTP_LINK,
+          Map.of("userName", userName, "email", email, "verificationLink", verificationLink));
+      log.info("Verification link resend for user creation queued for: {}", email);
     } catch (Exception e) {
       log.error(
           "Failed to resend verification link for user creation to {}: {}", email, e.getMessage());
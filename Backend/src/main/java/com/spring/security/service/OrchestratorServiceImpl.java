@@ -1,5 +1,6 @@
 package com.spring.security.service;
 
+import com.spring.security.annotation.LogActivity;
 import com.spring.security.controller.dto.request.AccountCreateRequestDto;
 import com.spring.security.controller.dto.response.AccountCreateResponseDto;
 import com.spring.security.controller.dto.response.AccountGetResponseDto;
@@ -41,21 +42,28 @@ public class OrchestratorServiceImpl {
   }
 
   /**
-   * Creates an account and a root user associated with that account.
+   * Creates an account and a root user associated with that account. The account, its ROOT role,
+   * the root user and the role assignment are written by a single statement.
    *
    * @param accountCreateRequestDto the data transfer object containing account creation details
    * @return the created account response DTO
    * @throws ServiceLayerException if there is an error during account or user creation
    */
   @Transactional(rollbackFor = ServiceLayerException.class)
+  @LogActivity(
+      action = "CREATE",
+      entityType = "ACCOUNT",
+      description = "New account created with root user")
   public AccountCreateResponseDto createAccountWithRootUser(
       AccountCreateRequestDto accountCreateRequestDto) throws ServiceLayerException {
-    Account account = accountService.create(accountCreateRequestDto);
+    Account account =
+        AccountMapper.ACCOUNT_MAPPER.convertAccountCreateRequestToAccount(
+            accountCreateRequestDto, AccountStatus.CREATED);
     User user =
-        userService.createRootUser(
+        userService.createAccountWithRootUser(
+            account,
             UserMapper.USER_MAPPER.convertAccountCreateRequestToRootUserCreateRequest(
-                accountCreateRequestDto),
-            account.getId());
+                accountCreateRequestDto));
     return AccountMapper.ACCOUNT_MAPPER.convertAccountAndUserToAccountCreateResponseDto(
         account, user.getEmail(), user.getId());
   }
@@ -8,13 +8,6 @@ import com.spring.security.exceptions.ServiceLayerException;
 /** Service interface for managing One-Time Password (OTP) codes. */
 public interface OtpService {
 
-  /**
-   * Creates a new OTP for the specified email address.
-   *
-   * @param email the email address to associate with the OTP
-   */
-  void create(String email, String otp) throws ServiceLayerException;
-
   /**
    * Finds the OTP associated with the specified email address.
    *
@@ -23,13 +16,6 @@ public interface OtpService {
    */
   OtpCode find(String email) throws ServiceLayerException;
 
-  /**
-   * Updates the OTP for the specified email address.
-   *
-   * @param email the email address whose OTP should be updated
-   */
-  void update(String email, String otp) throws ServiceLayerException;
-
   /**
    * Deletes the OTP associated with the specified email address.
    *
@@ -53,4 +39,12 @@ public interface OtpService {
    * @throws ServiceLayerException if OTP generation or storage fails
    */
   String generateAndStoreOtp(String email) throws ServiceLayerException;
+
+  /**
+   * Deletes expired OTPs in bounded batches. Used OTPs expire like any other, so they are purged as
+   * well.
+   *
+   * @return the number of deleted OTPs
+   */
+  int purgeExpired() throws ServiceLayerException;
 }
@@ -1,6 +1,9 @@
 package com.spring.security.service;
 
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.annotation.ShardKey;
 import com.spring.security.component.OtpGenerator;
+import com.spring.security.component.OtpStore;
 import com.spring.security.controller.dto.request.OtpValidateRequestDto;
 import com.spring.security.controller.dto.response.OtpValidateResponseDto;
 import com.spring.security.controller.dto.response.OtpValidationStatus;
@@ -10,52 +13,82 @@ import com.spring.security.exceptions.DaoLayerException;
 import com.spring.security.exceptions.OtpGenerationFailedException;
 import com.spring.security.exceptions.ResourceNotFoundException;
 import com.spring.security.exceptions.ServiceLayerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service implementation for handling OTP (One-Time Password) operations. This service provides
- * methods to create, find, update, delete, and validate OTPs.
+ * methods to issue, find, delete, validate and purge OTPs.
  */
 @Service
 @Slf4j
 public class OtpServiceImpl implements OtpService {
 
+  /** How long an issued OTP stays valid. */
+  private static final Duration OTP_VALIDITY = Duration.ofMinutes(3);
+
   private final OtpDao otpDao;
 
   private final OtpGenerator otpGenerator;
 
-  /** Constructor for OtpServiceImpl. */
-  public OtpServiceImpl(OtpDao otpDao, OtpGenerator otpGenerator) {
-    this.otpDao = otpDao;
-    this.otpGenerator = otpGenerator;
-  }
+  private final OtpStore otpStore;
+
+  private final boolean writeThrough;
+
+  private final int maxAttempts;
+
+  private final int purgeBatchSize;
+
+  private final int purgeMaxBatches;
+
+  private final Counter purgedRows;
+
+  private final Timer purgeTimer;
 
   /**
-   * Creates a new OTP for the specified email address.
+   * Constructor for OtpServiceImpl.
    *
-   * @param email the email address to associate with the OTP
+   * @param otpDao the DAO for persisted OTPs
+   * @param otpGenerator the generator for new OTPs
+   * @param otpStore the in-memory OTP store
+   * @param writeThrough whether OTPs are also persisted, so that any node can validate them
+   * @param maxAttempts the number of wrong guesses after which a persisted OTP is used up
+   * @param purgeBatchSize the maximum number of rows deleted per purge statement
+   * @param purgeMaxBatches the maximum number of purge statements per run
+   * @param meterRegistry the registry for purge metrics
    */
-  @Override
-  public void create(String email, String otp) throws ServiceLayerException {
-
-    try {
-      OtpCode otpCode = new OtpCode();
-      otpCode.setEmail(email);
-      otpCode.setOtp(otp);
-      otpCode.setCreatedAt(Instant.now());
-      otpCode.setExpiresAt(Instant.now().plus(Duration.ofMinutes(3))); // OTP valid for 3 minutes
-      otpDao.create(otpCode);
-    } catch (Exception e) {
-      log.error("Error creating OTP for email {}: {}", email, e.getMessage());
-      throw new ServiceLayerException("Failed to create OTP");
-    }
+  public OtpServiceImpl(
+      OtpDao otpDao,
+      OtpGenerator otpGenerator,
+      OtpStore otpStore,
+      @Value("${otp.store.write-through:false}") boolean writeThrough,
+      @Value("${otp.store.max-attempts:5}") int maxAttempts,
+      @Value("${otp.purge.batch-size:1000}") int purgeBatchSize,
+      @Value("${otp.purge.max-batches:50}") int purgeMaxBatches,
+      MeterRegistry meterRegistry) {
+    this.otpDao = otpDao;
+    this.otpGenerator = otpGenerator;
+    this.otpStore = otpStore;
+    this.writeThrough = writeThrough;
+    this.maxAttempts = maxAttempts;
+    this.purgeBatchSize = purgeBatchSize;
+    this.purgeMaxBatches = purgeMaxBatches;
+    this.purgedRows =
+        Counter.builder("otp.purge.rows")
+            .description("Expired OTP rows deleted by the purge job")
+            .register(meterRegistry);
+    this.purgeTimer =
+        Timer.builder("otp.purge.duration")
+            .description("Time spent per OTP purge run")
+            .register(meterRegistry);
   }
 
   /**
@@ -78,24 +111,6 @@ public class OtpServiceImpl implements OtpService {
     }
   }
 
-  /**
-   * Updates the OTP for the specified email address.
-   *
-   * @param email the email address whose OTP should be updated
-   */
-  @Override
-  public void update(String email, String otp) throws ServiceLayerException {
-    try {
-      Map<String, Object> updates =
-          Map.of("otp", otp, "expires_at", LocalDateTime.now().plusMinutes(3));
-      Map<String, Object> conditions = Map.of("email", email);
-      otpDao.update(updates, conditions);
-    } catch (DaoLayerException e) {
-      log.error("Error updating OTP for email {}: {}", email, e.getMessage());
-      throw new ServiceLayerException("Failed to update OTP", e);
-    }
-  }
-
   /**
    * Deletes the OTP associated with the specified email address.
    *
@@ -111,18 +126,31 @@ public class OtpServiceImpl implements OtpService {
   }
 
   /**
-   * Verifies the OTP code for an account.
+   * Verifies the OTP code for an account. The OTP is consumed from the in-memory store; with
+   * write-through enabled the persisted OTP is consumed as well and its outcome is returned, so an
+   * OTP is accepted once across all nodes and wrong guesses count towards one limit.
    *
    * @param otpRequestDto the request dto for verifying the OTP
    */
   @Override
   @Transactional(rollbackFor = ServiceLayerException.class)
-  public OtpValidateResponseDto validateOtp(OtpValidateRequestDto otpRequestDto)
+  public OtpValidateResponseDto validateOtp(@ShardKey OtpValidateRequestDto otpRequestDto)
       throws ServiceLayerException {
 
     try {
-      OtpCode otpCode = find(otpRequestDto.getEmail());
-      return processOtpValidation(otpRequestDto, otpCode);
+      String email = otpRequestDto.getEmail();
+      String otp = String.valueOf(otpRequestDto.getOtp());
+      OtpValidationStatus status = otpStore.consume(email, otp);
+
+      if (writeThrough) {
+        // The database decides: another node may have consumed the OTP or issued a new one, and
+        // it counts wrong guesses made on every node
+        status = consumePersistedOtp(email, otp);
+      }
+
+      OtpValidateResponseDto response = new OtpValidateResponseDto();
+      response.setStatus(status);
+      return response;
     } catch (ServiceLayerException e) {
       log.error("Failed to validate OTP: {}", e.getMessage());
       throw new ServiceLayerException("Failed to validate OTP");
@@ -130,60 +158,46 @@ public class OtpServiceImpl implements OtpService {
   }
 
   /**
-   * Processes the OTP validation request.
+   * Consumes the persisted OTP, or counts a failed attempt, in a single conditional update. The OTP
+   * row is only read again if that update matched nothing, to tell the caller why.
    *
-   * @param request the OTP validation request containing email and OTP
-   * @param otpCode the OTP code associated with the email
-   * @return the response indicating the status of the OTP validation
+   * @param email the email the OTP was issued to
+   * @param otp the OTP to consume
+   * @return the status of the OTP validation
    */
-  private OtpValidateResponseDto processOtpValidation(
-      OtpValidateRequestDto request, OtpCode otpCode) throws ServiceLayerException {
-    OtpValidateResponseDto response = new OtpValidateResponseDto();
-
-    if (otpCode == null) {
-      log.warn("No OTP found for email");
-      response.setStatus(OtpValidationStatus.NOT_FOUND);
-      return response;
-    }
+  private OtpValidationStatus consumePersistedOtp(String email, String otp)
+      throws ServiceLayerException {
+    try {
+      OtpCode consumed = otpDao.consume(email, otp, maxAttempts);
+      if (consumed != null) {
+        if (!consumed.getOtp().equals(otp)) {
+          return OtpValidationStatus.INVALID;
+        }
+        log.info("OTP validated successfully for email");
+        return OtpValidationStatus.VALID;
+      }
 
-    if (otpCode.getExpiresAt().isBefore(Instant.now())) {
+      OtpCode otpCode = otpDao.findByEmail(email);
+      if (otpCode == null) {
+        log.warn("No OTP found for email");
+        return OtpValidationStatus.NOT_FOUND;
+      }
+      if (!otpCode.getOtp().equals(otp)) {
+        return OtpValidationStatus.INVALID;
+      }
+      // Matching but not consumable: already used, expired, out of attempts, or consumed
+      // concurrently
       log.warn("OTP has expired");
-      response.setStatus(OtpValidationStatus.EXPIRED);
-      return response;
-    }
-
-    if (!otpCode.getOtp().equals(String.valueOf(request.getOtp()))) {
-      response.setStatus(OtpValidationStatus.INVALID);
-      return response;
-    }
-    response.setStatus(OtpValidationStatus.VALID);
-    markOtpAsUsed(otpCode);
-    log.info("OTP validated successfully for email");
-    return response;
-  }
-
-  /**
-   * Marks the OTP as used by deleting it from the database.
-   *
-   * @param otpCode the OTP code to mark as used
-   */
-  private void markOtpAsUsed(OtpCode otpCode) throws ServiceLayerException {
-    try {
-      Map<String, Object> conditionsMap = new HashMap<>();
-      conditionsMap.put("email", otpCode.getEmail());
-      conditionsMap.put("otp", otpCode.getOtp());
-      Map<String, Object> updateMap = new HashMap<>();
-      updateMap.put("used", "true");
-      otpDao.update(updateMap, conditionsMap);
-      log.info("OTP marked as used for email {}", otpCode.getEmail());
+      return OtpValidationStatus.EXPIRED;
     } catch (DaoLayerException e) {
-      log.error("Error marking OTP as used for email {}: {}", otpCode.getEmail(), e.getMessage());
-      throw new ServiceLayerException("Failed to mark OTP as used", e);
+      log.error("Error consuming OTP for email {}: {}", email, e.getMessage());
+      throw new ServiceLayerException("Failed to consume OTP", e);
     }
   }
 
   /**
-   * Generates and stores a new OTP for the specified email address.
+   * Generates and stores a new OTP for the specified email address. The OTP is held in memory and,
+   * with write-through enabled, also persisted.
    *
    * @param email the email address to generate OTP for
    * @return the generated OTP string
@@ -197,17 +211,15 @@ public class OtpServiceImpl implements OtpService {
         throw new OtpGenerationFailedException("Failed to generate OTP");
       }
 
-      // Check if OTP already exists for this email
-      try {
-        OtpCode existingOtp = find(email);
-        if (existingOtp != null) {
-          // Update existing OTP
-          update(email, otp);
-        }
-      } catch (ResourceNotFoundException e) {
-        // Create new OTP if none exists
-        create(email, otp);
+      if (writeThrough) {
+        OtpCode otpCode = new OtpCode();
+        otpCode.setEmail(email);
+        otpCode.setOtp(otp);
+        otpCode.setCreatedAt(Instant.now());
+        otpCode.setExpiresAt(otpCode.getCreatedAt().plus(OTP_VALIDITY));
+        otpDao.upsert(otpCode);
       }
+      otpStore.put(email, otp, OTP_VALIDITY);
 
       return otp;
     } catch (Exception e) {
@@ -215,4 +227,37 @@ public class OtpServiceImpl implements OtpService {
       throw new ServiceLayerException("Failed to generate OTP", e);
     }
   }
+
+  /**
+   * Deletes expired OTPs in bounded batches, so a large backlog never holds locks for long.
+   *
+   * @return the number of deleted OTPs
+   */
+  @Override
+  @OnEachShard
+  @Scheduled(
+      initialDelayString = "${otp.purge.initial-delay:PT1M}",
+      fixedDelayString = "${otp.purge.interval:PT5M}")
+  public int purgeExpired() throws ServiceLayerException {
+    Timer.Sample sample = Timer.start();
+    int purged = 0;
+    try {
+      for (int batch = 0; batch < purgeMaxBatches; batch++) {
+        int deleted = otpDao.deleteExpired(purgeBatchSize);
+        purged += deleted;
+        if (deleted < purgeBatchSize) {
+          break;
+        }
+      }
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to purge expired OTPs", e);
+    } finally {
+      purgedRows.increment(purged);
+      sample.stop(purgeTimer);
+    }
+    if (purged > 0) {
+      log.info("Purged {} expired OTPs", purged);
+    }
+    return purged;
+  }
 }
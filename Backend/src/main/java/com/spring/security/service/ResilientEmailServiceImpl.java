@@ -0,0 +1,200 @@
+package com.spring.security.service;
+
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.exceptions.EmailDeferredException;
+import com.spring.security.exceptions.EmailServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * Email service guarding the active email provider with a circuit breaker and a bulkhead.
+ *
+ * <p>The bulkhead caps the number of concurrent provider calls; callers that cannot get a slot
+ * within the configured wait are not queued behind a slow provider. The circuit breaker opens after
+ * a run of failed or slow calls and rejects sends until the open period has passed, after which a
+ * single probe email is let through: if it succeeds the circuit closes, otherwise it opens again.
+ *
+ * <p>Rejected sends fail with {@link EmailDeferredException} without reaching the provider, so the
+ * email outbox keeps them queued for later instead of spending their delivery attempts.
+ */
+@Service
+@Primary
+@Slf4j
+public class ResilientEmailServiceImpl implements EmailService {
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private record Circuit(State state, int failures, long openUntilNanos) {}
+
+  private static final Circuit CLOSED = new Circuit(State.CLOSED, 0, 0);
+
+  private final EmailService delegate;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final long slowCallNanos;
+  private final Semaphore bulkhead;
+  private final long bulkheadWaitNanos;
+  private final AtomicReference<Circuit> circuit = new AtomicReference<>(CLOSED);
+
+  private final Counter deferredEmails;
+
+  /**
+   * Constructor for ResilientEmailServiceImpl.
+   *
+   * @param delegate the email provider to guard
+   * @param meterRegistry the registry for circuit metrics
+   * @param failureThreshold the number of consecutive failed calls that opens the circuit
+   * @param openDuration how long the circuit stays open before a probe is let through
+   * @param slowCallThreshold the duration after which a successful call still counts as failed
+   * @param maxConcurrentCalls the maximum number of concurrent provider calls
+   * @param maxWait how long a caller waits for a free provider slot
+   */
+  public ResilientEmailServiceImpl(
+      @Qualifier("emailProvider") EmailService delegate,
+      MeterRegistry meterRegistry,
+      @Value("${email.circuit.failure-threshold:5}") int failureThreshold,
+      @Value("${email.circuit.open-duration:PT30S}") Duration openDuration,
+      @Value("${email.circuit.slow-call-threshold:PT10S}") Duration slowCallThreshold,
+      @Value("${email.bulkhead.max-concurrent-calls:4}") int maxConcurrentCalls,
+      @Value("${email.bulkhead.max-wait:PT0.5S}") Duration maxWait) {
+    this.delegate = delegate;
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.slowCallNanos = slowCallThreshold.toNanos();
+    this.bulkhead = new Semaphore(maxConcurrentCalls);
+    this.bulkheadWaitNanos = maxWait.toNanos();
+    this.deferredEmails =
+        Counter.builder("email.deferred")
+            .description("Emails not sent because the provider was unavailable")
+            .register(meterRegistry);
+    Gauge.builder("email.circuit.state", circuit, c -> c.get().state().ordinal())
+        .description("Email provider circuit state: 0 closed, 1 open, 2 half-open")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void sendHtmlEmail(String to, String subject, String htmlContent)
+      throws EmailServiceException {
+    EmailMessage message = new EmailMessage(to, subject, htmlContent);
+    EmailServiceException failure = sendHtmlEmails(List.of(message)).get(message);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public Map<EmailMessage, EmailServiceException> sendHtmlEmails(List<EmailMessage> messages) {
+    if (messages.isEmpty()) {
+      return new IdentityHashMap<>();
+    }
+
+    boolean probe = false;
+    while (true) {
+      Circuit current = circuit.get();
+      if (current.state() == State.CLOSED) {
+        break;
+      }
+      long remaining = current.openUntilNanos() - System.nanoTime();
+      if (current.state() == State.HALF_OPEN || remaining > 0) {
+        return defer(messages, 0, Duration.ofNanos(Math.max(remaining, 0) + openNanos / 10));
+      }
+      if (circuit.compareAndSet(current, new Circuit(State.HALF_OPEN, current.failures(), 0))) {
+        probe = true;
+        break;
+      }
+    }
+
+    // A probe sends a single email; the rest wait for the outcome
+    List<EmailMessage> toSend = probe ? messages.subList(0, 1) : messages;
+    try {
+      if (!bulkhead.tryAcquire(bulkheadWaitNanos, TimeUnit.NANOSECONDS)) {
+        if (probe) {
+          circuit.set(new Circuit(State.OPEN, circuit.get().failures(), System.nanoTime()));
+        }
+        return defer(messages, 0, Duration.ofNanos(bulkheadWaitNanos));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return defer(messages, 0, Duration.ofNanos(bulkheadWaitNanos));
+    }
+
+    Map<EmailMessage, EmailServiceException> failures;
+    long start = System.nanoTime();
+    try {
+      failures = delegate.sendHtmlEmails(toSend);
+    } catch (RuntimeException e) {
+      failures = new IdentityHashMap<>();
+      for (EmailMessage message : toSend) {
+        failures.put(message, new EmailServiceException("Failed to send email", e));
+      }
+    } finally {
+      bulkhead.release();
+    }
+    long elapsed = System.nanoTime() - start;
+
+    // Individual rejected recipients are not a provider problem; only a call where nothing got
+    // through, or that took too long, counts against the provider
+    boolean failed = failures.size() == toSend.size() || elapsed > slowCallNanos;
+    record(failed);
+
+    if (probe && messages.size() > 1) {
+      Map<EmailMessage, EmailServiceException> result = defer(messages, 1, Duration.ZERO);
+      result.putAll(failures);
+      return result;
+    }
+    return failures;
+  }
+
+  private void record(boolean failed) {
+    while (true) {
+      Circuit current = circuit.get();
+      Circuit next;
+      if (!failed) {
+        next = CLOSED;
+      } else if (current.state() == State.HALF_OPEN || current.failures() + 1 >= failureThreshold) {
+        next = new Circuit(State.OPEN, current.failures() + 1, System.nanoTime() + openNanos);
+      } else {
+        next = new Circuit(State.CLOSED, current.failures() + 1, 0);
+      }
+      if (current.equals(next) || circuit.compareAndSet(current, next)) {
+        if (next.state() != current.state()) {
+          log.warn("Email provider circuit {} -> {}", current.state(), next.state());
+        }
+        return;
+      }
+    }
+  }
+
+  private Map<EmailMessage, EmailServiceException> defer(
+      List<EmailMessage> messages, int from, Duration retryAfter) {
+    Map<EmailMessage, EmailServiceException> deferred = new IdentityHashMap<>();
+    EmailDeferredException exception =
+        new EmailDeferredException("Email provider unavailable", retryAfter);
+    for (EmailMessage message : messages.subList(from, messages.size())) {
+      deferred.put(message, exception);
+    }
+    deferredEmails.increment(deferred.size());
+    return deferred;
+  }
+
+  State getState() {
+    return circuit.get().state();
+  }
+}
@@ -1,6 +1,8 @@
 package com.spring.security.service;
 
 import com.spring.security.annotation.LogActivity;
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.component.CacheInvalidationBus.Entity;
 import com.spring.security.controller.dto.request.RoleCreateRequestDto;
 import com.spring.security.controller.dto.request.RoleUpdateRequestDto;
 import com.spring.security.dao.RoleDao;
@@ -20,9 +22,11 @@ import org.springframework.stereotype.Service;
 public class RoleServiceImpl implements RoleService {
 
   private final RoleDao roleDao;
+  private final CacheInvalidationBus cacheInvalidationBus;
 
-  public RoleServiceImpl(RoleDao roleDao) {
+  public RoleServiceImpl(RoleDao roleDao, CacheInvalidationBus cacheInvalidationBus) {
     this.roleDao = roleDao;
+    this.cacheInvalidationBus = cacheInvalidationBus;
   }
 
   /**
@@ -157,12 +161,15 @@ public class RoleServiceImpl implements RoleService {
               roleUpdateRequestDto.getPermissions());
 
       // Update the role
-      return roleDao.update(
-          roleId,
-          accountId,
-          roleUpdateRequestDto.getName(),
-          roleUpdateRequestDto.getDescription(),
-          permissions);
+      Role role =
+          roleDao.update(
+              roleId,
+              accountId,
+              roleUpdateRequestDto.getName(),
+              roleUpdateRequestDto.getDescription(),
+              permissions);
+      cacheInvalidationBus.publish(Entity.ROLE, roleId);
+      return role;
 
     } catch (DaoLayerException e) {
       log.error("Failed to update role with ID: {} for account ID: {}", roleId, accountId, e);
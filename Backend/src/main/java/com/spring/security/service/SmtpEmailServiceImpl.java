@@ -1,41 +1,228 @@
 package com.spring.security.service;
 
+import com.spring.security.domain.entity.EmailMessage;
 import com.spring.security.exceptions.EmailServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-/** SMTP email service implementation that is conditionally activated in development profile. */
+/**
+ * SMTP email service implementation that is conditionally activated in development profile.
+ *
+ * <p>Emails are not sent one connection at a time. Every email goes into a queue; a single sender
+ * thread waits up to the coalescing window for more emails to arrive and sends what it collected
+ * through one SMTP session, so connection setup, TLS and AUTH are paid once per batch rather than
+ * once per email. The session is re-established if the server drops it, and emails that failed with
+ * the session get one more try on a fresh connection. The queue is bounded: once it is full, new
+ * emails fail straight away rather than piling up behind a slow or unreachable server.
+ */
 @Service
 @Profile("dev")
+@Qualifier("emailProvider")
 @Slf4j
 public class SmtpEmailServiceImpl implements EmailService {
 
   private final JavaMailSender javaMailSender;
+  private final long windowNanos;
+  private final int batchSize;
+  private final BlockingQueue<PendingEmail> queue;
 
-  public SmtpEmailServiceImpl(JavaMailSender javaMailSender) {
+  private final DistributionSummary batchSizes;
+  private final Timer batchTimer;
+  private final Counter failedEmails;
+
+  private volatile boolean running = true;
+  private Thread sender;
+
+  /**
+   * Constructor for SmtpEmailServiceImpl.
+   *
+   * @param javaMailSender the mail sender providing SMTP sessions
+   * @param meterRegistry the registry for batch metrics
+   * @param window how long the sender waits for more emails before sending a batch
+   * @param batchSize the maximum number of emails per SMTP session
+   * @param queueCapacity the maximum number of emails waiting to be sent
+   */
+  public SmtpEmailServiceImpl(
+      JavaMailSender javaMailSender,
+      MeterRegistry meterRegistry,
+      @Value("${mail.smtp.batch.window:PT0.2S}") Duration window,
+      @Value("${mail.smtp.batch.size:50}") int batchSize,
+      @Value("${mail.smtp.queue.capacity:1000}") int queueCapacity) {
     this.javaMailSender = javaMailSender;
+    this.windowNanos = window.toNanos();
+    this.batchSize = batchSize;
+    this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    this.batchSizes =
+        DistributionSummary.builder("mail.smtp.batch.size")
+            .description("Emails sent per SMTP session")
+            .register(meterRegistry);
+    this.batchTimer =
+        Timer.builder("mail.smtp.batch.duration")
+            .description("Time to send one batch of emails")
+            .register(meterRegistry);
+    this.failedEmails =
+        Counter.builder("mail.smtp.batch.failures")
+            .description("Emails that could not be sent")
+            .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    sender = Thread.ofPlatform().name("SmtpBatchSender").daemon().start(this::runSender);
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    sender.interrupt();
+    sender.join(TimeUnit.SECONDS.toMillis(10));
   }
 
   @Override
-  @Async("mailTaskExecutor")
   public void sendHtmlEmail(String to, String subject, String htmlContent)
       throws EmailServiceException {
     try {
       log.info("Sending HTML email to: {} using SMTP service", to);
-      MimeMessage message = createHtmlEmail(to, subject, htmlContent);
-      javaMailSender.send(message);
+      enqueue(createHtmlEmail(to, subject, htmlContent)).get();
+    } catch (ExecutionException e) {
+      log.error("Failed to send HTML SMTP email to {}: {}", to, e.getCause().getMessage());
+      throw new EmailServiceException("Failed to send Email", e.getCause());
     } catch (Exception e) {
       log.error("Failed to send HTML SMTP email to {}: {}", to, e.getMessage());
       throw new EmailServiceException("Failed to send Email", e);
     }
   }
 
+  @Override
+  public Map<EmailMessage, EmailServiceException> sendHtmlEmails(List<EmailMessage> messages) {
+    Map<EmailMessage, EmailServiceException> failures = new IdentityHashMap<>();
+    Map<EmailMessage, CompletableFuture<Void>> results = new IdentityHashMap<>();
+    for (EmailMessage message : messages) {
+      try {
+        results.put(
+            message,
+            enqueue(
+                createHtmlEmail(message.getTo(), message.getSubject(), message.getHtmlContent())));
+      } catch (MessagingException e) {
+        failures.put(message, new EmailServiceException("Failed to send Email", e));
+      }
+    }
+    results.forEach(
+        (message, result) -> {
+          try {
+            result.join();
+          } catch (Exception e) {
+            failures.put(message, new EmailServiceException("Failed to send Email", e.getCause()));
+          }
+        });
+    return failures;
+  }
+
+  private CompletableFuture<Void> enqueue(MimeMessage message) {
+    if (!running) {
+      return CompletableFuture.failedFuture(new IllegalStateException("SMTP sender is stopped"));
+    }
+    PendingEmail pending = new PendingEmail(message, new CompletableFuture<>());
+    if (!queue.offer(pending)) {
+      failedEmails.increment();
+      return CompletableFuture.failedFuture(new IllegalStateException("SMTP queue is full"));
+    }
+    return pending.result;
+  }
+
+  private void runSender() {
+    List<PendingEmail> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingEmail first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < batchSize) {
+          PendingEmail next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        // Stop requested; send whatever was collected and drain the rest
+        queue.drainTo(batch, batchSize - batch.size());
+      }
+      if (!batch.isEmpty()) {
+        sendBatch(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /** Sends a batch through one SMTP session, retrying failed emails once on a fresh session. */
+  private void sendBatch(List<PendingEmail> batch) {
+    Timer.Sample sample = Timer.start();
+    Map<MimeMessage, Exception> failed = send(batch.stream().map(PendingEmail::message).toList());
+    if (!failed.isEmpty()) {
+      log.warn("Retrying {} of {} emails on a new SMTP session", failed.size(), batch.size());
+      failed = send(new ArrayList<>(failed.keySet()));
+    }
+    sample.stop(batchTimer);
+    batchSizes.record(batch.size());
+    failedEmails.increment(failed.size());
+
+    for (PendingEmail pending : batch) {
+      Exception failure = failed.get(pending.message);
+      if (failure == null) {
+        pending.result.complete(null);
+      } else {
+        pending.result.completeExceptionally(failure);
+      }
+    }
+  }
+
+  /** Sends the messages through one session, returning the failed ones. */
+  private Map<MimeMessage, Exception> send(List<MimeMessage> messages) {
+    Map<MimeMessage, Exception> failed = new IdentityHashMap<>();
+    try {
+      // JavaMailSenderImpl keeps a single transport for the whole array and reconnects if the
+      // server drops the connection between messages.
+      javaMailSender.send(messages.toArray(new MimeMessage[0]));
+    } catch (MailSendException e) {
+      e.getFailedMessages().forEach((message, cause) -> failed.put((MimeMessage) message, cause));
+      if (failed.isEmpty()) {
+        messages.forEach(message -> failed.put(message, e));
+      }
+    } catch (Exception e) {
+      log.error("Failed to send batch of {} emails: {}", messages.size(), e.getMessage());
+      messages.forEach(message -> failed.put(message, e));
+    }
+    return failed;
+  }
+
   private MimeMessage createHtmlEmail(String to, String subject, String htmlContent)
       throws MessagingException {
     MimeMessage message = javaMailSender.createMimeMessage();
@@ -47,4 +234,6 @@ public class SmtpEmailServiceImpl implements EmailService {
 
     return message;
   }
+
+  private record PendingEmail(MimeMessage message, CompletableFuture<Void> result) {}
 }
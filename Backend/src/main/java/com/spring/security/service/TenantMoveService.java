@@ -0,0 +1,17 @@
+package com.spring.security.service;
+
+import com.spring.security.exceptions.ServiceLayerException;
+
+/** Service interface for moving tenants between shards while they stay online. */
+public interface TenantMoveService {
+
+  /**
+   * Moves an account and everything it owns to another shard. The account stays readable
+   * throughout; its writes are refused from shortly after the move starts until it is done.
+   *
+   * @param accountId the account ID
+   * @param targetShardId the shard to move the account to
+   * @return the number of rows moved
+   */
+  long move(Long accountId, int targetShardId) throws ServiceLayerException;
+}
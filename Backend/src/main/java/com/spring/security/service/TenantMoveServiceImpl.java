@@ -0,0 +1,134 @@
+package com.spring.security.service;
+
+import com.spring.security.component.AccountCache;
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.component.CacheInvalidationBus.Entity;
+import com.spring.security.component.ShardDirectory;
+import com.spring.security.dao.ShardDirectoryDao;
+import com.spring.security.dao.TenantMoveDao;
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.exceptions.ServiceLayerException;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves a tenant in four steps. The account is marked as moving, and once every node has picked
+ * that up its rows stop changing; they are then copied to the target shard, the directory is
+ * pointed at the target, and once no node still reads from the source the rows there are deleted.
+ *
+ * <p>Nodes pick up directory changes within the directory cache TTL, so each wait, {@code
+ * db.shards.move-drain}, must exceed that TTL plus the longest write transaction. Each change is
+ * also announced on the cache invalidation bus, which usually reaches the nodes at once, but the
+ * waits stay since an announcement can be lost. A move that fails before the directory is switched
+ * is rolled back by ending the move; the copy on the target is replaced by the next attempt.
+ */
+@Service
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+@Slf4j
+public class TenantMoveServiceImpl implements TenantMoveService {
+
+  private final ShardDirectoryDao shardDirectoryDao;
+  private final TenantMoveDao tenantMoveDao;
+  private final ShardDirectory shardDirectory;
+  private final AccountCache accountCache;
+  private final CacheInvalidationBus cacheInvalidationBus;
+  private final Duration drain;
+
+  /**
+   * Constructor for TenantMoveServiceImpl.
+   *
+   * @param shardDirectoryDao the DAO updating the shard directory
+   * @param tenantMoveDao the DAO copying the tenant's rows
+   * @param shardDirectory the cached directory, evicted once the tenant has moved
+   * @param accountCache the account cache, evicted once the tenant has moved
+   * @param cacheInvalidationBus the bus telling the other nodes to evict the tenant's entries
+   * @param drain how long to wait for every node to pick up a directory change
+   */
+  public TenantMoveServiceImpl(
+      ShardDirectoryDao shardDirectoryDao,
+      TenantMoveDao tenantMoveDao,
+      ShardDirectory shardDirectory,
+      AccountCache accountCache,
+      CacheInvalidationBus cacheInvalidationBus,
+      @Value("${db.shards.move-drain:PT15S}") Duration drain) {
+    this.shardDirectoryDao = shardDirectoryDao;
+    this.tenantMoveDao = tenantMoveDao;
+    this.shardDirectory = shardDirectory;
+    this.accountCache = accountCache;
+    this.cacheInvalidationBus = cacheInvalidationBus;
+    this.drain = drain;
+  }
+
+  @Override
+  public long move(Long accountId, int targetShardId) throws ServiceLayerException {
+    int sourceShardId;
+    long moved;
+    try {
+      AccountDirectoryEntry entry = shardDirectoryDao.findByAccountId(accountId);
+      if (entry == null) {
+        throw new ServiceLayerException("Account " + accountId + " is not in the shard directory");
+      }
+      sourceShardId = entry.getShardId();
+      if (sourceShardId == targetShardId) {
+        return 0;
+      }
+      log.info(
+          "Moving account {} from shard {} to shard {}", accountId, sourceShardId, targetShardId);
+      shardDirectoryDao.setMoving(accountId, true);
+      shardDirectory.evict(accountId);
+      cacheInvalidationBus.publish(Entity.ACCOUNT, accountId);
+    } catch (DaoLayerException e) {
+      throw new ServiceLayerException("Failed to start moving the account", e);
+    }
+
+    try {
+      awaitDrain();
+      moved = tenantMoveDao.copy(accountId, sourceShardId, targetShardId);
+      shardDirectoryDao.setShard(accountId, targetShardId);
+    } catch (DaoLayerException | ServiceLayerException e) {
+      endMove(accountId);
+      throw new ServiceLayerException("Failed to move the account", e);
+    }
+    shardDirectory.evict(accountId);
+    accountCache.invalidate(accountId);
+    cacheInvalidationBus.publish(Entity.ACCOUNT, accountId);
+    log.info(
+        "Account {} is now served by shard {}, {} rows copied", accountId, targetShardId, moved);
+
+    try {
+      awaitDrain();
+      tenantMoveDao.delete(accountId, sourceShardId);
+    } catch (DaoLayerException | ServiceLayerException e) {
+      // The account is served by the target; the stale copy only takes space
+      log.error(
+          "Account {} moved, but its rows are left on shard {}: {}",
+          accountId,
+          sourceShardId,
+          e.getMessage());
+    }
+    return moved;
+  }
+
+  private void endMove(Long accountId) {
+    try {
+      shardDirectoryDao.setMoving(accountId, false);
+      shardDirectory.evict(accountId);
+      cacheInvalidationBus.publish(Entity.ACCOUNT, accountId);
+    } catch (DaoLayerException e) {
+      log.error("Account {} is still marked as moving: {}", accountId, e.getMessage());
+    }
+  }
+
+  private void awaitDrain() throws ServiceLayerException {
+    try {
+      Thread.sleep(drain.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceLayerException("Interrupted while moving the account", e);
+    }
+  }
+}
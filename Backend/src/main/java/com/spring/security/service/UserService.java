@@ -3,11 +3,14 @@ package com.spring.security.service;
 import com.spring.security.controller.dto.request.RootUserCreateRequestDto;
 import com.spring.security.controller.dto.request.UserCreateRequestDto;
 import com.spring.security.controller.dto.request.UserUpdateRequestDto;
+import com.spring.security.controller.dto.response.OtpResendResponseDto;
 import com.spring.security.controller.dto.response.UserCreateResponseDto;
+import com.spring.security.domain.entity.Account;
 import com.spring.security.domain.entity.User;
 import com.spring.security.domain.entity.enums.UserStatus;
 import com.spring.security.exceptions.JwtTokenParseException;
 import com.spring.security.exceptions.PreconditionViolationException;
+import com.spring.security.exceptions.ResourceAlreadyExistException;
 import com.spring.security.exceptions.ServiceLayerException;
 import java.util.List;
 
@@ -33,6 +36,18 @@ public interface UserService {
   User createRootUser(RootUserCreateRequestDto userCreateRequestDto, Long accountId)
       throws ServiceLayerException;
 
+  /**
+   * Creates an account together with its root user, ROOT role and role assignment in a single
+   * database round trip, then sends the root user the account verification OTP.
+   *
+   * @param account the account to create; its ID is set on success
+   * @param userCreateRequestDto the DTO containing root user creation details
+   * @return the created root user
+   * @throws ResourceAlreadyExistException if an account with the same name exists
+   */
+  User createAccountWithRootUser(Account account, RootUserCreateRequestDto userCreateRequestDto)
+      throws ServiceLayerException;
+
   /**
    * Retrieves a user by their ID.
    *
@@ -141,20 +156,26 @@ public interface UserService {
   User findRootUserByAccountId(Long accountId);
 
   /**
-   * Resends the OTP (One-Time Password) to the specified email.
+   * Resends the OTP (One-Time Password) to the specified email. Resends within the cooldown of an
+   * earlier one do not send anything; the earlier email is still on its way. The cooldown is per
+   * email, across accounts, and also starts with the first OTP sent on creation.
    *
    * @param accountId the ID of the account to which the user belongs
    * @param email the email to which the OTP should be resent
+   * @return whether an OTP was sent and the cooldown until the next resend
    * @throws ServiceLayerException if there is an error during the process
    */
-  void resendOtpForUserCreation(Long accountId, String email) throws ServiceLayerException;
+  OtpResendResponseDto resendOtpForUserCreation(Long accountId, String email)
+      throws ServiceLayerException;
 
   /**
    * Resends the OTP (One-Time Password) to the specified email for account creation.
    *
    * @param accountId the ID of the account to which the user belongs
    * @param email the email to which the OTP should be resent
+   * @return whether an OTP was sent and the cooldown until the next resend
    * @throws ServiceLayerException if there is an error during the process
    */
-  void resendOtpForAccountCreation(Long accountId, String email) throws ServiceLayerException;
+  OtpResendResponseDto resendOtpForAccountCreation(Long accountId, String email)
+      throws ServiceLayerException;
 }
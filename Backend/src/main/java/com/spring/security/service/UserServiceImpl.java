@@ -3,13 +3,18 @@ package com.spring.security.service;
 import static com.spring.security.domain.mapper.UserMapper.USER_MAPPER;
 
 import com.spring.security.annotation.LogActivity;
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.component.CacheInvalidationBus.Entity;
 import com.spring.security.component.JwtTokenGenerator;
+import com.spring.security.component.ResendThrottle;
 import com.spring.security.controller.dto.request.RoleCreateRequestDto;
 import com.spring.security.controller.dto.request.RootUserCreateRequestDto;
 import com.spring.security.controller.dto.request.UserCreateRequestDto;
 import com.spring.security.controller.dto.request.UserUpdateRequestDto;
+import com.spring.security.controller.dto.response.OtpResendResponseDto;
 import com.spring.security.controller.dto.response.UserCreateResponseDto;
 import com.spring.security.dao.UserDao;
+import com.spring.security.domain.entity.Account;
 import com.spring.security.domain.entity.Role;
 import com.spring.security.domain.entity.User;
 import com.spring.security.domain.entity.enums.UserStatus;
@@ -21,8 +26,10 @@ import com.spring.security.exceptions.ResourceAlreadyExistException;
 import com.spring.security.exceptions.ResourceNotFoundException;
 import com.spring.security.exceptions.ServiceLayerException;
 import io.jsonwebtoken.Claims;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -52,6 +59,10 @@ public class UserServiceImpl implements UserService {
 
   private final LinkBuilderServiceImpl linkBuilderService;
 
+  private final ResendThrottle resendThrottle;
+
+  private final CacheInvalidationBus cacheInvalidationBus;
+
   /**
    * Constructor for UserServiceImpl.
    *
@@ -64,7 +75,9 @@ public class UserServiceImpl implements UserService {
       OtpService otpService,
       NotificationService notificationService,
       JwtTokenGenerator jwtTokenGenerator,
-      LinkBuilderServiceImpl linkBuilderService) {
+      LinkBuilderServiceImpl linkBuilderService,
+      ResendThrottle resendThrottle,
+      CacheInvalidationBus cacheInvalidationBus) {
     this.passwordEncoder = passwordEncoder;
     this.userDao = userDao;
     this.roleService = roleService;
@@ -72,6 +85,8 @@ public class UserServiceImpl implements UserService {
     this.notificationService = notificationService;
     this.jwtTokenGenerator = jwtTokenGenerator;
     this.linkBuilderService = linkBuilderService;
+    this.resendThrottle = resendThrottle;
+    this.cacheInvalidationBus = cacheInvalidationBus;
   }
 
   /**
@@ -80,6 +95,7 @@ public class UserServiceImpl implements UserService {
    * @param requestDto the request dto containing user details
    */
   @Override
+  @Transactional(rollbackFor = ServiceLayerException.class)
   @LogActivity(action = "CREATE", entityType = "USER", description = "New user created")
   public UserCreateResponseDto createUser(UserCreateRequestDto requestDto, Long accountId)
       throws ServiceLayerException {
@@ -89,11 +105,14 @@ public class UserServiceImpl implements UserService {
       User createdUser = persistUser(user);
 
       // Generate OTP and send user creation email with verification link
-      String otp = generateAndStoreOtp(createdUser.getEmail());
-      notificationService.sendUserCreationWithLink(
-          createdUser.getFirstName(),
+      sendFirstOtp(
           createdUser.getEmail(),
-          linkBuilderService.buildUserVerificationLink(otp, accountId, createdUser.getEmail()));
+          otp ->
+              notificationService.sendUserCreationWithLink(
+                  createdUser.getFirstName(),
+                  createdUser.getEmail(),
+                  linkBuilderService.buildUserVerificationLink(
+                      otp, accountId, createdUser.getEmail())));
 
       return USER_MAPPER.convertUserToUserCreateResponseDto(createdUser);
     } catch (Exception e) {
@@ -114,9 +133,11 @@ public class UserServiceImpl implements UserService {
       User user = buildRootUser(requestDto, accountId, roles);
       User createdUser = persistUser(user);
 
-      String otp = generateAndStoreOtp(createdUser.getEmail());
-      notificationService.sendAccountCreationSuccessfulWithOtp(
-          createdUser.getFirstName(), createdUser.getEmail(), otp);
+      sendFirstOtp(
+          createdUser.getEmail(),
+          otp ->
+              notificationService.sendAccountCreationSuccessfulWithOtp(
+                  createdUser.getFirstName(), createdUser.getEmail(), otp));
       return createdUser;
     } catch (ResourceAlreadyExistException e) {
       log.error("Root user already exists: {}", e.getMessage());
@@ -127,6 +148,31 @@ public class UserServiceImpl implements UserService {
     }
   }
 
+  @Override
+  @Transactional(rollbackFor = ServiceLayerException.class)
+  public User createAccountWithRootUser(Account account, RootUserCreateRequestDto requestDto)
+      throws ServiceLayerException {
+    try {
+      User user = buildRootUser(requestDto, null, null);
+      if (!userDao.createWithAccount(account, user)) {
+        log.warn("Account with name '{}' already exists", account.getName());
+        throw new ResourceAlreadyExistException("Account with this name already exists");
+      }
+
+      sendFirstOtp(
+          user.getEmail(),
+          otp ->
+              notificationService.sendAccountCreationSuccessfulWithOtp(
+                  user.getFirstName(), user.getEmail(), otp));
+      return user;
+    } catch (ResourceAlreadyExistException e) {
+      throw e;
+    } catch (Exception e) {
+      log.error("Error creating account with root user: {}", e.getMessage(), e);
+      throw new ServiceLayerException("Failed to create account with root user", e);
+    }
+  }
+
   private void validateUserDoesNotExist(Long accountId, String email)
       throws ResourceAlreadyExistException {
     if (isUserAlreadyExists(accountId, email)) {
@@ -156,6 +202,35 @@ public class UserServiceImpl implements UserService {
     return userDao.create(user);
   }
 
+  /** Sends an email carrying a freshly generated OTP. */
+  @FunctionalInterface
+  private interface OtpEmail {
+    void send(String otp) throws ServiceLayerException;
+  }
+
+  /**
+   * Sends the first OTP of a new user and starts the resend cooldown of the email, so that an
+   * immediate resend reuses it. An email still within its cooldown, e.g. because another account
+   * has just invited it, gets nothing now; the user may ask for a resend once the cooldown is over.
+   *
+   * @param email the email of the new user
+   * @param otpEmail sends the email carrying the generated OTP
+   * @throws ServiceLayerException if the OTP cannot be generated or the email cannot be sent
+   */
+  private void sendFirstOtp(String email, OtpEmail otpEmail) throws ServiceLayerException {
+    String throttleKey = resendThrottleKey(email);
+    if (!resendThrottle.tryAcquire(throttleKey).isZero()) {
+      log.warn("Not sending an OTP to {}: one was sent within the resend cooldown", email);
+      return;
+    }
+    try {
+      otpEmail.send(generateAndStoreOtp(email));
+    } catch (ServiceLayerException | RuntimeException e) {
+      resendThrottle.release(throttleKey);
+      throw e;
+    }
+  }
+
   /**
    * Generates a new OTP and stores it in the database for the given email.
    *
@@ -421,6 +496,7 @@ public class UserServiceImpl implements UserService {
     if (requestDto.getRoleIds() != null && !requestDto.getRoleIds().isEmpty()) {
       updateUserRoles(accountId, userId, requestDto.getRoleIds());
     }
+    cacheInvalidationBus.publish(Entity.USER, userId);
     log.info(
         "Successfully updated user profile and roles for user ID: {} in account: {}",
         userId,
@@ -428,7 +504,7 @@ public class UserServiceImpl implements UserService {
   }
 
   private void updateProfileInformation(
-      Long userId, Long accountId, UserUpdateRequestDto requestDto) throws ServiceLayerException {
+      Long accountId, Long userId, UserUpdateRequestDto requestDto) throws ServiceLayerException {
     try {
       Map<String, Object> updateMap = new HashMap<>();
       updateMap.put("first_name", requestDto.getFirstName());
@@ -509,14 +585,22 @@ public class UserServiceImpl implements UserService {
   }
 
   /**
-   * Resends the OTP (One-Time Password) to the specified email.
+   * Resends the OTP (One-Time Password) to the specified email. Within the resend cooldown of the
+   * email, nothing is sent and the pending email is reused.
    *
    * @param accountId the ID of the account to which the user belongs
    * @param email the email to which the OTP should be resent
+   * @return whether an OTP was sent and the cooldown until the next resend
    * @throws ServiceLayerException if there is an error during the process
    */
   @Override
-  public void resendOtpForUserCreation(Long accountId, String email) throws ServiceLayerException {
+  public OtpResendResponseDto resendOtpForUserCreation(Long accountId, String email)
+      throws ServiceLayerException {
+    String throttleKey = resendThrottleKey(email);
+    Duration remaining = resendThrottle.tryAcquire(throttleKey);
+    if (!remaining.isZero()) {
+      return new OtpResendResponseDto(false, toRetryAfterSeconds(remaining));
+    }
 
     try {
       User user = findByAccountIdAndEmail(accountId, email);
@@ -525,27 +609,49 @@ public class UserServiceImpl implements UserService {
           user.getFirstName(),
           user.getEmail(),
           linkBuilderService.buildUserVerificationLink(otp, accountId, email));
+      return new OtpResendResponseDto(true, toRetryAfterSeconds(resendThrottle.getCooldown()));
     } catch (Exception e) {
+      resendThrottle.release(throttleKey);
       throw new ServiceLayerException("Failed to resend OTP for User creation", e);
     }
   }
 
   /**
-   * Resends the OTP (One-Time Password) to the specified email for account creation.
+   * Resends the OTP (One-Time Password) to the specified email for account creation. Within the
+   * resend cooldown of the email, nothing is sent and the pending email is reused.
    *
    * @param accountId the ID of the account to which the user belongs
    * @param email the email to which the OTP should be resent
+   * @return whether an OTP was sent and the cooldown until the next resend
    * @throws ServiceLayerException if there is an error during the process
    */
   @Override
-  public void resendOtpForAccountCreation(Long accountId, String email)
+  public OtpResendResponseDto resendOtpForAccountCreation(Long accountId, String email)
       throws ServiceLayerException {
+    String throttleKey = resendThrottleKey(email);
+    Duration remaining = resendThrottle.tryAcquire(throttleKey);
+    if (!remaining.isZero()) {
+      return new OtpResendResponseDto(false, toRetryAfterSeconds(remaining));
+    }
+
     try {
       User user = findByAccountIdAndEmail(accountId, email);
       String otp = generateAndStoreOtp(user.getEmail());
       notificationService.resendOtpForAccountCreation(user.getFirstName(), user.getEmail(), otp);
+      return new OtpResendResponseDto(true, toRetryAfterSeconds(resendThrottle.getCooldown()));
     } catch (Exception e) {
+      resendThrottle.release(throttleKey);
       throw new ServiceLayerException("Failed to resend OTP for Account creation OTP", e);
     }
   }
+
+  /** The cooldown is per recipient, whichever account the email is sent for. */
+  private static String resendThrottleKey(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private static long toRetryAfterSeconds(Duration remaining) {
+    // Round up so clients never retry a moment too early
+    return (remaining.toMillis() + 999) / 1000;
+  }
 }
@@ -0,0 +1,88 @@
+package com.spring.security.util;
+
+/**
+ * Utility class holding the replica routing state of the request handled on the current thread: the
+ * WAL position a replica must have replayed to serve its reads, whether the request has used the
+ * primary, and, for requests that may write, the primary's WAL position once it was done with them.
+ * The state is started and stopped by the ReadYourWritesFilter; outside a request reads may go to
+ * any replica that is caught up.
+ */
+public final class ReplicaRoutingContext {
+
+  private static final class State {
+    private final long minLsn;
+    private final boolean tracksWrites;
+    private boolean primaryUsed;
+    private long writeLsn;
+
+    private State(long minLsn, boolean tracksWrites) {
+      this.minLsn = minLsn;
+      this.tracksWrites = tracksWrites;
+    }
+  }
+
+  private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+  private ReplicaRoutingContext() {}
+
+  /**
+   * Starts routing state on the current thread.
+   *
+   * @param minLsn the WAL position replicas must have replayed, or 0 for any
+   * @param tracksWrites whether the request may write, so the primary's WAL position is recorded
+   *     each time it returns a primary connection
+   */
+  public static void start(long minLsn, boolean tracksWrites) {
+    STATE.set(new State(minLsn, tracksWrites));
+  }
+
+  /** Returns the WAL position replicas must have replayed, or 0 if any replica will do. */
+  public static long minLsn() {
+    State state = STATE.get();
+    return state == null ? 0 : state.minLsn;
+  }
+
+  /** Records that the current request used the primary, so its later reads stay there. */
+  public static void markPrimaryUsed() {
+    State state = STATE.get();
+    if (state != null) {
+      state.primaryUsed = true;
+    }
+  }
+
+  /** Returns whether the current request has used the primary. */
+  public static boolean primaryUsed() {
+    State state = STATE.get();
+    return state != null && state.primaryUsed;
+  }
+
+  /** Returns whether the current request records the primary's WAL position after using it. */
+  public static boolean tracksWrites() {
+    State state = STATE.get();
+    return state != null && state.tracksWrites;
+  }
+
+  /**
+   * Records the primary's WAL position, read on a connection of the current request after its work
+   * on it was done.
+   *
+   * @param lsn the WAL position
+   */
+  public static void recordWriteLsn(long lsn) {
+    State state = STATE.get();
+    if (state != null) {
+      state.writeLsn = Math.max(state.writeLsn, lsn);
+    }
+  }
+
+  /** Returns the last WAL position recorded for the current request, or 0 if none was. */
+  public static long writeLsn() {
+    State state = STATE.get();
+    return state == null ? 0 : state.writeLsn;
+  }
+
+  /** Stops routing state on the current thread. */
+  public static void stop() {
+    STATE.remove();
+  }
+}
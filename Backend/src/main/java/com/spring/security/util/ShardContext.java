@@ -0,0 +1,79 @@
+package com.spring.security.util;
+
+/**
+ * Utility class holding the shard the current thread's database work is routed to. It is set by the
+ * ShardRoutingAspect from the {@code @ShardKey} of a call; without one, work goes to the home
+ * database, shard {@value #HOME}.
+ *
+ * <p>Within a request the first shard resolved sticks until the ShardContextFilter ends the
+ * request, so calls that carry no key of their own (e.g. an OTP looked up by email) reach the same
+ * shard as the calls before them.
+ */
+public final class ShardContext {
+
+  /** The ID of the home database, which also holds the shard directory. */
+  public static final int HOME = 0;
+
+  /**
+   * A shard to route to, and whether the tenant being routed is being moved off it.
+   *
+   * @param shardId the shard ID
+   * @param moving whether writes must be refused while the tenant is copied to another shard
+   */
+  public record Route(int shardId, boolean moving) {
+
+    /** The route to the home database. */
+    public static final Route HOME = new Route(ShardContext.HOME, false);
+  }
+
+  private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> IN_REQUEST = new ThreadLocal<>();
+
+  private ShardContext() {}
+
+  /** Returns the route of the current thread, or null if none has been set. */
+  public static Route current() {
+    return ROUTE.get();
+  }
+
+  /** Returns the shard the current thread is routed to. */
+  public static int shardId() {
+    Route route = ROUTE.get();
+    return route == null ? HOME : route.shardId();
+  }
+
+  /** Returns whether the tenant the current thread is routed for is being moved. */
+  public static boolean moving() {
+    Route route = ROUTE.get();
+    return route != null && route.moving();
+  }
+
+  /**
+   * Routes the current thread.
+   *
+   * @param route the route, or null to go back to the home database
+   */
+  public static void set(Route route) {
+    if (route == null) {
+      ROUTE.remove();
+    } else {
+      ROUTE.set(route);
+    }
+  }
+
+  /** Marks the start of a request, whose first route sticks until {@link #endRequest()}. */
+  public static void startRequest() {
+    IN_REQUEST.set(Boolean.TRUE);
+  }
+
+  /** Returns whether the current thread is handling a request. */
+  public static boolean inRequest() {
+    return IN_REQUEST.get() != null;
+  }
+
+  /** Ends the request and clears its route. */
+  public static void endRequest() {
+    IN_REQUEST.remove();
+    ROUTE.remove();
+  }
+}
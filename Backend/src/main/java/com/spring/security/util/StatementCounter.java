@@ -0,0 +1,39 @@
+package com.spring.security.util;
+
+/**
+ * Utility class counting the SQL statements run on the current thread while a request is being
+ * handled. Counting is started and stopped by the StatementBudgetFilter and fed by the MyBatis
+ * statement interceptor; outside a request, {@link #increment()} does nothing.
+ */
+public final class StatementCounter {
+
+  private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+  private StatementCounter() {}
+
+  /** Starts counting on the current thread from zero. */
+  public static void start() {
+    COUNT.set(new int[1]);
+  }
+
+  /** Counts one statement if counting is active on the current thread. */
+  public static void increment() {
+    int[] count = COUNT.get();
+    if (count != null) {
+      count[0]++;
+    }
+  }
+
+  /** Returns the number of statements counted so far, or 0 if counting is not active. */
+  public static int current() {
+    int[] count = COUNT.get();
+    return count == null ? 0 : count[0];
+  }
+
+  /** Stops counting on the current thread and returns the final count. */
+  public static int stop() {
+    int count = current();
+    COUNT.remove();
+    return count;
+  }
+}
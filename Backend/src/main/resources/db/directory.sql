@@ -0,0 +1,37 @@
+-- ========================
+-- Shard Directory
+-- ========================
+-- Held on the home database when tenants are spread over shards (db.shards.urls). Every account
+-- maps to the shard holding its rows; account names and root user emails are unique across all
+-- shards, so lookups by either go through the directory too. While an account is being moved to
+-- another shard it is marked as moving and its writes are refused.
+CREATE TABLE IF NOT EXISTS account_directory (
+    account_id INT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    shard_id INT NOT NULL,
+    moving BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Counts a shard's accounts when placing new ones
+CREATE INDEX IF NOT EXISTS idx_account_directory_shard ON account_directory(shard_id);
+
+CREATE TABLE IF NOT EXISTS root_user_directory (
+    email VARCHAR(255) PRIMARY KEY,
+    account_id INT NOT NULL REFERENCES account_directory(account_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_root_user_directory_account ON root_user_directory(account_id);
+
+-- Backfill the accounts created before sharding was enabled, which all live on the home database;
+-- once they are registered this inserts nothing
+INSERT INTO account_directory (account_id, name, shard_id)
+SELECT a.id, a.name, 0 FROM accounts a
+WHERE NOT EXISTS (SELECT 1 FROM account_directory d WHERE d.account_id = a.id)
+ON CONFLICT DO NOTHING;
+
+INSERT INTO root_user_directory (email, account_id)
+SELECT u.email, u.account_id FROM users u
+JOIN account_directory d ON d.account_id = u.account_id AND d.shard_id = 0
+WHERE u.is_root
+ON CONFLICT (email) DO NOTHING;
@@ -44,6 +44,8 @@ CREATE TABLE IF NOT EXISTS users (
 
 -- Index for fast login
 CREATE INDEX IF NOT EXISTS idx_users_account_email ON users(account_id, email);
+-- Finds an account's root user without reading its other users
+CREATE INDEX IF NOT EXISTS idx_users_account_root ON users(account_id) WHERE is_root;
 
 -- ========================
 -- Roles
@@ -108,11 +110,22 @@ CREATE TABLE IF NOT EXISTS otp_codes (
     created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
     expires_at TIMESTAMPTZ NOT NULL,
     used BOOLEAN DEFAULT FALSE,
+    attempts INT NOT NULL DEFAULT 0, -- failed validations, counted on every node
     CHECK (user_id IS NOT NULL OR email IS NOT NULL) -- must have one
 );
+-- Tables created before the attempt counter existed get it here
+ALTER TABLE otp_codes ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
 
 CREATE INDEX IF NOT EXISTS idx_otp_user_expires ON otp_codes(user_id, expires_at, used);
 
+-- One OTP per email: issuance upserts on this index. Older duplicates are dropped before the
+-- index is created; once it exists this delete finds nothing.
+DELETE FROM otp_codes a USING otp_codes b
+WHERE a.email = b.email AND (a.created_at, a.id) < (b.created_at, b.id);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_otp_codes_email ON otp_codes(email);
+-- Supports the scheduled purge of expired codes
+CREATE INDEX IF NOT EXISTS idx_otp_codes_expires_at ON otp_codes(expires_at);
+
 -- ========================
 -- Activity Logs
 -- ========================
@@ -130,6 +143,91 @@ CREATE TABLE IF NOT EXISTS activity_logs (
     created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Supports the cold-tier archiver scanning for rows past retention
+CREATE INDEX IF NOT EXISTS idx_activity_logs_created_at ON activity_logs(created_at, id);
+-- Support the per-account and per-user activity feeds, newest first, and the account reaper
+CREATE INDEX IF NOT EXISTS idx_activity_logs_account_created ON activity_logs(account_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_activity_logs_user_created ON activity_logs(user_id, created_at DESC);
+
+-- Single row leased by the node running the archiver, so only one node archives at a time
+CREATE TABLE IF NOT EXISTS activity_log_archive_lease (
+    id SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    leased_by TEXT NOT NULL,
+    lease_until TIMESTAMPTZ NOT NULL
+);
+
+-- ========================
+-- Email Outbox
+-- ========================
+-- Notifications are written here in the same transaction as the change that triggers them and
+-- delivered by the outbox dispatcher. Delivered rows are deleted; DEAD rows are kept for review,
+-- without their template variables, until they are purged after email.outbox.dead-retention.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    template VARCHAR(100) NOT NULL,
+    variables JSONB NOT NULL DEFAULT '{}',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENDING', 'DEAD')),
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMPTZ,
+    last_error TEXT,
+    created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON email_outbox(next_attempt_at) WHERE status <> 'DEAD';
+-- Lets the dispatcher find lapsed claims without scanning the pending backlog
+CREATE INDEX IF NOT EXISTS idx_email_outbox_lease ON email_outbox(locked_until) WHERE status = 'SENDING';
+-- Lets the purge find expired dead letters
+CREATE INDEX IF NOT EXISTS idx_email_outbox_dead ON email_outbox(created_at) WHERE status = 'DEAD';
+
+-- ========================
+-- Account Stats
+-- ========================
+-- Per-account user counters kept up to date by triggers on users, so reading an account's stats
+-- is a primary-key lookup instead of a scan of its users. A periodic job reconciles any drift.
+CREATE TABLE IF NOT EXISTS account_stats (
+    account_id INT PRIMARY KEY REFERENCES accounts(id) ON DELETE CASCADE,
+    total_users BIGINT NOT NULL DEFAULT 0,
+    active_users BIGINT NOT NULL DEFAULT 0,
+    inactive_users BIGINT NOT NULL DEFAULT 0,
+    failed_login_users BIGINT NOT NULL DEFAULT 0,
+    pending_invitations BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Backfill accounts created before the counters existed; once every account has a row this
+-- inserts nothing
+INSERT INTO account_stats (account_id, total_users, active_users, inactive_users, failed_login_users, pending_invitations)
+SELECT a.id,
+       COUNT(u.id),
+       COUNT(*) FILTER (WHERE u.status = 'ACTIVE'),
+       COUNT(*) FILTER (WHERE u.status = 'INACTIVE'),
+       COUNT(*) FILTER (WHERE u.failed_login_attempts > 0),
+       COUNT(*) FILTER (WHERE u.status = 'CREATED')
+FROM accounts a LEFT JOIN users u ON u.account_id = a.id
+WHERE NOT EXISTS (SELECT 1 FROM account_stats s WHERE s.account_id = a.id)
+GROUP BY a.id
+ON CONFLICT (account_id) DO NOTHING;
+
+-- ========================
+-- Account Reaper Jobs
+-- ========================
+-- One row per deleted account being purged. The phase is the checkpoint a purge resumes from; the
+-- lease keeps a purge on one node at a time and lapses if that node dies. Finished jobs are kept
+-- as a record of the purge.
+CREATE TABLE IF NOT EXISTS account_reaper_jobs (
+    account_id INT PRIMARY KEY,
+    phase VARCHAR(20) NOT NULL DEFAULT 'USER_ROLES',
+    rows_deleted BIGINT NOT NULL DEFAULT 0,
+    leased_by TEXT,
+    lease_until TIMESTAMPTZ,
+    created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMPTZ,
+    completed_at TIMESTAMPTZ
+);
+
 -- ========================
 -- Updated_at Trigger Function
 -- ========================
@@ -162,3 +260,67 @@ BEFORE UPDATE ON roles
 FOR EACH ROW
 EXECUTE FUNCTION update_updated_at_column();
 
+-- Function to create the stats row of a new account
+CREATE OR REPLACE FUNCTION create_account_stats()
+RETURNS TRIGGER AS '
+BEGIN
+    INSERT INTO account_stats (account_id) VALUES (NEW.id) ON CONFLICT (account_id) DO NOTHING;
+    RETURN NEW;
+END;
+' LANGUAGE plpgsql;
+
+-- Function to apply a user insert, delete, status or failed-login change to the account's counters
+CREATE OR REPLACE FUNCTION update_account_stats()
+RETURNS TRIGGER AS '
+DECLARE
+    d_total BIGINT := 0;
+    d_active BIGINT := 0;
+    d_inactive BIGINT := 0;
+    d_failed BIGINT := 0;
+    d_pending BIGINT := 0;
+BEGIN
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        d_total := d_total - 1;
+        d_active := d_active - (OLD.status IS NOT DISTINCT FROM ''ACTIVE'')::int;
+        d_inactive := d_inactive - (OLD.status IS NOT DISTINCT FROM ''INACTIVE'')::int;
+        d_failed := d_failed - (COALESCE(OLD.failed_login_attempts, 0) > 0)::int;
+        d_pending := d_pending - (OLD.status IS NOT DISTINCT FROM ''CREATED'')::int;
+    END IF;
+    IF TG_OP IN (''INSERT'', ''UPDATE'') THEN
+        d_total := d_total + 1;
+        d_active := d_active + (NEW.status IS NOT DISTINCT FROM ''ACTIVE'')::int;
+        d_inactive := d_inactive + (NEW.status IS NOT DISTINCT FROM ''INACTIVE'')::int;
+        d_failed := d_failed + (COALESCE(NEW.failed_login_attempts, 0) > 0)::int;
+        d_pending := d_pending + (NEW.status IS NOT DISTINCT FROM ''CREATED'')::int;
+    END IF;
+
+    -- Most updates (e.g. another failed login) do not move a user between counters
+    IF d_total = 0 AND d_active = 0 AND d_inactive = 0 AND d_failed = 0 AND d_pending = 0 THEN
+        RETURN NULL;
+    END IF;
+
+    -- Every account gets its stats row on creation; if the account is being deleted along with its
+    -- users, the row is already gone and there is nothing to update
+    UPDATE account_stats SET
+        total_users = total_users + d_total,
+        active_users = active_users + d_active,
+        inactive_users = inactive_users + d_inactive,
+        failed_login_users = failed_login_users + d_failed,
+        pending_invitations = pending_invitations + d_pending,
+        updated_at = NOW()
+    WHERE account_id = COALESCE(NEW.account_id, OLD.account_id);
+    RETURN NULL;
+END;
+' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_create_account_stats ON accounts;
+CREATE TRIGGER trigger_create_account_stats
+AFTER INSERT ON accounts
+FOR EACH ROW
+EXECUTE FUNCTION create_account_stats();
+
+DROP TRIGGER IF EXISTS trigger_update_account_stats ON users;
+CREATE TRIGGER trigger_update_account_stats
+AFTER INSERT OR DELETE OR UPDATE OF status, failed_login_attempts ON users
+FOR EACH ROW
+EXECUTE FUNCTION update_account_stats();
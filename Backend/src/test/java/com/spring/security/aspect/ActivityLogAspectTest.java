@@ -0,0 +1,94 @@
+package com.spring.security.aspect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spring.security.annotation.LogActivity;
+import com.spring.security.domain.entity.ActivityLog;
+import com.spring.security.service.ActivityLogService;
+import com.spring.security.service.ActivityLogStreamService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/** Tests when ActivityLogAspect streams the entries it records. */
+class ActivityLogAspectTest {
+
+  private final ActivityLogService activityLogService = mock(ActivityLogService.class);
+  private final ActivityLogStreamService activityLogStreamService =
+      mock(ActivityLogStreamService.class);
+  private final ActivityLogAspect aspect =
+      new ActivityLogAspect(activityLogService, activityLogStreamService);
+  private final LogActivity logActivity = mock(LogActivity.class);
+  private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+
+  @BeforeEach
+  void setUp() throws Throwable {
+    MockHttpServletRequest request =
+        new MockHttpServletRequest("POST", "/api/v1/accounts/42/users");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    when(logActivity.action()).thenReturn("CREATE");
+    when(logActivity.entityType()).thenReturn("USER");
+    when(logActivity.description()).thenReturn("");
+    when(joinPoint.proceed()).thenReturn(7L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void entriesOutsideATransactionAreStreamedAtOnce() throws Throwable {
+    assertThat(aspect.logActivity(joinPoint, logActivity)).isEqualTo(7L);
+
+    ArgumentCaptor<ActivityLog> streamed = ArgumentCaptor.forClass(ActivityLog.class);
+    verify(activityLogStreamService).publish(streamed.capture());
+    assertThat(streamed.getValue().getAccountId()).isEqualTo(42L);
+    assertThat(streamed.getValue().getEntityId()).isEqualTo(7L);
+  }
+
+  @Test
+  void entriesInATransactionAreStreamedOnceItCommits() throws Throwable {
+    TransactionSynchronizationManager.initSynchronization();
+
+    aspect.logActivity(joinPoint, logActivity);
+
+    verify(activityLogService).create(any());
+    verify(activityLogStreamService, never()).publish(any());
+    TransactionSynchronizationUtils.triggerAfterCommit();
+    verify(activityLogStreamService).publish(any());
+  }
+
+  @Test
+  void entriesInATransactionThatRollsBackAreNotStreamed() throws Throwable {
+    when(logActivity.logOnException()).thenReturn(true);
+    when(joinPoint.proceed()).thenThrow(new IllegalStateException("failed"));
+    TransactionSynchronizationManager.initSynchronization();
+
+    assertThatThrownBy(() -> aspect.logActivity(joinPoint, logActivity))
+        .isInstanceOf(IllegalStateException.class);
+
+    TransactionSynchronizationUtils.invokeAfterCompletion(
+        TransactionSynchronizationManager.getSynchronizations(),
+        TransactionSynchronization.STATUS_ROLLED_BACK);
+    verify(activityLogService).create(any());
+    verify(activityLogStreamService, never()).publish(any());
+  }
+}
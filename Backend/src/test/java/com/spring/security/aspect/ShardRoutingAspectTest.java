@@ -0,0 +1,406 @@
+package com.spring.security.aspect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.spring.security.annotation.OnEachShard;
+import com.spring.security.annotation.ShardKey;
+import com.spring.security.component.AccountCache;
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.component.ShardDirectory;
+import com.spring.security.component.ShardDirectoryImpl;
+import com.spring.security.config.ShardRoutingDataSource;
+import com.spring.security.config.ShardSchemaInitializer;
+import com.spring.security.dao.ShardDirectoryDao;
+import com.spring.security.dao.ShardDirectoryDaoImpl;
+import com.spring.security.dao.TenantMoveDaoImpl;
+import com.spring.security.dao.mapper.ShardDirectoryMapper;
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import com.spring.security.service.TenantMoveService;
+import com.spring.security.service.TenantMoveServiceImpl;
+import com.spring.security.util.ShardContext;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Tests shard routing, the shard directory and tenant moves against two embedded PostgreSQL servers
+ * standing in for the home database and a second shard.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardRoutingAspectTest {
+
+  private static EmbeddedPostgres home;
+  private static EmbeddedPostgres shard;
+
+  private AnnotationConfigApplicationContext context;
+  private Probe probe;
+  private ShardDirectory shardDirectory;
+  private ShardDirectoryDao shardDirectoryDao;
+  private ShardRoutingDataSource shards;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    home = EmbeddedPostgres.builder().start();
+    shard = EmbeddedPostgres.builder().start();
+    // Done by spring.sql.init in the application
+    new ResourceDatabasePopulator(
+            new ClassPathResource("db/schema.sql"), new ClassPathResource("db/data.sql"))
+        .execute(home.getPostgresDatabase());
+
+    context = new AnnotationConfigApplicationContext(ShardingConfig.class);
+    probe = context.getBean(Probe.class);
+    shardDirectory = context.getBean(ShardDirectory.class);
+    shardDirectoryDao = context.getBean(ShardDirectoryDao.class);
+    shards = context.getBean(DataSource.class).unwrap(ShardRoutingDataSource.class);
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    context.close();
+    home.close();
+    shard.close();
+  }
+
+  @Test
+  void callsRunOnTheShardOfTheirAccount() throws Exception {
+    long onHome = createAccount(ShardContext.HOME, "routing-home");
+    long onShard = createAccount(1, "routing-shard");
+
+    assertThat(probe.port(onHome)).isEqualTo(home.getPort());
+    assertThat(probe.port(onShard)).isEqualTo(shard.getPort());
+    assertThat(probe.portByName("routing-shard")).isEqualTo(shard.getPort());
+    assertThat(probe.portOf(new AccountRef(onShard))).isEqualTo(shard.getPort());
+    assertThat(probe.port(999_999L)).isEqualTo(home.getPort());
+    assertThat(ShardContext.current()).isNull();
+  }
+
+  @Test
+  void idsAreUniqueAcrossShards() throws Exception {
+    long onHome = createAccount(ShardContext.HOME, "ids-home");
+    long onShard = createAccount(1, "ids-shard");
+
+    assertThat(onHome % 64).isZero();
+    assertThat(onShard % 64).isEqualTo(1);
+  }
+
+  @Test
+  void jobsRunOnEveryShard() throws Exception {
+    int before = probe.countAccounts();
+    createAccount(ShardContext.HOME, "jobs-home");
+    createAccount(1, "jobs-shard");
+
+    assertThat(probe.countAccounts()).isEqualTo(before + 2);
+  }
+
+  @Test
+  void aTransactionCannotContinueOnAnotherShard() throws Exception {
+    long onHome = createAccount(ShardContext.HOME, "span-home");
+    long onShard = createAccount(1, "span-shard");
+
+    assertThatThrownBy(() -> probe.portsInOneTransaction(onHome, onShard))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(probe.portsInOneTransaction(onShard, onShard)).isEqualTo(shard.getPort());
+  }
+
+  @Test
+  void anAccountWhoseRootEmailIsTakenIsNotRegistered() throws Exception {
+    long first = createAccount(1, "root-email-first");
+
+    assertThat(shardDirectory.register(999_001L, "root-email-second", "root@root-email-first", 0))
+        .isFalse();
+
+    assertThat(shardDirectoryDao.findByAccountId(999_001L)).isNull();
+    assertThat(shardDirectoryDao.findByName("root-email-second")).isNull();
+    assertThat(shardDirectoryDao.findByRootEmail("root@root-email-first").getAccountId())
+        .isEqualTo(first);
+  }
+
+  @Test
+  void writesAreRefusedWhileTheAccountIsMoving() throws Exception {
+    long accountId = createAccount(1, "moving");
+    shardDirectoryDao.setMoving(accountId, true);
+    shardDirectory.evict(accountId);
+    try {
+      assertThatThrownBy(() -> probe.rename(accountId, "renamed"))
+          .hasRootCauseInstanceOf(SQLTransientConnectionException.class);
+      assertThat(probe.port(accountId)).isEqualTo(shard.getPort());
+    } finally {
+      shardDirectoryDao.setMoving(accountId, false);
+      shardDirectory.evict(accountId);
+    }
+    probe.rename(accountId, "renamed");
+  }
+
+  @Test
+  void aMovedAccountIsServedByItsNewShard() throws Exception {
+    long accountId = createAccount(ShardContext.HOME, "mover");
+    JdbcTemplate source = new JdbcTemplate(shards.getShard(ShardContext.HOME));
+    long userId =
+        source.queryForObject(
+            "INSERT INTO users (email, status, account_id) VALUES ('member@mover', 'ACTIVE', ?) "
+                + "RETURNING id",
+            Long.class,
+            accountId);
+    source.update(
+        "INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE account_id = ?",
+        userId,
+        accountId);
+    source.update(
+        "INSERT INTO activity_logs (user_id, account_id, action, entity_type) VALUES (?, ?, 'LOGIN', 'USER')",
+        userId,
+        accountId);
+
+    long moved = context.getBean(TenantMoveService.class).move(accountId, 1);
+
+    JdbcTemplate target = new JdbcTemplate(shards.getShard(1));
+    assertThat(moved).isEqualTo(8);
+    assertThat(probe.port(accountId)).isEqualTo(shard.getPort());
+    assertThat(count(target, "SELECT count(*) FROM users WHERE account_id = ?", accountId))
+        .isEqualTo(2);
+    assertThat(
+            count(
+                target,
+                "SELECT count(*) FROM role_permissions rp JOIN roles r ON r.id = rp.role_id "
+                    + "WHERE r.account_id = ?",
+                accountId))
+        .isEqualTo(2);
+    assertThat(count(target, "SELECT count(*) FROM activity_logs WHERE account_id = ?", accountId))
+        .isEqualTo(1);
+    assertThat(
+            count(target, "SELECT total_users FROM account_stats WHERE account_id = ?", accountId))
+        .isEqualTo(2);
+    assertThat(count(source, "SELECT count(*) FROM accounts WHERE id = ?", accountId)).isZero();
+    AccountDirectoryEntry entry = shardDirectoryDao.findByAccountId(accountId);
+    assertThat(entry.getShardId()).isEqualTo(1);
+    assertThat(entry.getMoving()).isFalse();
+    assertThat(shardDirectory.routeByRootEmail("root@mover").shardId()).isEqualTo(1);
+    verify(context.getBean(AccountCache.class)).invalidate(accountId);
+  }
+
+  /** Creates an account with a root user and a role with two permissions on a shard. */
+  private long createAccount(int shardId, String name) throws Exception {
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.getShard(shardId));
+    long accountId =
+        jdbcTemplate.queryForObject(
+            "INSERT INTO accounts (name, status) VALUES (?, 'ACTIVE') RETURNING id",
+            Long.class,
+            name);
+    long roleId =
+        jdbcTemplate.queryForObject(
+            "INSERT INTO roles (name, account_id) VALUES ('ROOT', ?) RETURNING id",
+            Long.class,
+            accountId);
+    jdbcTemplate.update(
+        "INSERT INTO role_permissions (role_id, permission_id) "
+            + "SELECT ?, id FROM permissions WHERE name IN ('IAM:USER:READ', 'IAM:USER:LIST')",
+        roleId);
+    jdbcTemplate.update(
+        "INSERT INTO users (email, status, account_id, is_root) VALUES (?, 'ACTIVE', ?, TRUE)",
+        "root@" + name,
+        accountId);
+    assertThat(shardDirectory.register(accountId, name, "root@" + name, shardId)).isTrue();
+    return accountId;
+  }
+
+  private static long count(JdbcTemplate jdbcTemplate, String sql, long accountId) {
+    return jdbcTemplate.queryForObject(sql, Long.class, accountId);
+  }
+
+  /** An object carrying an account ID, like a request DTO. */
+  static class AccountRef {
+
+    private final Long accountId;
+
+    AccountRef(Long accountId) {
+      this.accountId = accountId;
+    }
+
+    public Long getAccountId() {
+      return accountId;
+    }
+  }
+
+  /** Stands in for the DAOs and jobs, reporting which server it ran on. */
+  static class Probe {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InnerProbe inner;
+
+    Probe(DataSource dataSource, InnerProbe inner) {
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+      this.inner = inner;
+    }
+
+    @Transactional(readOnly = true)
+    public int port(@ShardKey Long accountId) {
+      return jdbcTemplate.queryForObject("SELECT inet_server_port()", Integer.class);
+    }
+
+    @Transactional(readOnly = true)
+    public int portByName(@ShardKey(ShardKey.Type.ACCOUNT_NAME) String name) {
+      return jdbcTemplate.queryForObject("SELECT inet_server_port()", Integer.class);
+    }
+
+    public int portOf(@ShardKey AccountRef account) {
+      return jdbcTemplate.queryForObject("SELECT inet_server_port()", Integer.class);
+    }
+
+    @Transactional
+    public int portsInOneTransaction(@ShardKey Long accountId, Long otherAccountId) {
+      jdbcTemplate.queryForObject("SELECT inet_server_port()", Integer.class);
+      return inner.port(otherAccountId);
+    }
+
+    @Transactional
+    public void rename(@ShardKey Long accountId, String name) {
+      jdbcTemplate.update("UPDATE accounts SET description = ? WHERE id = ?", name, accountId);
+    }
+
+    @OnEachShard
+    public int countAccounts() {
+      return jdbcTemplate.queryForObject("SELECT count(*) FROM accounts", Integer.class);
+    }
+  }
+
+  static class InnerProbe {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    InnerProbe(DataSource dataSource) {
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public int port(@ShardKey Long accountId) {
+      return jdbcTemplate.queryForObject("SELECT inet_server_port()", Integer.class);
+    }
+  }
+
+  @Configuration
+  @EnableAspectJAutoProxy(proxyTargetClass = true)
+  @EnableTransactionManagement
+  static class ShardingConfig {
+
+    @Bean
+    DataSource dataSource() {
+      LazyConnectionDataSourceProxy dataSource =
+          new LazyConnectionDataSourceProxy(
+              ShardRoutingDataSource.create(
+                  Map.of(
+                      ShardContext.HOME,
+                      home.getPostgresDatabase(),
+                      1,
+                      shard.getPostgresDatabase())));
+      dataSource.setDefaultAutoCommit(true);
+      dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      return dataSource;
+    }
+
+    @Bean
+    DataSourceTransactionManager transactionManager(DataSource dataSource) {
+      return new DataSourceTransactionManager(dataSource);
+    }
+
+    @Bean
+    SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+      SqlSessionFactoryBean factory = new SqlSessionFactoryBean();
+      factory.setDataSource(dataSource);
+      return factory.getObject();
+    }
+
+    @Bean
+    MapperFactoryBean<ShardDirectoryMapper> shardDirectoryMapper(
+        SqlSessionFactory sqlSessionFactory) {
+      MapperFactoryBean<ShardDirectoryMapper> mapper =
+          new MapperFactoryBean<>(ShardDirectoryMapper.class);
+      mapper.setSqlSessionFactory(sqlSessionFactory);
+      return mapper;
+    }
+
+    @Bean
+    ShardSchemaInitializer shardSchemaInitializer(DataSource dataSource) throws Exception {
+      return new ShardSchemaInitializer(
+          dataSource,
+          new ClassPathResource("db/schema.sql"),
+          new ClassPathResource("db/data.sql"),
+          new ClassPathResource("db/directory.sql"),
+          "always",
+          64);
+    }
+
+    @Bean
+    ShardDirectoryDaoImpl shardDirectoryDao(ShardDirectoryMapper shardDirectoryMapper) {
+      return new ShardDirectoryDaoImpl(shardDirectoryMapper);
+    }
+
+    @Bean
+    ShardDirectoryImpl shardDirectory(ShardDirectoryDao shardDirectoryDao, DataSource dataSource)
+        throws Exception {
+      return new ShardDirectoryImpl(shardDirectoryDao, dataSource, 1000, Duration.ofMinutes(1));
+    }
+
+    @Bean
+    ShardRoutingAspect shardRoutingAspect(ShardDirectory shardDirectory, DataSource dataSource)
+        throws Exception {
+      return new ShardRoutingAspect(shardDirectory, dataSource);
+    }
+
+    @Bean
+    AccountCache accountCache() {
+      return mock(AccountCache.class);
+    }
+
+    @Bean
+    TenantMoveDaoImpl tenantMoveDao(DataSource dataSource) throws Exception {
+      return new TenantMoveDaoImpl(dataSource);
+    }
+
+    @Bean
+    TenantMoveServiceImpl tenantMoveService(
+        ShardDirectoryDao shardDirectoryDao,
+        TenantMoveDaoImpl tenantMoveDao,
+        ShardDirectory shardDirectory,
+        AccountCache accountCache) {
+      return new TenantMoveServiceImpl(
+          shardDirectoryDao,
+          tenantMoveDao,
+          shardDirectory,
+          accountCache,
+          mock(CacheInvalidationBus.class),
+          Duration.ZERO);
+    }
+
+    @Bean
+    InnerProbe innerProbe(DataSource dataSource) {
+      return new InnerProbe(dataSource);
+    }
+
+    @Bean
+    Probe probe(DataSource dataSource, InnerProbe innerProbe) {
+      return new Probe(dataSource, innerProbe);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.spring.security.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spring.security.dao.AccountDao;
+import com.spring.security.domain.entity.Account;
+import com.spring.security.domain.entity.enums.AccountStatus;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Tests AccountCacheImpl against a mocked AccountDao. */
+class AccountCacheImplTest {
+
+  private final AccountDao accountDao = mock(AccountDao.class);
+
+  private static Account account(long id, AccountStatus status) {
+    Account account = new Account();
+    account.setId(id);
+    account.setName("account-" + id);
+    account.setStatus(status);
+    return account;
+  }
+
+  @Test
+  void loadsOnceAndServesByIdAndName() throws Exception {
+    AccountCacheImpl cache = new AccountCacheImpl(accountDao, 100, Duration.ofMinutes(10));
+    when(accountDao.findById(1L)).thenReturn(account(1, AccountStatus.ACTIVE));
+
+    assertThat(cache.get(1L).getName()).isEqualTo("account-1");
+    assertThat(cache.get(1L).getName()).isEqualTo("account-1");
+    assertThat(cache.getByName("account-1").getId()).isEqualTo(1L);
+
+    verify(accountDao, times(1)).findById(1L);
+    verify(accountDao, times(0)).findByName("account-1");
+  }
+
+  @Test
+  void invalidateReloadsUpdatedStatus() throws Exception {
+    AccountCacheImpl cache = new AccountCacheImpl(accountDao, 100, Duration.ofMinutes(10));
+    when(accountDao.findById(1L))
+        .thenReturn(account(1, AccountStatus.ACTIVE))
+        .thenReturn(account(1, AccountStatus.DELETED));
+
+    assertThat(cache.isUsable(1L)).isTrue();
+    cache.invalidate(1L);
+    assertThat(cache.isUsable(1L)).isFalse();
+    verify(accountDao, times(2)).findById(1L);
+  }
+
+  @Test
+  void suspendedAndMissingAccountsAreNotUsable() throws Exception {
+    AccountCacheImpl cache = new AccountCacheImpl(accountDao, 100, Duration.ofMinutes(10));
+    when(accountDao.findById(1L)).thenReturn(account(1, AccountStatus.SUSPENDED));
+    when(accountDao.findById(2L)).thenReturn(account(2, AccountStatus.CREATED));
+
+    assertThat(cache.isUsable(1L)).isFalse();
+    assertThat(cache.isUsable(2L)).isTrue();
+    assertThat(cache.isUsable(3L)).isFalse();
+  }
+
+  @Test
+  void expiredEntriesAreReloaded() throws Exception {
+    AccountCacheImpl cache = new AccountCacheImpl(accountDao, 100, Duration.ZERO);
+    when(accountDao.findById(1L)).thenReturn(account(1, AccountStatus.ACTIVE));
+
+    cache.get(1L);
+    cache.get(1L);
+    verify(accountDao, times(2)).findById(1L);
+  }
+
+  @Test
+  void staysWithinMaxSize() throws Exception {
+    AccountCacheImpl cache = new AccountCacheImpl(accountDao, 10, Duration.ofMinutes(10));
+    AtomicInteger loads = new AtomicInteger();
+    when(accountDao.findById(anyLong()))
+        .thenAnswer(
+            invocation -> {
+              loads.incrementAndGet();
+              return account(invocation.getArgument(0), AccountStatus.ACTIVE);
+            });
+
+    for (long id = 1; id <= 100; id++) {
+      cache.get(id);
+    }
+    loads.set(0);
+    for (long id = 1; id <= 100; id++) {
+      cache.get(id);
+    }
+    // At most 10 of the 100 accounts can still be cached
+    assertThat(loads.get()).isGreaterThanOrEqualTo(90);
+  }
+}
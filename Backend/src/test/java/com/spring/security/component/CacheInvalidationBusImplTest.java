@@ -0,0 +1,265 @@
+package com.spring.security.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.component.CacheInvalidationBus.Entity;
+import com.spring.security.config.ConcurrencyLimitingDataSource;
+import com.spring.security.util.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests CacheInvalidationBusImpl with two buses standing in for two nodes sharing an embedded
+ * PostgreSQL server, reached through a small pool behind a {@link ConcurrencyLimitingDataSource} as
+ * in the application.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CacheInvalidationBusImplTest {
+
+  private static final int POOL_SIZE = 2;
+
+  private EmbeddedPostgres postgres;
+  private HikariDataSource pool;
+  private DataSource dataSource;
+  private CacheInvalidationBusImpl nodeA;
+  private CacheInvalidationBusImpl nodeB;
+  private final Recorder recorderA = new Recorder();
+  private final Recorder recorderB = new Recorder();
+  private TransactionTemplate transactionTemplate;
+
+  /** Records the calls a cache receives. */
+  private static class Recorder implements CacheInvalidationListener {
+    private final List<Map.Entry<Entity, Set<Long>>> invalidations = new CopyOnWriteArrayList<>();
+    private final AtomicInteger flushes = new AtomicInteger();
+
+    @Override
+    public void invalidate(Entity entity, Set<Long> keys) {
+      invalidations.add(Map.entry(entity, Set.copyOf(keys)));
+    }
+
+    @Override
+    public void invalidateAll() {
+      flushes.incrementAndGet();
+    }
+
+    private Set<Long> keys(Entity entity) {
+      return invalidations.stream()
+          .filter(i -> i.getKey() == entity)
+          .flatMap(i -> i.getValue().stream())
+          .collect(Collectors.toSet());
+    }
+  }
+
+  @BeforeAll
+  void setUp() throws Exception {
+    postgres = EmbeddedPostgres.builder().start();
+    pool = new HikariDataSource();
+    pool.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+    pool.setMaximumPoolSize(POOL_SIZE);
+    dataSource = new ConcurrencyLimitingDataSource(pool, POOL_SIZE, Duration.ofMillis(500), 100);
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    nodeA = node(recorderA);
+    nodeB = node(recorderB);
+    await(() -> recorderA.flushes.get() > 0 && recorderB.flushes.get() > 0);
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    nodeA.stop();
+    nodeB.stop();
+    pool.close();
+    postgres.close();
+  }
+
+  @BeforeEach
+  void clearRecorders() {
+    recorderA.invalidations.clear();
+    recorderB.invalidations.clear();
+  }
+
+  private CacheInvalidationBusImpl node(Recorder recorder) throws Exception {
+    DataSourceProperties properties = new DataSourceProperties();
+    properties.setUrl(postgres.getJdbcUrl("postgres", "postgres"));
+    properties.setUsername("postgres");
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("recorder", recorder);
+    CacheInvalidationBusImpl bus =
+        new CacheInvalidationBusImpl(
+            dataSource,
+            properties,
+            beanFactory.getBeanProvider(CacheInvalidationListener.class),
+            true,
+            "cache_invalidation",
+            Duration.ofMillis(200),
+            Duration.ofMillis(100),
+            1000);
+    bus.start();
+    return bus;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime() - deadline).as("condition met in time").isNegative();
+      Thread.sleep(20);
+    }
+  }
+
+  @Test
+  void invalidationsReachEveryNode() throws Exception {
+    nodeA.publish(Entity.ACCOUNT, 1L);
+
+    await(() -> recorderB.keys(Entity.ACCOUNT).contains(1L));
+    await(() -> recorderA.keys(Entity.ACCOUNT).contains(1L));
+  }
+
+  @Test
+  void invalidationsInATransactionAreSentOnceAfterCommit() throws Exception {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          nodeA.publish(Entity.USER, 5L);
+          nodeA.publish(Entity.USER, 5L);
+          nodeA.publish(Entity.USER, 6L);
+          nodeA.publish(Entity.ROLE, 7L);
+          try {
+            Thread.sleep(300);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          assertThat(recorderB.invalidations).isEmpty();
+        });
+
+    await(() -> recorderB.keys(Entity.ROLE).contains(7L));
+    assertThat(recorderB.invalidations)
+        .containsExactlyInAnyOrder(
+            Map.entry(Entity.USER, Set.of(5L, 6L)), Map.entry(Entity.ROLE, Set.of(7L)));
+  }
+
+  @Test
+  void transactionsPublishWhileEveryConnectionIsInUse() throws Exception {
+    CyclicBarrier allConnectionsTaken = new CyclicBarrier(POOL_SIZE);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+    try {
+      List<Future<?>> commits = new ArrayList<>();
+      for (long key = 100; key < 100 + POOL_SIZE; key++) {
+        long accountId = key;
+        commits.add(
+            executor.submit(
+                () ->
+                    transactionTemplate.executeWithoutResult(
+                        status -> {
+                          jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                          nodeA.publish(Entity.ACCOUNT, accountId);
+                          try {
+                            allConnectionsTaken.await(10, TimeUnit.SECONDS);
+                          } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                          }
+                        })));
+      }
+      for (Future<?> commit : commits) {
+        commit.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    await(() -> recorderB.keys(Entity.ACCOUNT).containsAll(Set.of(100L, 101L)));
+  }
+
+  @Test
+  void transactionsOnAnotherShardAreSentOnceCommitted() throws Exception {
+    ShardContext.set(new ShardContext.Route(1, false));
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            nodeA.publish(Entity.ROLE, 11L);
+            status.setRollbackOnly();
+          });
+      transactionTemplate.executeWithoutResult(status -> nodeA.publish(Entity.ROLE, 12L));
+    } finally {
+      ShardContext.set(null);
+    }
+
+    await(() -> recorderB.keys(Entity.ROLE).contains(12L));
+    assertThat(recorderB.keys(Entity.ROLE)).doesNotContain(11L);
+  }
+
+  @Test
+  void rolledBackTransactionsSendNothing() throws Exception {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          nodeA.publish(Entity.USER, 8L);
+          status.setRollbackOnly();
+        });
+    nodeA.publish(Entity.ACCOUNT, 9L);
+
+    await(() -> recorderB.keys(Entity.ACCOUNT).contains(9L));
+    assertThat(recorderB.keys(Entity.USER)).isEmpty();
+  }
+
+  @Test
+  void aNodeFlushesItsCachesAfterReconnecting() throws Exception {
+    int flushesBefore = recorderB.flushes.get();
+
+    new JdbcTemplate(dataSource)
+        .queryForList(
+            "SELECT pg_terminate_backend(pid) FROM pg_stat_activity"
+                + " WHERE application_name = 'cache-invalidation-listener'");
+
+    await(() -> recorderB.flushes.get() > flushesBefore);
+    nodeA.publish(Entity.ACCOUNT, 10L);
+    await(() -> recorderB.keys(Entity.ACCOUNT).contains(10L));
+  }
+
+  @Test
+  void largeKeySetsAreSplitAcrossPayloads() {
+    Set<Long> keys =
+        LongStream.range(1_000_000_000L, 1_000_002_000L).boxed().collect(Collectors.toSet());
+
+    List<String> payloads = CacheInvalidationBusImpl.encode(Map.of(Entity.ROLE, keys));
+
+    assertThat(payloads).hasSizeGreaterThan(1).allMatch(p -> p.length() < 8000);
+    Map<Entity, Set<Long>> decoded = new EnumMap<>(Entity.class);
+    payloads.forEach(p -> assertThat(CacheInvalidationBusImpl.decode(p, decoded)).isTrue());
+    assertThat(decoded).containsExactly(Map.entry(Entity.ROLE, keys));
+  }
+
+  @Test
+  void rejectsMalformedPayloadsAndSkipsUnknownEntities() {
+    Map<Entity, Set<Long>> decoded = new EnumMap<>(Entity.class);
+
+    assertThat(CacheInvalidationBusImpl.decode("A:1,x", decoded)).isFalse();
+    assertThat(CacheInvalidationBusImpl.decode("A1", decoded)).isFalse();
+    assertThat(CacheInvalidationBusImpl.decode("Z:1", decoded)).isTrue();
+    assertThat(decoded).isEmpty();
+  }
+}
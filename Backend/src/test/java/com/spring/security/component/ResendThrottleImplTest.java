@@ -0,0 +1,89 @@
+package com.spring.security.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Tests the per-key cooldown of ResendThrottleImpl. */
+class ResendThrottleImplTest {
+
+  private static final Duration COOLDOWN = Duration.ofSeconds(60);
+
+  @Test
+  void aKeyIsThrottledForTheRestOfItsCooldown() {
+    ResendThrottleImpl throttle = new ResendThrottleImpl(COOLDOWN);
+
+    assertThat(throttle.tryAcquire("user@example.com")).isZero();
+    Duration remaining = throttle.tryAcquire("user@example.com");
+
+    assertThat(remaining).isPositive().isLessThanOrEqualTo(COOLDOWN);
+    assertThat(throttle.tryAcquire("other@example.com")).isZero();
+  }
+
+  @Test
+  void aKeyMayBeAcquiredAgainOnceItsCooldownHasPassed() throws Exception {
+    ResendThrottleImpl throttle = new ResendThrottleImpl(Duration.ofMillis(50));
+    throttle.tryAcquire("user@example.com");
+
+    Thread.sleep(100);
+
+    assertThat(throttle.tryAcquire("user@example.com")).isZero();
+  }
+
+  @Test
+  void releasingAKeyEndsItsCooldown() {
+    ResendThrottleImpl throttle = new ResendThrottleImpl(COOLDOWN);
+    throttle.tryAcquire("user@example.com");
+
+    throttle.release("user@example.com");
+
+    assertThat(throttle.tryAcquire("user@example.com")).isZero();
+  }
+
+  @Test
+  void sweepingKeepsRunningCooldowns() {
+    ResendThrottleImpl throttle = new ResendThrottleImpl(COOLDOWN);
+    throttle.tryAcquire("user@example.com");
+
+    throttle.sweep();
+
+    assertThat(throttle.tryAcquire("user@example.com")).isPositive();
+  }
+
+  @Test
+  void concurrentCallersForAKeyAreCoalescedIntoOne() throws Exception {
+    ResendThrottleImpl throttle = new ResendThrottleImpl(COOLDOWN);
+    int callers = 8;
+    CyclicBarrier start = new CyclicBarrier(callers);
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<Duration>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await(10, TimeUnit.SECONDS);
+                  return throttle.tryAcquire("user@example.com");
+                }));
+      }
+      int acquired = 0;
+      for (Future<Duration> result : results) {
+        if (result.get(10, TimeUnit.SECONDS).isZero()) {
+          acquired++;
+        }
+      }
+
+      assertThat(acquired).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
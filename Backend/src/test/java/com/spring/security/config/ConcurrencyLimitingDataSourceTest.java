@@ -0,0 +1,129 @@
+package com.spring.security.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+/** Tests ConcurrencyLimitingDataSource against a fake data source. */
+class ConcurrencyLimitingDataSourceTest {
+
+  private final AtomicInteger open = new AtomicInteger();
+  private final AtomicInteger maxOpen = new AtomicInteger();
+
+  /** A data source whose connections only track how many are open at once. */
+  DataSource fakeDataSource() {
+    return (DataSource)
+        Proxy.newProxyInstance(
+            DataSource.class.getClassLoader(),
+            new Class<?>[] {DataSource.class},
+            (proxy, method, args) -> {
+              if (!method.getName().equals("getConnection")) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+              return Proxy.newProxyInstance(
+                  Connection.class.getClassLoader(),
+                  new Class<?>[] {Connection.class},
+                  (connection, connectionMethod, connectionArgs) -> {
+                    if (connectionMethod.getName().equals("close")) {
+                      open.decrementAndGet();
+                    }
+                    return null;
+                  });
+            });
+  }
+
+  @Test
+  void limitsConcurrentConnectionsAcrossManyVirtualThreads() throws Exception {
+    DataSource dataSource =
+        new ConcurrencyLimitingDataSource(fakeDataSource(), 4, Duration.ofSeconds(30), 10_000);
+
+    List<Thread> threads = new ArrayList<>();
+    AtomicInteger completed = new AtomicInteger();
+    for (int i = 0; i < 2_000; i++) {
+      threads.add(
+          Thread.ofVirtual()
+              .start(
+                  () -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                      TimeUnit.MICROSECONDS.sleep(200);
+                      completed.incrementAndGet();
+                    } catch (Exception e) {
+                      throw new IllegalStateException(e);
+                    }
+                  }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(completed).hasValue(2_000);
+    assertThat(maxOpen.get()).isLessThanOrEqualTo(4);
+    assertThat(open).hasValue(0);
+  }
+
+  @Test
+  void timesOutWhenNoConnectionFreesUp() throws Exception {
+    DataSource dataSource =
+        new ConcurrencyLimitingDataSource(fakeDataSource(), 1, Duration.ofMillis(50), 10);
+
+    try (Connection held = dataSource.getConnection()) {
+      assertThatThrownBy(dataSource::getConnection)
+          .isInstanceOf(SQLTransientConnectionException.class)
+          .hasMessageContaining("Timed out");
+    }
+    dataSource.getConnection().close();
+  }
+
+  @Test
+  void failsFastWhenTooManyCallersWait() throws Exception {
+    ConcurrencyLimitingDataSource dataSource =
+        new ConcurrencyLimitingDataSource(fakeDataSource(), 1, Duration.ofSeconds(30), 1);
+
+    Connection held = dataSource.getConnection();
+    Thread waiter =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  try {
+                    dataSource.getConnection().close();
+                  } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                  }
+                });
+    while (dataSource.getWaiting() == 0) {
+      Thread.onSpinWait();
+    }
+
+    assertThatThrownBy(dataSource::getConnection)
+        .isInstanceOf(SQLTransientConnectionException.class)
+        .hasMessageContaining("Too many");
+    held.close();
+    waiter.join();
+  }
+
+  @Test
+  void closingTwiceReleasesOnePermit() throws Exception {
+    DataSource dataSource =
+        new ConcurrencyLimitingDataSource(fakeDataSource(), 1, Duration.ofMillis(50), 10);
+
+    Connection connection = dataSource.getConnection();
+    connection.close();
+    connection.close();
+
+    try (Connection first = dataSource.getConnection()) {
+      assertThatThrownBy(dataSource::getConnection)
+          .isInstanceOf(SQLTransientConnectionException.class);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.spring.security.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.util.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Tests the pools DataSourceConfig builds for replicas and shards against embedded PostgreSQL. */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DataSourceConfigTest {
+
+  private EmbeddedPostgres postgres;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    postgres = EmbeddedPostgres.builder().start();
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    postgres.close();
+  }
+
+  @Test
+  void everyPoolIsClosedWithTheContext() {
+    String url = postgres.getJdbcUrl("postgres", "postgres");
+    List<HikariDataSource> pools = new ArrayList<>();
+
+    new ApplicationContextRunner()
+        .withUserConfiguration(DataSourceConfig.class)
+        .withBean(
+            DataSourceProperties.class,
+            () -> {
+              DataSourceProperties properties = new DataSourceProperties();
+              properties.setUrl(url);
+              properties.setUsername("postgres");
+              return properties;
+            })
+        .withPropertyValues(
+            "db.replicas.urls=" + url, "db.shards.urls=" + url, "db.limiter.enabled=false")
+        .run(
+            context -> {
+              DataSource dataSource = context.getBean(DataSource.class);
+              new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+              ShardRoutingDataSource shards = dataSource.unwrap(ShardRoutingDataSource.class);
+              ReplicaRoutingDataSource home =
+                  shards.getShard(ShardContext.HOME).unwrap(ReplicaRoutingDataSource.class);
+              pools.add((HikariDataSource) shards.getShard(1));
+              home.getResolvedDataSources().values().forEach(p -> pools.add((HikariDataSource) p));
+            });
+
+    assertThat(pools).hasSize(3).allMatch(HikariDataSource::isClosed);
+  }
+}
@@ -0,0 +1,168 @@
+package com.spring.security.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.util.ReplicaRoutingContext;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests ReplicaRoutingDataSource against two embedded PostgreSQL servers standing in for a primary
+ * and a replica, plus a replica that cannot be reached.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingDataSourceTest {
+
+  private EmbeddedPostgres primary;
+  private EmbeddedPostgres replica;
+  private ReplicaRoutingDataSource routingDataSource;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    primary = EmbeddedPostgres.builder().start();
+    replica = EmbeddedPostgres.builder().start();
+
+    PGSimpleDataSource unreachable = new PGSimpleDataSource();
+    unreachable.setURL("jdbc:postgresql://localhost:1/postgres");
+    unreachable.setConnectTimeout(1);
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    replicas.put("replica-1", replica.getPostgresDatabase());
+    replicas.put("replica-2", unreachable);
+    routingDataSource = ReplicaRoutingDataSource.create(primary.getPostgresDatabase(), replicas);
+
+    LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+    dataSource.setDefaultAutoCommit(true);
+    dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    primary.close();
+    replica.close();
+  }
+
+  @AfterEach
+  void clearContext() {
+    ReplicaRoutingContext.stop();
+  }
+
+  private int port(TransactionTemplate transactionTemplate) {
+    return transactionTemplate.execute(
+        status -> jdbcTemplate.queryForObject("SELECT inet_server_port()", Integer.class));
+  }
+
+  @Test
+  void readsStayOnThePrimaryUntilAReplicaHasBeenChecked() {
+    ReplicaRoutingDataSource unchecked =
+        ReplicaRoutingDataSource.create(
+            primary.getPostgresDatabase(), Map.of("replica-1", replica.getPostgresDatabase()));
+    DataSource dataSource = new LazyConnectionDataSourceProxy(unchecked);
+    TransactionTemplate transactionTemplate =
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    transactionTemplate.setReadOnly(true);
+    JdbcTemplate template = new JdbcTemplate(dataSource);
+
+    Integer port =
+        transactionTemplate.execute(
+            status -> template.queryForObject("SELECT inet_server_port()", Integer.class));
+
+    assertThat(port).isEqualTo(primary.getPort());
+  }
+
+  @Test
+  void readOnlyTransactionsGoToAnAvailableReplica() {
+    routingDataSource.refreshLag(Duration.ofSeconds(5));
+
+    assertThat(routingDataSource.getReplicas())
+        .extracting(ReplicaRoutingDataSource.Replica::isAvailable)
+        .containsExactly(true, false);
+    for (int i = 0; i < 4; i++) {
+      assertThat(port(readOnly)).isEqualTo(replica.getPort());
+    }
+    assertThat(port(readWrite)).isEqualTo(primary.getPort());
+  }
+
+  @Test
+  void readsAfterUsingThePrimaryStayOnThePrimary() {
+    routingDataSource.refreshLag(Duration.ofSeconds(5));
+    ReplicaRoutingContext.start(0, false);
+
+    assertThat(port(readOnly)).isEqualTo(replica.getPort());
+    assertThat(port(readWrite)).isEqualTo(primary.getPort());
+    assertThat(port(readOnly)).isEqualTo(primary.getPort());
+  }
+
+  @Test
+  void aTokenAheadOfEveryReplicaIsServedByThePrimary() throws Exception {
+    routingDataSource.refreshLag(Duration.ofSeconds(5));
+    // The stand-in replica is not in recovery, so it never satisfies a token
+    ReplicaRoutingContext.start(routingDataSource.currentPrimaryLsn(), false);
+
+    assertThat(port(readOnly)).isEqualTo(primary.getPort());
+  }
+
+  @Test
+  void aWritingRequestRecordsThePrimaryPositionOnItsOwnConnection() throws Exception {
+    // A single connection, so reading the position on another one would time out
+    ReplicaRoutingDataSource limited =
+        ReplicaRoutingDataSource.create(
+            new ConcurrencyLimitingDataSource(
+                primary.getPostgresDatabase(), 1, Duration.ofMillis(200), 1),
+            Map.of());
+    DataSource dataSource = new LazyConnectionDataSourceProxy(limited);
+    TransactionTemplate transactionTemplate =
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    JdbcTemplate template = new JdbcTemplate(dataSource);
+    template.execute("CREATE TABLE IF NOT EXISTS writes (id int)");
+    long before = routingDataSource.currentPrimaryLsn();
+    ReplicaRoutingContext.start(0, true);
+
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          template.update("INSERT INTO writes VALUES (1)");
+          assertThat(ReplicaRoutingContext.writeLsn()).isZero();
+        });
+
+    assertThat(ReplicaRoutingContext.writeLsn()).isGreaterThan(before);
+  }
+
+  @Test
+  void aReadingRequestRecordsNoPosition() {
+    ReplicaRoutingContext.start(0, false);
+
+    assertThat(port(readWrite)).isEqualTo(primary.getPort());
+    assertThat(ReplicaRoutingContext.writeLsn()).isZero();
+  }
+
+  @Test
+  void parsesAndFormatsWalPositions() {
+    long lsn = ReplicaRoutingDataSource.parseLsn("16/B374D848");
+
+    assertThat(lsn).isEqualTo(0x16B374D848L);
+    assertThat(ReplicaRoutingDataSource.formatLsn(lsn)).isEqualTo("16/B374D848");
+    assertThat(ReplicaRoutingDataSource.parseLsn("0/3000060"))
+        .isGreaterThan(ReplicaRoutingDataSource.parseLsn("0/2FFFFFF"));
+  }
+}
@@ -0,0 +1,153 @@
+package com.spring.security.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.spring.security.component.ResendThrottleImpl;
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.exceptions.EmailServiceException;
+import com.spring.security.service.EmailService;
+import com.spring.security.service.ResilientEmailServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the blocking paths used on virtual threads under JFR and fails if a virtual thread got
+ * pinned to its carrier, which would make it hold a platform thread while waiting.
+ */
+class VirtualThreadPinningTest {
+
+  private static final Object MONITOR = new Object();
+
+  private static List<RecordedEvent> pinnedEvents(Runnable workload) throws Exception {
+    List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+    try (RecordingStream stream = new RecordingStream()) {
+      stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+      stream.onEvent("jdk.VirtualThreadPinned", events::add);
+      stream.startAsync();
+      workload.run();
+      stream.stop();
+    }
+    return events;
+  }
+
+  private static void onVirtualThreads(int count, Runnable task) {
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      threads.add(Thread.ofVirtual().start(task));
+    }
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  void detectsPinning() throws Exception {
+    assumeTrue(Runtime.version().feature() < 24, "monitors no longer pin from JDK 24");
+
+    List<RecordedEvent> events =
+        pinnedEvents(
+            () ->
+                onVirtualThreads(
+                    2,
+                    () -> {
+                      synchronized (MONITOR) {
+                        sleep(20);
+                      }
+                    }));
+
+    assertThat(events).isNotEmpty();
+  }
+
+  @Test
+  void connectionLimiterDoesNotPin() throws Exception {
+    DataSource dataSource =
+        new ConcurrencyLimitingDataSource(
+            new ConcurrencyLimitingDataSourceTest().fakeDataSource(),
+            2,
+            Duration.ofSeconds(30),
+            10_000);
+
+    List<RecordedEvent> events =
+        pinnedEvents(
+            () ->
+                onVirtualThreads(
+                    50,
+                    () -> {
+                      try (Connection connection = dataSource.getConnection()) {
+                        sleep(2);
+                      } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                      }
+                    }));
+
+    assertThat(events).isEmpty();
+  }
+
+  @Test
+  void emailBulkheadAndResendThrottleDoNotPin() throws Exception {
+    EmailService slowProvider =
+        new EmailService() {
+          @Override
+          public void sendHtmlEmail(String to, String subject, String htmlContent) {
+            sleep(5);
+          }
+
+          @Override
+          public Map<EmailMessage, EmailServiceException> sendHtmlEmails(
+              List<EmailMessage> messages) {
+            sleep(5);
+            return new IdentityHashMap<>();
+          }
+        };
+    ResilientEmailServiceImpl emailService =
+        new ResilientEmailServiceImpl(
+            slowProvider,
+            new SimpleMeterRegistry(),
+            5,
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(10),
+            2,
+            Duration.ofSeconds(10));
+    ResendThrottleImpl resendThrottle = new ResendThrottleImpl(Duration.ofMinutes(1));
+
+    List<RecordedEvent> events =
+        pinnedEvents(
+            () ->
+                onVirtualThreads(
+                    50,
+                    () -> {
+                      if (resendThrottle.tryAcquire("user@example.com").isZero()) {
+                        resendThrottle.release("user@example.com");
+                      }
+                      emailService.sendHtmlEmails(
+                          List.of(new EmailMessage("user@example.com", "Subject", "<p></p>")));
+                    }));
+
+    assertThat(events).isEmpty();
+  }
+}
@@ -0,0 +1,75 @@
+package com.spring.security.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.spring.security.config.tokens.AccountUserAuthToken;
+import com.spring.security.domain.entity.CustomUserDetails;
+import com.spring.security.service.AccountService;
+import com.spring.security.service.ActivityLogStreamService;
+import com.spring.security.service.OrchestratorServiceImpl;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** Tests that AccountController only streams the activity of the caller's own account. */
+class AccountControllerTest {
+
+  private static final long ACCOUNT_ID = 7L;
+
+  private final ActivityLogStreamService activityLogStreamService =
+      mock(ActivityLogStreamService.class);
+  private final MockMvc mockMvc =
+      MockMvcBuilders.standaloneSetup(
+              new AccountController(
+                  mock(AccountService.class),
+                  mock(OrchestratorServiceImpl.class),
+                  activityLogStreamService))
+          .setControllerAdvice(new ErrorHandlerAdvisor())
+          .build();
+
+  @BeforeEach
+  void signIn() {
+    List<SimpleGrantedAuthority> authorities =
+        List.of(new SimpleGrantedAuthority("IAM:ACCOUNT:READ"));
+    CustomUserDetails user =
+        new CustomUserDetails(ACCOUNT_ID, "reader@example.com", null, authorities);
+    SecurityContextHolder.getContext()
+        .setAuthentication(new AccountUserAuthToken(user, null, ACCOUNT_ID, authorities));
+  }
+
+  @AfterEach
+  void signOut() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void aUserMayWatchTheirOwnAccount() throws Exception {
+    when(activityLogStreamService.subscribe(ACCOUNT_ID, null)).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/api/v1/accounts/{id}/activity-logs/stream", ACCOUNT_ID));
+
+    verify(activityLogStreamService).subscribe(ACCOUNT_ID, null);
+  }
+
+  @Test
+  void aUserMayNotWatchAnotherAccount() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/accounts/{id}/activity-logs/stream", ACCOUNT_ID + 1))
+        .andExpect(status().isForbidden());
+
+    verify(activityLogStreamService, never()).subscribe(anyLong(), any());
+  }
+}
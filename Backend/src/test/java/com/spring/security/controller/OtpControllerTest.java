@@ -0,0 +1,61 @@
+package com.spring.security.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.spring.security.controller.dto.response.OtpResendResponseDto;
+import com.spring.security.service.OrchestratorServiceImpl;
+import com.spring.security.service.OtpService;
+import com.spring.security.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/** Tests the responses of OtpController's resend endpoint. */
+class OtpControllerTest {
+
+  private final UserService userService = mock(UserService.class);
+  private final MockMvc mockMvc =
+      MockMvcBuilders.standaloneSetup(
+              new OtpController(
+                  mock(OtpService.class), userService, mock(OrchestratorServiceImpl.class)))
+          .build();
+
+  @Test
+  void aResendReturnsTheFullCooldown() throws Exception {
+    when(userService.resendOtpForUserCreation(7L, "user@example.com"))
+        .thenReturn(new OtpResendResponseDto(true, 60));
+
+    mockMvc
+        .perform(
+            post("/api/v1/otp/resend")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"user@example.com\",\"accountId\":7}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"))
+        .andExpect(jsonPath("$.resent").value(true))
+        .andExpect(jsonPath("$.retryAfterSeconds").value(60));
+  }
+
+  @Test
+  void aResendWithinTheCooldownIsStillOkAndSaysWhenToRetry() throws Exception {
+    when(userService.resendOtpForAccountCreation(7L, "root@example.com"))
+        .thenReturn(new OtpResendResponseDto(false, 42));
+
+    mockMvc
+        .perform(
+            post("/api/v1/otp/resend")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"root@example.com\",\"accountId\":7,\"root\":true}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "42"))
+        .andExpect(jsonPath("$.resent").value(false))
+        .andExpect(jsonPath("$.retryAfterSeconds").value(42));
+  }
+}
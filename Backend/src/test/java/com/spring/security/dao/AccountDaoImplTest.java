@@ -0,0 +1,122 @@
+package com.spring.security.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.dao.mapper.AccountMapper;
+import com.spring.security.domain.entity.AccountStats;
+import com.spring.security.support.EmbeddedDatabase;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+/**
+ * Tests the account statistics kept by the triggers on users, and their reconciliation, against an
+ * embedded PostgreSQL server.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AccountDaoImplTest {
+
+  private EmbeddedDatabase database;
+  private AccountDao accountDao;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    accountDao = new AccountDaoImpl(database.mapper(AccountMapper.class));
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  private long createAccount(String name) {
+    return database
+        .jdbc()
+        .queryForObject("INSERT INTO accounts (name) VALUES (?) RETURNING id", Long.class, name);
+  }
+
+  private long createUser(long accountId, String email, String status) {
+    return database
+        .jdbc()
+        .queryForObject(
+            "INSERT INTO users (email, status, account_id) VALUES (?, ?, ?) RETURNING id",
+            Long.class,
+            email,
+            status,
+            (int) accountId);
+  }
+
+  private void update(String sql, Object... args) {
+    database.jdbc().update(sql, args);
+  }
+
+  /** Returns the total, active, inactive, failed-login and pending counts, in that order. */
+  private List<Long> stats(long accountId) throws Exception {
+    AccountStats stats = accountDao.getAccountStats(accountId);
+    return List.of(
+        stats.getTotalUsers(),
+        stats.getActiveUsers(),
+        stats.getInactiveUsers(),
+        stats.getFailedLoginAttempts(),
+        stats.getPendingInvitations());
+  }
+
+  @Test
+  void statsFollowUserInsertsUpdatesAndDeletes() throws Exception {
+    long accountId = createAccount("stats-triggers");
+    assertThat(stats(accountId)).containsExactly(0L, 0L, 0L, 0L, 0L);
+
+    long invited = createUser(accountId, "invited@stats.test", "CREATED");
+    long active = createUser(accountId, "active@stats.test", "ACTIVE");
+    assertThat(stats(accountId)).containsExactly(2L, 1L, 0L, 0L, 1L);
+
+    update("UPDATE users SET status = 'ACTIVE' WHERE id = ?", invited);
+    assertThat(stats(accountId)).containsExactly(2L, 2L, 0L, 0L, 0L);
+
+    update("UPDATE users SET failed_login_attempts = 1 WHERE id = ?", active);
+    update("UPDATE users SET failed_login_attempts = 2 WHERE id = ?", active);
+    assertThat(stats(accountId)).containsExactly(2L, 2L, 0L, 1L, 0L);
+
+    update("UPDATE users SET status = 'INACTIVE', failed_login_attempts = 0 WHERE id = ?", active);
+    assertThat(stats(accountId)).containsExactly(2L, 1L, 1L, 0L, 0L);
+
+    update("UPDATE users SET first_name = 'Ada' WHERE id = ?", invited);
+    assertThat(stats(accountId)).containsExactly(2L, 1L, 1L, 0L, 0L);
+
+    update("DELETE FROM users WHERE id = ?", active);
+    assertThat(stats(accountId)).containsExactly(1L, 1L, 0L, 0L, 0L);
+
+    update("DELETE FROM users WHERE id = ?", invited);
+    assertThat(stats(accountId)).containsExactly(0L, 0L, 0L, 0L, 0L);
+  }
+
+  @Test
+  void statsOfADeletedAccountAreGone() throws Exception {
+    long accountId = createAccount("stats-deleted");
+    createUser(accountId, "user@stats.test", "ACTIVE");
+
+    update("DELETE FROM accounts WHERE id = ?", (int) accountId);
+
+    assertThat(accountDao.getAccountStats(accountId)).isNull();
+  }
+
+  @Test
+  void reconcilingCorrectsDriftedStats() throws Exception {
+    long drifted = createAccount("stats-drifted");
+    long accurate = createAccount("stats-accurate");
+    createUser(drifted, "one@stats.test", "ACTIVE");
+    createUser(drifted, "two@stats.test", "CREATED");
+    createUser(accurate, "three@stats.test", "ACTIVE");
+    update(
+        "UPDATE account_stats SET total_users = 7, active_users = 0 WHERE account_id = ?",
+        (int) drifted);
+
+    assertThat(accountDao.reconcileStats(drifted, accurate)).isEqualTo(1);
+
+    assertThat(stats(drifted)).containsExactly(2L, 1L, 0L, 0L, 1L);
+    assertThat(stats(accurate)).containsExactly(1L, 1L, 0L, 0L, 0L);
+  }
+}
@@ -0,0 +1,139 @@
+package com.spring.security.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.spring.security.domain.entity.ActivityLog;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests the segment files written and read by ActivityLogArchiveDaoImpl. */
+class ActivityLogArchiveDaoImplTest {
+
+  private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+  private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+  @TempDir private Path archiveDir;
+
+  private ActivityLogArchiveDaoImpl archive(Duration rescanInterval) throws Exception {
+    ActivityLogArchiveDaoImpl archive =
+        new ActivityLogArchiveDaoImpl(objectMapper, archiveDir.toString(), rescanInterval);
+    archive.loadIndex();
+    return archive;
+  }
+
+  private static ActivityLog entry(long id, long accountId, Instant createdAt) {
+    ActivityLog entry = new ActivityLog();
+    entry.setId(id);
+    entry.setAccountId(accountId);
+    entry.setUserEmail("user" + id + "@archive.test");
+    entry.setAction("LOGIN");
+    entry.setEntityType("USER");
+    entry.setDescription("entry " + id);
+    entry.setCreatedAt(createdAt);
+    return entry;
+  }
+
+  @Test
+  void segmentsRoundTripEveryField() throws Exception {
+    ActivityLogArchiveDaoImpl archive = archive(Duration.ofHours(1));
+    ActivityLog written = entry(1, 10, T0);
+    written.setUserId(7L);
+    written.setEntityId(8L);
+    written.setIpAddress("10.0.0.1");
+    written.setUserAgent("curl/8");
+
+    archive.writeSegment(List.of(written));
+
+    List<ActivityLog> read = archive.findByAccountId(10L);
+    assertThat(read).singleElement().usingRecursiveComparison().isEqualTo(written);
+  }
+
+  @Test
+  void accountsReadOnlyTheirEntriesNewestFirst() throws Exception {
+    ActivityLogArchiveDaoImpl archive = archive(Duration.ofHours(1));
+    archive.writeSegment(
+        List.of(entry(2, 10, T0.plusSeconds(2)), entry(1, 10, T0), entry(3, 20, T0)));
+    archive.writeSegment(List.of(entry(4, 10, T0.plus(1, ChronoUnit.DAYS))));
+
+    assertThat(archive.findByAccountId(10L))
+        .extracting(ActivityLog::getId)
+        .containsExactly(4L, 2L, 1L);
+    assertThat(archive.findByAccountId(20L)).extracting(ActivityLog::getId).containsExactly(3L);
+    assertThat(archive.findByAccountId(30L)).isEmpty();
+  }
+
+  @Test
+  void segmentsAreFoundAfterARestart() throws Exception {
+    archive(Duration.ofHours(1)).writeSegment(List.of(entry(1, 10, T0)));
+
+    assertThat(archive(Duration.ofHours(1)).findByAccountId(10L))
+        .extracting(ActivityLog::getId)
+        .containsExactly(1L);
+  }
+
+  @Test
+  void segmentsWrittenByAnotherNodeAreFoundAfterARescan() throws Exception {
+    ActivityLogArchiveDaoImpl reader = archive(Duration.ZERO);
+    ActivityLogArchiveDaoImpl writer = archive(Duration.ZERO);
+    assertThat(reader.findByAccountId(10L)).isEmpty();
+
+    writer.writeSegment(List.of(entry(1, 10, T0)));
+
+    assertThat(reader.findByAccountId(10L)).extracting(ActivityLog::getId).containsExactly(1L);
+  }
+
+  @Test
+  void deletingAnAccountRewritesItsSegmentsUpToTheLimit() throws Exception {
+    ActivityLogArchiveDaoImpl archive = archive(Duration.ofHours(1));
+    archive.writeSegment(List.of(entry(1, 10, T0), entry(2, 20, T0), entry(3, 10, T0)));
+    archive.writeSegment(List.of(entry(4, 10, T0.plus(1, ChronoUnit.DAYS))));
+
+    assertThat(archive.deleteByAccountId(10L, 1)).isEqualTo(2);
+    assertThat(archive.findByAccountId(10L)).extracting(ActivityLog::getId).containsExactly(4L);
+    assertThat(archive.deleteByAccountId(10L, 1)).isEqualTo(1);
+    assertThat(archive.deleteByAccountId(10L, 1)).isZero();
+
+    ActivityLogArchiveDaoImpl restarted = archive(Duration.ofHours(1));
+    assertThat(restarted.findByAccountId(10L)).isEmpty();
+    assertThat(restarted.findByAccountId(20L)).extracting(ActivityLog::getId).containsExactly(2L);
+  }
+
+  @Test
+  void pagesSkipSegmentsWhoseRangeCannotContribute() throws Exception {
+    ActivityLogArchiveDaoImpl archive = archive(Duration.ofHours(1));
+    String oldest =
+        archive.writeSegment(List.of(entry(1, 10, T0), entry(2, 20, T0.plusSeconds(9))));
+    archive.writeSegment(List.of(entry(3, 10, T0.plusSeconds(5)), entry(4, 10, T0.plusSeconds(6))));
+    String newest = archive.writeSegment(List.of(entry(5, 10, T0.plusSeconds(7))));
+    // Opening either of these would fail
+    Files.write(archiveDir.resolve(oldest), new byte[] {1, 2, 3});
+    Files.write(archiveDir.resolve(newest), new byte[] {1, 2, 3});
+
+    // The oldest segment ends before the page collected from the newer ones
+    assertThat(archive.findByAccountId(10L, T0.plusSeconds(7), 2))
+        .extracting(ActivityLog::getId)
+        .containsExactly(4L, 3L);
+  }
+
+  @Test
+  void entriesWithoutAnAccountCanBeReadBack() throws Exception {
+    ActivityLogArchiveDaoImpl archive = archive(Duration.ofHours(1));
+    ActivityLog anonymous = entry(1, 10, T0);
+    anonymous.setAccountId(null);
+    archive.writeSegment(List.of(anonymous, entry(2, 10, T0)));
+
+    assertThat(archive(Duration.ofHours(1)).findByAccountId(null))
+        .extracting(ActivityLog::getId)
+        .containsExactly(1L);
+    assertThat(archive.findByAccountId(10L)).extracting(ActivityLog::getId).containsExactly(2L);
+  }
+}
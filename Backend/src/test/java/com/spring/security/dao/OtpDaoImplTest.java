@@ -0,0 +1,101 @@
+package com.spring.security.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.dao.mapper.OtpMapper;
+import com.spring.security.domain.entity.OtpCode;
+import com.spring.security.support.EmbeddedDatabase;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+/** Tests the OTP upsert and consume statements against an embedded PostgreSQL server. */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OtpDaoImplTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private EmbeddedDatabase database;
+  private OtpDao otpDao;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    otpDao = new OtpDaoImpl(database.mapper(OtpMapper.class));
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  private void issue(String email, String otp, Duration validity) throws Exception {
+    OtpCode otpCode = new OtpCode();
+    otpCode.setEmail(email);
+    otpCode.setOtp(otp);
+    otpCode.setCreatedAt(Instant.now());
+    otpCode.setExpiresAt(otpCode.getCreatedAt().plus(validity));
+    otpDao.upsert(otpCode);
+  }
+
+  @Test
+  void aMatchingOtpIsConsumedOnce() throws Exception {
+    issue("match@otp.test", "111111", Duration.ofMinutes(3));
+
+    OtpCode consumed = otpDao.consume("match@otp.test", "111111", MAX_ATTEMPTS);
+
+    assertThat(consumed.getOtp()).isEqualTo("111111");
+    assertThat(consumed.getUsed()).isTrue();
+    assertThat(consumed.getAttempts()).isZero();
+    assertThat(otpDao.consume("match@otp.test", "111111", MAX_ATTEMPTS)).isNull();
+  }
+
+  @Test
+  void wrongGuessesAreCountedUntilTheOtpIsUsedUp() throws Exception {
+    issue("guess@otp.test", "222222", Duration.ofMinutes(3));
+
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      OtpCode counted = otpDao.consume("guess@otp.test", "000000", MAX_ATTEMPTS);
+      assertThat(counted.getAttempts()).isEqualTo(attempt);
+      assertThat(counted.getUsed()).isEqualTo(attempt == MAX_ATTEMPTS);
+    }
+
+    assertThat(otpDao.consume("guess@otp.test", "222222", MAX_ATTEMPTS)).isNull();
+    assertThat(otpDao.consume("guess@otp.test", "000000", MAX_ATTEMPTS)).isNull();
+  }
+
+  @Test
+  void anExpiredOtpIsNotConsumed() throws Exception {
+    issue("expired@otp.test", "333333", Duration.ofSeconds(-1));
+
+    assertThat(otpDao.consume("expired@otp.test", "333333", MAX_ATTEMPTS)).isNull();
+    assertThat(otpDao.findByEmail("expired@otp.test").getUsed()).isFalse();
+  }
+
+  @Test
+  void reissuingReplacesTheOtpAndResetsItsState() throws Exception {
+    issue("reissue@otp.test", "444444", Duration.ofMinutes(3));
+    otpDao.consume("reissue@otp.test", "000000", MAX_ATTEMPTS);
+    otpDao.consume("reissue@otp.test", "444444", MAX_ATTEMPTS);
+
+    issue("reissue@otp.test", "555555", Duration.ofMinutes(3));
+
+    OtpCode reissued = otpDao.findByEmail("reissue@otp.test");
+    assertThat(reissued.getOtp()).isEqualTo("555555");
+    assertThat(reissued.getUsed()).isFalse();
+    assertThat(reissued.getAttempts()).isZero();
+    assertThat(
+            database
+                .jdbc()
+                .queryForObject(
+                    "SELECT count(*) FROM otp_codes WHERE email = 'reissue@otp.test'",
+                    Integer.class))
+        .isOne();
+    assertThat(otpDao.consume("reissue@otp.test", "444444", MAX_ATTEMPTS).getOtp())
+        .isEqualTo("555555");
+    assertThat(otpDao.consume("reissue@otp.test", "555555", MAX_ATTEMPTS).getUsed()).isTrue();
+  }
+}
@@ -0,0 +1,691 @@
+package com.spring.security.dao.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.security.domain.entity.Account;
+import com.spring.security.domain.entity.AccountDirectoryEntry;
+import com.spring.security.domain.entity.ActivityLog;
+import com.spring.security.domain.entity.EmailOutbox;
+import com.spring.security.domain.entity.OtpCode;
+import com.spring.security.domain.entity.Role;
+import com.spring.security.domain.entity.User;
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import com.spring.security.domain.entity.enums.AccountStatus;
+import com.spring.security.domain.entity.enums.AccountType;
+import com.spring.security.domain.entity.enums.EmailOutboxStatus;
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import com.spring.security.domain.entity.enums.UserStatus;
+import com.spring.security.domain.entity.enums.UserType;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+
+/**
+ * Query-plan regression tests for the mapper statements. The schema is applied to an embedded
+ * PostgreSQL loaded with a scaled fixture ({@code db/plan-fixture.sql}), every statement is invoked
+ * through its mapper with realistic parameters, and instead of running it its {@code EXPLAIN
+ * (FORMAT JSON)} plan is checked: no sequential scan of a large table, and an estimated cost within
+ * budget. Statements that scan by design declare so explicitly.
+ *
+ * <p>A statement added to a mapper without a plan check here fails {@link
+ * #everyStatementIsChecked()}.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MapperQueryPlanTest {
+
+  /** Tables that grow with the number of tenants; a sequential scan of these is a regression. */
+  private static final Set<String> LARGE_TABLES =
+      Set.of(
+          "accounts",
+          "users",
+          "roles",
+          "user_roles",
+          "role_permissions",
+          "otp_codes",
+          "activity_logs",
+          "email_outbox",
+          "account_stats",
+          "account_directory",
+          "root_user_directory");
+
+  /** Estimated cost budget of statements that do not declare their own. */
+  private static final double DEFAULT_COST_BUDGET = 100;
+
+  /** Estimated cost budget of the account reaper's batched deletes, which touch 500 rows each. */
+  private static final double REAPER_BATCH_COST_BUDGET = 5_000;
+
+  private static final List<Class<?>> MAPPERS =
+      List.of(
+          AccountMapper.class,
+          AccountReaperMapper.class,
+          ActivityLogMapper.class,
+          EmailOutboxMapper.class,
+          OtpMapper.class,
+          PermissionMapper.class,
+          RoleMapper.class,
+          ShardDirectoryMapper.class,
+          UserMapper.class);
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private EmbeddedPostgres postgres;
+  private DataSource dataSource;
+  private SqlSessionFactory sqlSessionFactory;
+
+  // Fixture rows the parameters point at
+  private final long accountId = 500;
+  private final String email = "user7@account-500.fixture";
+  private long userId;
+  private long roleId;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    postgres = EmbeddedPostgres.builder().start();
+    dataSource = postgres.getPostgresDatabase();
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(Files.readString(Path.of("src/main/resources/db/schema.sql")));
+      statement.execute(Files.readString(Path.of("src/main/resources/db/data.sql")));
+      statement.execute(Files.readString(Path.of("src/test/resources/db/plan-fixture.sql")));
+      // Backfills the directory from the fixture accounts
+      statement.execute(Files.readString(Path.of("src/main/resources/db/directory.sql")));
+      userId = queryLong(connection, "SELECT id FROM users WHERE email = '" + email + "'");
+      roleId =
+          queryLong(
+              connection,
+              "SELECT id FROM roles WHERE account_id = " + accountId + " AND name = 'ROLE_3'");
+    }
+
+    Configuration configuration =
+        new Configuration(new Environment("plan", new JdbcTransactionFactory(), dataSource));
+    configuration.addInterceptor(new CapturingInterceptor());
+    MAPPERS.forEach(configuration::addMapper);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    postgres.close();
+  }
+
+  @TestFactory
+  Stream<DynamicTest> planIsIndexedAndWithinBudget() {
+    return planChecks().stream()
+        .map(check -> DynamicTest.dynamicTest(check.statement, () -> verify(check)));
+  }
+
+  @Test
+  void everyStatementIsChecked() {
+    Set<String> statements = new TreeSet<>();
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    for (String id : configuration.getMappedStatementNames()) {
+      // Skip the short-name aliases and the empty statements that only hold result maps
+      if (id.contains(".") && !isEmpty(configuration.getMappedStatement(id))) {
+        statements.add(shortId(id));
+      }
+    }
+    Set<String> checked = new TreeSet<>();
+    planChecks().forEach(check -> checked.add(check.statement));
+    assertThat(checked).containsAll(statements);
+  }
+
+  private List<PlanCheck> planChecks() {
+    List<PlanCheck> checks = new ArrayList<>();
+
+    // AccountMapper
+    checks.add(check("AccountMapper.create", AccountMapper.class, m -> m.create(account())));
+    checks.add(check("AccountMapper.findById", AccountMapper.class, m -> m.findById(accountId)));
+    checks.add(
+        check("AccountMapper.findByName", AccountMapper.class, m -> m.findByName("account-500")));
+    checks.add(
+        check(
+            "AccountMapper.update",
+            AccountMapper.class,
+            m -> m.update("accounts", Map.of("description", "Updated"), Map.of("id", accountId))));
+    checks.add(
+        check(
+            "AccountMapper.getAccountStats",
+            AccountMapper.class,
+            m -> m.getAccountStats(accountId)));
+    checks.add(check("AccountMapper.findMaxId", AccountMapper.class, AccountMapper::findMaxId));
+    checks.add(
+        check("AccountMapper.lockStats", AccountMapper.class, m -> m.lockStats(1, 500))
+            .costBudget(1_000));
+    // A batch is 500 accounts; 5 of the fixture's 1000 is the share a batch takes of 100k accounts.
+    // On a deployment small enough for one batch to cover much of the table, a scan is right.
+    checks.add(
+        check(
+                "AccountMapper.reconcileStats",
+                AccountMapper.class,
+                m -> m.reconcileStats(accountId, accountId + 4))
+            .costBudget(10_000));
+
+    // AccountReaperMapper
+    checks.add(
+        check(
+                "AccountReaperMapper.enqueueDeleted",
+                AccountReaperMapper.class,
+                m -> m.enqueueDeleted(86_400))
+            .allowSeqScan("accounts")
+            .costBudget(1_000));
+    checks.add(
+        check("AccountReaperMapper.lease", AccountReaperMapper.class, m -> m.lease("node-1", 120))
+            // Joins the handful of unfinished jobs to their accounts
+            .allowSeqScan("accounts")
+            .costBudget(1_000));
+    checks.add(
+        check(
+            "AccountReaperMapper.checkpoint",
+            AccountReaperMapper.class,
+            m -> m.checkpoint(accountId, "node-1", AccountReaperPhase.USERS, 500, 120)));
+    checks.add(
+        check(
+            "AccountReaperMapper.release",
+            AccountReaperMapper.class,
+            m -> m.release(accountId, "node-1")));
+    checks.add(
+        check(
+                "AccountReaperMapper.deleteUserRoles",
+                AccountReaperMapper.class,
+                m -> m.deleteUserRoles(accountId, 500))
+            .costBudget(REAPER_BATCH_COST_BUDGET));
+    checks.add(
+        check(
+                "AccountReaperMapper.deleteRolePermissions",
+                AccountReaperMapper.class,
+                m -> m.deleteRolePermissions(accountId, 500))
+            .costBudget(REAPER_BATCH_COST_BUDGET));
+    checks.add(
+        check(
+                "AccountReaperMapper.deleteOtpCodes",
+                AccountReaperMapper.class,
+                m -> m.deleteOtpCodes(accountId, 500))
+            .costBudget(REAPER_BATCH_COST_BUDGET));
+    checks.add(
+        check(
+                "AccountReaperMapper.deleteActivityLogs",
+                AccountReaperMapper.class,
+                m -> m.deleteActivityLogs(accountId, 500))
+            .costBudget(REAPER_BATCH_COST_BUDGET));
+    checks.add(
+        check(
+                "AccountReaperMapper.deleteUsers",
+                AccountReaperMapper.class,
+                m -> m.deleteUsers(accountId, 500))
+            .costBudget(REAPER_BATCH_COST_BUDGET));
+    checks.add(
+        check(
+                "AccountReaperMapper.deleteRoles",
+                AccountReaperMapper.class,
+                m -> m.deleteRoles(accountId, 500))
+            .costBudget(REAPER_BATCH_COST_BUDGET));
+    checks.add(
+        check(
+            "AccountReaperMapper.deleteAccount",
+            AccountReaperMapper.class,
+            m -> m.deleteAccount(accountId)));
+
+    // ActivityLogMapper
+    checks.add(
+        check("ActivityLogMapper.insert", ActivityLogMapper.class, m -> m.insert(activityLog())));
+    checks.add(check("ActivityLogMapper.findById", ActivityLogMapper.class, m -> m.findById(1L)));
+    checks.add(
+        check(
+            "ActivityLogMapper.findByUserId",
+            ActivityLogMapper.class,
+            m -> m.findByUserId(userId)));
+    // Returns every log of the account
+    checks.add(
+        check(
+                "ActivityLogMapper.findByAccountId",
+                ActivityLogMapper.class,
+                m -> m.findByAccountId(accountId))
+            .costBudget(1_000));
+    checks.add(
+        check(
+                "ActivityLogMapper.findPageByAccountId",
+                ActivityLogMapper.class,
+                m -> m.findPageByAccountId(accountId, Instant.now().minusSeconds(86_400), 50))
+            // A page of 50 through the account's index
+            .costBudget(500));
+    checks.add(
+        check(
+                "ActivityLogMapper.findOlderThan",
+                ActivityLogMapper.class,
+                m -> m.findOlderThan(Instant.now().minusSeconds(90 * 86_400), 5_000))
+            .costBudget(1_000));
+    checks.add(
+        check(
+            "ActivityLogMapper.deleteByIds",
+            ActivityLogMapper.class,
+            m -> m.deleteByIds(List.of(1L, 2L, 3L))));
+    checks.add(
+        check(
+            "ActivityLogMapper.leaseArchiver",
+            ActivityLogMapper.class,
+            m -> m.leaseArchiver("node-1", 300)));
+    checks.add(
+        check(
+                "ActivityLogMapper.releaseArchiver",
+                ActivityLogMapper.class,
+                m -> m.releaseArchiver("node-1"))
+            // The table holds a single row
+            .allowSeqScan("activity_log_archive_lease"));
+
+    // EmailOutboxMapper
+    checks.add(
+        check("EmailOutboxMapper.insert", EmailOutboxMapper.class, m -> m.insert(emailOutbox())));
+    checks.add(
+        check("EmailOutboxMapper.claim", EmailOutboxMapper.class, m -> m.claim(50, 60))
+            .costBudget(1_000));
+    checks.add(
+        check(
+            "EmailOutboxMapper.deleteByIds",
+            EmailOutboxMapper.class,
+            m -> m.deleteByIds(List.of(1L, 2L, 3L))));
+    checks.add(
+        check(
+            "EmailOutboxMapper.reschedule",
+            EmailOutboxMapper.class,
+            m -> {
+              EmailOutbox outbox = emailOutbox();
+              outbox.setId(1L);
+              m.reschedule(outbox);
+            }));
+    checks.add(
+        check(
+            "EmailOutboxMapper.deleteDead",
+            EmailOutboxMapper.class,
+            m -> m.deleteDead(14 * 86_400, 1_000)));
+
+    // OtpMapper
+    checks.add(check("OtpMapper.find", OtpMapper.class, m -> m.find(email)));
+    checks.add(check("OtpMapper.upsert", OtpMapper.class, m -> m.upsert(otpCode())));
+    checks.add(check("OtpMapper.consume", OtpMapper.class, m -> m.consume(email, "123456", 5)));
+    checks.add(check("OtpMapper.delete", OtpMapper.class, m -> m.delete(email)));
+    checks.add(
+        check("OtpMapper.deleteExpired", OtpMapper.class, m -> m.deleteExpired(1_000))
+            .costBudget(1_000));
+
+    // PermissionMapper: the permission catalog is small and listed in full
+    checks.add(check("PermissionMapper.list", PermissionMapper.class, PermissionMapper::list));
+
+    // RoleMapper
+    checks.add(check("RoleMapper.create", RoleMapper.class, m -> m.create(role())));
+    checks.add(
+        check(
+            "RoleMapper.insertRolePermissions",
+            RoleMapper.class,
+            m -> m.insertRolePermissions(roleId, List.of(1L, 2L))));
+    checks.add(
+        check(
+            "RoleMapper.findByAccountIdAndId",
+            RoleMapper.class,
+            m -> m.findByAccountIdAndId(roleId, accountId)));
+    checks.add(
+        check(
+            "RoleMapper.getPermissionsByRoleId",
+            RoleMapper.class,
+            m -> m.getPermissionsByRoleId(roleId)));
+    checks.add(
+        check("RoleMapper.listByAccountId", RoleMapper.class, m -> m.listByAccountId(accountId)));
+    checks.add(
+        check(
+            "RoleMapper.findByNameAndAccountId",
+            RoleMapper.class,
+            m -> m.findByNameAndAccountId("ROLE_3", accountId)));
+    checks.add(
+        check(
+            "RoleMapper.updateRole",
+            RoleMapper.class,
+            m -> m.updateRole(roleId, accountId, "ROLE_3", "Updated")));
+    checks.add(
+        check(
+            "RoleMapper.deleteRolePermissions",
+            RoleMapper.class,
+            m -> m.deleteRolePermissions(roleId)));
+    checks.add(
+        check("RoleMapper.deleteRole", RoleMapper.class, m -> m.deleteRole(roleId, accountId)));
+
+    // ShardDirectoryMapper
+    checks.add(
+        check(
+            "ShardDirectoryMapper.findByAccountId",
+            ShardDirectoryMapper.class,
+            m -> m.findByAccountId(accountId)));
+    checks.add(
+        check(
+            "ShardDirectoryMapper.findByName",
+            ShardDirectoryMapper.class,
+            m -> m.findByName("account-500")));
+    checks.add(
+        check(
+            "ShardDirectoryMapper.findByRootEmail",
+            ShardDirectoryMapper.class,
+            m -> m.findByRootEmail(email)));
+    // Counts the shard's index entries; placement reads it once per directory TTL
+    checks.add(
+        check(
+                "ShardDirectoryMapper.countByShard",
+                ShardDirectoryMapper.class,
+                m -> m.countByShard(0))
+            .costBudget(1_000));
+    checks.add(
+        check("ShardDirectoryMapper.insert", ShardDirectoryMapper.class, m -> m.insert(entry())));
+    checks.add(
+        check(
+            "ShardDirectoryMapper.insertRootUser",
+            ShardDirectoryMapper.class,
+            m -> m.insertRootUser("root@new.fixture", accountId)));
+    checks.add(
+        check("ShardDirectoryMapper.delete", ShardDirectoryMapper.class, m -> m.delete(accountId)));
+    checks.add(
+        check(
+            "ShardDirectoryMapper.updateMoving",
+            ShardDirectoryMapper.class,
+            m -> m.updateMoving(accountId, true)));
+    checks.add(
+        check(
+            "ShardDirectoryMapper.updateShard",
+            ShardDirectoryMapper.class,
+            m -> m.updateShard(accountId, 1)));
+
+    // UserMapper
+    checks.add(check("UserMapper.create", UserMapper.class, m -> m.create(user())));
+    checks.add(
+        check(
+            "UserMapper.insertUserRoles",
+            UserMapper.class,
+            m -> m.insertUserRoles(userId, List.of(roleId))));
+    checks.add(
+        check(
+            "UserMapper.findByAccountIdAndEmail",
+            UserMapper.class,
+            m -> m.findByAccountIdAndEmail(accountId, email)));
+    checks.add(
+        check(
+            "UserMapper.findByAccountIdAndUserId",
+            UserMapper.class,
+            m -> m.findByAccountIdAndUserId(accountId, userId)));
+    checks.add(check("UserMapper.findByEmail", UserMapper.class, m -> m.findByEmail(email)));
+    checks.add(
+        check(
+            "UserMapper.update",
+            UserMapper.class,
+            m ->
+                m.update(
+                    "users",
+                    Map.of("first_name", "Updated"),
+                    new LinkedHashMap<>(Map.of("id", userId, "account_id", accountId)))));
+    checks.add(
+        check("UserMapper.listByAccountId", UserMapper.class, m -> m.listByAccountId(accountId))
+            .costBudget(1_000));
+    checks.add(
+        check(
+            "UserMapper.deleteUserRoles",
+            UserMapper.class,
+            m -> m.deleteUserRoles(userId, accountId)));
+    checks.add(
+        check(
+            "UserMapper.insertUserRole",
+            UserMapper.class,
+            m -> m.insertUserRole(userId, roleId, accountId)));
+    checks.add(
+        check(
+            "UserMapper.findRootUserByAccountId",
+            UserMapper.class,
+            m -> m.findRootUserByAccountId(accountId)));
+    checks.add(
+        check(
+            "UserMapper.provisionAccountWithRootUser",
+            UserMapper.class,
+            m -> m.provisionAccountWithRootUser(account(), user())));
+
+    return checks;
+  }
+
+  private void verify(PlanCheck check) throws Exception {
+    Captured captured = capture(check);
+    assertThat(shortId(captured.statement.getId())).isEqualTo(check.statement);
+    JsonNode plan = explain(captured);
+
+    List<String> seqScans = new ArrayList<>();
+    collectSeqScans(plan, seqScans);
+    seqScans.removeAll(check.allowedSeqScans);
+    double cost = plan.get("Total Cost").asDouble();
+
+    assertThat(seqScans)
+        .as("%s scans large tables sequentially:%n%s", check.statement, plan.toPrettyString())
+        .isEmpty();
+    assertThat(cost)
+        .as("%s estimated cost:%n%s", check.statement, plan.toPrettyString())
+        .isLessThanOrEqualTo(check.costBudget);
+  }
+
+  private Captured capture(PlanCheck check) {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      check.invocation.accept(session);
+    } catch (RuntimeException e) {
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+        if (cause instanceof Captured captured) {
+          return captured;
+        }
+      }
+      throw e;
+    }
+    throw new AssertionError(check.statement + " ran no statement");
+  }
+
+  private JsonNode explain(Captured captured) throws Exception {
+    BoundSql boundSql = captured.statement.getBoundSql(captured.parameter);
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement("EXPLAIN (FORMAT JSON) " + boundSql.getSql())) {
+      new DefaultParameterHandler(captured.statement, captured.parameter, boundSql)
+          .setParameters(statement);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return objectMapper.readTree(resultSet.getString(1)).get(0).get("Plan");
+      }
+    }
+  }
+
+  private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+    if ("Seq Scan".equals(node.path("Node Type").asText())
+        && LARGE_TABLES.contains(node.path("Relation Name").asText())) {
+      seqScans.add(node.path("Relation Name").asText());
+    }
+    for (JsonNode child : node.path("Plans")) {
+      collectSeqScans(child, seqScans);
+    }
+  }
+
+  private static boolean isEmpty(MappedStatement statement) {
+    try {
+      return statement.getBoundSql(null).getSql().isBlank();
+    } catch (RuntimeException e) {
+      // Dynamic SQL needing parameters is not empty
+      return false;
+    }
+  }
+
+  private static String shortId(String id) {
+    int method = id.lastIndexOf('.');
+    int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+    return id.substring(type + 1);
+  }
+
+  private static long queryLong(Connection connection, String sql) throws Exception {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private <M> PlanCheck check(String statement, Class<M> mapper, Consumer<M> call) {
+    return new PlanCheck(statement, session -> call.accept(session.getMapper(mapper)));
+  }
+
+  private Account account() {
+    Account account = new Account();
+    account.setName("account-new");
+    account.setDescription("New account");
+    account.setType(AccountType.ORGANIZATION);
+    account.setStatus(AccountStatus.CREATED);
+    return account;
+  }
+
+  private AccountDirectoryEntry entry() {
+    AccountDirectoryEntry entry = new AccountDirectoryEntry();
+    entry.setAccountId(1_000_001L);
+    entry.setName("account-new");
+    entry.setShardId(1);
+    return entry;
+  }
+
+  private User user() {
+    User user = new User();
+    user.setFirstName("New");
+    user.setLastName("User");
+    user.setEmail("new@account-500.fixture");
+    user.setType(UserType.PASSWORD);
+    user.setStatus(UserStatus.CREATED);
+    user.setAccountId(accountId);
+    user.setIsRoot(false);
+    return user;
+  }
+
+  private Role role() {
+    Role role = new Role();
+    role.setName("ROLE_NEW");
+    role.setDescription("New role");
+    role.setAccountId(accountId);
+    return role;
+  }
+
+  private OtpCode otpCode() {
+    OtpCode otpCode = new OtpCode();
+    otpCode.setEmail(email);
+    otpCode.setOtp("654321");
+    otpCode.setExpiresAt(Instant.now().plusSeconds(600));
+    return otpCode;
+  }
+
+  private ActivityLog activityLog() {
+    ActivityLog activityLog = new ActivityLog();
+    activityLog.setUserEmail(email);
+    activityLog.setAccountId(accountId);
+    activityLog.setAction("LOGIN");
+    activityLog.setEntityType("USER");
+    activityLog.setEntityId(userId);
+    activityLog.setCreatedAt(Instant.now());
+    return activityLog;
+  }
+
+  private EmailOutbox emailOutbox() {
+    EmailOutbox outbox = new EmailOutbox();
+    outbox.setRecipient(email);
+    outbox.setSubject("Subject");
+    outbox.setTemplate(EmailTemplate.RESEND_OTP);
+    outbox.setVariables(Map.of("otp", "123456"));
+    outbox.setStatus(EmailOutboxStatus.PENDING);
+    outbox.setAttempts(1);
+    outbox.setNextAttemptAt(Instant.now());
+    return outbox;
+  }
+
+  /** A statement to plan, how to invoke it, and what its plan may contain. */
+  private static final class PlanCheck {
+
+    private final String statement;
+    private final Consumer<SqlSession> invocation;
+    private final Set<String> allowedSeqScans = new HashSet<>();
+    private double costBudget = DEFAULT_COST_BUDGET;
+
+    private PlanCheck(String statement, Consumer<SqlSession> invocation) {
+      this.statement = statement;
+      this.invocation = invocation;
+    }
+
+    PlanCheck allowSeqScan(String table) {
+      allowedSeqScans.add(table);
+      return this;
+    }
+
+    PlanCheck costBudget(double budget) {
+      this.costBudget = budget;
+      return this;
+    }
+  }
+
+  /** Thrown in place of executing a statement, carrying what would have been executed. */
+  private static final class Captured extends RuntimeException {
+
+    private final transient MappedStatement statement;
+    private final transient Object parameter;
+
+    private Captured(MappedStatement statement, Object parameter) {
+      super(null, null, false, false);
+      this.statement = statement;
+      this.parameter = parameter;
+    }
+  }
+
+  @Intercepts({
+    @Signature(
+        type = Executor.class,
+        method = "update",
+        args = {MappedStatement.class, Object.class}),
+    @Signature(
+        type = Executor.class,
+        method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+  })
+  private static final class CapturingInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) {
+      throw new Captured((MappedStatement) invocation.getArgs()[0], invocation.getArgs()[1]);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.spring.security.dao.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.domain.entity.Account;
+import com.spring.security.domain.entity.ProvisionedAccount;
+import com.spring.security.domain.entity.User;
+import com.spring.security.domain.entity.enums.AccountStatus;
+import com.spring.security.domain.entity.enums.AccountType;
+import com.spring.security.domain.entity.enums.UserStatus;
+import com.spring.security.domain.entity.enums.UserType;
+import com.spring.security.support.EmbeddedDatabase;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Tests the single-statement account provisioning against an embedded PostgreSQL server. */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserMapperTest {
+
+  private EmbeddedDatabase database;
+  private UserMapper userMapper;
+  private JdbcTemplate jdbc;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    userMapper = database.mapper(UserMapper.class);
+    jdbc = database.jdbc();
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  private static Account account(String name) {
+    Account account = new Account();
+    account.setName(name);
+    account.setDescription("Provisioned account");
+    account.setType(AccountType.ORGANIZATION);
+    account.setStatus(AccountStatus.CREATED);
+    return account;
+  }
+
+  private static User rootUser(String email) {
+    User user = new User();
+    user.setFirstName("Root");
+    user.setLastName("User");
+    user.setEmail(email);
+    user.setType(UserType.PASSWORD);
+    user.setStatus(UserStatus.CREATED);
+    return user;
+  }
+
+  @Test
+  void provisionsTheAccountItsRootRoleAndItsRootUser() {
+    ProvisionedAccount provisioned =
+        userMapper.provisionAccountWithRootUser(
+            account("provisioned"), rootUser("root@provisioned.test"));
+
+    assertThat(provisioned).isNotNull();
+    long accountId = provisioned.getAccountId();
+    assertThat(
+            jdbc.queryForObject("SELECT name FROM accounts WHERE id = ?", String.class, accountId))
+        .isEqualTo("provisioned");
+    assertThat(
+            jdbc.queryForMap(
+                "SELECT name, account_id FROM roles WHERE id = ?", provisioned.getRootRoleId()))
+        .isEqualTo(Map.of("name", "ROOT", "account_id", (int) accountId));
+    assertThat(
+            jdbc.queryForMap(
+                "SELECT email, account_id, is_root FROM users WHERE id = ?",
+                provisioned.getRootUserId()))
+        .isEqualTo(
+            Map.of(
+                "email", "root@provisioned.test", "account_id", (int) accountId, "is_root", true));
+    assertThat(
+            jdbc.queryForList(
+                "SELECT role_id FROM user_roles WHERE user_id = ?",
+                Long.class,
+                provisioned.getRootUserId()))
+        .containsExactly(provisioned.getRootRoleId());
+    assertThat(
+            jdbc.queryForObject(
+                "SELECT pending_invitations FROM account_stats WHERE account_id = ?",
+                Long.class,
+                accountId))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void aTakenAccountNameProvisionsNothing() {
+    userMapper.provisionAccountWithRootUser(account("taken"), rootUser("first@taken.test"));
+    long roles = jdbc.queryForObject("SELECT count(*) FROM roles", Long.class);
+
+    ProvisionedAccount provisioned =
+        userMapper.provisionAccountWithRootUser(account("taken"), rootUser("second@taken.test"));
+
+    assertThat(provisioned).isNull();
+    assertThat(
+            jdbc.queryForObject("SELECT count(*) FROM accounts WHERE name = 'taken'", Long.class))
+        .isEqualTo(1);
+    assertThat(jdbc.queryForObject("SELECT count(*) FROM roles", Long.class)).isEqualTo(roles);
+    assertThat(
+            jdbc.queryForObject(
+                "SELECT count(*) FROM users WHERE email = 'second@taken.test'", Long.class))
+        .isZero();
+  }
+}
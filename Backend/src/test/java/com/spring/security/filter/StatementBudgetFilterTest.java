@@ -0,0 +1,119 @@
+package com.spring.security.filter;
+
+import static com.spring.security.support.StatementCountMatchers.maxQueries;
+import static com.spring.security.support.StatementCountMatchers.queries;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.controller.RoleController;
+import com.spring.security.dao.RoleDaoImpl;
+import com.spring.security.dao.mapper.RoleMapper;
+import com.spring.security.interceptor.StatementMetricsInterceptor;
+import com.spring.security.service.RoleServiceImpl;
+import com.spring.security.support.EmbeddedDatabase;
+import com.spring.security.util.StatementCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests StatementBudgetFilter and the statement count matchers on the role listing, whose roles
+ * each load their permissions with a nested select, against an embedded PostgreSQL server.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementBudgetFilterTest {
+
+  private EmbeddedDatabase database;
+  private RoleController roleController;
+  private long threeRoles;
+  private long sixRoles;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    database.addInterceptor(
+        new StatementMetricsInterceptor(new SimpleMeterRegistry(), Duration.ofSeconds(1)));
+    roleController =
+        new RoleController(
+            new RoleServiceImpl(
+                new RoleDaoImpl(database.mapper(RoleMapper.class)),
+                mock(CacheInvalidationBus.class)));
+    threeRoles = account("three-roles", 3);
+    sixRoles = account("six-roles", 6);
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  /** Creates an account with the given number of roles, each with one permission. */
+  private long account(String name, int roles) {
+    JdbcTemplate jdbc = database.jdbc();
+    long accountId =
+        jdbc.queryForObject(
+            "INSERT INTO accounts (name) VALUES (?) RETURNING id", Long.class, name);
+    for (int i = 0; i < roles; i++) {
+      long roleId =
+          jdbc.queryForObject(
+              "INSERT INTO roles (name, account_id) VALUES (?, ?) RETURNING id",
+              Long.class,
+              "ROLE_" + i,
+              (int) accountId);
+      jdbc.update(
+          "INSERT INTO role_permissions (role_id, permission_id)"
+              + " SELECT ?, min(id) FROM permissions",
+          (int) roleId);
+    }
+    return accountId;
+  }
+
+  private MockMvc mockMvc(boolean exposeHeader) {
+    return MockMvcBuilders.standaloneSetup(roleController)
+        .addFilters(new StatementBudgetFilter(20, exposeHeader))
+        .build();
+  }
+
+  @Test
+  void countsTheListQueryAndEveryNestedPermissionLoad() throws Exception {
+    mockMvc(true)
+        .perform(get("/api/v1/accounts/{accountId}/roles/list", threeRoles))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3))
+        .andExpect(jsonPath("$[0].permissions.length()").value(1))
+        .andExpect(queries(1 + 3));
+  }
+
+  @Test
+  void detectsQueriesGrowingWithTheNumberOfRows() {
+    MockMvc mockMvc = mockMvc(true);
+
+    assertThatThrownBy(
+            () ->
+                mockMvc
+                    .perform(get("/api/v1/accounts/{accountId}/roles/list", sixRoles))
+                    .andExpect(maxQueries(1 + 3)))
+        .isInstanceOf(AssertionError.class);
+  }
+
+  @Test
+  void omitsHeaderWhenNotExposedAndClearsCounter() throws Exception {
+    mockMvc(false)
+        .perform(get("/api/v1/accounts/{accountId}/roles/list", threeRoles))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(StatementBudgetFilter.HEADER));
+    assertThat(StatementCounter.current()).isZero();
+  }
+}
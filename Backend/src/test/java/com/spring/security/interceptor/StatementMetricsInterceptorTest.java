@@ -0,0 +1,132 @@
+package com.spring.security.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spring.security.dao.mapper.RoleMapper;
+import com.spring.security.support.EmbeddedDatabase;
+import com.spring.security.util.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.apache.ibatis.binding.MapperMethod;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests StatementMetricsInterceptor on MyBatis mappers over an embedded PostgreSQL server,
+ * including the nested selects that load a role's permissions.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementMetricsInterceptorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private EmbeddedDatabase database;
+  private RoleMapper roleMapper;
+  private long accountId;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    database.addInterceptor(new StatementMetricsInterceptor(registry, Duration.ofSeconds(1)));
+    roleMapper = database.mapper(RoleMapper.class);
+    JdbcTemplate jdbc = database.jdbc();
+    accountId =
+        jdbc.queryForObject(
+            "INSERT INTO accounts (name) VALUES ('metrics') RETURNING id", Long.class);
+    for (int i = 1; i <= 3; i++) {
+      long roleId =
+          jdbc.queryForObject(
+              "INSERT INTO roles (name, account_id) VALUES (?, ?) RETURNING id",
+              Long.class,
+              "ROLE_" + i,
+              (int) accountId);
+      jdbc.update(
+          "INSERT INTO role_permissions (role_id, permission_id)"
+              + " SELECT ?, id FROM permissions ORDER BY id LIMIT ?",
+          (int) roleId,
+          i);
+    }
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  private long count(String statement) {
+    Timer timer =
+        registry
+            .find("mybatis.statement")
+            .tag("statement", statement)
+            .tag("outcome", "success")
+            .timer();
+    return timer == null ? 0 : timer.count();
+  }
+
+  private double rows(String statement) {
+    DistributionSummary rows =
+        registry.find("mybatis.statement.rows").tag("statement", statement).summary();
+    return rows == null ? 0 : rows.totalAmount();
+  }
+
+  @Test
+  void recordsNestedSelectsAsStatementsOfTheirOwn() {
+    long lists = count("RoleMapper.listByAccountId");
+    long permissionLoads = count("RoleMapper.getPermissionsByRoleId");
+    double permissions = rows("RoleMapper.getPermissionsByRoleId");
+
+    roleMapper.listByAccountId(accountId);
+
+    assertThat(count("RoleMapper.listByAccountId")).isEqualTo(lists + 1);
+    assertThat(count("RoleMapper.getPermissionsByRoleId")).isEqualTo(permissionLoads + 3);
+    assertThat(rows("RoleMapper.getPermissionsByRoleId")).isEqualTo(permissions + 1 + 2 + 3);
+  }
+
+  @Test
+  void countsEveryStatementTowardsTheBudget() {
+    StatementCounter.start();
+    try {
+      roleMapper.listByAccountId(accountId);
+
+      assertThat(StatementCounter.current()).isEqualTo(4);
+    } finally {
+      StatementCounter.stop();
+    }
+  }
+
+  @Test
+  void countsErrorsAndRethrows() {
+    assertThatThrownBy(() -> roleMapper.insertRolePermissions(-1L, List.of(1L)))
+        .isInstanceOf(RuntimeException.class);
+
+    assertThat(
+            registry
+                .get("mybatis.statement.errors")
+                .tag("statement", "RoleMapper.insertRolePermissions")
+                .counter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void describesParametersWithoutValues() {
+    MapperMethod.ParamMap<Object> params = new MapperMethod.ParamMap<>();
+    params.put("accountId", 7L);
+    params.put("email", "someone@example.com");
+    params.put("ids", List.of(1, 2));
+    params.put("param1", 7L);
+    params.put("param2", "someone@example.com");
+    params.put("param3", List.of(1, 2));
+
+    String shape = StatementMetricsInterceptor.shape(params);
+
+    assertThat(shape).contains("accountId=Long", "email=String", "ids=", "[2]");
+    assertThat(shape).doesNotContain("someone@example.com", "param1");
+  }
+}
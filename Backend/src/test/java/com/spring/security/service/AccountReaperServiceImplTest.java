@@ -0,0 +1,255 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.spring.security.component.ShardDirectory;
+import com.spring.security.dao.AccountReaperDao;
+import com.spring.security.dao.AccountReaperDaoImpl;
+import com.spring.security.dao.ActivityLogArchiveDao;
+import com.spring.security.dao.ActivityLogArchiveDaoImpl;
+import com.spring.security.dao.mapper.AccountReaperMapper;
+import com.spring.security.domain.entity.ActivityLog;
+import com.spring.security.domain.entity.enums.AccountReaperPhase;
+import com.spring.security.support.EmbeddedDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Tests purging deleted accounts against an embedded PostgreSQL server. */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AccountReaperServiceImplTest {
+
+  private static final int BATCH_SIZE = 2;
+  private static final int USERS = 3;
+  private static final long BYSTANDER = 1_000_000L;
+
+  private EmbeddedDatabase database;
+  private JdbcTemplate jdbc;
+  private ActivityLogArchiveDao archive;
+  private final ShardDirectory shardDirectory = mock(ShardDirectory.class);
+
+  @BeforeAll
+  void setUp(@TempDir Path archiveDir) throws Exception {
+    database = EmbeddedDatabase.start();
+    jdbc = database.jdbc();
+    archive =
+        new ActivityLogArchiveDaoImpl(
+            JsonMapper.builder().findAndAddModules().build(),
+            archiveDir.toString(),
+            Duration.ofHours(1));
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  private AccountReaperDao dao() {
+    return spy(new AccountReaperDaoImpl(database.mapper(AccountReaperMapper.class)));
+  }
+
+  private AccountReaperServiceImpl reaper(AccountReaperDao dao) {
+    return new AccountReaperServiceImpl(
+        dao,
+        archive,
+        new StaticListableBeanFactory(Map.of("shardDirectory", shardDirectory))
+            .getBeanProvider(ShardDirectory.class),
+        new SimpleMeterRegistry(),
+        true,
+        Duration.ofHours(1),
+        BATCH_SIZE,
+        Duration.ZERO,
+        Duration.ofSeconds(30),
+        Duration.ofMinutes(2));
+  }
+
+  private static ActivityLog entry(long id, long accountId) {
+    ActivityLog entry = new ActivityLog();
+    entry.setId(id);
+    entry.setAccountId(accountId);
+    entry.setAction("LOGIN");
+    entry.setEntityType("USER");
+    entry.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(id));
+    return entry;
+  }
+
+  /**
+   * Creates an account deleted a day ago, with users, roles, OTPs, activity and archived activity
+   * in two segments, one of them shared with another account.
+   */
+  private long deletedAccount(String name) throws Exception {
+    long accountId =
+        jdbc.queryForObject(
+            "INSERT INTO accounts (name, status, created_at, updated_at)"
+                + " VALUES (?, 'DELETED', now() - interval '2 days', now() - interval '1 day')"
+                + " RETURNING id",
+            Long.class,
+            name);
+    long roleId =
+        jdbc.queryForObject(
+            "INSERT INTO roles (name, account_id) VALUES ('ROOT', ?) RETURNING id",
+            Long.class,
+            accountId);
+    jdbc.update(
+        "INSERT INTO role_permissions (role_id, permission_id) SELECT ?, id FROM permissions",
+        roleId);
+    jdbc.update(
+        "INSERT INTO users (email, status, account_id)"
+            + " SELECT 'user' || i || '@' || ?, 'ACTIVE', ? FROM generate_series(1, ?) i",
+        name,
+        accountId,
+        USERS);
+    jdbc.update(
+        "INSERT INTO user_roles (user_id, role_id) SELECT id, ? FROM users WHERE account_id = ?",
+        roleId,
+        accountId);
+    jdbc.update(
+        "INSERT INTO otp_codes (user_id, email, otp, created_at, expires_at)"
+            + " SELECT id, email, '123456', now(), now() + interval '3 minutes'"
+            + " FROM users WHERE account_id = ?",
+        accountId);
+    jdbc.update(
+        "INSERT INTO activity_logs (account_id, action, entity_type)"
+            + " SELECT ?, 'LOGIN', 'USER' FROM generate_series(1, 5)",
+        accountId);
+    long id = accountId * 10;
+    archive.writeSegment(
+        List.of(entry(id, accountId), entry(id + 1, BYSTANDER), entry(id + 2, accountId)));
+    archive.writeSegment(List.of(entry(id + 3, accountId)));
+    return accountId;
+  }
+
+  private int userRoles(long accountId) {
+    return jdbc.queryForObject(
+        "SELECT count(*) FROM user_roles ur JOIN users u ON u.id = ur.user_id"
+            + " WHERE u.account_id = ?",
+        Integer.class,
+        accountId);
+  }
+
+  private int rolePermissions(long accountId) {
+    return jdbc.queryForObject(
+        "SELECT count(*) FROM role_permissions rp JOIN roles r ON r.id = rp.role_id"
+            + " WHERE r.account_id = ?",
+        Integer.class,
+        accountId);
+  }
+
+  private Map<String, Object> job(long accountId) {
+    return jdbc.queryForMap(
+        "SELECT phase, leased_by FROM account_reaper_jobs WHERE account_id = ?", accountId);
+  }
+
+  private int users(long accountId) {
+    return jdbc.queryForObject(
+        "SELECT count(*) FROM users WHERE account_id = ?", Integer.class, accountId);
+  }
+
+  @Test
+  void aDeletedAccountIsPurgedPhaseByPhase() throws Exception {
+    long accountId = deletedAccount("reaped.test");
+    AccountReaperDao dao = dao();
+
+    reaper(dao).reap();
+
+    ArgumentCaptor<AccountReaperPhase> phases = ArgumentCaptor.forClass(AccountReaperPhase.class);
+    verify(dao, atLeastOnce())
+        .checkpoint(eq(accountId), anyString(), phases.capture(), anyLong(), any());
+    List<AccountReaperPhase> checkpoints = phases.getAllValues();
+    assertThat(checkpoints).isSorted().endsWith(AccountReaperPhase.DONE);
+    List<AccountReaperPhase> phaseList = List.of(AccountReaperPhase.values());
+    assertThat(checkpoints).containsAll(phaseList.subList(1, phaseList.size()));
+    assertThat(job(accountId)).containsEntry("phase", "DONE");
+    assertThat(
+            jdbc.queryForObject(
+                "SELECT (SELECT count(*) FROM accounts WHERE id = ?)"
+                    + " + (SELECT count(*) FROM roles WHERE account_id = ?)"
+                    + " + (SELECT count(*) FROM activity_logs WHERE account_id = ?)"
+                    + " + (SELECT count(*) FROM otp_codes WHERE email LIKE '%@reaped.test')",
+                Integer.class, accountId, accountId, accountId))
+        .isZero();
+    assertThat(users(accountId)).isZero();
+    assertThat(archive.findByAccountId(accountId)).isEmpty();
+    assertThat(archive.findByAccountId(BYSTANDER))
+        .extracting(ActivityLog::getId)
+        .contains(accountId * 10 + 1);
+    verify(shardDirectory).unregister(accountId);
+  }
+
+  @Test
+  void aPurgeStopsWhenItsLeaseIsTakenOver() throws Exception {
+    long accountId = deletedAccount("lease-lost.test");
+    AccountReaperDao dao = dao();
+    doAnswer(
+            invocation -> {
+              Object rows = invocation.callRealMethod();
+              // Another node takes the job over once this node's lease has lapsed
+              jdbc.update(
+                  "UPDATE account_reaper_jobs SET leased_by = 'other-node',"
+                      + " lease_until = now() + interval '2 minutes' WHERE account_id = ?",
+                  accountId);
+              return rows;
+            })
+        .when(dao)
+        .deleteBatch(any(), eq(accountId), anyInt());
+
+    reaper(dao).reap();
+
+    assertThat(job(accountId))
+        .containsEntry("phase", "USER_ROLES")
+        .containsEntry("leased_by", "other-node");
+    assertThat(users(accountId)).isEqualTo(USERS);
+  }
+
+  @Test
+  void aPurgeStopsWhenTheAccountIsRestored() throws Exception {
+    long accountId = deletedAccount("restored.test");
+    int rolePermissions = rolePermissions(accountId);
+    AccountReaperDao dao = dao();
+    doAnswer(
+            invocation -> {
+              // The account is restored after its job was leased, before the first batch
+              jdbc.update("UPDATE accounts SET status = 'ACTIVE' WHERE id = ?", accountId);
+              return invocation.callRealMethod();
+            })
+        .when(dao)
+        .deleteBatch(any(), eq(accountId), anyInt());
+
+    reaper(dao).reap();
+    reaper(dao()).reap();
+
+    assertThat(job(accountId)).containsEntry("phase", "USER_ROLES");
+    assertThat(users(accountId)).isEqualTo(USERS);
+    assertThat(userRoles(accountId)).isEqualTo(USERS);
+    assertThat(rolePermissions(accountId)).isPositive().isEqualTo(rolePermissions);
+    assertThat(archive.findByAccountId(accountId)).hasSize(3);
+    verify(shardDirectory, never()).unregister(accountId);
+    assertThat(
+            jdbc.queryForObject(
+                "SELECT status FROM accounts WHERE id = ?", String.class, accountId))
+        .isEqualTo("ACTIVE");
+  }
+}
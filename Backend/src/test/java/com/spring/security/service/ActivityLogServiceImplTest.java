@@ -0,0 +1,147 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.spring.security.dao.ActivityLogArchiveDaoImpl;
+import com.spring.security.dao.ActivityLogDao;
+import com.spring.security.dao.ActivityLogDaoImpl;
+import com.spring.security.dao.mapper.ActivityLogMapper;
+import com.spring.security.domain.entity.ActivityLog;
+import com.spring.security.support.EmbeddedDatabase;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests archiving activity logs from an embedded PostgreSQL server into segment files, and reading
+ * them back merged with the rows still in the table.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ActivityLogServiceImplTest {
+
+  private static final Duration RETENTION = Duration.ofDays(90);
+
+  private EmbeddedDatabase database;
+  private ActivityLogDao activityLogDao;
+  private long accountId;
+
+  @TempDir private Path archiveDir;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    activityLogDao = new ActivityLogDaoImpl(database.mapper(ActivityLogMapper.class));
+    accountId =
+        database
+            .jdbc()
+            .queryForObject(
+                "INSERT INTO accounts (name, status) VALUES ('archive', 'ACTIVE') RETURNING id",
+                Long.class);
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  @AfterEach
+  void clearTable() {
+    database.jdbc().update("DELETE FROM activity_logs");
+    database.jdbc().update("DELETE FROM activity_log_archive_lease");
+  }
+
+  private ActivityLogServiceImpl service(int batchSize) throws Exception {
+    ActivityLogArchiveDaoImpl archive =
+        new ActivityLogArchiveDaoImpl(
+            JsonMapper.builder().findAndAddModules().build(), archiveDir.toString(), Duration.ZERO);
+    return new ActivityLogServiceImpl(
+        activityLogDao, archive, true, RETENTION, batchSize, 20, Duration.ofMinutes(5));
+  }
+
+  private ActivityLog log(long daysAgo) throws Exception {
+    ActivityLog entry = new ActivityLog();
+    entry.setAccountId(accountId);
+    entry.setAction("LOGIN");
+    entry.setEntityType("USER");
+    entry.setCreatedAt(Instant.now().minus(daysAgo, ChronoUnit.DAYS));
+    return activityLogDao.create(entry);
+  }
+
+  @Test
+  void expiredRowsMoveToTheArchiveAndAreReadBackWithTheRest() throws Exception {
+    ActivityLog recent = log(1);
+    ActivityLog old = log(100);
+    ActivityLog older = log(200);
+    ActivityLog oldest = log(300);
+    ActivityLogServiceImpl service = service(2);
+
+    assertThat(service.archiveExpired()).isEqualTo(3);
+
+    assertThat(activityLogDao.findByAccountId(accountId))
+        .extracting(ActivityLog::getId)
+        .containsExactly(recent.getId());
+    assertThat(service.findByAccountId(accountId))
+        .extracting(ActivityLog::getId)
+        .containsExactly(recent.getId(), old.getId(), older.getId(), oldest.getId());
+  }
+
+  @Test
+  void entriesInBothTiersAreReadOnce() throws Exception {
+    ActivityLog recent = log(1);
+    ActivityLog old = log(100);
+    ActivityLogServiceImpl service = service(10);
+    service.archiveExpired();
+    // As if the archiver had stopped between writing the segment and deleting the rows
+    database
+        .jdbc()
+        .update(
+            "INSERT INTO activity_logs (id, account_id, action, entity_type, created_at)"
+                + " VALUES (?, ?, 'LOGIN', 'USER', now() - interval '100 days')",
+            old.getId(),
+            accountId);
+
+    assertThat(service.findByAccountId(accountId))
+        .extracting(ActivityLog::getId)
+        .containsExactly(recent.getId(), old.getId());
+  }
+
+  @Test
+  void pagesContinueFromTheDatabaseIntoTheArchive() throws Exception {
+    ActivityLog recent = log(1);
+    ActivityLog newer = log(2);
+    ActivityLog old = log(100);
+    ActivityLog older = log(200);
+    ActivityLog oldest = log(300);
+    ActivityLogServiceImpl service = service(10);
+    service.archiveExpired();
+
+    List<ActivityLog> first = service.findByAccountId(accountId, null, 2);
+    List<ActivityLog> second = service.findByAccountId(accountId, first.get(1).getCreatedAt(), 2);
+    List<ActivityLog> third = service.findByAccountId(accountId, second.get(1).getCreatedAt(), 2);
+
+    assertThat(first).extracting(ActivityLog::getId).containsExactly(recent.getId(), newer.getId());
+    assertThat(second).extracting(ActivityLog::getId).containsExactly(old.getId(), older.getId());
+    assertThat(third).extracting(ActivityLog::getId).containsExactly(oldest.getId());
+  }
+
+  @Test
+  void onlyTheNodeHoldingTheLeaseArchives() throws Exception {
+    log(100);
+    assertThat(activityLogDao.leaseArchiver("other-node", Duration.ofMinutes(5))).isTrue();
+
+    assertThat(service(10).archiveExpired()).isZero();
+    assertThat(activityLogDao.findByAccountId(accountId)).hasSize(1);
+
+    activityLogDao.releaseArchiver("other-node");
+    assertThat(service(10).archiveExpired()).isEqualTo(1);
+  }
+}
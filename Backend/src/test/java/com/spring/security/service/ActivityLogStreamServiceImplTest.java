@@ -0,0 +1,98 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import com.spring.security.domain.entity.ActivityLog;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** Tests the activity stream over server-sent events, delivering on the publishing thread. */
+class ActivityLogStreamServiceImplTest {
+
+  private final ActivityLogStreamServiceImpl streamService =
+      new ActivityLogStreamServiceImpl(Runnable::run, 4, 16, Duration.ofMinutes(1));
+  private final MockMvc mockMvc =
+      MockMvcBuilders.standaloneSetup(new StreamController(streamService)).build();
+
+  /** Exposes the service the way AccountController does. */
+  @RestController
+  static class StreamController {
+    private final ActivityLogStreamService streamService;
+
+    StreamController(ActivityLogStreamService streamService) {
+      this.streamService = streamService;
+    }
+
+    @GetMapping("/accounts/{accountId}/activity/stream")
+    SseEmitter stream(
+        @PathVariable Long accountId,
+        @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+      return streamService.subscribe(accountId, lastEventId);
+    }
+  }
+
+  private MockHttpServletResponse subscribe(long accountId, Long lastEventId) throws Exception {
+    var request = get("/accounts/{accountId}/activity/stream", accountId);
+    if (lastEventId != null) {
+      request.header("Last-Event-ID", lastEventId);
+    }
+    return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn().getResponse();
+  }
+
+  private void publish(long accountId, String description) {
+    ActivityLog log = new ActivityLog();
+    log.setAccountId(accountId);
+    log.setDescription(description);
+    log.setCreatedAt(Instant.now());
+    streamService.publish(log);
+  }
+
+  @Test
+  void subscribersReceiveTheEventsOfTheirAccountOnly() throws Exception {
+    MockHttpServletResponse response = subscribe(1, null);
+
+    publish(1, "first");
+    publish(2, "other account");
+    publish(1, "second");
+
+    String body = response.getContentAsString();
+    assertThat(body).contains("id:1", "first", "id:3", "second").doesNotContain("other account");
+    assertThat(body.indexOf("first")).isLessThan(body.indexOf("second"));
+  }
+
+  @Test
+  void reconnectingSubscribersReplayWhatTheyMissed() throws Exception {
+    publish(1, "seen");
+    publish(1, "missed");
+    publish(2, "other account");
+
+    MockHttpServletResponse response = subscribe(1, 1L);
+    publish(1, "live");
+
+    String body = response.getContentAsString();
+    assertThat(body).contains("id:2", "missed", "id:4", "live").doesNotContain("seen", "other");
+    assertThat(body.indexOf("missed")).isLessThan(body.indexOf("live"));
+  }
+
+  @Test
+  void eventsOlderThanTheRingAreNotReplayed() throws Exception {
+    for (int i = 1; i <= 6; i++) {
+      publish(1, "event-" + i);
+    }
+
+    String body = subscribe(1, 0L).getContentAsString();
+
+    assertThat(body).contains("event-3", "event-6").doesNotContain("event-1", "event-2");
+  }
+}
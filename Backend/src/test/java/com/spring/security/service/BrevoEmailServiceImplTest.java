@@ -0,0 +1,118 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.security.config.AppConfig;
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.exceptions.EmailServiceException;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests BrevoEmailServiceImpl against a local stub of the Brevo API. */
+class BrevoEmailServiceImplTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+  private final List<String> apiKeys = new CopyOnWriteArrayList<>();
+  private final AtomicInteger status = new AtomicInteger(201);
+
+  private HttpServer server;
+  private String apiUrl;
+
+  @BeforeEach
+  void startStub() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/v3/smtp/email",
+        exchange -> {
+          requests.add(objectMapper.readTree(exchange.getRequestBody()));
+          apiKeys.add(exchange.getRequestHeaders().getFirst("API-key"));
+          byte[] response = "{\"messageIds\":[]}".getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().set("Content-Type", "application/json");
+          exchange.sendResponseHeaders(status.get(), response.length);
+          exchange.getResponseBody().write(response);
+          exchange.close();
+        });
+    server.start();
+    apiUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v3/smtp/email";
+  }
+
+  @AfterEach
+  void stopStub() {
+    server.stop(0);
+  }
+
+  private BrevoEmailServiceImpl service(int batchSize) {
+    return new BrevoEmailServiceImpl(
+        new AppConfig().restTemplate(4, 4, Duration.ofSeconds(2), Duration.ofSeconds(2)),
+        "test-key",
+        "noreply@example.com",
+        apiUrl,
+        batchSize);
+  }
+
+  private static List<EmailMessage> messages(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> new EmailMessage("user" + i + "@example.com", "Subject " + i, "<p>" + i))
+        .toList();
+  }
+
+  @Test
+  void sendsSingleEmail() throws Exception {
+    service(100).sendHtmlEmail("user@example.com", "Hello", "<p>Hi</p>");
+
+    assertThat(requests).hasSize(1);
+    JsonNode body = requests.get(0);
+    assertThat(body.at("/sender/email").asText()).isEqualTo("noreply@example.com");
+    assertThat(body.at("/to/0/email").asText()).isEqualTo("user@example.com");
+    assertThat(body.get("subject").asText()).isEqualTo("Hello");
+    assertThat(apiKeys).containsExactly("test-key");
+  }
+
+  @Test
+  void batchesEmailsIntoMessageVersions() {
+    Map<EmailMessage, EmailServiceException> failures = service(100).sendHtmlEmails(messages(3));
+
+    assertThat(failures).isEmpty();
+    assertThat(requests).hasSize(1);
+    JsonNode versions = requests.get(0).get("messageVersions");
+    assertThat(versions).hasSize(3);
+    for (int i = 0; i < 3; i++) {
+      assertThat(versions.get(i).at("/to/0/email").asText()).isEqualTo("user" + i + "@example.com");
+      assertThat(versions.get(i).get("subject").asText()).isEqualTo("Subject " + i);
+      assertThat(versions.get(i).get("htmlContent").asText()).isEqualTo("<p>" + i);
+    }
+  }
+
+  @Test
+  void splitsBatchesLargerThanBatchSize() {
+    Map<EmailMessage, EmailServiceException> failures = service(2).sendHtmlEmails(messages(5));
+
+    assertThat(failures).isEmpty();
+    assertThat(requests).hasSize(3);
+    assertThat(requests.stream().mapToInt(r -> r.get("messageVersions").size()))
+        .containsExactly(2, 2, 1);
+  }
+
+  @Test
+  void reportsEveryEmailOfAFailedRequest() {
+    status.set(500);
+    List<EmailMessage> messages = messages(3);
+
+    Map<EmailMessage, EmailServiceException> failures = service(100).sendHtmlEmails(messages);
+
+    assertThat(failures).hasSize(3).containsKeys(messages.toArray(new EmailMessage[0]));
+  }
+}
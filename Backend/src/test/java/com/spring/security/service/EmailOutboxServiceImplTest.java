@@ -0,0 +1,217 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import com.spring.security.dao.EmailOutboxDao;
+import com.spring.security.dao.EmailOutboxDaoImpl;
+import com.spring.security.dao.mapper.EmailOutboxMapper;
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import com.spring.security.exceptions.DaoLayerException;
+import com.spring.security.exceptions.EmailDeferredException;
+import com.spring.security.exceptions.EmailServiceException;
+import com.spring.security.support.EmbeddedDatabase;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+/**
+ * Tests the email outbox against an embedded PostgreSQL server, with a stub email service failing
+ * the recipients a test chooses.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EmailOutboxServiceImplTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private EmbeddedDatabase database;
+  private EmailOutboxDao emailOutboxDao;
+  private final EmailTemplateService emailTemplateService = mock(EmailTemplateService.class);
+  private Function<String, EmailServiceException> failureFor = recipient -> null;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    emailOutboxDao = spy(new EmailOutboxDaoImpl(database.mapper(EmailOutboxMapper.class)));
+    when(emailTemplateService.render(any(), any())).thenReturn("<p>hello</p>");
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  @AfterEach
+  void clearOutbox() {
+    database.jdbc().update("DELETE FROM email_outbox");
+    failureFor = recipient -> null;
+  }
+
+  private EmailOutboxServiceImpl outbox(EmailOutboxDao dao) {
+    EmailService emailService =
+        new EmailService() {
+          @Override
+          public Map<EmailMessage, EmailServiceException> sendHtmlEmails(
+              List<EmailMessage> messages) {
+            Map<EmailMessage, EmailServiceException> failures = new IdentityHashMap<>();
+            for (EmailMessage message : messages) {
+              EmailServiceException failure = failureFor.apply(message.getTo());
+              if (failure != null) {
+                failures.put(message, failure);
+              }
+            }
+            return failures;
+          }
+
+          @Override
+          public void sendHtmlEmail(String to, String subject, String htmlContent) {
+            throw new UnsupportedOperationException();
+          }
+        };
+    return new EmailOutboxServiceImpl(
+        dao,
+        emailService,
+        emailTemplateService,
+        50,
+        MAX_ATTEMPTS,
+        Duration.ofMinutes(2),
+        Duration.ZERO,
+        Duration.ZERO,
+        Duration.ofDays(14),
+        2);
+  }
+
+  private void enqueue(EmailOutboxServiceImpl outbox, String recipient) throws Exception {
+    outbox.enqueue(recipient, "Subject", EmailTemplate.RESEND_OTP, Map.of("otp", "123456"));
+  }
+
+  private Map<String, Object> row(String recipient) {
+    return database
+        .jdbc()
+        .queryForMap(
+            "SELECT status, attempts, variables::text AS variables FROM email_outbox"
+                + " WHERE recipient = ?",
+            recipient);
+  }
+
+  private int rows() {
+    return database.jdbc().queryForObject("SELECT count(*) FROM email_outbox", Integer.class);
+  }
+
+  @Test
+  void deliveredEmailsAreRemoved() throws Exception {
+    EmailOutboxServiceImpl outbox = outbox(emailOutboxDao);
+    enqueue(outbox, "a@outbox.test");
+    enqueue(outbox, "b@outbox.test");
+
+    assertThat(outbox.dispatch()).isEqualTo(2);
+
+    assertThat(rows()).isZero();
+    assertThat(outbox.dispatch()).isZero();
+  }
+
+  @Test
+  void failedEmailsAreRetriedThenDeadLetteredWithoutTheirVariables() throws Exception {
+    EmailOutboxServiceImpl outbox = outbox(emailOutboxDao);
+    enqueue(outbox, "fails@outbox.test");
+    failureFor = recipient -> new EmailServiceException("rejected");
+
+    for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+      outbox.dispatch();
+      assertThat(row("fails@outbox.test"))
+          .containsEntry("status", "PENDING")
+          .containsEntry("attempts", attempt);
+    }
+    outbox.dispatch();
+
+    assertThat(row("fails@outbox.test"))
+        .containsEntry("status", "DEAD")
+        .containsEntry("attempts", MAX_ATTEMPTS)
+        .containsEntry("variables", "{}");
+    assertThat(outbox.dispatch()).isZero();
+  }
+
+  @Test
+  void deferredEmailsDoNotUseUpAttempts() throws Exception {
+    EmailOutboxServiceImpl outbox = outbox(emailOutboxDao);
+    enqueue(outbox, "deferred@outbox.test");
+    failureFor = recipient -> new EmailDeferredException("circuit open", Duration.ZERO);
+
+    for (int i = 0; i < MAX_ATTEMPTS + 1; i++) {
+      outbox.dispatch();
+    }
+
+    assertThat(row("deferred@outbox.test"))
+        .containsEntry("status", "PENDING")
+        .containsEntry("attempts", 0);
+  }
+
+  @Test
+  void deliveredEmailsAreRemovedWhenRecordingAFailureFails() throws Exception {
+    EmailOutboxDao flakyDao = spy(new EmailOutboxDaoImpl(database.mapper(EmailOutboxMapper.class)));
+    doThrow(new DaoLayerException("connection lost")).when(flakyDao).reschedule(any());
+    EmailOutboxServiceImpl outbox = outbox(flakyDao);
+    enqueue(outbox, "fails-1@outbox.test");
+    enqueue(outbox, "sent@outbox.test");
+    enqueue(outbox, "fails-2@outbox.test");
+    failureFor = r -> r.startsWith("fails") ? new EmailServiceException("rejected") : null;
+
+    assertThat(outbox.dispatch()).isEqualTo(1);
+
+    assertThat(database.jdbc().queryForList("SELECT recipient FROM email_outbox", String.class))
+        .containsExactlyInAnyOrder("fails-1@outbox.test", "fails-2@outbox.test");
+  }
+
+  @Test
+  void deliveriesAreRecordedWhenRemovingThemFails() throws Exception {
+    EmailOutboxDao flakyDao = spy(new EmailOutboxDaoImpl(database.mapper(EmailOutboxMapper.class)));
+    doThrow(new DaoLayerException("connection lost")).when(flakyDao).deleteByIds(anyList());
+    EmailOutboxServiceImpl outbox = outbox(flakyDao);
+    enqueue(outbox, "sent@outbox.test");
+    enqueue(outbox, "fails@outbox.test");
+    failureFor = r -> r.startsWith("fails") ? new EmailServiceException("rejected") : null;
+
+    outbox.dispatch();
+
+    assertThat(row("fails@outbox.test")).containsEntry("status", "PENDING");
+  }
+
+  @Test
+  void deadEmailsArePurgedAfterTheRetention() throws Exception {
+    EmailOutboxServiceImpl outbox = outbox(emailOutboxDao);
+    for (int i = 0; i < 5; i++) {
+      enqueue(outbox, "old-" + i + "@outbox.test");
+    }
+    enqueue(outbox, "recent@outbox.test");
+    enqueue(outbox, "pending@outbox.test");
+    database
+        .jdbc()
+        .update(
+            "UPDATE email_outbox SET status = 'DEAD',"
+                + " created_at = CASE WHEN recipient LIKE 'old-%' THEN now() - interval '15 days'"
+                + " ELSE now() END WHERE recipient <> 'pending@outbox.test'");
+    database
+        .jdbc()
+        .update(
+            "UPDATE email_outbox SET created_at = now() - interval '15 days'"
+                + " WHERE recipient = 'pending@outbox.test'");
+
+    assertThat(outbox.purgeDead()).isEqualTo(5);
+
+    assertThat(database.jdbc().queryForList("SELECT recipient FROM email_outbox", String.class))
+        .containsExactlyInAnyOrder("recent@outbox.test", "pending@outbox.test");
+  }
+}
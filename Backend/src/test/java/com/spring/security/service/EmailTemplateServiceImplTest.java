@@ -0,0 +1,66 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.domain.entity.enums.EmailTemplate;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/** Checks that precompiled email templates render exactly what Thymeleaf renders. */
+class EmailTemplateServiceImplTest {
+
+  private SpringTemplateEngine templateEngine;
+  private EmailTemplateServiceImpl service;
+
+  @BeforeEach
+  void setUp() {
+    ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+    resolver.setPrefix("templates/");
+    resolver.setSuffix(".html");
+    resolver.setTemplateMode(TemplateMode.HTML);
+    resolver.setCharacterEncoding("UTF-8");
+    templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(resolver);
+    service = new EmailTemplateServiceImpl(templateEngine);
+    service.precompile();
+  }
+
+  private String thymeleaf(EmailTemplate template, Map<String, Object> variables) {
+    Context context = new Context();
+    context.setVariables(variables);
+    return templateEngine.process(template.getPath(), context);
+  }
+
+  @ParameterizedTest
+  @EnumSource(EmailTemplate.class)
+  void matchesThymeleafOutput(EmailTemplate template) {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("userName", "Ada <Admin> & \"Co\" O'Neil");
+    variables.put("email", "ada@example.com");
+    variables.put("otp", "123456");
+    variables.put("passwordSetupLink", "https://app.example.com/setup?otp=1&email=a%40b.com");
+    variables.put("verificationLink", "https://app.example.com/verify?otp=1&email=a%40b.com");
+
+    assertThat(service.render(template, variables)).isEqualTo(thymeleaf(template, variables));
+  }
+
+  @Test
+  void followsConditionalsWhenVariableIsMissing() {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("userName", "Ada");
+    variables.put("email", "ada@example.com");
+
+    String html = service.render(EmailTemplate.ACCOUNT_CREATED_SUCCESS, variables);
+
+    assertThat(html).isEqualTo(thymeleaf(EmailTemplate.ACCOUNT_CREATED_SUCCESS, variables));
+    assertThat(html).contains("Your account is ready to use");
+  }
+}
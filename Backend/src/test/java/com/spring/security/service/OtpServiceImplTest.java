@@ -0,0 +1,159 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.spring.security.component.OtpGenerator;
+import com.spring.security.component.OtpStoreImpl;
+import com.spring.security.controller.dto.request.OtpValidateRequestDto;
+import com.spring.security.controller.dto.response.OtpValidationStatus;
+import com.spring.security.dao.OtpDaoImpl;
+import com.spring.security.dao.mapper.OtpMapper;
+import com.spring.security.support.EmbeddedDatabase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+/**
+ * Tests OtpServiceImpl with write-through enabled against an embedded PostgreSQL server, with two
+ * services standing in for the node that issued an OTP and another node.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OtpServiceImplTest {
+
+  private static final int MAX_ATTEMPTS = 5;
+  private static final String OTP = "123456";
+  private static final String WRONG_OTP = "654321";
+
+  private EmbeddedDatabase database;
+  private OtpServiceImpl issuingNode;
+  private OtpServiceImpl otherNode;
+
+  @BeforeAll
+  void setUp() throws Exception {
+    database = EmbeddedDatabase.start();
+    issuingNode = node();
+    otherNode = node();
+  }
+
+  @AfterAll
+  void tearDown() throws Exception {
+    database.close();
+  }
+
+  private OtpServiceImpl node() throws Exception {
+    return node(1000, 50, new SimpleMeterRegistry());
+  }
+
+  private OtpServiceImpl node(int purgeBatchSize, int purgeMaxBatches, MeterRegistry meterRegistry)
+      throws Exception {
+    OtpGenerator otpGenerator = mock(OtpGenerator.class);
+    when(otpGenerator.generateOtp()).thenReturn(OTP);
+    return new OtpServiceImpl(
+        new OtpDaoImpl(database.mapper(OtpMapper.class)),
+        otpGenerator,
+        new OtpStoreImpl(Duration.ofSeconds(1), 16, MAX_ATTEMPTS),
+        true,
+        MAX_ATTEMPTS,
+        purgeBatchSize,
+        purgeMaxBatches,
+        meterRegistry);
+  }
+
+  private static OtpValidationStatus validate(OtpServiceImpl node, String email, String otp)
+      throws Exception {
+    OtpValidateRequestDto request = new OtpValidateRequestDto();
+    request.setEmail(email);
+    request.setOtp(Integer.parseInt(otp));
+    return node.validateOtp(request).getStatus();
+  }
+
+  @Test
+  void theAttemptLimitHoldsOnTheIssuingNode() throws Exception {
+    String email = "limit-issuing@otp.test";
+    issuingNode.generateAndStoreOtp(email);
+
+    for (int i = 0; i <= MAX_ATTEMPTS; i++) {
+      assertThat(validate(issuingNode, email, WRONG_OTP)).isEqualTo(OtpValidationStatus.INVALID);
+    }
+
+    assertThat(validate(issuingNode, email, OTP)).isNotEqualTo(OtpValidationStatus.VALID);
+    assertThat(validate(otherNode, email, OTP)).isNotEqualTo(OtpValidationStatus.VALID);
+  }
+
+  @Test
+  void theAttemptLimitHoldsOnAnotherNode() throws Exception {
+    String email = "limit-other@otp.test";
+    issuingNode.generateAndStoreOtp(email);
+
+    for (int i = 0; i <= MAX_ATTEMPTS; i++) {
+      assertThat(validate(otherNode, email, WRONG_OTP)).isEqualTo(OtpValidationStatus.INVALID);
+    }
+
+    assertThat(validate(otherNode, email, OTP)).isNotEqualTo(OtpValidationStatus.VALID);
+    assertThat(validate(issuingNode, email, OTP)).isNotEqualTo(OtpValidationStatus.VALID);
+  }
+
+  @Test
+  void anOtpIsAcceptedOnceAcrossNodes() throws Exception {
+    String email = "once@otp.test";
+    issuingNode.generateAndStoreOtp(email);
+
+    assertThat(validate(otherNode, email, OTP)).isEqualTo(OtpValidationStatus.VALID);
+    assertThat(validate(issuingNode, email, OTP)).isEqualTo(OtpValidationStatus.EXPIRED);
+  }
+
+  @Test
+  void attemptsOnEveryNodeCountTowardsTheLimit() throws Exception {
+    String email = "limit-shared@otp.test";
+    issuingNode.generateAndStoreOtp(email);
+
+    for (int i = 0; i < MAX_ATTEMPTS; i++) {
+      validate(i % 2 == 0 ? issuingNode : otherNode, email, WRONG_OTP);
+    }
+
+    assertThat(validate(otherNode, email, OTP)).isNotEqualTo(OtpValidationStatus.VALID);
+  }
+
+  @Test
+  void theRightOtpIsAcceptedWithinTheLimit() throws Exception {
+    String email = "within-limit@otp.test";
+    issuingNode.generateAndStoreOtp(email);
+
+    for (int i = 0; i < MAX_ATTEMPTS - 1; i++) {
+      validate(issuingNode, email, WRONG_OTP);
+    }
+
+    assertThat(validate(otherNode, email, OTP)).isEqualTo(OtpValidationStatus.VALID);
+  }
+
+  @Test
+  void expiredOtpsArePurgedInBoundedBatches() throws Exception {
+    database
+        .jdbc()
+        .update(
+            "INSERT INTO otp_codes (email, otp, created_at, expires_at)"
+                + " SELECT 'purge-' || i || '@otp.test', '123456', now() - interval '1 hour',"
+                + " now() - interval '1 minute' FROM generate_series(1, 5) i");
+    issuingNode.generateAndStoreOtp("purge-live@otp.test");
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    OtpServiceImpl purgingNode = node(2, 2, meterRegistry);
+
+    assertThat(purgingNode.purgeExpired()).isEqualTo(4);
+    assertThat(purgingNode.purgeExpired()).isEqualTo(1);
+    assertThat(purgingNode.purgeExpired()).isZero();
+
+    assertThat(
+            database
+                .jdbc()
+                .queryForList(
+                    "SELECT email FROM otp_codes WHERE email LIKE 'purge-%'", String.class))
+        .containsExactly("purge-live@otp.test");
+    assertThat(meterRegistry.counter("otp.purge.rows").count()).isEqualTo(5);
+  }
+}
@@ -0,0 +1,175 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.exceptions.EmailDeferredException;
+import com.spring.security.exceptions.EmailServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/** Tests the circuit breaker and bulkhead of ResilientEmailServiceImpl around a fake provider. */
+class ResilientEmailServiceImplTest {
+
+  private final AtomicBoolean failing = new AtomicBoolean();
+  private final AtomicInteger providerCalls = new AtomicInteger();
+  private final AtomicInteger sentEmails = new AtomicInteger();
+
+  private final EmailService provider =
+      provider(
+          messages -> {
+            providerCalls.incrementAndGet();
+            Map<EmailMessage, EmailServiceException> failures = new IdentityHashMap<>();
+            for (EmailMessage message : messages) {
+              if (failing.get()) {
+                failures.put(message, new EmailServiceException("Provider down"));
+              } else {
+                sentEmails.incrementAndGet();
+              }
+            }
+            return failures;
+          });
+
+  private static EmailService provider(
+      Function<List<EmailMessage>, Map<EmailMessage, EmailServiceException>> send) {
+    return new EmailService() {
+      @Override
+      public void sendHtmlEmail(String to, String subject, String htmlContent) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Map<EmailMessage, EmailServiceException> sendHtmlEmails(List<EmailMessage> messages) {
+        return send.apply(messages);
+      }
+    };
+  }
+
+  private ResilientEmailServiceImpl service(EmailService delegate, Duration openDuration) {
+    return new ResilientEmailServiceImpl(
+        delegate,
+        new SimpleMeterRegistry(),
+        3,
+        openDuration,
+        Duration.ofSeconds(10),
+        2,
+        Duration.ofMillis(50));
+  }
+
+  private static List<EmailMessage> messages(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> new EmailMessage("user" + i + "@example.com", "Subject", "<p>" + i + "</p>"))
+        .toList();
+  }
+
+  @Test
+  void opensAfterConsecutiveFailuresAndDefersWithoutCallingProvider() {
+    ResilientEmailServiceImpl service = service(provider, Duration.ofMinutes(1));
+    failing.set(true);
+
+    for (int i = 0; i < 3; i++) {
+      service.sendHtmlEmails(messages(2));
+    }
+    assertThat(service.getState()).isEqualTo(ResilientEmailServiceImpl.State.OPEN);
+
+    Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages(2));
+    assertThat(providerCalls).hasValue(3);
+    assertThat(failures).hasSize(2);
+    assertThat(failures.values()).allMatch(EmailDeferredException.class::isInstance);
+    assertThat(((EmailDeferredException) failures.values().iterator().next()).getRetryAfter())
+        .isPositive();
+  }
+
+  @Test
+  void rejectedRecipientsDoNotOpenCircuit() {
+    ResilientEmailServiceImpl service =
+        service(
+            provider(
+                messages -> {
+                  Map<EmailMessage, EmailServiceException> failures = new IdentityHashMap<>();
+                  failures.put(messages.get(0), new EmailServiceException("Invalid recipient"));
+                  return failures;
+                }),
+            Duration.ofMinutes(1));
+
+    for (int i = 0; i < 5; i++) {
+      service.sendHtmlEmails(messages(2));
+    }
+    assertThat(service.getState()).isEqualTo(ResilientEmailServiceImpl.State.CLOSED);
+  }
+
+  @Test
+  void halfOpenProbeSendsOneEmailAndClosesOnSuccess() throws Exception {
+    ResilientEmailServiceImpl service = service(provider, Duration.ofMillis(20));
+    failing.set(true);
+    for (int i = 0; i < 3; i++) {
+      service.sendHtmlEmails(messages(1));
+    }
+    failing.set(false);
+    TimeUnit.MILLISECONDS.sleep(40);
+
+    Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages(5));
+    assertThat(sentEmails).hasValue(1);
+    assertThat(failures).hasSize(4);
+    assertThat(failures.values()).allMatch(EmailDeferredException.class::isInstance);
+    assertThat(service.getState()).isEqualTo(ResilientEmailServiceImpl.State.CLOSED);
+
+    assertThat(service.sendHtmlEmails(messages(5))).isEmpty();
+    assertThat(sentEmails).hasValue(6);
+  }
+
+  @Test
+  void failedProbeReopensCircuit() throws Exception {
+    ResilientEmailServiceImpl service = service(provider, Duration.ofMillis(20));
+    failing.set(true);
+    for (int i = 0; i < 3; i++) {
+      service.sendHtmlEmails(messages(1));
+    }
+    TimeUnit.MILLISECONDS.sleep(40);
+
+    service.sendHtmlEmails(messages(3));
+    assertThat(providerCalls).hasValue(4);
+    assertThat(service.getState()).isEqualTo(ResilientEmailServiceImpl.State.OPEN);
+  }
+
+  @Test
+  void bulkheadDefersCallsBeyondConcurrencyLimit() throws Exception {
+    CountDownLatch entered = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+    ResilientEmailServiceImpl service =
+        service(
+            provider(
+                messages -> {
+                  entered.countDown();
+                  try {
+                    release.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  return new IdentityHashMap<>();
+                }),
+            Duration.ofMinutes(1));
+
+    Thread first = Thread.ofPlatform().start(() -> service.sendHtmlEmails(messages(1)));
+    Thread second = Thread.ofPlatform().start(() -> service.sendHtmlEmails(messages(1)));
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+    Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages(1));
+    assertThat(failures.values()).singleElement().isInstanceOf(EmailDeferredException.class);
+
+    release.countDown();
+    first.join();
+    second.join();
+    assertThat(service.getState()).isEqualTo(ResilientEmailServiceImpl.State.CLOSED);
+  }
+}
@@ -0,0 +1,289 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.domain.entity.EmailMessage;
+import com.spring.security.exceptions.EmailServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/** Tests SmtpEmailServiceImpl against a minimal in-process SMTP server. */
+class SmtpEmailServiceImplTest {
+
+  private SmtpStandIn smtp;
+  private SimpleMeterRegistry meterRegistry;
+  private SmtpEmailServiceImpl service;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    smtp = new SmtpStandIn();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (service != null) {
+      service.stop();
+    }
+    smtp.close();
+  }
+
+  private void startService(Duration window, int batchSize) {
+    startService(window, batchSize, 1000);
+  }
+
+  private void startService(Duration window, int batchSize, int queueCapacity) {
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("127.0.0.1");
+    mailSender.setPort(smtp.port());
+    mailSender.getJavaMailProperties().put("mail.smtp.from", "noreply@example.com");
+    mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+    mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+    service = new SmtpEmailServiceImpl(mailSender, meterRegistry, window, batchSize, queueCapacity);
+    service.start();
+  }
+
+  private static List<EmailMessage> messages(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> new EmailMessage("user" + i + "@example.com", "Subject " + i, "<p>" + i))
+        .toList();
+  }
+
+  @Test
+  void sendsBatchThroughOneSession() {
+    startService(Duration.ofMillis(100), 50);
+
+    Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages(10));
+
+    assertThat(failures).isEmpty();
+    assertThat(smtp.recipients()).hasSize(10);
+    assertThat(smtp.connections()).isEqualTo(1);
+    assertThat(meterRegistry.summary("mail.smtp.batch.size").totalAmount()).isEqualTo(10);
+    assertThat(meterRegistry.timer("mail.smtp.batch.duration").count()).isEqualTo(1);
+  }
+
+  @Test
+  void coalescesConcurrentSingleSends() throws Exception {
+    startService(Duration.ofMillis(500), 50);
+    ExecutorService callers = Executors.newFixedThreadPool(5);
+    try {
+      List<Future<?>> sends = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        String to = "user" + i + "@example.com";
+        sends.add(
+            callers.submit(
+                () -> {
+                  service.sendHtmlEmail(to, "Hello", "<p>Hi</p>");
+                  return null;
+                }));
+      }
+      for (Future<?> send : sends) {
+        send.get();
+      }
+    } finally {
+      callers.shutdown();
+    }
+
+    assertThat(smtp.recipients()).hasSize(5);
+    assertThat(smtp.connections()).isEqualTo(1);
+  }
+
+  @Test
+  void splitsBatchesLargerThanBatchSize() {
+    startService(Duration.ofMillis(100), 4);
+
+    Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages(10));
+
+    assertThat(failures).isEmpty();
+    assertThat(smtp.recipients()).hasSize(10);
+    assertThat(smtp.connections()).isEqualTo(3);
+  }
+
+  @Test
+  void reconnectsWhenServerDropsSession() {
+    smtp.dropAfterMessages(3);
+    startService(Duration.ofMillis(100), 50);
+
+    Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages(7));
+
+    assertThat(failures).isEmpty();
+    assertThat(smtp.recipients()).hasSize(7);
+    assertThat(smtp.connections()).isGreaterThan(1);
+  }
+
+  @Test
+  void rejectsEmailsOnceTheQueueIsFull() throws Exception {
+    smtp.holdGreeting();
+    startService(Duration.ZERO, 1, 1);
+    ExecutorService caller = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> first =
+          caller.submit(
+              () -> {
+                service.sendHtmlEmail("first@example.com", "Hello", "<p>Hi</p>");
+                return null;
+              });
+      while (smtp.connections() == 0) {
+        Thread.sleep(10);
+      }
+      // The sender is stuck on the first email; one more fits in the queue
+      List<EmailMessage> messages = messages(2);
+      CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS).execute(smtp::releaseGreeting);
+
+      Map<EmailMessage, EmailServiceException> failures = service.sendHtmlEmails(messages);
+
+      first.get();
+      assertThat(failures).containsOnlyKeys(messages.get(1));
+      assertThat(failures.get(messages.get(1))).hasRootCauseMessage("SMTP queue is full");
+      assertThat(smtp.recipients()).containsExactly("first@example.com", "user0@example.com");
+      assertThat(meterRegistry.counter("mail.smtp.batch.failures").count()).isEqualTo(1);
+    } finally {
+      caller.shutdown();
+    }
+  }
+
+  /**
+   * Speaks just enough SMTP for JavaMail: greeting, EHLO/HELO, MAIL, RCPT, DATA, RSET, NOOP, QUIT.
+   * Can close the connection after a given number of messages to simulate a server dropping the
+   * session, and hold back its greeting to simulate a server that does not answer.
+   */
+  private static final class SmtpStandIn implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final List<String> recipients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final CountDownLatch greeting = new CountDownLatch(1);
+    private volatile int dropAfterMessages = Integer.MAX_VALUE;
+    private volatile boolean held;
+
+    SmtpStandIn() throws IOException {
+      serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      Thread.ofPlatform().daemon().start(this::accept);
+    }
+
+    int port() {
+      return serverSocket.getLocalPort();
+    }
+
+    List<String> recipients() {
+      return recipients;
+    }
+
+    int connections() {
+      return connections.get();
+    }
+
+    void dropAfterMessages(int count) {
+      dropAfterMessages = count;
+    }
+
+    void holdGreeting() {
+      held = true;
+    }
+
+    void releaseGreeting() {
+      greeting.countDown();
+    }
+
+    private void accept() {
+      while (!serverSocket.isClosed()) {
+        try {
+          Socket socket = serverSocket.accept();
+          connections.incrementAndGet();
+          Thread.ofPlatform().daemon().start(() -> serve(socket));
+        } catch (IOException e) {
+          return;
+        }
+      }
+    }
+
+    private void serve(Socket socket) {
+      try (socket;
+          BufferedReader in =
+              new BufferedReader(
+                  new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+          PrintWriter out =
+              new PrintWriter(
+                  new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII),
+                  true)) {
+        if (held) {
+          greeting.await();
+        }
+        reply(out, "220 localhost ESMTP stand-in");
+        int messages = 0;
+        List<String> envelope = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+          String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line;
+          switch (command) {
+            case "EHLO", "HELO" -> reply(out, "250 localhost");
+            case "MAIL", "NOOP" -> reply(out, "250 OK");
+            case "RSET" -> {
+              envelope.clear();
+              reply(out, "250 OK");
+            }
+            case "RCPT" -> {
+              envelope.add(line.substring(line.indexOf('<') + 1, line.indexOf('>')));
+              reply(out, "250 OK");
+            }
+            case "DATA" -> {
+              reply(out, "354 End data with <CR><LF>.<CR><LF>");
+              while ((line = in.readLine()) != null && !line.equals(".")) {
+                // discard message content
+              }
+              recipients.addAll(envelope);
+              envelope.clear();
+              reply(out, "250 OK");
+              if (++messages >= dropAfterMessages) {
+                return;
+              }
+            }
+            case "QUIT" -> {
+              reply(out, "221 Bye");
+              return;
+            }
+            default -> reply(out, "502 Command not implemented");
+          }
+        }
+      } catch (IOException e) {
+        // connection closed by client
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private static void reply(PrintWriter out, String line) {
+      out.print(line + "\r\n");
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+    }
+  }
+}
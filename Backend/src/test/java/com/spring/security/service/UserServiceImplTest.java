@@ -0,0 +1,124 @@
+package com.spring.security.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spring.security.component.CacheInvalidationBus;
+import com.spring.security.component.JwtTokenGenerator;
+import com.spring.security.component.ResendThrottleImpl;
+import com.spring.security.controller.dto.request.UserCreateRequestDto;
+import com.spring.security.controller.dto.request.UserUpdateRequestDto;
+import com.spring.security.controller.dto.response.OtpResendResponseDto;
+import com.spring.security.dao.UserDao;
+import com.spring.security.domain.entity.User;
+import com.spring.security.exceptions.ServiceLayerException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/** Tests UserServiceImpl against a mocked UserDao and a real resend throttle. */
+class UserServiceImplTest {
+
+  private static final long ACCOUNT_ID = 7;
+  private static final long USER_ID = 42;
+
+  private final UserDao userDao = mock(UserDao.class);
+  private final OtpService otpService = mock(OtpService.class);
+  private final NotificationService notificationService = mock(NotificationService.class);
+  private final UserServiceImpl userService =
+      new UserServiceImpl(
+          userDao,
+          mock(BCryptPasswordEncoder.class),
+          mock(RoleService.class),
+          otpService,
+          notificationService,
+          mock(JwtTokenGenerator.class),
+          mock(LinkBuilderServiceImpl.class),
+          new ResendThrottleImpl(Duration.ofSeconds(60)),
+          mock(CacheInvalidationBus.class));
+
+  @Test
+  void updateUserUpdatesTheProfileOfTheUserInItsAccount() throws Exception {
+    UserUpdateRequestDto request = new UserUpdateRequestDto();
+    request.setFirstName("Ada");
+    request.setLastName("Lovelace");
+    request.setRoleIds(List.of());
+
+    userService.updateUser(ACCOUNT_ID, USER_ID, request);
+
+    verify(userDao)
+        .update(eq("users"), anyMap(), eq(Map.of("id", USER_ID, "account_id", ACCOUNT_ID)));
+  }
+
+  private void givenUser(String email) throws Exception {
+    User user = new User();
+    user.setFirstName("Ada");
+    user.setEmail(email);
+    when(userDao.findByAccountIdAndEmail(ACCOUNT_ID, email)).thenReturn(user);
+    when(otpService.generateAndStoreOtp(email)).thenReturn("123456");
+  }
+
+  @Test
+  void resendsWithinTheCooldownReuseThePendingEmail() throws Exception {
+    givenUser("invited@example.com");
+
+    OtpResendResponseDto first =
+        userService.resendOtpForUserCreation(ACCOUNT_ID, "invited@example.com");
+    OtpResendResponseDto second =
+        userService.resendOtpForUserCreation(ACCOUNT_ID, "Invited@Example.com");
+
+    assertThat(first.isResent()).isTrue();
+    assertThat(first.getRetryAfterSeconds()).isEqualTo(60);
+    assertThat(second.isResent()).isFalse();
+    assertThat(second.getRetryAfterSeconds()).isBetween(1L, 60L);
+    verify(notificationService, times(1))
+        .resendOtpForUserCreation(eq("Ada"), eq("invited@example.com"), any());
+  }
+
+  private static UserCreateRequestDto invitation(String email) {
+    UserCreateRequestDto request = new UserCreateRequestDto();
+    request.setFirstName("Ada");
+    request.setEmail(email);
+    return request;
+  }
+
+  @Test
+  void creatingAUserStartsTheCooldownOfItsEmailAcrossAccounts() throws Exception {
+    when(userDao.create(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(otpService.generateAndStoreOtp(any())).thenReturn("123456");
+
+    userService.createUser(invitation("invited@example.com"), ACCOUNT_ID);
+    userService.createUser(invitation("Invited@Example.com"), ACCOUNT_ID + 1);
+    givenUser("invited@example.com");
+
+    verify(notificationService, times(1)).sendUserCreationWithLink(eq("Ada"), any(), any());
+    assertThat(userService.resendOtpForUserCreation(ACCOUNT_ID, "invited@example.com").isResent())
+        .isFalse();
+  }
+
+  @Test
+  void aFailedResendDoesNotStartTheCooldown() throws Exception {
+    givenUser("root@example.com");
+    doThrow(new ServiceLayerException("SMTP is down"))
+        .doNothing()
+        .when(notificationService)
+        .resendOtpForAccountCreation("Ada", "root@example.com", "123456");
+
+    assertThatThrownBy(
+            () -> userService.resendOtpForAccountCreation(ACCOUNT_ID, "root@example.com"))
+        .isInstanceOf(ServiceLayerException.class);
+
+    assertThat(userService.resendOtpForAccountCreation(ACCOUNT_ID, "root@example.com").isResent())
+        .isTrue();
+  }
+}
@@ -0,0 +1,103 @@
+package com.spring.security.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import javax.sql.DataSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * An embedded PostgreSQL server with the application schema applied, and MyBatis mappers over it
+ * that take part in Spring-managed transactions, as they do in the application.
+ *
+ * <pre>{@code
+ * database = EmbeddedDatabase.start();
+ * OtpDao otpDao = new OtpDaoImpl(database.mapper(OtpMapper.class));
+ * }</pre>
+ */
+public final class EmbeddedDatabase implements AutoCloseable {
+
+  private final EmbeddedPostgres postgres;
+  private final DataSource dataSource;
+  private final SqlSessionTemplate sqlSession;
+  private final DataSourceTransactionManager transactionManager;
+
+  private EmbeddedDatabase(EmbeddedPostgres postgres) throws Exception {
+    this.postgres = postgres;
+    this.dataSource = postgres.getPostgresDatabase();
+    // Done by spring.sql.init in the application
+    new ResourceDatabasePopulator(
+            new ClassPathResource("db/schema.sql"), new ClassPathResource("db/data.sql"))
+        .execute(dataSource);
+    SqlSessionFactoryBean factory = new SqlSessionFactoryBean();
+    factory.setDataSource(dataSource);
+    SqlSessionFactory sqlSessionFactory = factory.getObject();
+    this.sqlSession = new SqlSessionTemplate(sqlSessionFactory);
+    this.transactionManager = new DataSourceTransactionManager(dataSource);
+  }
+
+  /**
+   * Starts a server and applies the schema and seed data.
+   *
+   * @return the database
+   */
+  public static EmbeddedDatabase start() throws Exception {
+    return new EmbeddedDatabase(EmbeddedPostgres.builder().start());
+  }
+
+  /** Returns the data source of the database. */
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  /** Returns a JdbcTemplate over the database, for fixtures and assertions. */
+  public JdbcTemplate jdbc() {
+    return new JdbcTemplate(dataSource);
+  }
+
+  /** Returns a template running callbacks in a read-write transaction. */
+  public TransactionTemplate transactionTemplate() {
+    return new TransactionTemplate(transactionManager);
+  }
+
+  /** Returns the transaction manager of the database. */
+  public DataSourceTransactionManager getTransactionManager() {
+    return transactionManager;
+  }
+
+  /**
+   * Returns a mapper, registering it on first use.
+   *
+   * @param type the mapper interface
+   * @return the mapper
+   */
+  public synchronized <T> T mapper(Class<T> type) {
+    Configuration configuration = sqlSession.getConfiguration();
+    if (!configuration.hasMapper(type)) {
+      configuration.addMapper(type);
+    }
+    return sqlSession.getMapper(type);
+  }
+
+  /**
+   * Adds a MyBatis plugin to the mappers of the database, as the application registers its
+   * interceptor beans.
+   *
+   * @param interceptor the plugin
+   */
+  public void addInterceptor(Interceptor interceptor) {
+    sqlSession.getConfiguration().addInterceptor(interceptor);
+  }
+
+  @Override
+  public void close() throws Exception {
+    postgres.close();
+  }
+}
@@ -0,0 +1,55 @@
+package com.spring.security.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spring.security.filter.StatementBudgetFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * MockMvc result matchers on the number of SQL statements a request ran, read from the header set
+ * by {@link StatementBudgetFilter}. Tests using them need {@code sql.budget.expose-header=true}.
+ *
+ * <pre>{@code
+ * mockMvc.perform(patch("/api/v1/accounts/1/users/2").content(body))
+ *     .andExpect(status().isNoContent())
+ *     .andExpect(maxQueries(10));
+ * }</pre>
+ */
+public final class StatementCountMatchers {
+
+  private StatementCountMatchers() {}
+
+  /**
+   * Asserts that the request ran at most {@code max} SQL statements.
+   *
+   * @param max the maximum number of statements
+   * @return the result matcher
+   */
+  public static ResultMatcher maxQueries(int max) {
+    return result ->
+        assertThat(count(result.getResponse().getHeader(StatementBudgetFilter.HEADER)))
+            .as("SQL statements run by %s", result.getRequest().getRequestURI())
+            .isLessThanOrEqualTo(max);
+  }
+
+  /**
+   * Asserts that the request ran exactly {@code expected} SQL statements.
+   *
+   * @param expected the expected number of statements
+   * @return the result matcher
+   */
+  public static ResultMatcher queries(int expected) {
+    return result ->
+        assertThat(count(result.getResponse().getHeader(StatementBudgetFilter.HEADER)))
+            .as("SQL statements run by %s", result.getRequest().getRequestURI())
+            .isEqualTo(expected);
+  }
+
+  private static int count(String header) {
+    if (header == null) {
+      throw new AssertionError(
+          "No " + StatementBudgetFilter.HEADER + " header; set sql.budget.expose-header=true");
+    }
+    return Integer.parseInt(header);
+  }
+}
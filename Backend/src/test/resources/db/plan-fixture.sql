@@ -0,0 +1,47 @@
+-- Fixture for MapperQueryPlanTest: enough rows per table that the planner prefers an index
+-- wherever one applies, so a missing index shows up as a sequential scan.
+-- 1000 accounts x 100 users, 10 roles per account, 20k OTPs, 300k activity logs.
+
+INSERT INTO accounts (name, description, type, status, created_by)
+SELECT 'account-' || a, 'Fixture account', 'ORGANIZATION',
+       CASE WHEN a % 50 = 0 THEN 'DELETED' ELSE 'ACTIVE' END, 'fixture'
+FROM generate_series(1, 1000) a;
+
+INSERT INTO roles (name, description, account_id, created_by)
+SELECT CASE WHEN r = 1 THEN 'ROOT' ELSE 'ROLE_' || r END, 'Fixture role', a.id, 'fixture'
+FROM accounts a, generate_series(1, 10) r;
+
+INSERT INTO role_permissions (role_id, permission_id)
+SELECT r.id, p.id FROM roles r JOIN permissions p ON (r.id + p.id) % 3 = 0;
+
+INSERT INTO users (first_name, last_name, email, password, type, status, account_id,
+                   failed_login_attempts, is_root, created_by)
+SELECT 'User', u::text, 'user' || u || '@' || a.name || '.fixture', 'x', 'PASSWORD',
+       CASE WHEN u % 10 = 0 THEN 'INACTIVE' ELSE 'ACTIVE' END, a.id, u % 7 / 6, u = 1, 'fixture'
+FROM accounts a, generate_series(1, 100) u;
+
+INSERT INTO user_roles (user_id, role_id)
+SELECT u.id, r.id FROM users u
+JOIN roles r ON r.account_id = u.account_id
+ AND r.name = CASE WHEN u.is_root THEN 'ROOT' ELSE 'ROLE_' || (2 + u.id % 9) END;
+
+INSERT INTO otp_codes (user_id, email, otp, created_at, expires_at)
+SELECT id, email, '123456', now(),
+       now() + CASE WHEN id % 50 = 0 THEN interval '-1 hour' ELSE interval '10 minutes' END
+FROM users WHERE id % 5 = 0;
+
+INSERT INTO activity_logs (user_id, user_email, account_id, action, entity_type, entity_id,
+                           description, created_at)
+SELECT u.id, u.email, u.account_id, 'LOGIN', 'USER', u.id, 'Fixture activity',
+       now() - (n * 24 + u.id % 24) * interval '1 hour'
+FROM users u, generate_series(1, 3) n;
+
+INSERT INTO email_outbox (recipient, subject, template, status, next_attempt_at)
+SELECT 'user' || n || '@outbox.fixture', 'Fixture', 'RESEND_OTP',
+       CASE WHEN n % 100 = 0 THEN 'DEAD' ELSE 'PENDING' END, now() + n * interval '1 second'
+FROM generate_series(1, 10000) n;
+
+INSERT INTO account_reaper_jobs (account_id)
+SELECT id FROM accounts WHERE status = 'DELETED';
+
+ANALYZE;